@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源预压缩（构建步骤）
+ * 为输出目录中的文本资源生成 .gz 和 .br 压缩文件，运行时由 EncodedResourceResolver 按 Accept-Encoding
+ * 直接返回压缩文件，请求时不再压缩（见 StaticResourceConfig）。
+ * <ul>
+ *     <li>gzip 使用 JDK 的最高压缩级别，文件头不含时间戳，相同内容的构建结果相同</li>
+ *     <li>JDK 没有 brotli 编码器，PATH 中有 brotli 命令时才生成 .br，否则跳过并删除旧的 .br</li>
+ *     <li>压缩后没有变小的文件不生成压缩版本</li>
+ * </ul>
+ * 发布构建（mvn -Prelease）由 exec-maven-plugin 在 process-resources 阶段以单文件源码方式运行，
+ * 每次复制资源后都重新生成，不会留下与原文件不一致的旧压缩文件；之后的开发构建留下的旧压缩文件
+ * 比重新复制的原文件旧，StaticResourceConfig 不会返回它们。也可以手动运行：
+ * java src/build/PrecompressStaticAssets.java target/classes/static
+ */
+public class PrecompressStaticAssets {
+
+    private static final Set<String> EXTENSIONS = Set.of("js", "css", "html", "svg", "json", "txt", "map");
+    private static final Set<String> ENCODED_SUFFIXES = Set.of(".gz", ".br");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("用法: java PrecompressStaticAssets.java <静态资源目录>");
+            System.exit(2);
+        }
+        Path root = Path.of(args[0]);
+        if (!Files.isDirectory(root)) {
+            System.out.println("[precompress] 目录不存在，跳过: " + root);
+            return;
+        }
+        boolean brotli = brotliAvailable();
+        if (!brotli) {
+            System.out.println("[precompress] 未找到 brotli 命令，只生成 gzip 版本");
+        }
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).filter(PrecompressStaticAssets::compressible).toList();
+        }
+        long originalBytes = 0;
+        long gzipBytes = 0;
+        long brotliBytes = 0;
+        for (Path file : files) {
+            long size = Files.size(file);
+            originalBytes += size;
+            gzipBytes += keepIfSmaller(gzip(file), size);
+            Path br = sibling(file, ".br");
+            if (brotli) {
+                brotliBytes += keepIfSmaller(brotli(file, br), size);
+            } else {
+                Files.deleteIfExists(br);
+            }
+        }
+        System.out.printf("[precompress] %d 个文件，原始 %d 字节，gzip %d 字节%s%n", files.size(), originalBytes,
+                gzipBytes, brotli ? "，brotli " + brotliBytes + " 字节" : "");
+    }
+
+    private static boolean compressible(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))
+                && ENCODED_SUFFIXES.stream().noneMatch(name::endsWith);
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * 压缩文件不比原文件小时删除它，返回保留的压缩文件大小（删除时计为原文件大小）
+     */
+    private static long keepIfSmaller(Path encoded, long originalSize) throws IOException {
+        if (encoded == null) {
+            return originalSize;
+        }
+        long size = Files.size(encoded);
+        if (size >= originalSize) {
+            Files.delete(encoded);
+            return originalSize;
+        }
+        return size;
+    }
+
+    private static Path gzip(Path file) throws IOException {
+        Path gz = sibling(file, ".gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz), 64 * 1024) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            Files.copy(file, out);
+        }
+        return gz;
+    }
+
+    private static Path brotli(Path file, Path br) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("brotli", "--force", "--quality=11", "--output=" + br, file.toString())
+                .inheritIO()
+                .start();
+        if (process.waitFor() != 0) {
+            System.out.println("[precompress] brotli 压缩失败，跳过: " + file);
+            Files.deleteIfExists(br);
+            return null;
+        }
+        return br;
+    }
+
+    private static boolean brotliAvailable() {
+        try {
+            Process process = new ProcessBuilder("brotli", "--version").redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.pictionary.bulkhead;
+
+import com.pictionary.cancellation.CancellationToken;
+import com.pictionary.monitor.RecognitionContext;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 隔离舱：固定线程数、有界等待队列的线程池
+ * 线程和队列都已满时立即拒绝（抛出 {@link BulkheadRejectedException}），调用方不会排队等待，
+ * 一类工作的过载不会占用其它隔离舱的线程。
+ * 提交任务时把当前线程的识别请求上下文带到工作线程，JFR事件仍能标注识别服务名称；
+ * 识别请求被取消时，尚未开始的任务直接失败，正在执行的任务所在线程被中断。
+ */
+public class Bulkhead implements Executor {
+
+    private final String name;
+    private final int threads;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int threads, int queueCapacity) {
+        if (threads <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("隔离舱 " + name + " 配置无效: threads=" + threads + ", queueCapacity=" + queueCapacity);
+        }
+        this.name = name;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                // 队列长度为0时不排队，没有空闲线程就拒绝
+                queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new WorkerThread(this, runnable, "bulkhead-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.increment();
+                    throw new BulkheadRejectedException(name);
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @throws BulkheadRejectedException 线程和队列都已满
+     */
+    @Override
+    public void execute(Runnable task) {
+        String provider = RecognitionContext.getProvider();
+        CancellationToken cancellation = RecognitionContext.getCancellation();
+        executor.execute(() -> {
+            enter(provider, cancellation);
+            try {
+                task.run();
+            } finally {
+                exit(cancellation);
+            }
+        });
+    }
+
+    /**
+     * 异步执行任务，识别请求已被取消时任务不再执行，结果以 CancellationException 失败
+     *
+     * @param task 任务
+     * @return 任务结果
+     * @throws BulkheadRejectedException 线程和队列都已满
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            RecognitionContext.throwIfCancelled("排队中的任务");
+            return task.get();
+        }, this);
+    }
+
+    /**
+     * 在隔离舱中执行任务并等待结果，已经在本隔离舱的线程中时直接执行，避免线程互相等待
+     *
+     * @param task 任务
+     * @return 任务结果
+     * @throws BulkheadRejectedException 线程和队列都已满
+     * @throws Exception                 任务抛出的异常
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        if (Thread.currentThread() instanceof WorkerThread worker && worker.bulkhead == this) {
+            return task.call();
+        }
+        String provider = RecognitionContext.getProvider();
+        CancellationToken cancellation = RecognitionContext.getCancellation();
+        if (cancellation != null) {
+            cancellation.throwIfCancelled("隔离舱任务");
+        }
+        Future<T> future = executor.submit(() -> {
+            enter(provider, cancellation);
+            try {
+                RecognitionContext.throwIfCancelled("排队中的任务");
+                return task.call();
+            } finally {
+                exit(cancellation);
+            }
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 在工作线程中恢复识别请求上下文，执行期间线程登记在取消标记上，请求被取消时被中断
+     */
+    private static void enter(String provider, CancellationToken cancellation) {
+        RecognitionContext.setProvider(provider);
+        RecognitionContext.setCancellation(cancellation);
+        if (cancellation != null) {
+            cancellation.attach();
+        }
+    }
+
+    private static void exit(CancellationToken cancellation) {
+        if (cancellation != null) {
+            cancellation.detach();
+        }
+        RecognitionContext.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 饱和度：(执行中 + 排队中) / (线程数 + 队列长度)，达到1时开始拒绝任务
+     *
+     * @return 0到1之间的饱和度
+     */
+    public double getSaturation() {
+        return (double) (executor.getActiveCount() + executor.getQueue().size()) / (threads + queueCapacity);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 隔离舱的工作线程，用于识别当前线程是否属于某个隔离舱
+     */
+    private static final class WorkerThread extends Thread {
+        private final Bulkhead bulkhead;
+
+        WorkerThread(Bulkhead bulkhead, Runnable runnable, String name) {
+            super(runnable, name);
+            this.bulkhead = bulkhead;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.pictionary.bulkhead;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 隔离舱线程池配置
+ * 属性前缀为 pictionary.bulkhead
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.bulkhead")
+public class BulkheadProperties {
+
+    // 图像解码、缩放、编码等CPU密集型处理，线程数为0时取CPU核数
+    private Pool cpu = new Pool(0, 64);
+
+    // 每个识别服务一个上游调用线程池，未单独配置的识别服务使用这里的默认值
+    private Pool io = new Pool(16, 64);
+
+    // 各识别服务（Bean名称）单独的上游调用线程池配置
+    private Map<String, Pool> providers = new HashMap<>();
+
+    @Data
+    public static class Pool {
+
+        // 线程数
+        private int threads;
+
+        // 等待队列长度，队列已满时拒绝新任务
+        private int queueCapacity;
+
+        public Pool() {
+        }
+
+        public Pool(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.pictionary.bulkhead;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 隔离舱线程池和等待队列都已满，任务被拒绝
+ */
+public class BulkheadRejectedException extends RejectedExecutionException {
+
+    private final String bulkhead;
+
+    public BulkheadRejectedException(String bulkhead) {
+        super("隔离舱 " + bulkhead + " 已满，任务被拒绝");
+        this.bulkhead = bulkhead;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,115 @@
+package com.pictionary.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 隔离舱注册表
+ * 一个CPU隔离舱负责图像解码和处理，每个识别服务一个I/O隔离舱负责上游调用。
+ * 每个隔离舱的线程、队列、饱和度和拒绝次数都导出为 Micrometer 指标（pictionary.bulkhead.*，按 bulkhead 标签区分），
+ * 可通过 /actuator/metrics 查看。
+ */
+@Component
+@Slf4j
+public class Bulkheads {
+
+    public static final String CPU = "cpu";
+
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Bulkhead cpu;
+    private final Map<String, Bulkhead> io = new ConcurrentHashMap<>();
+
+    public Bulkheads(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        BulkheadProperties.Pool pool = properties.getCpu();
+        int threads = pool.getThreads() > 0 ? pool.getThreads() : Runtime.getRuntime().availableProcessors();
+        this.cpu = register(new Bulkhead(CPU, threads, pool.getQueueCapacity()), "cpu");
+    }
+
+    /**
+     * CPU密集型处理（图像解码、缩放、编码、笔画光栅化）使用的隔离舱
+     *
+     * @return CPU隔离舱
+     */
+    public Bulkhead cpu() {
+        return cpu;
+    }
+
+    /**
+     * 识别服务的上游调用隔离舱，第一次使用时创建
+     *
+     * @param provider 识别服务Bean名称
+     * @return I/O隔离舱
+     */
+    public Bulkhead io(String provider) {
+        return io.computeIfAbsent(provider, name -> {
+            BulkheadProperties.Pool pool = properties.getProviders().getOrDefault(name, properties.getIo());
+            log.info("创建识别服务 {} 的上游调用隔离舱: threads={}, queueCapacity={}", name, pool.getThreads(), pool.getQueueCapacity());
+            return register(new Bulkhead(name, pool.getThreads(), pool.getQueueCapacity()), "io");
+        });
+    }
+
+    /**
+     * 所有隔离舱的实时状态
+     *
+     * @return 状态列表
+     */
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        list.add(stats(cpu, "cpu"));
+        io.values().forEach(bulkhead -> list.add(stats(bulkhead, "io")));
+        return list;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cpu.shutdown();
+        io.values().forEach(Bulkhead::shutdown);
+    }
+
+    private Bulkhead register(Bulkhead bulkhead, String type) {
+        Tags tags = Tags.of("bulkhead", bulkhead.getName(), "type", type);
+        Gauge.builder("pictionary.bulkhead.threads.active", bulkhead, Bulkhead::getActiveCount)
+                .tags(tags).description("正在执行任务的线程数").register(meterRegistry);
+        Gauge.builder("pictionary.bulkhead.threads.max", bulkhead, Bulkhead::getThreads)
+                .tags(tags).description("最大线程数").register(meterRegistry);
+        Gauge.builder("pictionary.bulkhead.queue.size", bulkhead, Bulkhead::getQueueSize)
+                .tags(tags).description("排队中的任务数").register(meterRegistry);
+        Gauge.builder("pictionary.bulkhead.queue.capacity", bulkhead, Bulkhead::getQueueCapacity)
+                .tags(tags).description("等待队列长度").register(meterRegistry);
+        Gauge.builder("pictionary.bulkhead.saturation", bulkhead, Bulkhead::getSaturation)
+                .tags(tags).description("(执行中 + 排队中) / (线程数 + 队列长度)").register(meterRegistry);
+        FunctionCounter.builder("pictionary.bulkhead.completed", bulkhead, Bulkhead::getCompletedCount)
+                .tags(tags).description("已完成的任务数").register(meterRegistry);
+        FunctionCounter.builder("pictionary.bulkhead.rejected", bulkhead, Bulkhead::getRejectedCount)
+                .tags(tags).description("因线程和队列已满被拒绝的任务数").register(meterRegistry);
+        return bulkhead;
+    }
+
+    private static Map<String, Object> stats(Bulkhead bulkhead, String type) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("name", bulkhead.getName());
+        item.put("type", type);
+        item.put("threads", bulkhead.getThreads());
+        item.put("active", bulkhead.getActiveCount());
+        item.put("queueSize", bulkhead.getQueueSize());
+        item.put("queueCapacity", bulkhead.getQueueCapacity());
+        item.put("saturation", bulkhead.getSaturation());
+        item.put("completed", bulkhead.getCompletedCount());
+        item.put("rejected", bulkhead.getRejectedCount());
+        return item;
+    }
+}
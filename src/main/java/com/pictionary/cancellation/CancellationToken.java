@@ -0,0 +1,105 @@
+package com.pictionary.cancellation;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 一次识别请求的取消标记
+ * 客户端放弃等待（超时、断开或主动取消）后，由请求方调用 {@link #cancel(Reason)}：
+ * 尚未开始的环节（光栅化、预处理、获取令牌、上游调用）在开始前检查标记并跳过，
+ * 正在为这次请求阻塞的隔离舱线程被中断，进行中的上游HTTP调用随之中止。
+ */
+public final class CancellationToken {
+
+    /**
+     * 取消原因，对应的指标标签
+     */
+    public enum Reason {
+        // 异步请求超时（spring.mvc.async.request-timeout）
+        TIMEOUT,
+        // 客户端断开连接，写响应失败或容器报告异步请求出错
+        DISCONNECT,
+        // 客户端主动取消：清除画布、发起了新的猜测或关闭页面
+        CLIENT;
+
+        /**
+         * @return 指标标签
+         */
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // 正在为这次请求执行任务的线程，取消时中断；只在持有锁时修改和中断，线程离开后不会再被中断
+    private final Set<Thread> threads = new HashSet<>();
+    private volatile Reason reason;
+
+    /**
+     * 取消请求，只有第一次调用生效
+     *
+     * @param reason 取消原因
+     * @return 本次调用是否取消了请求（已经取消过时返回false）
+     */
+    public boolean cancel(Reason reason) {
+        synchronized (this) {
+            if (this.reason != null) {
+                return false;
+            }
+            this.reason = reason;
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    /**
+     * @return 取消原因，未取消时返回null
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * 在开始一个耗时环节前调用
+     *
+     * @param stage 即将开始的环节，用于异常信息
+     * @throws CancellationException 请求已取消
+     */
+    public void throwIfCancelled(String stage) {
+        Reason current = reason;
+        if (current != null) {
+            throw new CancellationException("识别请求已取消（" + current.tag() + "），跳过" + stage);
+        }
+    }
+
+    /**
+     * 登记当前线程正在为这次请求执行任务，取消时会被中断；已经取消时立即中断当前线程
+     * 必须与 {@link #detach()} 成对调用
+     */
+    public synchronized void attach() {
+        Thread current = Thread.currentThread();
+        threads.add(current);
+        if (reason != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * 当前线程的任务结束，不再因取消被中断；清除取消留下的中断标记，线程可以继续执行其它请求的任务
+     */
+    public void detach() {
+        synchronized (this) {
+            threads.remove(Thread.currentThread());
+        }
+        if (reason != null) {
+            Thread.interrupted();
+        }
+    }
+}
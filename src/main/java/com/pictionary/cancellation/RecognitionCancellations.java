@@ -0,0 +1,126 @@
+package com.pictionary.cancellation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进行中的识别请求的取消标记
+ * 前端为每次猜测生成一个ID（请求头 X-Guess-Id），清除画布、发起新的猜测或关闭页面时按ID取消；
+ * 请求超时和客户端断开由控制器直接取消。同时统计取消的请求和白白浪费的上游调用：
+ * 上游调用已经发出、客户端却已经不再等待结果的次数（识别服务照样计费）。
+ */
+@Component
+@Slf4j
+public class RecognitionCancellations {
+
+    // 进行中的猜测过多时不再登记，防止伪造的ID撑满内存（未登记的请求只是不能按ID取消）
+    private static final int MAX_REGISTERED = 100_000;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, CancellationToken> inFlight = new ConcurrentHashMap<>();
+    private final Map<CancellationToken.Reason, Counter> cancelled = new EnumMap<>(CancellationToken.Reason.class);
+    private final LongAdder wastedCalls = new LongAdder();
+    private final LongAdder abortedCalls = new LongAdder();
+
+    public RecognitionCancellations(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (CancellationToken.Reason reason : CancellationToken.Reason.values()) {
+            cancelled.put(reason, Counter.builder("pictionary.recognition.cancelled")
+                    .description("客户端放弃等待后取消的识别请求数")
+                    .tag("reason", reason.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 为一次识别请求创建取消标记
+     *
+     * @param guessId 前端生成的猜测ID，为空时只能由超时或断开取消
+     * @return 取消标记，请求结束后调用 {@link #close(String, CancellationToken)}
+     */
+    public CancellationToken open(String guessId) {
+        CancellationToken token = new CancellationToken();
+        if (guessId != null && !guessId.isBlank() && inFlight.size() < MAX_REGISTERED) {
+            inFlight.put(guessId, token);
+        }
+        return token;
+    }
+
+    /**
+     * 请求结束，之后按ID取消不再有效
+     */
+    public void close(String guessId, CancellationToken token) {
+        if (guessId != null) {
+            inFlight.remove(guessId, token);
+        }
+    }
+
+    /**
+     * 按猜测ID取消
+     *
+     * @param guessId 猜测ID
+     * @return 是否取消了进行中的请求（请求已结束或已取消时返回false）
+     */
+    public boolean cancel(String guessId, CancellationToken.Reason reason) {
+        CancellationToken token = guessId == null ? null : inFlight.get(guessId);
+        return token != null && cancel(token, reason);
+    }
+
+    /**
+     * 取消请求并计数
+     *
+     * @return 是否取消了请求（已经取消过时返回false）
+     */
+    public boolean cancel(CancellationToken token, CancellationToken.Reason reason) {
+        if (!token.cancel(reason)) {
+            return false;
+        }
+        cancelled.get(reason).increment();
+        log.debug("识别请求已取消: {}", reason.tag());
+        return true;
+    }
+
+    /**
+     * 记录一次上游调用结束，调用过程中请求被取消时计为浪费的调用
+     *
+     * @param provider     识别服务名称，未知时为null
+     * @param cancellation 请求的取消标记，为null时不可取消
+     * @param completed    上游是否返回了响应；为false表示调用被中断或失败
+     */
+    public void onUpstreamCall(String provider, CancellationToken cancellation, boolean completed) {
+        if (cancellation == null || !cancellation.isCancelled()) {
+            return;
+        }
+        (completed ? wastedCalls : abortedCalls).increment();
+        Counter.builder("pictionary.upstream.wasted")
+                .description("上游调用已经发出、客户端已不再等待结果的次数；outcome=aborted 表示调用被中止")
+                .tag("provider", provider == null ? "unknown" : provider)
+                .tag("outcome", completed ? "completed" : "aborted")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 取消统计
+     *
+     * @return 进行中的请求数、按原因的取消数和浪费的上游调用数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.size());
+        Map<String, Object> byReason = new LinkedHashMap<>();
+        cancelled.forEach((reason, counter) -> byReason.put(reason.tag(), (long) counter.count()));
+        stats.put("cancelled", byReason);
+        stats.put("wastedUpstreamCalls", wastedCalls.sum());
+        stats.put("abortedUpstreamCalls", abortedCalls.sum());
+        return stats;
+    }
+}
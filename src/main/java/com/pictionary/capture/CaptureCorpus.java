@@ -0,0 +1,127 @@
+package com.pictionary.capture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 语料文件格式
+ * 整个文件是一个gzip流，内容为文件头（魔数、版本、采集开始时间）和依次排列的记录：
+ * 记录类型（1字节）、距采集开始的毫秒数，其后是各字段，字符串为 writeUTF 格式，字节数组为长度加内容。
+ * 写入方每批记录后同步刷新压缩流，进程异常退出时文件末尾可能有不完整的记录，读取时忽略。
+ */
+public final class CaptureCorpus {
+
+    static final int MAGIC = 0x50434150;  // "PCAP"
+    static final int VERSION = 1;
+    private static final byte RECOGNIZE = 1;
+    private static final byte UPSTREAM = 2;
+
+    private CaptureCorpus() {
+    }
+
+    /**
+     * 语料文件内容
+     *
+     * @param startEpochMs 采集开始时间
+     * @param records      按写入顺序排列的记录
+     */
+    public record Contents(long startEpochMs, List<CaptureRecord> records) {
+    }
+
+    static void writeHeader(DataOutputStream out, long startEpochMs) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(startEpochMs);
+    }
+
+    static void write(DataOutputStream out, CaptureRecord record) throws IOException {
+        if (record instanceof CaptureRecord.Recognize recognize) {
+            out.writeByte(RECOGNIZE);
+            out.writeLong(recognize.offsetMs());
+            out.writeUTF(recognize.path());
+            out.writeUTF(recognize.query());
+            writeBytes(out, recognize.body());
+        } else if (record instanceof CaptureRecord.Upstream upstream) {
+            out.writeByte(UPSTREAM);
+            out.writeLong(upstream.offsetMs());
+            out.writeUTF(upstream.provider());
+            out.writeUTF(upstream.method());
+            out.writeUTF(upstream.host());
+            out.writeUTF(upstream.path());
+            out.writeUTF(upstream.query());
+            out.writeShort(upstream.status());
+            out.writeInt((int) Math.min(Integer.MAX_VALUE, upstream.latencyMs()));
+            out.writeUTF(upstream.contentType());
+            writeBytes(out, upstream.body());
+        }
+    }
+
+    /**
+     * 读取语料文件，末尾不完整的记录被忽略
+     *
+     * @param file 语料文件
+     * @return 文件内容
+     * @throws IOException 文件不存在或不是语料文件
+     */
+    public static Contents read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    static Contents read(InputStream raw) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw)));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是语料文件");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("不支持的语料文件版本: " + version);
+        }
+        long startEpochMs = in.readLong();
+        List<CaptureRecord> records = new ArrayList<>();
+        try {
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                records.add(switch (type) {
+                    case RECOGNIZE -> new CaptureRecord.Recognize(in.readLong(), in.readUTF(), in.readUTF(), readBytes(in));
+                    case UPSTREAM -> new CaptureRecord.Upstream(in.readLong(), in.readUTF(), in.readUTF(), in.readUTF(),
+                            in.readUTF(), in.readUTF(), in.readUnsignedShort(), in.readInt(), in.readUTF(), readBytes(in));
+                    default -> throw new IOException("未知的记录类型: " + type);
+                });
+            }
+        } catch (EOFException e) {
+            // 进程异常退出时最后一条记录可能不完整
+        }
+        return new Contents(startEpochMs, records);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("记录长度无效: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+}
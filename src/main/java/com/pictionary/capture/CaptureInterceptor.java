@@ -0,0 +1,53 @@
+package com.pictionary.capture;
+
+import com.pictionary.monitor.RecognitionContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * RestTemplate拦截器：把采样到的上游调用和原始响应交给 TrafficCapture
+ * 采样到的调用先读出响应体（最多 max-body-size + 1 字节），再把读出的部分和剩余的流拼接后交给调用方，
+ * 记录的延迟包括读取响应体的时间。
+ */
+public class CaptureInterceptor implements ClientHttpRequestInterceptor {
+
+    private final TrafficCapture capture;
+
+    public CaptureInterceptor(TrafficCapture capture) {
+        this.capture = capture;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        String method = request.getMethod().name();
+        if (!capture.shouldCapture(method, request.getURI())) {
+            return execution.execute(request, body);
+        }
+        long start = System.nanoTime();
+        ClientHttpResponse response = execution.execute(request, body);
+        byte[] head;
+        InputStream rest;
+        try {
+            rest = response.getBody();
+            head = rest.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, capture.getMaxBodyBytes() + 1));
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+        long latencyMs = (System.nanoTime() - start) / 1_000_000;
+        HttpHeaders headers = response.getHeaders();
+        String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        capture.onUpstream(RecognitionContext.getProvider(), method, request.getURI(), response.getStatusCode().value(),
+                latencyMs, contentType, head);
+        return new RecordedResponse(response.getStatusCode(), response.getStatusText(), headers,
+                new SequenceInputStream(new ByteArrayInputStream(head), rest), response);
+    }
+}
@@ -0,0 +1,31 @@
+package com.pictionary.capture;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 流量采集配置
+ * 属性前缀为 pictionary.capture
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.capture")
+public class CaptureProperties {
+
+    // 采样率：识别请求（绘画会话按会话ID整体采样）和上游调用各自按该概率记录；每个上游接口的第一次调用总是记录
+    private double sampleRate = 0.01;
+
+    // 语料文件目录，每次启动新建一个文件
+    private String directory = "./data/capture";
+
+    // 单个语料文件（压缩后）的大小上限，达到后停止记录
+    private DataSize maxFileSize = DataSize.ofMegabytes(512);
+
+    // 请求体或响应体超过该大小的记录不保存
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+    // 待写入队列容量，写满时丢弃新记录，不阻塞请求
+    private int queueCapacity = 1024;
+}
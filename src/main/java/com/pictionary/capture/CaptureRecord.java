@@ -0,0 +1,41 @@
+package com.pictionary.capture;
+
+/**
+ * 语料中的一条记录，格式见 CaptureCorpus
+ */
+public sealed interface CaptureRecord permits CaptureRecord.Recognize, CaptureRecord.Upstream {
+
+    /**
+     * @return 距采集开始的毫秒数
+     */
+    long offsetMs();
+
+    /**
+     * 一次识别请求
+     *
+     * @param offsetMs 距采集开始的毫秒数
+     * @param path     请求路径，如 /api/recognize 或 /api/recognize/sessions/{id}
+     * @param query    查询字符串，没有时为空字符串
+     * @param body     JSON请求体
+     */
+    record Recognize(long offsetMs, String path, String query, byte[] body) implements CaptureRecord {
+    }
+
+    /**
+     * 一次上游调用及其原始响应（已脱敏）
+     *
+     * @param offsetMs    距采集开始的毫秒数
+     * @param provider    发起调用的识别服务，未知时为空字符串
+     * @param method      HTTP方法
+     * @param host        上游主机
+     * @param path        请求路径
+     * @param query       脱敏后的查询字符串
+     * @param status      响应状态码
+     * @param latencyMs   从发出请求到读完响应体的时间
+     * @param contentType 响应的 Content-Type，没有时为空字符串
+     * @param body        脱敏后的响应体
+     */
+    record Upstream(long offsetMs, String provider, String method, String host, String path, String query,
+                    int status, long latencyMs, String contentType, byte[] body) implements CaptureRecord {
+    }
+}
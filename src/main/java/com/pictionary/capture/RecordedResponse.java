@@ -0,0 +1,62 @@
+package com.pictionary.capture;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 响应体已被读出（采集）或来自语料（回放）的上游响应
+ */
+class RecordedResponse implements ClientHttpResponse {
+
+    private final HttpStatusCode statusCode;
+    private final String statusText;
+    private final HttpHeaders headers;
+    private final InputStream body;
+    // 采集时关闭原始响应，回放时为null
+    private final Closeable delegate;
+
+    RecordedResponse(HttpStatusCode statusCode, String statusText, HttpHeaders headers, InputStream body, Closeable delegate) {
+        this.statusCode = statusCode;
+        this.statusText = statusText;
+        this.headers = headers;
+        this.body = body;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public String getStatusText() {
+        return statusText;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public void close() {
+        try {
+            body.close();
+            if (delegate != null) {
+                delegate.close();
+            }
+        } catch (IOException e) {
+            // 与 ClientHttpResponse 的其他实现一致，关闭失败时忽略
+        }
+    }
+}
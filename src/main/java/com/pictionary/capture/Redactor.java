@@ -0,0 +1,84 @@
+package com.pictionary.capture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 语料脱敏：去掉查询参数和响应体中的密钥和访问令牌
+ * 请求头（Authorization、Volc-Access-Key）和上游请求体（带有 client_secret）不写入语料，不需要脱敏。
+ */
+public final class Redactor {
+
+    static final String REDACTED = "REDACTED";
+
+    private static final Set<String> SENSITIVE_NAMES = Set.of(
+            "access_token", "refresh_token", "client_id", "client_secret", "api_key", "apikey", "secret_key",
+            "session_key", "session_secret", "token", "key", "ak", "sk", "authorization");
+
+    // JSON中值为字符串的敏感字段
+    private static final Pattern JSON_FIELD = Pattern.compile(
+            "\"(access_token|refresh_token|client_id|client_secret|api_key|apikey|secret_key|session_key|session_secret|authorization)\"\\s*:\\s*\"(?:[^\"\\\\]|\\\\.)*\"",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern BEARER = Pattern.compile("Bearer\\s+[A-Za-z0-9._~+/=-]+");
+
+    private Redactor() {
+    }
+
+    /**
+     * @param query 原始查询字符串，可以为null
+     * @return 敏感参数的值替换为 REDACTED 后的查询字符串，没有时为空字符串
+     */
+    public static String redactQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        StringBuilder redacted = new StringBuilder(query.length());
+        for (String pair : query.split("&")) {
+            if (!redacted.isEmpty()) {
+                redacted.append('&');
+            }
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            if (eq >= 0 && SENSITIVE_NAMES.contains(name.toLowerCase(Locale.ROOT))) {
+                redacted.append(name).append('=').append(REDACTED);
+            } else {
+                redacted.append(pair);
+            }
+        }
+        return redacted.toString();
+    }
+
+    /**
+     * 脱敏文本响应体（JSON、SSE、表单），二进制响应体原样返回
+     *
+     * @param body        响应体
+     * @param contentType 响应的 Content-Type，可以为null
+     * @return 脱敏后的响应体
+     */
+    public static byte[] redactBody(byte[] body, String contentType) {
+        if (body.length == 0 || !isText(contentType)) {
+            return body;
+        }
+        String text = new String(body, StandardCharsets.UTF_8);
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("x-www-form-urlencoded")) {
+            String redacted = redactQuery(text);
+            return redacted.equals(text) ? body : redacted.getBytes(StandardCharsets.UTF_8);
+        }
+        Matcher matcher = JSON_FIELD.matcher(text);
+        String redacted = matcher.replaceAll(match -> Matcher.quoteReplacement("\"" + match.group(1) + "\":\"" + REDACTED + "\""));
+        redacted = BEARER.matcher(redacted).replaceAll("Bearer " + REDACTED);
+        return redacted.equals(text) ? body : redacted.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isText(String contentType) {
+        if (contentType == null || contentType.isEmpty()) {
+            // 上游没有声明类型时按文本处理，宁可多脱敏
+            return true;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("json") || type.contains("x-www-form-urlencoded");
+    }
+}
@@ -0,0 +1,36 @@
+package com.pictionary.capture;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 语料回放配置
+ * 属性前缀为 pictionary.replay
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.replay")
+public class ReplayProperties {
+
+    // 语料文件（TrafficCapture 写出的 .cap.gz 文件）
+    private String corpus;
+
+    // 上游替身按记录的延迟乘以该系数响应，0表示立即响应
+    private double latencyScale = 1.0;
+
+    // 按记录的请求间隔发送识别请求的速度倍数，0表示不等待、只受并发数限制
+    private double speed = 1.0;
+
+    // 同时在途的识别请求数上限
+    private int parallelism = 16;
+
+    // 回放的识别请求数上限，0表示不限制
+    private long limit = 0;
+
+    // 报告输出目录，为空时只打印到日志
+    private String reportDir;
+
+    // 回放结束后是否退出应用
+    private boolean exitOnFinish = true;
+}
@@ -0,0 +1,157 @@
+package com.pictionary.capture;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 回放模式下的上游替身：RestTemplate 的请求不再发往第三方API，而是在进程内用语料中记录的响应回答
+ * 同一个接口（方法 主机 路径）的记录按采集顺序循环使用，每次先等待记录的延迟（乘以 latency-scale）再返回，
+ * 等待占用调用线程，与真实的阻塞调用一样；线程被中断（识别请求被取消）时立即中止。
+ * 语料中没有记录的接口返回404。豆包的流式请求不经过 RestTemplate，回放模式下也直接调用 createRequest，
+ * 由记录的SSE响应回答。
+ */
+@Slf4j
+public class ReplayRequestFactory implements ClientHttpRequestFactory {
+
+    private final Map<String, Endpoint> endpoints = new HashMap<>();
+    private final double latencyScale;
+    private final Set<String> missingEndpoints = ConcurrentHashMap.newKeySet();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class Endpoint {
+        final List<CaptureRecord.Upstream> records = new ArrayList<>();
+        final AtomicInteger next = new AtomicInteger();
+
+        CaptureRecord.Upstream next() {
+            return records.get(Math.floorMod(next.getAndIncrement(), records.size()));
+        }
+    }
+
+    /**
+     * @param records      语料中的记录，只使用上游调用记录
+     * @param latencyScale 延迟系数，0表示立即响应
+     */
+    public ReplayRequestFactory(List<CaptureRecord> records, double latencyScale) {
+        if (latencyScale < 0) {
+            throw new IllegalArgumentException("延迟系数不能为负数: " + latencyScale);
+        }
+        this.latencyScale = latencyScale;
+        for (CaptureRecord record : records) {
+            if (record instanceof CaptureRecord.Upstream upstream) {
+                endpoints.computeIfAbsent(key(upstream.method(), upstream.host(), upstream.path()), k -> new Endpoint())
+                        .records.add(upstream);
+            }
+        }
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new ReplayRequest(uri, httpMethod);
+    }
+
+    /**
+     * 上游替身统计
+     *
+     * @return 接口数、已回答和没有记录的请求数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpoints", endpoints.size());
+        stats.put("latencyScale", latencyScale);
+        stats.put("served", served.get());
+        stats.put("misses", misses.get());
+        stats.put("missingEndpoints", List.copyOf(missingEndpoints));
+        return stats;
+    }
+
+    private static String key(String method, String host, String path) {
+        return method + " " + host + path;
+    }
+
+    private ClientHttpResponse respond(URI uri, HttpMethod method) throws InterruptedIOException {
+        String key = key(method.name(), uri.getHost() == null ? "" : uri.getHost(), uri.getRawPath() == null ? "" : uri.getRawPath());
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            misses.incrementAndGet();
+            if (missingEndpoints.add(key)) {
+                log.warn("回放语料中没有该接口的记录，返回404: {}", key);
+            }
+            return new RecordedResponse(HttpStatus.NOT_FOUND, HttpStatus.NOT_FOUND.getReasonPhrase(), new HttpHeaders(),
+                    new ByteArrayInputStream(new byte[0]), null);
+        }
+        CaptureRecord.Upstream record = endpoint.next();
+        long delayMs = Math.round(record.latencyMs() * latencyScale);
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("回放的上游调用被中断: " + key);
+            }
+        }
+        served.incrementAndGet();
+        HttpHeaders headers = new HttpHeaders();
+        if (!record.contentType().isEmpty()) {
+            headers.set(HttpHeaders.CONTENT_TYPE, record.contentType());
+        }
+        headers.setContentLength(record.body().length);
+        HttpStatusCode status = HttpStatusCode.valueOf(record.status());
+        HttpStatus resolved = HttpStatus.resolve(record.status());
+        return new RecordedResponse(status, resolved == null ? "" : resolved.getReasonPhrase(), headers,
+                new ByteArrayInputStream(record.body()), null);
+    }
+
+    private class ReplayRequest extends AbstractClientHttpRequest {
+
+        private final URI uri;
+        private final HttpMethod method;
+
+        ReplayRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            // 上游请求体不参与匹配，直接丢弃
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws InterruptedIOException {
+            return respond(uri, method);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.pictionary.capture;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语料回放运行器
+ * 应用启动后把语料中的识别请求按记录的时间间隔（乘以 speed）发到本应用的识别接口，
+ * 上游调用由 ReplayRequestFactory 按记录的响应和延迟回答，整条链路（隔离舱、路由、图像处理、解析）与线上一致，
+ * 相同的语料得到可比较的回归基准。结束后输出状态码分布、吞吐量和延迟分位数。
+ * 豆包的流式和非流式调用记录的响应格式不同（SSE数据块和完整的 choices），回放时 ai.doubao.stream 要与采集时相同。
+ *
+ * 使用方式：
+ * java -jar pictionary.jar --pictionary.replay.enabled=true
+ *      --pictionary.replay.corpus=./data/capture/capture-20260101-120000.cap.gz
+ *      --pictionary.replay.speed=2
+ */
+@Component
+@ConditionalOnProperty(prefix = "pictionary.replay", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReplayRunner implements ApplicationRunner {
+
+    private final ConfigurableApplicationContext applicationContext;
+    private final Environment environment;
+    private final ReplayProperties properties;
+    private final ReplayRequestFactory replayRequestFactory;
+
+    public ReplayRunner(ConfigurableApplicationContext applicationContext, Environment environment,
+                        ReplayProperties properties, ReplayRequestFactory replayRequestFactory) {
+        this.applicationContext = applicationContext;
+        this.environment = environment;
+        this.properties = properties;
+        this.replayRequestFactory = replayRequestFactory;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<CaptureRecord.Recognize> requests = new ArrayList<>();
+        for (CaptureRecord record : CaptureCorpus.read(Path.of(properties.getCorpus())).records()) {
+            if (record instanceof CaptureRecord.Recognize recognize) {
+                requests.add(recognize);
+            }
+        }
+        if (properties.getLimit() > 0 && requests.size() > properties.getLimit()) {
+            requests = requests.subList(0, (int) properties.getLimit());
+        }
+        String baseUrl = "http://localhost:" + environment.getProperty("local.server.port",
+                environment.getProperty("server.port", "8080"));
+        log.info("开始回放: corpus={}, requests={}, speed={}, parallelism={}, target={}",
+                properties.getCorpus(), requests.size(), properties.getSpeed(), properties.getParallelism(), baseUrl);
+
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        long[] latencies = new long[requests.size()];
+        Arrays.fill(latencies, -1);
+        Semaphore inFlight = new Semaphore(Math.max(1, properties.getParallelism()));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        long start = System.nanoTime();
+        long firstOffset = requests.isEmpty() ? 0 : requests.get(0).offsetMs();
+        for (int i = 0; i < requests.size(); i++) {
+            CaptureRecord.Recognize recognize = requests.get(i);
+            if (properties.getSpeed() > 0) {
+                // 按记录的时间间隔发送，保留线上的突发和空闲
+                long dueNanos = start + (long) ((recognize.offsetMs() - firstOffset) * 1_000_000 / properties.getSpeed());
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + recognize.path()
+                            + (recognize.query().isEmpty() ? "" : "?" + recognize.query())))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(recognize.body()))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latencies[index] = (System.nanoTime() - sent) / 1_000_000;
+                statuses.computeIfAbsent(error != null ? -1 : response.statusCode(), s -> new LongAdder()).increment();
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(Math.max(1, properties.getParallelism()));
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        String text = report(latencies, statuses, elapsedSeconds);
+        log.info("\n{}", text);
+        writeReport(text);
+
+        if (properties.isExitOnFinish()) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private String report(long[] latencies, Map<Integer, LongAdder> statuses, double elapsedSeconds) {
+        long[] sorted = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        StringBuilder text = new StringBuilder();
+        text.append("回放报告: ").append(properties.getCorpus()).append('\n');
+        text.append(String.format("请求数: %d，耗时: %.1fs，吞吐量: %.1f req/s%n",
+                sorted.length, elapsedSeconds, elapsedSeconds > 0 ? sorted.length / elapsedSeconds : 0));
+        text.append("状态码:");
+        new TreeMap<>(statuses).forEach((status, count) ->
+                text.append(' ').append(status < 0 ? "连接失败" : status).append('=').append(count.sum()));
+        text.append('\n');
+        if (sorted.length > 0) {
+            text.append(String.format("延迟(ms): p50=%d p90=%d p99=%d max=%d%n",
+                    quantile(sorted, 0.5), quantile(sorted, 0.9), quantile(sorted, 0.99), sorted[sorted.length - 1]));
+        }
+        text.append("上游替身: ").append(replayRequestFactory.getStats()).append('\n');
+        return text.toString();
+    }
+
+    private static long quantile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private void writeReport(String text) throws IOException {
+        if (properties.getReportDir() == null || properties.getReportDir().isBlank()) {
+            return;
+        }
+        Path dir = Files.createDirectories(Path.of(properties.getReportDir()));
+        Path file = dir.resolve("replay-" + Path.of(properties.getCorpus()).getFileName() + ".txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        log.info("回放报告已写入 {}", file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,66 @@
+package com.pictionary.capture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取时复制的输入流：调用方读到的字节同时写入 copy，最多复制 limit 字节
+ * 用于采集不经过 RestTemplate 的流式响应（见 DoubaoImageRecognitionServiceImpl），
+ * 只复制实际读到的部分，调用方提前关闭流时剩余的数据不会被读取。
+ */
+public class TeeInputStream extends FilterInputStream {
+
+    private final ByteArrayOutputStream copy;
+    private final long limit;
+
+    /**
+     * @param in    原始输入流
+     * @param copy  复制的目标
+     * @param limit 最多复制的字节数，超出上限的记录会被 TrafficCapture 丢弃，多复制1字节即可判断
+     */
+    public TeeInputStream(InputStream in, ByteArrayOutputStream copy, long limit) {
+        super(in);
+        this.copy = copy;
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0 && copy.size() < limit) {
+            copy.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            copy.write(b, off, (int) Math.min(n, Math.max(0, limit - copy.size())));
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的字节也要复制，逐块读取
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,273 @@
+package com.pictionary.capture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 线上流量采集
+ * 按采样率记录识别请求和上游调用的原始响应（百度的 words_result、豆包的 choices），写入本地语料文件，
+ * 用于离线复现性能问题和回放压测（见 ReplayRunner）。
+ * <ul>
+ *     <li>识别请求随机采样；绘画会话按会话ID整体采样，回放时增量上传的前后请求都在</li>
+ *     <li>上游调用随机采样，每个上游接口的第一次调用总是记录（访问令牌这种很少调用的接口也有记录可回放）</li>
+ *     <li>RestTemplate 的调用由 CaptureInterceptor 记录；豆包流式接口（ai.doubao.stream=true）不经过 RestTemplate，
+ *     由识别服务在读取SSE响应时复制读到的部分（TeeInputStream），读到第一个词语后提前关闭连接时只记录已读的数据块</li>
+ *     <li>查询参数和响应体中的密钥、令牌在入队前脱敏，见 Redactor；请求头和上游请求体不记录</li>
+ *     <li>请求线程只把记录放入有界队列，由后台线程写入gzip压缩的语料文件，队列已满时丢弃</li>
+ * </ul>
+ */
+@Service
+@ConditionalOnProperty(prefix = "pictionary.capture", name = "enabled", havingValue = "true")
+@Slf4j
+public class TrafficCapture {
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final CaptureProperties properties;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<CaptureRecord> queue;
+    private final long maxBodyBytes;
+    // 已记录过至少一次的上游接口（方法 主机 路径）
+    private final Set<String> seenEndpoints = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong recognizeCaptured = new AtomicLong();
+    private final AtomicLong upstreamCaptured = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong oversized = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private long startEpochMs;
+    private Path file;
+    // 只由写线程访问
+    private FileChannel channel;
+    private DataOutputStream out;
+    private volatile boolean full;
+    private volatile long fileBytes;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TrafficCapture(CaptureProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.maxBodyBytes = properties.getMaxBodySize().toBytes();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path directory = Files.createDirectories(Path.of(properties.getDirectory()));
+        startEpochMs = System.currentTimeMillis();
+        file = directory.resolve("capture-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".cap.gz");
+        FileOutputStream fileOut = new FileOutputStream(file.toFile());
+        channel = fileOut.getChannel();
+        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(fileOut, 64 * 1024, true), 64 * 1024));
+        CaptureCorpus.writeHeader(out, startEpochMs);
+        out.flush();
+
+        running = true;
+        writer = new Thread(this::writeLoop, "traffic-capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("流量采集已启用: file={}, sampleRate={}", file.toAbsolutePath(), properties.getSampleRate());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("关闭语料文件失败: {}", file, e);
+        }
+        log.info("流量采集已停止: recognize={}, upstream={}, dropped={}, file={}",
+                recognizeCaptured.get(), upstreamCaptured.get(), dropped.get(), file.toAbsolutePath());
+    }
+
+    /**
+     * 按采样率记录一次识别请求
+     *
+     * @param path      请求路径
+     * @param provider  查询参数中的识别服务名称，可以为null
+     * @param body      请求体
+     * @param sessionId 绘画会话ID，不是会话请求时为null；同一会话的请求要么都记录，要么都不记录
+     */
+    public void onRecognize(String path, String provider, Map<String, String> body, String sessionId) {
+        boolean sampled = sessionId != null ? sampledKey(sessionId) : ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+        if (!sampled || full) {
+            return;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            failed.incrementAndGet();
+            return;
+        }
+        if (json.length > maxBodyBytes) {
+            oversized.incrementAndGet();
+            return;
+        }
+        String query = provider == null ? "" : "provider=" + URLEncoder.encode(provider, StandardCharsets.UTF_8);
+        if (offer(new CaptureRecord.Recognize(offsetMs(), path, query, json))) {
+            recognizeCaptured.incrementAndGet();
+        }
+    }
+
+    /**
+     * 决定是否记录一次上游调用：每个接口的第一次调用总是记录，其余按采样率
+     */
+    public boolean shouldCapture(String method, URI uri) {
+        if (full) {
+            return false;
+        }
+        return seenEndpoints.add(method + " " + uri.getHost() + uri.getPath())
+                || ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+    }
+
+    /**
+     * 记录一次上游调用，查询参数和响应体在这里脱敏，响应体超过大小上限的不记录
+     */
+    public void onUpstream(String provider, String method, URI uri, int status, long latencyMs, String contentType, byte[] body) {
+        if (body.length > maxBodyBytes) {
+            oversized.incrementAndGet();
+            return;
+        }
+        CaptureRecord.Upstream record = new CaptureRecord.Upstream(offsetMs(), provider == null ? "" : provider, method,
+                uri.getHost() == null ? "" : uri.getHost(), uri.getRawPath() == null ? "" : uri.getRawPath(),
+                Redactor.redactQuery(uri.getRawQuery()), status, latencyMs, contentType == null ? "" : contentType,
+                Redactor.redactBody(body, contentType));
+        if (offer(record)) {
+            upstreamCaptured.incrementAndGet();
+        }
+    }
+
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * 采集统计
+     *
+     * @return 语料文件、已记录和丢弃的记录数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("file", file == null ? null : file.toAbsolutePath().toString());
+        stats.put("fileBytes", fileBytes);
+        stats.put("full", full);
+        stats.put("sampleRate", properties.getSampleRate());
+        stats.put("recognizeCaptured", recognizeCaptured.get());
+        stats.put("upstreamCaptured", upstreamCaptured.get());
+        stats.put("dropped", dropped.get());
+        stats.put("oversized", oversized.get());
+        stats.put("failed", failed.get());
+        stats.put("queued", queue.size());
+        return stats;
+    }
+
+    private boolean sampledKey(String key) {
+        // 把哈希值混合后映射到 [0, 1)，同一个键的采样结果总是相同
+        long hash = key.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (hash >>> 11) * 0x1.0p-53 < properties.getSampleRate();
+    }
+
+    private long offsetMs() {
+        return System.currentTimeMillis() - startEpochMs;
+    }
+
+    private boolean offer(CaptureRecord record) {
+        if (!running || !queue.offer(record)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 后台写入循环：队列取空后同步刷新压缩流，文件里总是完整的若干条记录
+     */
+    private void writeLoop() {
+        while (running) {
+            CaptureRecord record;
+            try {
+                record = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (record != null) {
+                write(record);
+                while ((record = queue.poll()) != null) {
+                    write(record);
+                }
+                flush();
+            }
+        }
+
+        // 关闭前写入队列中剩余的记录
+        CaptureRecord record;
+        while ((record = queue.poll()) != null) {
+            write(record);
+        }
+        flush();
+    }
+
+    private void write(CaptureRecord record) {
+        if (full) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            CaptureCorpus.write(out, record);
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            log.error("写入语料文件失败: {}", file, e);
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+            fileBytes = channel.position();
+            if (!full && fileBytes >= properties.getMaxFileSize().toBytes()) {
+                full = true;
+                log.warn("语料文件已达到大小上限 {}，停止采集: {}", properties.getMaxFileSize(), file);
+            }
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            log.error("刷新语料文件失败: {}", file, e);
+        }
+    }
+}
@@ -1,24 +1,124 @@
 package com.pictionary.config;
 
+import com.pictionary.cancellation.RecognitionCancellations;
+import com.pictionary.capture.CaptureCorpus;
+import com.pictionary.capture.CaptureInterceptor;
+import com.pictionary.capture.ReplayProperties;
+import com.pictionary.capture.ReplayRequestFactory;
+import com.pictionary.capture.TrafficCapture;
+import com.pictionary.label.LabelIndex;
+import com.pictionary.monitor.UpstreamCallInterceptor;
+import com.pictionary.util.ImageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * 应用程序配置类
  * 用于配置各种Bean
  */
 @Configuration
+@Slf4j
 public class AppConfig {
 
     /**
      * 创建RestTemplate Bean
-     * 用于发送HTTP请求到第三方API
+     * 用于发送HTTP请求到第三方API；底层使用JDK HttpClient，等待响应的线程被中断时调用随之中止
+     * （识别请求被取消时由隔离舱中断工作线程，见 CancellationToken）。
+     * 回放模式下请求由语料中的记录回答，不发往第三方API
      *
+     * @param httpClient     JDK HttpClient
+     * @param cancellations  识别请求的取消标记和浪费的上游调用统计
+     * @param trafficCapture 流量采集，未启用时为空
+     * @param replay         回放模式的上游替身，未启用时为空
      * @return RestTemplate实例
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(HttpClient httpClient, RecognitionCancellations cancellations,
+                                     ObjectProvider<TrafficCapture> trafficCapture,
+                                     ObjectProvider<ReplayRequestFactory> replay) {
+        ReplayRequestFactory replayFactory = replay.getIfAvailable();
+        ClientHttpRequestFactory requestFactory = replayFactory != null ? replayFactory : new JdkClientHttpRequestFactory(httpClient);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        // 记录每次第三方API调用的JFR事件，已取消的识别请求不再发出调用
+        restTemplate.getInterceptors().add(new UpstreamCallInterceptor(cancellations));
+        trafficCapture.ifAvailable(capture -> restTemplate.getInterceptors().add(new CaptureInterceptor(capture)));
+        return restTemplate;
+    }
+
+    /**
+     * 创建回放模式的上游替身Bean
+     * 启动时读入整个语料文件，RestTemplate 的上游调用按记录的响应和延迟回答
+     *
+     * @param properties 回放配置
+     * @return ReplayRequestFactory实例
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pictionary.replay", name = "enabled", havingValue = "true")
+    public ReplayRequestFactory replayRequestFactory(ReplayProperties properties) throws IOException {
+        if (properties.getCorpus() == null || properties.getCorpus().isBlank()) {
+            throw new IllegalStateException("回放模式需要配置 pictionary.replay.corpus");
+        }
+        return new ReplayRequestFactory(CaptureCorpus.read(Path.of(properties.getCorpus())).records(),
+                properties.getLatencyScale());
+    }
+
+    /**
+     * 创建JDK HttpClient Bean
+     * 用于流式读取第三方API响应，可以在读到需要的内容后提前关闭连接
+     *
+     * @return HttpClient实例
+     */
+    @Bean
+    public HttpClient httpClient() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * 创建标签索引Bean
+     * 启动时从词表构建一次，用于把识别结果映射为游戏词表中的标准词以及判断猜测是否正确
+     *
+     * @param vocabulary 词表资源
+     * @return LabelIndex实例
+     */
+    @Bean
+    public LabelIndex labelIndex(@Value("${pictionary.labels.vocabulary:classpath:labels/vocabulary.txt}") Resource vocabulary) throws IOException {
+        try (Reader reader = new InputStreamReader(vocabulary.getInputStream(), StandardCharsets.UTF_8)) {
+            return LabelIndex.load(reader);
+        }
+    }
+
+    /**
+     * 启动时输出实际使用的像素内核
+     * vector 构建的jar未加载 jdk.incubator.vector 模块时回退到标量实现，提示需要的启动参数
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void logPixelKernels() {
+        String kernels = ImageUtil.getPixelKernels();
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()
+                && ImageUtil.class.getResource("VectorPixelKernels.class") != null) {
+            log.info("像素内核: {}（未加载 jdk.incubator.vector，启动参数加上 --add-modules jdk.incubator.vector 使用向量实现）", kernels);
+        } else {
+            log.info("像素内核: {}", kernels);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.pictionary.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 识别历史记录配置类
+ * 应用默认排除了 DataSourceAutoConfiguration，只有开启 pictionary.history.enabled 时才创建数据源，
+ * MyBatis 自动配置会在数据源存在时自动生效。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "pictionary.history", name = "enabled", havingValue = "true")
+public class HistoryConfig {
+
+    /**
+     * 历史记录数据源配置，属性前缀为 pictionary.history.datasource
+     *
+     * @return 数据源配置
+     */
+    @Bean
+    @ConfigurationProperties("pictionary.history.datasource")
+    public DataSourceProperties historyDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * 创建历史记录数据源
+     *
+     * @param historyDataSourceProperties 数据源配置
+     * @return 数据源
+     */
+    @Bean
+    public DataSource historyDataSource(DataSourceProperties historyDataSourceProperties) {
+        return historyDataSourceProperties.initializeDataSourceBuilder().build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.pictionary.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 静态资源配置类
+ * <ul>
+ *     <li>资源URL带内容哈希（drawing-&lt;md5&gt;.js），模板中的 @{/static/...} 链接由 ResourceUrlEncodingFilter 改写</li>
+ *     <li>带哈希的URL内容不会变化，返回一年的 immutable 缓存；不带哈希的URL每次向服务端确认（Last-Modified）</li>
+ *     <li>发布构建（mvn -Prelease）生成的 .br/.gz 文件按 Accept-Encoding 直接返回，请求时不压缩（见 src/build/PrecompressStaticAssets.java）；
+ *     压缩文件比原文件旧时（之后的开发构建没有重新生成）返回原文件</li>
+ *     <li>资源解析结果和内容哈希由资源链缓存，每个文件只计算一次</li>
+ * </ul>
+ * 替代 Spring Boot 的默认静态资源映射（spring.web.resources.add-mappings=false），沿用
+ * spring.mvc.static-path-pattern 和 spring.web.resources.static-locations 的设置。
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    // 内容哈希是32位十六进制的MD5，插在扩展名之前
+    private static final Pattern VERSIONED = Pattern.compile(".*-[0-9a-f]{32}\\.[^/]+$");
+
+    @Value("${spring.mvc.static-path-pattern:/static/**}")
+    private String pathPattern;
+
+    @Value("${spring.web.resources.static-locations:classpath:/static/}")
+    private String[] locations;
+
+    @Value("${pictionary.static.max-age:365d}")
+    private Duration maxAge;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // 压缩文件的解析在版本解析之前，内容哈希总是按未压缩的原文件计算
+        registry.addResourceHandler(pathPattern)
+                .addResourceLocations(locations)
+                .resourceChain(true)
+                .addResolver(new FreshEncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        String versioned = CacheControl.maxAge(maxAge).cachePublic().immutable().getHeaderValue();
+        String unversioned = CacheControl.noCache().getHeaderValue();
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL,
+                        VERSIONED.matcher(request.getRequestURI()).matches() ? versioned : unversioned);
+                return true;
+            }
+        }).addPathPatterns(pathPattern);
+    }
+
+    /**
+     * 只返回不比原文件旧的压缩文件
+     */
+    static class FreshEncodedResourceResolver extends EncodedResourceResolver {
+
+        @Override
+        protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                                   List<? extends Resource> locations, ResourceResolverChain chain) {
+            Resource resource = super.resolveResourceInternal(request, requestPath, locations, chain);
+            if (resource instanceof HttpResource encoded
+                    && encoded.getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                // 不带请求时后续解析器返回未压缩的原文件
+                Resource original = chain.resolveResource(null, requestPath, locations);
+                if (original != null && isOlder(resource, original)) {
+                    return original;
+                }
+            }
+            return resource;
+        }
+
+        private static boolean isOlder(Resource encoded, Resource original) {
+            try {
+                return encoded.lastModified() < original.lastModified();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 把模板中的静态资源链接改写为带内容哈希的URL
+     *
+     * @return ResourceUrlEncodingFilter实例
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+}
@@ -0,0 +1,110 @@
+package com.pictionary.confusion;
+
+import com.pictionary.label.LabelIndex;
+import com.pictionary.label.LabelMatch;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 目标词与识别结果的混淆矩阵
+ * 行是目标词、列是识别结果，都用 LabelIndex 的标准词ID作下标，最后一列是词表之外的识别结果。
+ * 单元格是第一次命中时用CAS创建的 LongAdder，记录时只有数组读取和分散到各线程的累加，没有锁；
+ * 各识别服务的命中数同样用 LongAdder 计数。读取方通过 snapshot() 得到某一时刻的稠密计数副本。
+ */
+public class ConfusionMatrix {
+
+    private static final String UNKNOWN_PROVIDER = "unknown";
+
+    private final LabelIndex labelIndex;
+    private final int labels;
+    private final int columns;
+    private final AtomicReferenceArray<LongAdder> cells;
+    private final ConcurrentHashMap<String, ProviderCounters> providers = new ConcurrentHashMap<>();
+    private final LongAdder unknownTargets = new LongAdder();
+
+    private static final class ProviderCounters {
+        final LongAdder total = new LongAdder();
+        final LongAdder hits = new LongAdder();
+    }
+
+    public ConfusionMatrix(LabelIndex labelIndex) {
+        this.labelIndex = labelIndex;
+        this.labels = labelIndex.getLabelCount();
+        this.columns = labels + 1;
+        this.cells = new AtomicReferenceArray<>(labels * columns);
+    }
+
+    /**
+     * 记录一次识别：目标词按同义词精确匹配，识别结果按 LabelIndex.canonicalize 映射为标准词
+     *
+     * @param provider   识别服务名称
+     * @param target     玩家要画的词
+     * @param prediction 识别结果
+     * @return 是否已记录；目标词不在词表中时不记录
+     */
+    public boolean record(String provider, String target, String prediction) {
+        LabelMatch targetMatch = labelIndex.lookup(target);
+        int row = targetMatch == null ? -1 : labelIndex.getLabelId(targetMatch.label());
+        if (row < 0) {
+            unknownTargets.increment();
+            return false;
+        }
+        LabelMatch predicted = labelIndex.canonicalize(prediction);
+        int column = predicted == null ? -1 : labelIndex.getLabelId(predicted.label());
+        if (column < 0) {
+            column = labels;
+        }
+        cell(row * columns + column).increment();
+
+        String name = provider == null ? UNKNOWN_PROVIDER : provider;
+        ProviderCounters counters = providers.get(name);
+        if (counters == null) {
+            // 只在识别服务第一次出现时进入 computeIfAbsent 的加锁路径
+            counters = providers.computeIfAbsent(name, k -> new ProviderCounters());
+        }
+        counters.total.increment();
+        if (row == column) {
+            counters.hits.increment();
+        }
+        return true;
+    }
+
+    /**
+     * 复制当前计数，与并发的记录之间不是原子的（各单元格分别读取），统计用途足够
+     *
+     * @return 快照
+     */
+    public ConfusionSnapshot snapshot() {
+        long[] counts = new long[labels * columns];
+        for (int i = 0; i < counts.length; i++) {
+            LongAdder adder = cells.get(i);
+            if (adder != null) {
+                counts[i] = adder.sum();
+            }
+        }
+        String[] names = new String[labels];
+        for (int i = 0; i < labels; i++) {
+            names[i] = labelIndex.getLabelName(i);
+        }
+        Map<String, ConfusionSnapshot.ProviderHits> hits = new TreeMap<>();
+        providers.forEach((name, counters) ->
+                hits.put(name, new ConfusionSnapshot.ProviderHits(counters.total.sum(), counters.hits.sum())));
+        return new ConfusionSnapshot(System.currentTimeMillis(), names, counts, hits, unknownTargets.sum());
+    }
+
+    private LongAdder cell(int index) {
+        LongAdder adder = cells.get(index);
+        if (adder == null) {
+            LongAdder created = new LongAdder();
+            adder = cells.compareAndExchange(index, null, created);
+            if (adder == null) {
+                adder = created;
+            }
+        }
+        return adder;
+    }
+}
@@ -0,0 +1,23 @@
+package com.pictionary.confusion;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 混淆统计配置
+ * 属性前缀为 pictionary.confusion
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.confusion")
+public class ConfusionProperties {
+
+    // 生成混淆矩阵快照的间隔，替代识别结果和 /api/monitor/confusion 读取最近的快照
+    private Duration snapshotInterval = Duration.ofSeconds(30);
+
+    // 涉及某个词的识别次数达到该值后，它的替代识别结果才使用混淆数据，之前使用词表的相似分组
+    private long minSamples = 20;
+}
@@ -0,0 +1,87 @@
+package com.pictionary.confusion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 混淆矩阵某一时刻的只读副本
+ * counts 按行存放，第 target 行第 predicted 列为 counts[target * columns() + predicted]，
+ * 最后一列（labels.length）是词表之外的识别结果。
+ *
+ * @param timestamp      快照时间
+ * @param labels         标准词，下标为标准词ID
+ * @param counts         计数
+ * @param providers      各识别服务的识别次数和命中次数
+ * @param unknownTargets 目标词不在词表中、没有记录的次数
+ */
+public record ConfusionSnapshot(long timestamp, String[] labels, long[] counts, Map<String, ProviderHits> providers,
+                                long unknownTargets) {
+
+    /**
+     * @param total 目标词在词表中的识别次数
+     * @param hits  识别结果与目标词是同一个标准词的次数
+     */
+    public record ProviderHits(long total, long hits) {
+
+        public double hitRate() {
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    public int columns() {
+        return labels.length + 1;
+    }
+
+    public long count(int target, int predicted) {
+        return counts[target * columns() + predicted];
+    }
+
+    /**
+     * @return 目标词为 target 的识别次数
+     */
+    public long rowTotal(int target) {
+        long total = 0;
+        for (int column = 0; column < columns(); column++) {
+            total += count(target, column);
+        }
+        return total;
+    }
+
+    /**
+     * 与标准词最常混淆的词，按两个方向的次数之和（画的是它、被认成别的词，以及画的是别的词、被认成它）从高到低排列
+     *
+     * @param label      标准词ID
+     * @param limit      最多返回的个数
+     * @param minSamples 涉及该词的识别次数少于该值时数据不足，返回空列表
+     * @return 混淆的标准词
+     */
+    public List<String> confusedWith(int label, int limit, long minSamples) {
+        long samples = 0;
+        long[] scores = new long[labels.length];
+        for (int other = 0; other < labels.length; other++) {
+            long asPredicted = count(label, other);
+            long asTarget = count(other, label);
+            samples += other == label ? asPredicted : asPredicted + asTarget;
+            if (other != label) {
+                scores[other] = asPredicted + asTarget;
+            }
+        }
+        samples += count(label, labels.length);
+        if (samples < minSamples) {
+            return List.of();
+        }
+        Integer[] order = new Integer[labels.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> scores[i]).reversed());
+        List<String> confused = new ArrayList<>();
+        for (int i = 0; i < order.length && confused.size() < limit && scores[order[i]] > 0; i++) {
+            confused.add(labels[order[i]]);
+        }
+        return confused;
+    }
+}
@@ -0,0 +1,170 @@
+package com.pictionary.confusion;
+
+import com.pictionary.label.LabelIndex;
+import com.pictionary.label.LabelMatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线上混淆统计
+ * 记录玩家要画的目标词与识别结果（目标词由 GameService.getDrawingTarget 按画手所在房间的当前回合确定，
+ * 识别请求只带 roomId、player 和 playerToken；离线评测直接记录样本标签），
+ * 定期生成混淆矩阵快照；替代识别结果（alternatives）从快照中取最常混淆的词，数据不足时使用词表的相似分组。
+ * 记录路径不加锁，读取只访问最近的快照，见 ConfusionMatrix。
+ */
+@Component
+@Slf4j
+public class ConfusionStats {
+
+    private final LabelIndex labelIndex;
+    private final ConfusionProperties properties;
+    private final ConfusionMatrix matrix;
+    private volatile ConfusionSnapshot snapshot;
+    private ScheduledExecutorService scheduler;
+
+    public ConfusionStats(LabelIndex labelIndex, ConfusionProperties properties) {
+        this.labelIndex = labelIndex;
+        this.properties = properties;
+        this.matrix = new ConfusionMatrix(labelIndex);
+        this.snapshot = matrix.snapshot();
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMs = Math.max(1000, properties.getSnapshotInterval().toMillis());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "confusion-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录一次识别结果
+     *
+     * @param provider   识别服务名称
+     * @param target     目标词，为空时不记录
+     * @param prediction 识别结果，为空时不记录
+     */
+    public void record(String provider, String target, String prediction) {
+        if (target == null || target.isBlank() || prediction == null) {
+            return;
+        }
+        matrix.record(provider, target, prediction);
+    }
+
+    /**
+     * 记录识别流程返回给画手的结果
+     * 只记录成功的识别；命中集群缓存（cached）或近邻索引（nearDuplicate）的结果不是这次识别服务的输出，不记录
+     *
+     * @param target 画手当前回合的目标词
+     * @param result 识别结果
+     * @return 是否计入统计
+     */
+    public boolean recordResult(String target, Map<String, Object> result) {
+        if (target == null || target.isBlank() || result == null || !Boolean.TRUE.equals(result.get("success"))
+                || result.get("prediction") == null
+                || Boolean.TRUE.equals(result.get("cached")) || Boolean.TRUE.equals(result.get("nearDuplicate"))) {
+            return false;
+        }
+        matrix.record(result.get("provider") instanceof String name ? name : null, target, result.get("prediction").toString());
+        return true;
+    }
+
+    /**
+     * 识别结果的替代结果：最常与它混淆的标准词，不足 limit 个时用词表的相似分组补足
+     *
+     * @param prediction 识别结果
+     * @param limit      最多返回的个数
+     * @return 替代结果，识别结果不在词表中时只有词表的相似分组（通常为空）
+     */
+    public List<String> alternatives(String prediction, int limit) {
+        LabelMatch match = labelIndex.canonicalize(prediction);
+        String label = match == null ? prediction : match.label();
+        int id = labelIndex.getLabelId(label);
+        List<String> alternatives = new ArrayList<>(id < 0 ? List.of()
+                : snapshot.confusedWith(id, limit, properties.getMinSamples()));
+        for (String similar : labelIndex.getSimilar(label)) {
+            if (alternatives.size() >= limit) {
+                break;
+            }
+            if (!alternatives.contains(similar)) {
+                alternatives.add(similar);
+            }
+        }
+        return alternatives;
+    }
+
+    public ConfusionSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 最近快照的统计：各识别服务的命中率，以及每个出现过的目标词的识别次数、命中次数和非零的混淆单元格
+     *
+     * @return 统计数据
+     */
+    public Map<String, Object> getStats() {
+        ConfusionSnapshot current = snapshot;
+        String[] labels = current.labels();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("timestamp", current.timestamp());
+        stats.put("unknownTargets", current.unknownTargets());
+
+        Map<String, Object> providers = new LinkedHashMap<>();
+        current.providers().forEach((name, hits) -> providers.put(name, Map.of(
+                "total", hits.total(),
+                "hits", hits.hits(),
+                "hitRate", hits.hitRate())));
+        stats.put("providers", providers);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int target = 0; target < labels.length; target++) {
+            long total = current.rowTotal(target);
+            if (total == 0) {
+                continue;
+            }
+            Map<String, Long> predicted = new LinkedHashMap<>();
+            for (int column = 0; column < current.columns(); column++) {
+                long count = current.count(target, column);
+                if (count > 0) {
+                    predicted.put(column < labels.length ? labels[column] : "其他", count);
+                }
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("target", labels[target]);
+            row.put("total", total);
+            row.put("hits", current.count(target, target));
+            row.put("predicted", predicted);
+            rows.add(row);
+        }
+        stats.put("matrix", rows);
+        return stats;
+    }
+
+    void refresh() {
+        try {
+            snapshot = matrix.snapshot();
+        } catch (RuntimeException e) {
+            log.warn("生成混淆矩阵快照失败", e);
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.pictionary.controller;
 
-import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.router.RecognitionRouter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -11,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 豆包API画布识别控制器
@@ -21,9 +21,11 @@ import java.util.Map;
 @Slf4j
 public class DoubaoDrawingController {
 
+    // 固定使用豆包识别服务，统一识别入口见 /api/recognize（支持流式识别）
+    private static final String PROVIDER = "doubaoImageRecognitionService";
+
     @Autowired
-    @Qualifier("doubaoImageRecognitionService")
-    private ImageRecognitionService imageRecognitionService;
+    private RecognitionRouter recognitionRouter;
 
     /**
      * 接收画布数据并使用豆包AI进行识别
@@ -32,14 +34,14 @@ public class DoubaoDrawingController {
      * @return AI识别结果
      */
     @PostMapping("/recognize")
-    public ResponseEntity<Map<String, Object>> recognizeDrawing(@RequestBody Map<String, String> requestData) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> recognizeDrawing(@RequestBody Map<String, String> requestData) {
         try {
             String imageData = requestData.get("imageData");
             if (imageData == null || imageData.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                         "success", false,
                         "message", "画布数据不能为空"
-                ));
+                )));
             }
 
             // 去除可能的Data URL前缀
@@ -47,16 +49,15 @@ public class DoubaoDrawingController {
                 imageData = imageData.substring(imageData.indexOf(",") + 1);
             }
 
-            // 调用豆包服务进行图像识别
-            Map<String, Object> result = imageRecognitionService.recognizeImage(imageData);
-            return ResponseEntity.ok(result);
+            // 调用豆包服务进行图像识别，识别在豆包的隔离舱中执行，不占用请求线程
+            return recognitionRouter.recognizeAsync(imageData, PROVIDER).thenApply(RecognitionResponses::of);
 
         } catch (Exception e) {
             log.error("豆包图像识别过程中发生错误", e);
-            return ResponseEntity.internalServerError().body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body(Map.of(
                     "success", false,
                     "message", "识别过程中发生错误: " + e.getMessage()
-            ));
+            )));
         }
     }
-}
\ No newline at end of file
+}
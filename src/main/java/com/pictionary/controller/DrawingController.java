@@ -1,6 +1,6 @@
 package com.pictionary.controller;
 
-import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.router.RecognitionRouter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 画布识别控制器
@@ -20,9 +21,11 @@ import java.util.Map;
 @Slf4j
 public class DrawingController {
 
+    // 固定使用百度识别服务，统一识别入口见 /api/recognize
+    private static final String PROVIDER = "baiduAnimalRecognitionService";
+
     @Autowired
-    @org.springframework.beans.factory.annotation.Qualifier("baiduAnimalRecognitionService")
-    private ImageRecognitionService imageRecognitionService;
+    private RecognitionRouter recognitionRouter;
 
     /**
      * 接收画布数据并进行AI识别
@@ -31,14 +34,14 @@ public class DrawingController {
      * @return AI识别结果
      */
     @PostMapping("/recognize")
-    public ResponseEntity<Map<String, Object>> recognizeDrawing(@RequestBody Map<String, String> requestData) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> recognizeDrawing(@RequestBody Map<String, String> requestData) {
         try {
             String imageData = requestData.get("imageData");
             if (imageData == null || imageData.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
                         "success", false,
                         "message", "画布数据不能为空"
-                ));
+                )));
             }
 
             // 去除可能的Data URL前缀
@@ -46,16 +49,15 @@ public class DrawingController {
                 imageData = imageData.substring(imageData.indexOf(",") + 1);
             }
 
-            // 调用服务进行图像识别
-            Map<String, Object> result = imageRecognitionService.recognizeImage(imageData);
-            return ResponseEntity.ok(result);
+            // 调用服务进行图像识别，识别在识别服务的隔离舱中执行，不占用请求线程
+            return recognitionRouter.recognizeAsync(imageData, PROVIDER).thenApply(RecognitionResponses::of);
 
         } catch (Exception e) {
             log.error("图像识别过程中发生错误", e);
-            return ResponseEntity.internalServerError().body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body(Map.of(
                     "success", false,
                     "message", "识别过程中发生错误: " + e.getMessage()
-            ));
+            )));
         }
     }
 }
@@ -0,0 +1,154 @@
+package com.pictionary.controller;
+
+import com.pictionary.game.GameService;
+import com.pictionary.game.Round;
+import com.pictionary.game.Seat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 游戏控制器
+ * 房间、回合、猜词和计分都在服务端维护，前端只负责展示。
+ * 创建或加入房间时返回玩家令牌 playerToken，之后的请求在请求体（查询状态时在请求头 X-Player-Token）中带上，
+ * 没有令牌只能以旁观者身份查看房间状态。
+ */
+@RestController
+@RequestMapping("/api/game")
+@Slf4j
+public class GameController {
+
+    private static final String PLAYER_TOKEN_HEADER = "X-Player-Token";
+
+    @Autowired
+    private GameService gameService;
+
+    /**
+     * 创建房间
+     *
+     * @param requestData 包含玩家名称 player
+     * @return 房间状态和创建者的令牌 playerToken
+     */
+    @PostMapping("/rooms")
+    public ResponseEntity<Map<String, Object>> createRoom(@RequestBody Map<String, String> requestData) {
+        return ResponseEntity.ok(seat(gameService.createRoom(requestData.get("player"))));
+    }
+
+    /**
+     * 加入房间
+     *
+     * @param requestData 包含玩家名称 player，重新加入时带上之前的令牌 playerToken
+     * @return 房间状态和玩家的令牌 playerToken
+     */
+    @PostMapping("/rooms/{roomId}/join")
+    public ResponseEntity<Map<String, Object>> joinRoom(@PathVariable String roomId,
+                                                        @RequestBody Map<String, String> requestData) {
+        return ResponseEntity.ok(seat(gameService.joinRoom(roomId, requestData.get("player"), requestData.get("playerToken"))));
+    }
+
+    /**
+     * 离开房间
+     */
+    @PostMapping("/rooms/{roomId}/leave")
+    public ResponseEntity<Map<String, Object>> leaveRoom(@PathVariable String roomId,
+                                                         @RequestBody Map<String, String> requestData) {
+        gameService.leaveRoom(roomId, requestData.get("player"), requestData.get("playerToken"));
+        return ResponseEntity.ok(success(Map.of()));
+    }
+
+    /**
+     * 开始新回合，目标词只返回给画手
+     */
+    @PostMapping("/rooms/{roomId}/rounds")
+    public ResponseEntity<Map<String, Object>> startRound(@PathVariable String roomId,
+                                                          @RequestBody Map<String, String> requestData) {
+        String player = requestData.get("player");
+        String token = requestData.get("playerToken");
+        Round round = gameService.startRound(roomId, player, token);
+        log.debug("房间 {} 开始第 {} 回合，画手 {}", roomId, round.getNumber(), round.getDrawer());
+        return ResponseEntity.ok(success(gameService.getState(roomId, player, token)));
+    }
+
+    /**
+     * 提交猜测
+     *
+     * @param requestData 包含玩家名称 player、令牌 playerToken 和猜测 guess
+     */
+    @PostMapping("/rooms/{roomId}/guesses")
+    public ResponseEntity<Map<String, Object>> guess(@PathVariable String roomId,
+                                                     @RequestBody Map<String, String> requestData) {
+        String guess = requestData.get("guess");
+        if (guess == null || guess.isBlank()) {
+            throw new IllegalArgumentException("猜测不能为空");
+        }
+        return ResponseEntity.ok(success(gameService.guess(roomId, requestData.get("player"),
+                requestData.get("playerToken"), guess)));
+    }
+
+    /**
+     * 房间状态，画手带上令牌时包含目标词
+     */
+    @GetMapping("/rooms/{roomId}")
+    public ResponseEntity<Map<String, Object>> getState(@PathVariable String roomId,
+                                                        @RequestParam(value = "player", required = false) String player,
+                                                        @RequestHeader(value = PLAYER_TOKEN_HEADER, required = false) String token) {
+        return ResponseEntity.ok(success(gameService.getState(roomId, player, token)));
+    }
+
+    /**
+     * 本节点的房间和回合统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(gameService.getStats());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(SecurityException.class)
+    public ResponseEntity<Map<String, Object>> handleForbidden(SecurityException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+        ));
+    }
+
+    private Map<String, Object> seat(Seat seat) {
+        Map<String, Object> result = success(gameService.getState(seat.room().getId(), seat.player(), seat.token()));
+        result.put("playerToken", seat.token());
+        return result;
+    }
+
+    private static Map<String, Object> success(Map<String, Object> data) {
+        Map<String, Object> result = new HashMap<>(data);
+        result.put("success", true);
+        return result;
+    }
+}
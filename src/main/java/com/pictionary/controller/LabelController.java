@@ -0,0 +1,67 @@
+package com.pictionary.controller;
+
+import com.pictionary.label.LabelIndex;
+import com.pictionary.label.LabelMatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 标签控制器
+ * 把任意文本映射为游戏词表中的标准词，以及判断猜测是否命中目标词
+ */
+@RestController
+@RequestMapping("/api/labels")
+public class LabelController {
+
+    @Autowired
+    private LabelIndex labelIndex;
+
+    /**
+     * 查询文本对应的标准词
+     *
+     * @param text 文本（识别结果或玩家输入）
+     * @return 标准词和分类，没有匹配时 matched 为false
+     */
+    @GetMapping("/canonical")
+    public ResponseEntity<Map<String, Object>> canonicalize(@RequestParam("text") String text) {
+        LabelMatch match = labelIndex.canonicalize(text);
+        Map<String, Object> result = new HashMap<>();
+        result.put("matched", match != null);
+        if (match != null) {
+            result.put("label", match.label());
+            result.put("category", match.category());
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 判断猜测是否命中目标词
+     *
+     * @param requestData 包含玩家猜测 guess 和目标词 target
+     * @return 是否命中
+     */
+    @PostMapping("/match")
+    public ResponseEntity<Map<String, Object>> match(@RequestBody Map<String, String> requestData) {
+        String guess = requestData.get("guess");
+        String target = requestData.get("target");
+        if (guess == null || guess.isBlank() || target == null || target.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "guess和target不能为空"
+            ));
+        }
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "correct", labelIndex.isCorrectGuess(guess, target)
+        ));
+    }
+}
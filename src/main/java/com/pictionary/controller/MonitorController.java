@@ -0,0 +1,114 @@
+package com.pictionary.controller;
+
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.cancellation.RecognitionCancellations;
+import com.pictionary.capture.ReplayRequestFactory;
+import com.pictionary.capture.TrafficCapture;
+import com.pictionary.confusion.ConfusionStats;
+import com.pictionary.session.DrawingSessions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行监控控制器
+ * 查询隔离舱状态、识别请求的取消统计、绘画会话统计、流量采集/回放统计和混淆统计
+ * JFR飞行记录的导出在管理端点 /actuator/jfr（见 FlightRecorderEndpoint）
+ */
+@RestController
+@RequestMapping("/api/monitor")
+public class MonitorController {
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private RecognitionCancellations recognitionCancellations;
+
+    @Autowired(required = false)
+    private DrawingSessions drawingSessions;
+
+    @Autowired(required = false)
+    private TrafficCapture trafficCapture;
+
+    @Autowired(required = false)
+    private ReplayRequestFactory replayRequestFactory;
+
+    @Autowired
+    private ConfusionStats confusionStats;
+
+    /**
+     * 查询各隔离舱线程池的实时状态（同样的数据以 pictionary.bulkhead.* 指标导出到 /actuator/metrics）
+     *
+     * @return 线程数、队列、饱和度和拒绝次数
+     */
+    @GetMapping("/bulkheads")
+    public List<Map<String, Object>> bulkheads() {
+        return bulkheads.getStats();
+    }
+
+    /**
+     * 查询识别请求的取消统计（同样的数据以 pictionary.recognition.cancelled、pictionary.upstream.wasted 指标导出）
+     *
+     * @return 按原因的取消数和客户端放弃后仍然发出或完成的上游调用数
+     */
+    @GetMapping("/cancellations")
+    public Map<String, Object> cancellations() {
+        return recognitionCancellations.getStats();
+    }
+
+    /**
+     * 查询服务端绘画会话的统计
+     *
+     * @return 会话数、内存占用、重新同步和淘汰次数、PNG条带的重新压缩和复用数
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<?> sessions() {
+        if (drawingSessions == null) {
+            return ResponseEntity.status(404).body(Map.of(
+                    "success", false,
+                    "message", "绘画会话未启用（pictionary.session.enabled=false）"
+            ));
+        }
+        return ResponseEntity.ok(drawingSessions.getStats());
+    }
+
+    /**
+     * 查询最近的混淆矩阵快照（每 pictionary.confusion.snapshot-interval 生成一次）
+     *
+     * @return 各识别服务的命中率，以及每个目标词的识别次数、命中次数和被识别成的词
+     */
+    @GetMapping("/confusion")
+    public Map<String, Object> confusion() {
+        return confusionStats.getStats();
+    }
+
+    /**
+     * 查询流量采集和回放模式上游替身的统计
+     *
+     * @return capture 为采集统计，replay 为上游替身统计，未启用的一项不出现
+     */
+    @GetMapping("/capture")
+    public ResponseEntity<?> capture() {
+        if (trafficCapture == null && replayRequestFactory == null) {
+            return ResponseEntity.status(404).body(Map.of(
+                    "success", false,
+                    "message", "流量采集未启用（pictionary.capture.enabled=false）"
+            ));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (trafficCapture != null) {
+            stats.put("capture", trafficCapture.getStats());
+        }
+        if (replayRequestFactory != null) {
+            stats.put("replay", replayRequestFactory.getStats());
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
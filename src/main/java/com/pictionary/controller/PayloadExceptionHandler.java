@@ -0,0 +1,37 @@
+package com.pictionary.controller;
+
+import com.pictionary.payload.PayloadRejectedException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * 把读取请求体时超出大小限制的异常转换为413响应
+ * 请求体由 PayloadLimitFilter 计数，Jackson 等消息转换器可能把异常包装为 HttpMessageNotReadableException
+ */
+@RestControllerAdvice
+public class PayloadExceptionHandler {
+
+    @ExceptionHandler(PayloadRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleRejected(PayloadRejectedException e) {
+        return ResponseEntity.status(e.getReason().getStatus()).body(Map.of(
+                "success", false,
+                "rejected", e.getReason().tag(),
+                "message", e.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> handleNotReadable(HttpMessageNotReadableException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof PayloadRejectedException rejected) {
+                return handleRejected(rejected);
+            }
+        }
+        // 其它无法解析的请求体交给默认的异常处理（400）
+        throw e;
+    }
+}
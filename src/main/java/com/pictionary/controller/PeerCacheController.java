@@ -0,0 +1,108 @@
+package com.pictionary.controller;
+
+import com.pictionary.peercache.PeerCache;
+import com.pictionary.router.RecognitionRouter;
+import com.pictionary.util.CanvasImage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 集群识别结果缓存控制器
+ * 其他节点把自己不负责的键转发到这里，由本节点查缓存或调用识别服务
+ */
+@RestController
+@RequestMapping("/api/peer-cache")
+@Slf4j
+public class PeerCacheController {
+
+    @Autowired(required = false)
+    private PeerCache peerCache;
+
+    @Autowired
+    private RecognitionRouter recognitionRouter;
+
+    /**
+     * 以负责节点的身份返回识别结果
+     *
+     * @param key       缓存键
+     * @param provider  识别服务Bean名称，为空时自动选择
+     * @param rendered  图像是否为服务端光栅化的画布（缓存键按像素计算）
+     * @param imageData Base64编码的图像数据
+     * @return 识别结果
+     */
+    @PostMapping(value = "/{key}", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public CompletableFuture<ResponseEntity<?>> fill(@PathVariable String key,
+                                                     @RequestParam(value = "provider", required = false) String provider,
+                                                     @RequestParam(value = "rendered", defaultValue = "false") boolean rendered,
+                                                     @RequestBody String imageData) {
+        if (peerCache == null) {
+            return CompletableFuture.completedFuture(disabled());
+        }
+        CanvasImage canvas;
+        try {
+            canvas = rendered ? CanvasImage.decodeRendered(imageData) : CanvasImage.of(imageData);
+        } catch (IOException | IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "图像数据无效: " + e.getMessage()
+            )));
+        }
+        // 键必须与图像内容一致，防止错误的请求污染缓存
+        if (!key.equals(PeerCache.key(canvas, provider))) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "缓存键与图像数据不匹配"
+            )));
+        }
+        return peerCache.serve(key, () -> recognitionRouter.recognizeUncachedAsync(canvas, provider))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof IllegalArgumentException) {
+                        return ResponseEntity.badRequest().body(Map.of(
+                                "success", false,
+                                "message", cause.getMessage()
+                        ));
+                    }
+                    log.error("为其他节点识别图像时发生错误", cause);
+                    return ResponseEntity.internalServerError().body(Map.of(
+                            "success", false,
+                            "message", "识别过程中发生错误: " + cause.getMessage()
+                    ));
+                });
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @return 命中、加载、转发次数和缓存大小
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        if (peerCache == null) {
+            return disabled();
+        }
+        return ResponseEntity.ok(peerCache.getStats());
+    }
+
+    private ResponseEntity<?> disabled() {
+        return ResponseEntity.status(404).body(Map.of(
+                "success", false,
+                "message", "集群识别结果缓存未启用（pictionary.peer-cache.enabled=false）"
+        ));
+    }
+}
@@ -0,0 +1,506 @@
+package com.pictionary.controller;
+
+import com.pictionary.bulkhead.BulkheadRejectedException;
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.cancellation.CancellationToken;
+import com.pictionary.cancellation.RecognitionCancellations;
+import com.pictionary.capture.TrafficCapture;
+import com.pictionary.confusion.ConfusionStats;
+import com.pictionary.game.GameService;
+import com.pictionary.monitor.RecognitionContext;
+import com.pictionary.router.ProviderRegistry;
+import com.pictionary.router.ProviderStats;
+import com.pictionary.router.RecognitionRouter;
+import com.pictionary.session.DrawingSessions;
+import com.pictionary.session.SessionResyncException;
+import com.pictionary.util.CanvasImage;
+import com.pictionary.util.StrokeCodec;
+import com.pictionary.util.StrokeRasterizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 统一识别控制器
+ * 由路由器根据实时延迟和错误率选择识别服务，也可以通过 provider 参数显式指定。
+ * 请求超时、客户端断开或按猜测ID取消时，取消尚未完成的光栅化、预处理和上游调用。
+ * 启用绘画会话（pictionary.session.enabled）时，前端只上传上次猜测之后的笔画变化，见 DrawingSessions。
+ * 请求头 Accept 为 text/event-stream 时以SSE返回：支持流式的识别服务每得到一段识别文本推送一次 partial 事件，
+ * 最后推送 result 事件，内容为JSON接口的响应体加上HTTP状态码 status。
+ */
+@RestController
+@RequestMapping("/api/recognize")
+@Slf4j
+public class RecognitionController {
+
+    @Autowired
+    private RecognitionRouter recognitionRouter;
+
+    @Autowired
+    private ProviderRegistry providerRegistry;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private RecognitionCancellations recognitionCancellations;
+
+    @Autowired(required = false)
+    private DrawingSessions drawingSessions;
+
+    @Autowired(required = false)
+    private TrafficCapture trafficCapture;
+
+    @Autowired
+    private ConfusionStats confusionStats;
+
+    @Autowired
+    private GameService gameService;
+
+    // 前端为每次猜测生成的ID，用于取消被新猜测取代或被清除的请求
+    private static final String GUESS_ID_HEADER = "X-Guess-Id";
+
+    // 服务端对笔画再做一次RDP简化的容差（像素），0表示不简化（前端已简化）
+    @Value("${pictionary.strokes.simplify-tolerance:0}")
+    private double strokeSimplifyTolerance;
+
+    /**
+     * 接收画布数据并进行AI识别
+     *
+     * @param requestData 包含base64编码的画布图像数据 imageData 或二进制笔画数据 strokes，可选的识别服务名称 provider，
+     *                    可选的房间 roomId、玩家 player 和玩家令牌 playerToken（玩家是该房间当前回合的画手时，识别结果按回合的目标词计入混淆统计）
+     * @param provider    识别服务名称（查询参数形式，优先级低于请求体）
+     * @param guessId     猜测ID（请求头 X-Guess-Id），可以通过 /api/recognize/{guessId}/cancel 取消
+     * @return AI识别结果
+     */
+    @PostMapping
+    public DeferredResult<ResponseEntity<Map<String, Object>>> recognize(@RequestBody Map<String, String> requestData,
+                                                                         @RequestParam(value = "provider", required = false) String provider,
+                                                                         @RequestHeader(value = GUESS_ID_HEADER, required = false) String guessId) {
+        if (trafficCapture != null) {
+            trafficCapture.onRecognize("/api/recognize", provider, requestData, null);
+        }
+        return defer(guessId, cancellation -> observe(requestData, recognize(requestData, provider, cancellation, null)));
+    }
+
+    /**
+     * 流式识别画布（请求头 Accept: text/event-stream），参数与 {@link #recognize(Map, String, String)} 相同
+     *
+     * @return SSE发射器：partial 事件为部分识别文本，result 事件为最终结果
+     */
+    @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter recognizeStream(@RequestBody Map<String, String> requestData,
+                                      @RequestParam(value = "provider", required = false) String provider,
+                                      @RequestHeader(value = GUESS_ID_HEADER, required = false) String guessId) {
+        if (trafficCapture != null) {
+            trafficCapture.onRecognize("/api/recognize", provider, requestData, null);
+        }
+        return stream(guessId, (cancellation, onPartial) ->
+                observe(requestData, recognize(requestData, provider, cancellation, onPartial)));
+    }
+
+    /**
+     * 增量识别：前端只上传上次猜测之后的变化，服务端在绘画会话中更新画布后识别
+     *
+     * @param sessionId   会话ID（前端的 drawingId）
+     * @param requestData revision 修订号（同一会话内递增），from 保留的笔画数（其后的笔画已撤销），
+     *                    strokes 新笔画（StrokeCodec 编码，带画布尺寸），可选的识别服务名称 provider、房间 roomId、玩家 player 和玩家令牌 playerToken
+     * @param guessId     猜测ID（请求头 X-Guess-Id）
+     * @return 识别结果，附带会话中的笔画数 sessionStrokes 和修订号 sessionRevision；
+     * 会话不存在、已淘汰或缺少笔画时返回409且 resync=true，前端应该以 from=0 上传全部笔画
+     */
+    @PostMapping("/sessions/{sessionId}")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> recognizeSession(@PathVariable String sessionId,
+                                                                                @RequestBody Map<String, String> requestData,
+                                                                                @RequestHeader(value = GUESS_ID_HEADER, required = false) String guessId) {
+        if (drawingSessions == null) {
+            DeferredResult<ResponseEntity<Map<String, Object>>> disabled = new DeferredResult<>();
+            disabled.setResult(sessionsDisabled());
+            return disabled;
+        }
+        if (trafficCapture != null) {
+            trafficCapture.onRecognize("/api/recognize/sessions/" + sessionId, null, requestData, sessionId);
+        }
+        return defer(guessId, cancellation -> observe(requestData, recognizeSession(sessionId, requestData, cancellation, null)));
+    }
+
+    /**
+     * 流式增量识别（请求头 Accept: text/event-stream），参数与 {@link #recognizeSession(String, Map, String)} 相同
+     *
+     * @return SSE发射器：partial 事件为部分识别文本，result 事件为最终结果（会话未启用时 status=404，需要重新同步时 status=409）
+     */
+    @PostMapping(value = "/sessions/{sessionId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter recognizeSessionStream(@PathVariable String sessionId,
+                                             @RequestBody Map<String, String> requestData,
+                                             @RequestHeader(value = GUESS_ID_HEADER, required = false) String guessId) {
+        if (drawingSessions == null) {
+            return stream(guessId, (cancellation, onPartial) -> CompletableFuture.completedFuture(sessionsDisabled()));
+        }
+        if (trafficCapture != null) {
+            trafficCapture.onRecognize("/api/recognize/sessions/" + sessionId, null, requestData, sessionId);
+        }
+        return stream(guessId, (cancellation, onPartial) ->
+                observe(requestData, recognizeSession(sessionId, requestData, cancellation, onPartial)));
+    }
+
+    /**
+     * 删除绘画会话：前端清除画布时调用，释放服务端的画布
+     *
+     * @param sessionId 会话ID
+     * @return removed 表示会话是否存在
+     */
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<Map<String, Object>> deleteSession(@PathVariable String sessionId) {
+        if (drawingSessions == null) {
+            return sessionsDisabled();
+        }
+        return ResponseEntity.ok(Map.of("success", true, "removed", drawingSessions.remove(sessionId)));
+    }
+
+    /**
+     * 取消进行中的识别请求：前端清除画布、发起新的猜测或关闭页面时调用
+     *
+     * @param guessId 猜测ID
+     * @return cancelled 表示是否取消了进行中的请求（请求已完成时为false）
+     */
+    @PostMapping("/{guessId}/cancel")
+    public Map<String, Object> cancel(@PathVariable String guessId) {
+        return Map.of(
+                "success", true,
+                "cancelled", recognitionCancellations.cancel(guessId, CancellationToken.Reason.CLIENT)
+        );
+    }
+
+    /**
+     * 异步执行识别流程：超时时间为 spring.mvc.async.request-timeout，超时、客户端断开或按猜测ID取消时取消流程
+     *
+     * @param guessId  猜测ID，为空时只能由超时或断开取消
+     * @param pipeline 识别流程
+     * @return 异步结果
+     */
+    private DeferredResult<ResponseEntity<Map<String, Object>>> defer(String guessId,
+                                                                      Function<CancellationToken, CompletableFuture<ResponseEntity<Map<String, Object>>>> pipeline) {
+        // 超时后客户端已经得到503，不必再等识别服务
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>();
+        CancellationToken cancellation = recognitionCancellations.open(guessId);
+        deferred.onTimeout(() -> recognitionCancellations.cancel(cancellation, CancellationToken.Reason.TIMEOUT));
+        deferred.onError(error -> recognitionCancellations.cancel(cancellation, CancellationToken.Reason.DISCONNECT));
+        deferred.onCompletion(() -> recognitionCancellations.close(guessId, cancellation));
+        pipeline.apply(cancellation).whenComplete((response, error) -> {
+            if (error != null) {
+                deferred.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                deferred.setResult(response);
+            }
+        });
+        return deferred;
+    }
+
+    /**
+     * 以SSE执行识别流程：超时时间为 spring.mvc.async.request-timeout，超时、客户端断开或按猜测ID取消时取消流程
+     *
+     * @param guessId  猜测ID，为空时只能由超时或断开取消
+     * @param pipeline 识别流程，第二个参数为部分结果回调
+     * @return SSE发射器
+     */
+    private SseEmitter stream(String guessId,
+                              BiFunction<CancellationToken, Consumer<String>, CompletableFuture<ResponseEntity<Map<String, Object>>>> pipeline) {
+        SseEmitter emitter = new SseEmitter();
+        CancellationToken cancellation = recognitionCancellations.open(guessId);
+        emitter.onTimeout(() -> recognitionCancellations.cancel(cancellation, CancellationToken.Reason.TIMEOUT));
+        emitter.onError(error -> recognitionCancellations.cancel(cancellation, CancellationToken.Reason.DISCONNECT));
+        emitter.onCompletion(() -> recognitionCancellations.close(guessId, cancellation));
+        // 部分结果由识别服务的隔离舱线程推送
+        Consumer<String> onPartial = text -> {
+            try {
+                emitter.send(SseEmitter.event().name("partial").data(Map.of("prediction", text)));
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或流已结束，不再需要识别结果
+                log.debug("推送部分识别结果失败: {}", e.getMessage());
+                recognitionCancellations.cancel(cancellation, CancellationToken.Reason.DISCONNECT);
+            }
+        };
+        pipeline.apply(cancellation, onPartial).whenComplete((response, error) -> {
+            Map<String, Object> result = new HashMap<>();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                log.error("流式识别过程中发生错误", cause);
+                result.put("success", false);
+                result.put("message", "识别过程中发生错误: " + cause.getMessage());
+                result.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
+            } else {
+                if (response.getBody() != null) {
+                    result.putAll(response.getBody());
+                }
+                result.put("status", response.getStatusCode().value());
+            }
+            try {
+                emitter.send(SseEmitter.event().name("result").data(result));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("推送识别结果失败: {}", e.getMessage());
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 请求来自游戏中的画手时，把成功的识别结果和当前回合的目标词计入混淆统计
+     * 目标词由服务端按房间的当前回合确定，不信任客户端；哪些结果计入见 ConfusionStats.recordResult
+     *
+     * @param requestData 请求体，roomId、player 和 playerToken 确定画手所在的回合
+     * @param result      识别流程的结果
+     * @return 原样返回识别结果
+     */
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> observe(Map<String, String> requestData,
+                                                                           CompletableFuture<ResponseEntity<Map<String, Object>>> result) {
+        String target = gameService.getDrawingTarget(requestData.get("roomId"), requestData.get("player"),
+                requestData.get("playerToken"));
+        if (target == null) {
+            return result;
+        }
+        return result.thenApply(response -> {
+            confusionStats.recordResult(target, response.getBody());
+            return response;
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> recognize(Map<String, String> requestData, String provider,
+                                                                             CancellationToken cancellation,
+                                                                             Consumer<String> onPartial) {
+        String imageData = requestData.get("imageData");
+        String strokes = requestData.get("strokes");
+        if ((imageData == null || imageData.isEmpty()) && (strokes == null || strokes.isEmpty())) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "画布数据不能为空"
+            )));
+        }
+        String selected = requestData.get("provider") != null ? requestData.get("provider") : provider;
+        if (imageData != null && !imageData.isEmpty()) {
+            return recognize(imageData, selected, cancellation, onPartial);
+        }
+
+        // 笔画光栅化是CPU密集型工作，在CPU隔离舱中执行；请求在排队时被取消则不再光栅化
+        CompletableFuture<CanvasImage> rasterized;
+        RecognitionContext.setCancellation(cancellation);
+        try {
+            rasterized = bulkheads.cpu().supply(() -> rasterizeStrokes(strokes));
+        } catch (BulkheadRejectedException e) {
+            return CompletableFuture.completedFuture(busy());
+        } finally {
+            RecognitionContext.clear();
+        }
+        return rasterized.thenCompose(canvas -> recognize(canvas, selected, cancellation, onPartial))
+                .exceptionally(RecognitionController::rasterizeFailed);
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> recognizeSession(String sessionId, Map<String, String> requestData,
+                                                                                    CancellationToken cancellation,
+                                                                                    Consumer<String> onPartial) {
+        String strokes = requestData.get("strokes");
+        long revision;
+        int from;
+        try {
+            revision = Long.parseLong(requestData.get("revision"));
+            from = Integer.parseInt(requestData.get("from"));
+        } catch (NumberFormatException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "revision 和 from 必须是整数"
+            )));
+        }
+        if (strokes == null || strokes.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "笔画数据不能为空"
+            )));
+        }
+
+        // 更新会话画布在CPU隔离舱中执行，只重绘改动的区域；画布快照和上传全部笔画时一样直接交给识别服务，不编码PNG
+        CompletableFuture<DrawingSessions.Update> updated;
+        RecognitionContext.setCancellation(cancellation);
+        try {
+            updated = bulkheads.cpu().supply(() -> drawingSessions.apply(sessionId, revision, from,
+                    StrokeCodec.simplify(StrokeCodec.decode(Base64.getDecoder().decode(strokes)), strokeSimplifyTolerance)));
+        } catch (BulkheadRejectedException e) {
+            return CompletableFuture.completedFuture(busy());
+        } finally {
+            RecognitionContext.clear();
+        }
+        return updated.thenCompose(update -> recognize(CanvasImage.rendered(update.image()), requestData.get("provider"),
+                        cancellation, onPartial)
+                        .thenApply(response -> {
+                            Map<String, Object> body = response.getBody() == null ? new HashMap<>() : new HashMap<>(response.getBody());
+                            body.put("sessionStrokes", update.strokes());
+                            body.put("sessionRevision", update.revision());
+                            return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders()).body(body);
+                        }))
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof SessionResyncException) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                                "success", false,
+                                "resync", true,
+                                "message", cause.getMessage()
+                        ));
+                    }
+                    return rasterizeFailed(cause);
+                });
+    }
+
+    /**
+     * 笔画解码或光栅化失败时的响应
+     */
+    private static ResponseEntity<Map<String, Object>> rasterizeFailed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return ResponseEntity.ok(Map.of(
+                    "success", false,
+                    "cancelled", true,
+                    "message", "识别请求已取消"
+            ));
+        }
+        if (cause instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "笔画数据无效: " + cause.getMessage()
+            ));
+        }
+        log.error("笔画光栅化失败", cause);
+        return ResponseEntity.internalServerError().body(Map.of(
+                "success", false,
+                "message", "笔画光栅化失败: " + cause.getMessage()
+        ));
+    }
+
+    /**
+     * 查询各识别服务的实时统计
+     *
+     * @return 统计数据列表
+     */
+    @GetMapping("/providers")
+    public List<Map<String, Object>> providers() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (String name : providerRegistry.getProviderNames()) {
+            ProviderStats stats = providerRegistry.getStats(name);
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", name);
+            item.put("routable", providerRegistry.getRoutableNames().contains(name));
+            item.put("weight", providerRegistry.getWeight(name));
+            item.put("ewmaLatencyMs", Math.round(stats.getEwmaLatencyMs()));
+            item.put("errorRate", stats.getErrorRate());
+            item.put("calls", stats.getCalls());
+            item.put("errors", stats.getErrors());
+            item.put("rejected", stats.getRejected());
+            item.put("cancelled", stats.getCancelled());
+            item.put("inFlight", stats.getInFlight());
+            list.add(item);
+        }
+        return list;
+    }
+
+    /**
+     * 把前端发送的二进制笔画数据解码并光栅化为画布大小的图像
+     * 图像直接交给识别服务预处理，不编码为PNG（见 CanvasImage）
+     *
+     * @param strokes Base64编码的笔画数据（格式见 StrokeCodec）
+     * @return 光栅化的画布
+     * @throws IllegalArgumentException 笔画数据无效
+     */
+    private CanvasImage rasterizeStrokes(String strokes) {
+        StrokeCodec.Drawing drawing = StrokeCodec.decode(Base64.getDecoder().decode(strokes));
+        drawing = StrokeCodec.simplify(drawing, strokeSimplifyTolerance);
+        return CanvasImage.rendered(StrokeRasterizer.render(drawing, drawing.width(), drawing.height()));
+    }
+
+    /**
+     * 调用路由器识别图像，识别在识别服务的隔离舱中执行，不占用请求线程
+     *
+     * @param imageData    画布数据（可带Data URL前缀）
+     * @param provider     识别服务名称，为空时自动选择
+     * @param cancellation 取消标记
+     * @param onPartial    部分结果回调，为null时不使用流式识别
+     * @return 识别结果
+     */
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> recognize(String imageData, String provider,
+                                                                             CancellationToken cancellation,
+                                                                             Consumer<String> onPartial) {
+        // 去除可能的Data URL前缀
+        if (imageData.startsWith("data:image")) {
+            imageData = imageData.substring(imageData.indexOf(",") + 1);
+        }
+        return recognize(CanvasImage.of(imageData), provider, cancellation, onPartial);
+    }
+
+    /**
+     * 调用路由器识别画布
+     *
+     * @param canvas       画布
+     * @param provider     识别服务名称，为空时自动选择
+     * @param cancellation 取消标记
+     * @param onPartial    部分结果回调，为null时不使用流式识别
+     * @return 识别结果
+     */
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> recognize(CanvasImage canvas, String provider,
+                                                                             CancellationToken cancellation,
+                                                                             Consumer<String> onPartial) {
+        try {
+            return recognitionRouter.recognizeAsync(canvas, provider, cancellation, onPartial).thenApply(RecognitionResponses::of);
+
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            )));
+        } catch (Exception e) {
+            log.error("图像识别过程中发生错误", e);
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body(Map.of(
+                    "success", false,
+                    "message", "识别过程中发生错误: " + e.getMessage()
+            )));
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> sessionsDisabled() {
+        return ResponseEntity.status(404).body(Map.of(
+                "success", false,
+                "message", "绘画会话未启用（pictionary.session.enabled=false）"
+        ));
+    }
+
+    private static ResponseEntity<Map<String, Object>> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(Map.of(
+                "success", false,
+                "busy", true,
+                "message", "服务器繁忙，请稍后再试"
+        ));
+    }
+}
@@ -0,0 +1,35 @@
+package com.pictionary.controller;
+
+import com.pictionary.payload.PayloadRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+/**
+ * 识别结果到HTTP响应的转换
+ */
+final class RecognitionResponses {
+
+    private RecognitionResponses() {
+    }
+
+    /**
+     * 识别服务的隔离舱已满（busy=true）时返回503，图像超出限制（rejected）时返回对应的4xx，其它结果返回200
+     *
+     * @param result 路由器返回的识别结果
+     * @return HTTP响应
+     */
+    static ResponseEntity<Map<String, Object>> of(Map<String, Object> result) {
+        if (Boolean.TRUE.equals(result.get("busy"))) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(result);
+        }
+        if (result.get("rejected") instanceof String tag) {
+            PayloadRejectedException.Reason reason = PayloadRejectedException.Reason.fromTag(tag);
+            if (reason != null) {
+                return ResponseEntity.status(reason.getStatus()).body(result);
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,67 @@
+package com.pictionary.controller;
+
+import com.pictionary.sketchindex.SketchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 简笔画近邻索引控制器
+ */
+@RestController
+@RequestMapping("/api/sketch-index")
+@Slf4j
+public class SketchIndexController {
+
+    @Autowired(required = false)
+    private SketchIndex sketchIndex;
+
+    /**
+     * 索引统计
+     *
+     * @return 条目数、命中、未命中、覆盖次数等统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        if (sketchIndex == null) {
+            return disabled();
+        }
+        return ResponseEntity.ok(sketchIndex.getStats());
+    }
+
+    /**
+     * 立即保存快照（例如发布前）
+     *
+     * @return 保存的条目数
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<?> snapshot() {
+        if (sketchIndex == null) {
+            return disabled();
+        }
+        try {
+            int saved = sketchIndex.saveSnapshot();
+            return ResponseEntity.ok(Map.of("success", true, "saved", saved));
+        } catch (IOException | IllegalStateException e) {
+            log.error("保存近邻索引快照失败", e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                    "success", false,
+                    "message", "保存快照失败: " + e.getMessage()
+            ));
+        }
+    }
+
+    private ResponseEntity<?> disabled() {
+        return ResponseEntity.status(404).body(Map.of(
+                "success", false,
+                "message", "近邻索引未启用（pictionary.sketch-index.enabled=false）"
+        ));
+    }
+}
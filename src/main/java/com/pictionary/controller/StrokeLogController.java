@@ -0,0 +1,163 @@
+package com.pictionary.controller;
+
+import com.pictionary.strokelog.StrokeEvent;
+import com.pictionary.strokelog.StrokeLog;
+import com.pictionary.strokelog.StrokeLogThrottledException;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 笔画日志控制器
+ * 前端每画完一笔上传一个事件，回放和观战时按序号读取记录
+ */
+@RestController
+@RequestMapping("/api/strokes")
+@Slf4j
+public class StrokeLogController {
+
+    @Autowired(required = false)
+    private StrokeLog strokeLog;
+
+    /**
+     * 追加笔画事件，请求体为 StrokeCodec 编码的单个笔画（撤销、清空、结束事件可以为空）
+     *
+     * @param drawingId 绘画ID
+     * @param seq       事件序号
+     * @param type      事件类型：stroke、undo、clear、end
+     * @param payload   事件数据
+     * @return 202 已接受；429 绘画的追加速率超出上限；503 写入队列已满
+     */
+    @PostMapping(value = "/{drawingId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> append(@PathVariable String drawingId,
+                                    @RequestParam("seq") int seq,
+                                    @RequestParam(value = "type", defaultValue = "stroke") String type,
+                                    @RequestBody(required = false) byte[] payload) {
+        if (strokeLog == null) {
+            return disabled();
+        }
+        StrokeEvent.Type eventType;
+        try {
+            eventType = StrokeEvent.Type.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "未知的事件类型: " + type
+            ));
+        }
+        try {
+            if (!strokeLog.append(drawingId, seq, eventType, payload)) {
+                return ResponseEntity.status(503).body(Map.of(
+                        "success", false,
+                        "message", "笔画日志繁忙，事件已丢弃"
+                ));
+            }
+        } catch (StrokeLogThrottledException e) {
+            return ResponseEntity.status(429).header("Retry-After", "1").body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+        return ResponseEntity.accepted().body(Map.of("success", true));
+    }
+
+    /**
+     * 读取绘画记录，响应体为按写入顺序拼接的原始记录，格式见 StrokeLogSegment
+     * 观战者用响应头 X-Next-Seq 作为下一次请求的起始序号即可持续追上进度
+     *
+     * @param drawingId 绘画ID
+     * @param from      起始序号（含）
+     * @param response  HTTP响应
+     */
+    @GetMapping("/{drawingId}")
+    public void replay(@PathVariable String drawingId,
+                       @RequestParam(value = "from", defaultValue = "0") int from,
+                       HttpServletResponse response) throws IOException {
+        if (strokeLog == null) {
+            response.sendError(404, "笔画日志未启用");
+            return;
+        }
+        List<ByteBuffer> records = strokeLog.replay(drawingId, from);
+        long length = 0;
+        int nextSeq = from;
+        for (ByteBuffer record : records) {
+            length += record.remaining();
+            // 记录格式：长度(4) 时间戳(8) 序号(4) ...
+            nextSeq = Math.max(nextSeq, record.getInt(record.position() + 12) + 1);
+        }
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(length);
+        response.setHeader("X-Next-Seq", String.valueOf(nextSeq));
+        // 映射缓冲区的切片直接写入响应通道，不经过中间字节数组
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        for (ByteBuffer record : records) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * 绘画的索引信息
+     *
+     * @param drawingId 绘画ID
+     * @return 事件数、最后一个序号和更新时间
+     */
+    @GetMapping("/{drawingId}/info")
+    public ResponseEntity<?> info(@PathVariable String drawingId) {
+        if (strokeLog == null) {
+            return disabled();
+        }
+        Map<String, Object> info = strokeLog.getDrawingInfo(drawingId);
+        if (info == null) {
+            return ResponseEntity.status(404).body(Map.of(
+                    "success", false,
+                    "message", "绘画不存在或已过期"
+            ));
+        }
+        return ResponseEntity.ok(info);
+    }
+
+    /**
+     * 笔画日志统计
+     *
+     * @return 写入、丢弃、段数等统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        if (strokeLog == null) {
+            return disabled();
+        }
+        return ResponseEntity.ok(strokeLog.getStats());
+    }
+
+    private ResponseEntity<?> disabled() {
+        return ResponseEntity.status(404).body(Map.of(
+                "success", false,
+                "message", "笔画日志未启用（pictionary.stroke-log.enabled=false）"
+        ));
+    }
+}
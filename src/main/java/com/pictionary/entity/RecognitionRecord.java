@@ -0,0 +1,38 @@
+package com.pictionary.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 识别历史记录实体
+ * 对应数据库表 recognition_history
+ */
+@Data
+public class RecognitionRecord {
+
+    private Long id;
+
+    // 画布图像的SHA-256摘要（十六进制）
+    private String imageHash;
+
+    // 画布图像字节数
+    private Integer imageSize;
+
+    // 画布图像原始数据（仅在开启 pictionary.history.store-image 时保存）
+    private byte[] imageData;
+
+    // 识别服务名称
+    private String provider;
+
+    private String prediction;
+
+    private Integer confidence;
+
+    private Boolean success;
+
+    // 识别耗时（毫秒）
+    private Long latencyMs;
+
+    private LocalDateTime createdAt;
+}
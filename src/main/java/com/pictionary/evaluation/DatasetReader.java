@@ -0,0 +1,150 @@
+package com.pictionary.evaluation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pictionary.util.StrokeRasterizer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 评测数据集读取器
+ * 支持 Quick Draw 格式的 NDJSON 笔画文件（每行一个绘画）和 PNG 图片目录，
+ * 两种格式都以惰性流的方式逐条读取，不会把整个数据集加载到内存中。
+ */
+@Slf4j
+public class DatasetReader {
+
+    // 与前端画布大小一致
+    public static final int CANVAS_WIDTH = 500;
+    public static final int CANVAS_HEIGHT = 400;
+    private static final float LINE_WIDTH = 3f;
+
+    private final ObjectMapper objectMapper;
+
+    public DatasetReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 打开数据集
+     * 目录按PNG图片目录处理，其它文件按NDJSON处理。调用方负责关闭返回的流。
+     *
+     * @param path 数据集路径
+     * @return 样本流
+     */
+    public Stream<EvaluationSample> open(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            return openPngDirectory(path);
+        }
+        return openNdjson(path);
+    }
+
+    /**
+     * 逐行读取 Quick Draw NDJSON 文件
+     * 每行格式：{"word":"cat","recognized":true,"drawing":[[[x0,x1,...],[y0,y1,...]], ...]}
+     *
+     * @param file NDJSON文件
+     * @return 样本流
+     */
+    public Stream<EvaluationSample> openNdjson(Path file) throws IOException {
+        AtomicLong lineNumber = new AtomicLong();
+        return Files.lines(file, StandardCharsets.UTF_8)
+                .map(line -> parseLine(file, lineNumber.incrementAndGet(), line))
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * 递归读取PNG图片目录
+     * 类别取图片所在子目录名；图片直接位于根目录时取文件名中第一个“_”之前的部分
+     *
+     * @param root 图片目录
+     * @return 样本流
+     */
+    public Stream<EvaluationSample> openPngDirectory(Path root) throws IOException {
+        return Files.walk(root)
+                .filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".png"))
+                .map(p -> new EvaluationSample(root.relativize(p).toString(), labelOf(root, p), () -> Files.readAllBytes(p)));
+    }
+
+    private EvaluationSample parseLine(Path file, long lineNumber, String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            String label = node.path("word").asText(null);
+            JsonNode drawing = node.get("drawing");
+            if (label == null || drawing == null || !drawing.isArray()) {
+                log.warn("跳过无效的样本 {}:{}", file.getFileName(), lineNumber);
+                return null;
+            }
+            List<int[][]> strokes = parseStrokes(drawing);
+            String id = node.hasNonNull("key_id") ? node.get("key_id").asText() : file.getFileName() + ":" + lineNumber;
+            return new EvaluationSample(id, label, () -> toPng(strokes));
+        } catch (IOException e) {
+            log.warn("解析样本失败 {}:{}: {}", file.getFileName(), lineNumber, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 解析笔画数组，兼容简化格式 [xs, ys] 和原始格式 [xs, ys, ts]
+     *
+     * @param drawing drawing字段
+     * @return 笔画列表
+     */
+    static List<int[][]> parseStrokes(JsonNode drawing) {
+        List<int[][]> strokes = new ArrayList<>(drawing.size());
+        for (JsonNode stroke : drawing) {
+            JsonNode xs = stroke.get(0);
+            JsonNode ys = stroke.get(1);
+            if (xs == null || ys == null) {
+                continue;
+            }
+            int n = Math.min(xs.size(), ys.size());
+            int[][] points = new int[2][n];
+            for (int i = 0; i < n; i++) {
+                points[0][i] = (int) Math.round(xs.get(i).asDouble());
+                points[1][i] = (int) Math.round(ys.get(i).asDouble());
+            }
+            strokes.add(points);
+        }
+        return strokes;
+    }
+
+    private static byte[] toPng(List<int[][]> strokes) {
+        BufferedImage image = StrokeRasterizer.rasterize(strokes, CANVAS_WIDTH, CANVAS_HEIGHT, LINE_WIDTH);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "PNG", outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static String labelOf(Path root, Path file) {
+        Path parent = file.getParent();
+        if (parent != null && !parent.equals(root)) {
+            return parent.getFileName().toString();
+        }
+        String name = file.getFileName().toString();
+        int underscore = name.indexOf('_');
+        return underscore > 0 ? name.substring(0, underscore) : name.substring(0, name.length() - ".png".length());
+    }
+}
@@ -0,0 +1,248 @@
+package com.pictionary.evaluation;
+
+import com.pictionary.label.LabelIndex;
+import com.pictionary.label.LabelMatch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 评测报告
+ * 线程安全地累计准确率、混淆矩阵、吞吐量和延迟直方图。
+ * 各类别的命中数按 record 传入的判定结果累计，与总体准确率一致；混淆矩阵的列按标签索引归并为标准词
+ * （如“一只小猫”“猫咪”都计入“猫”），不在词表中的预测按原文计入。
+ */
+public class EvaluationReport {
+
+    // 延迟直方图的桶上界（毫秒），最后一个桶收集所有更慢的请求
+    private static final long[] LATENCY_BUCKETS_MS = {10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final String provider;
+    private final LabelIndex labelIndex;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder[] latencyHistogram = new LongAdder[LATENCY_BUCKETS_MS.length + 1];
+    private final LongAdder latencySumMs = new LongAdder();
+    private final Map<String, Map<String, LongAdder>> confusion = new ConcurrentHashMap<>();
+    // 各类别判定正确的样本数，以及判定错误的样本按预测（标准词）的计数
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> mistakes = new ConcurrentHashMap<>();
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    // 超时未完成时提交的样本数，-1 表示评测已完成
+    private volatile long incompleteSubmitted = -1;
+
+    public EvaluationReport(String provider) {
+        this(provider, null);
+    }
+
+    /**
+     * @param provider   识别服务名称
+     * @param labelIndex 标签索引，用于把预测归并为标准词，为null时按预测原文统计
+     */
+    public EvaluationReport(String provider, LabelIndex labelIndex) {
+        this.provider = provider;
+        this.labelIndex = labelIndex;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            latencyHistogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一个样本的识别结果
+     *
+     * @param label      真实类别
+     * @param prediction 预测类别（识别失败时为null）
+     * @param isCorrect  预测是否正确
+     * @param latencyMs  识别耗时（毫秒）
+     */
+    public void record(String label, String prediction, boolean isCorrect, long latencyMs) {
+        total.increment();
+        String column;
+        if (prediction == null) {
+            errors.increment();
+            column = "<error>";
+        } else {
+            column = canonical(prediction);
+        }
+        LongAdder labelHits = hits.computeIfAbsent(label, k -> new LongAdder());
+        if (isCorrect) {
+            correct.increment();
+            labelHits.increment();
+        } else {
+            mistakes.computeIfAbsent(label, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(column, k -> new LongAdder())
+                    .increment();
+        }
+        latencySumMs.add(latencyMs);
+        latencyHistogram[bucketOf(latencyMs)].increment();
+        confusion.computeIfAbsent(label, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(column, k -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * 标记评测结束，用于计算吞吐量
+     */
+    public void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * 标记评测未完成（等待超时），报告中注明未评测的样本数
+     *
+     * @param submitted 已提交的样本数
+     */
+    public void markIncomplete(long submitted) {
+        incompleteSubmitted = submitted;
+    }
+
+    public boolean isComplete() {
+        return incompleteSubmitted < 0;
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public double getAccuracy() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) correct.sum() / n;
+    }
+
+    public double getThroughput() {
+        double seconds = ((endNanos == 0 ? System.nanoTime() : endNanos) - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : total.sum() / seconds;
+    }
+
+    /**
+     * 根据直方图估算延迟分位数（返回所在桶的上界）
+     *
+     * @param quantile 分位数，例如0.99
+     * @return 延迟上界（毫秒），没有样本时返回0，落在最后一个桶时返回-1
+     */
+    public long latencyQuantileMs(double quantile) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(n * quantile);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            seen += latencyHistogram[i].sum();
+            if (seen >= target) {
+                return LATENCY_BUCKETS_MS[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 生成文本格式的报告
+     *
+     * @return 报告内容
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        long n = total.sum();
+        sb.append("=== 识别评测报告 ===\n");
+        sb.append(String.format("识别服务: %s%n", provider));
+        long submitted = incompleteSubmitted;
+        if (submitted >= 0) {
+            sb.append(String.format("状态: 未完成（等待超时，%d 个已提交的样本未评测）%n", Math.max(0, submitted - n)));
+        }
+        sb.append(String.format("样本数: %d, 正确: %d, 失败: %d%n", n, correct.sum(), errors.sum()));
+        sb.append(String.format("准确率: %.2f%%%n", getAccuracy() * 100));
+        sb.append(String.format("吞吐量: %.2f 样本/秒%n", getThroughput()));
+        sb.append(String.format("平均延迟: %.1f ms, P50<=%s, P90<=%s, P99<=%s%n",
+                n == 0 ? 0.0 : (double) latencySumMs.sum() / n,
+                formatBound(latencyQuantileMs(0.5)), formatBound(latencyQuantileMs(0.9)),
+                formatBound(latencyQuantileMs(0.99))));
+
+        sb.append("\n--- 延迟直方图 ---\n");
+        long lower = 0;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            long count = latencyHistogram[i].sum();
+            String range = i < LATENCY_BUCKETS_MS.length
+                    ? String.format("%5d-%5d ms", lower, LATENCY_BUCKETS_MS[i])
+                    : String.format("%5d+      ms", lower);
+            int bar = n == 0 ? 0 : (int) Math.round(50.0 * count / n);
+            sb.append(String.format("%s %8d %s%n", range, count, "#".repeat(bar)));
+            if (i < LATENCY_BUCKETS_MS.length) {
+                lower = LATENCY_BUCKETS_MS[i];
+            }
+        }
+
+        sb.append("\n--- 各类别准确率 ---\n");
+        for (String label : new TreeSet<>(confusion.keySet())) {
+            Map<String, LongAdder> row = confusion.get(label);
+            long rowTotal = row.values().stream().mapToLong(LongAdder::sum).sum();
+            long hit = hits.get(label).sum();
+            String top = mistakes.getOrDefault(label, Map.of()).entrySet().stream()
+                    .max(Comparator.comparingLong(e -> e.getValue().sum()))
+                    .map(e -> e.getKey() + "(" + e.getValue().sum() + ")")
+                    .orElse("-");
+            sb.append(String.format("%-20s %6d/%-6d 最常混淆: %s%n", label, hit, rowTotal, top));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 生成CSV格式的混淆矩阵，行为真实类别，列为预测类别（标准词）
+     *
+     * @return CSV内容
+     */
+    public String confusionMatrixCsv() {
+        TreeSet<String> predictions = new TreeSet<>();
+        confusion.values().forEach(row -> predictions.addAll(row.keySet()));
+        List<String> columns = new ArrayList<>(predictions);
+
+        StringBuilder sb = new StringBuilder("label");
+        for (String column : columns) {
+            sb.append(',').append(csv(column));
+        }
+        sb.append('\n');
+        for (String label : new TreeSet<>(confusion.keySet())) {
+            Map<String, LongAdder> row = confusion.get(label);
+            sb.append(csv(label));
+            for (String column : columns) {
+                LongAdder count = row.get(column);
+                sb.append(',').append(count == null ? 0 : count.sum());
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String canonical(String prediction) {
+        LabelMatch match = labelIndex == null ? null : labelIndex.canonicalize(prediction);
+        return match != null ? match.label() : prediction;
+    }
+
+    private static int bucketOf(long latencyMs) {
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            if (latencyMs <= LATENCY_BUCKETS_MS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKETS_MS.length;
+    }
+
+    private static String formatBound(long bound) {
+        return bound < 0 ? ">" + LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1] : String.valueOf(bound);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
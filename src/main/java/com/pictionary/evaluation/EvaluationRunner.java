@@ -0,0 +1,214 @@
+package com.pictionary.evaluation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pictionary.confusion.ConfusionStats;
+import com.pictionary.label.LabelIndex;
+import com.pictionary.service.ImageRecognitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 离线批量评测运行器
+ * 把本地数据集逐条送入指定的识别服务，输出准确率、混淆矩阵、吞吐量和延迟直方图。
+ *
+ * 使用方式：
+ * java -jar pictionary.jar --spring.profiles.active=evaluation
+ *      --pictionary.evaluation.dataset=/data/cat.ndjson
+ *      --pictionary.evaluation.provider=doubaoImageRecognitionService
+ *      --pictionary.evaluation.parallelism=8
+ */
+@Component
+@ConditionalOnProperty(prefix = "pictionary.evaluation", name = "enabled", havingValue = "true")
+@Slf4j
+public class EvaluationRunner implements ApplicationRunner {
+
+    private final ConfigurableApplicationContext applicationContext;
+    private final DatasetReader datasetReader;
+    private final LabelIndex labelIndex;
+    private final ConfusionStats confusionStats;
+
+    @Value("${pictionary.evaluation.dataset}")
+    private Path dataset;
+
+    @Value("${pictionary.evaluation.provider:sketchRecognitionServiceImpl}")
+    private String provider;
+
+    @Value("${pictionary.evaluation.parallelism:4}")
+    private int parallelism;
+
+    // 最多评测的样本数，0表示不限制
+    @Value("${pictionary.evaluation.limit:0}")
+    private long limit;
+
+    // 可选的类别映射文件（properties格式：数据集类别=期望预测1|期望预测2）
+    @Value("${pictionary.evaluation.label-map:}")
+    private String labelMapFile;
+
+    // 报告输出目录，为空时只打印到日志
+    @Value("${pictionary.evaluation.report-dir:}")
+    private String reportDir;
+
+    // 数据集读取完后等待在途样本完成的最长时间，超时时报告标记为未完成
+    @Value("${pictionary.evaluation.timeout:1h}")
+    private Duration timeout;
+
+    // 评测结束后是否退出应用
+    @Value("${pictionary.evaluation.exit-on-finish:true}")
+    private boolean exitOnFinish;
+
+    public EvaluationRunner(ConfigurableApplicationContext applicationContext, ObjectMapper objectMapper,
+                            LabelIndex labelIndex, ConfusionStats confusionStats) {
+        this.applicationContext = applicationContext;
+        this.labelIndex = labelIndex;
+        this.confusionStats = confusionStats;
+        this.datasetReader = new DatasetReader(objectMapper);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ImageRecognitionService service = applicationContext.getBean(provider, ImageRecognitionService.class);
+        Map<String, List<String>> labelMap = loadLabelMap();
+        EvaluationReport report = new EvaluationReport(provider, labelIndex);
+
+        log.info("开始评测: dataset={}, provider={}, parallelism={}", dataset, provider, parallelism);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        // 限制同时在途的样本数，数据集读取速度不会超过识别速度，内存占用保持恒定
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        long submitted = 0;
+
+        try (Stream<EvaluationSample> samples = datasetReader.open(dataset)) {
+            Iterator<EvaluationSample> iterator = samples.iterator();
+            while (iterator.hasNext() && (limit <= 0 || submitted < limit)) {
+                EvaluationSample sample = iterator.next();
+                inFlight.acquire();
+                submitted++;
+                executor.execute(() -> {
+                    try {
+                        evaluate(service, sample, labelMap, report);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                if (submitted % 1000 == 0) {
+                    log.info("已提交 {} 个样本，当前准确率 {}%", submitted,
+                            String.format("%.2f", report.getAccuracy() * 100));
+                }
+            }
+        } finally {
+            executor.shutdown();
+            if (!executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                int queued = executor.shutdownNow().size();
+                report.markIncomplete(submitted);
+                log.warn("评测等待超时（{}），中止在途样本，{} 个样本未开始，报告不完整", timeout, queued);
+            }
+            report.finish();
+        }
+
+        String text = report.toText();
+        log.info("\n{}", text);
+        writeReport(report, text);
+
+        if (exitOnFinish) {
+            int exitCode = report.isComplete() ? 0 : 1;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+
+    /**
+     * 识别单个样本并记录结果
+     */
+    private void evaluate(ImageRecognitionService service, EvaluationSample sample,
+                          Map<String, List<String>> labelMap, EvaluationReport report) {
+        long start = System.nanoTime();
+        String prediction = null;
+        try {
+            String base64 = Base64.getEncoder().encodeToString(sample.png().call());
+            start = System.nanoTime();
+            Map<String, Object> result = service.recognizeImage(base64);
+            if (Boolean.TRUE.equals(result.get("success")) && result.get("prediction") != null) {
+                prediction = result.get("prediction").toString();
+            }
+        } catch (Exception e) {
+            log.debug("样本 {} 识别失败: {}", sample.id(), e.getMessage());
+        }
+        long latencyMs = (System.nanoTime() - start) / 1_000_000;
+        // 数据集类别在词表中（如英文类别名是同义词）时同样计入线上的混淆统计
+        confusionStats.record(provider, sample.label(), prediction);
+        report.record(sample.label(), prediction, isCorrect(labelIndex, sample.label(), prediction, labelMap), latencyMs);
+    }
+
+    /**
+     * 判断预测是否正确：预测结果与期望类别在标签索引中对应同一个标准词
+     * （数据集的英文类别名通过词表中的同义词映射），或预测结果等于或包含期望类别（忽略大小写和首尾空白）
+     */
+    static boolean isCorrect(LabelIndex labelIndex, String label, String prediction, Map<String, List<String>> labelMap) {
+        if (prediction == null) {
+            return false;
+        }
+        String normalized = prediction.trim().toLowerCase(Locale.ROOT);
+        List<String> expected = labelMap.getOrDefault(label, List.of(label));
+        for (String candidate : expected) {
+            if (labelIndex.isCorrectPrediction(prediction, candidate)) {
+                return true;
+            }
+            String c = candidate.trim().toLowerCase(Locale.ROOT);
+            if (!c.isEmpty() && (normalized.equals(c) || normalized.contains(c))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<String, List<String>> loadLabelMap() throws IOException {
+        Map<String, List<String>> labelMap = new HashMap<>();
+        if (labelMapFile == null || labelMapFile.isBlank()) {
+            return labelMap;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(labelMapFile), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            labelMap.put(key, Arrays.asList(properties.getProperty(key).split("\\|")));
+        }
+        log.info("已加载 {} 条类别映射", labelMap.size());
+        return labelMap;
+    }
+
+    private void writeReport(EvaluationReport report, String text) throws IOException {
+        if (reportDir == null || reportDir.isBlank()) {
+            return;
+        }
+        Path dir = Files.createDirectories(Path.of(reportDir));
+        Files.writeString(dir.resolve("evaluation-" + provider + ".txt"), text, StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("confusion-" + provider + ".csv"), report.confusionMatrixCsv(), StandardCharsets.UTF_8);
+        log.info("评测报告已写入 {}", dir.toAbsolutePath());
+    }
+}
@@ -0,0 +1,14 @@
+package com.pictionary.evaluation;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 评测样本
+ * 图像数据延迟生成，光栅化和编码在评测工作线程中完成，而不是在读取数据集的线程中
+ *
+ * @param id    样本标识（行号或文件名）
+ * @param label 标注的真实类别
+ * @param png   生成PNG图像字节的函数
+ */
+public record EvaluationSample(String id, String label, Callable<byte[]> png) {
+}
@@ -0,0 +1,61 @@
+package com.pictionary.fake;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 模拟识别服务配置
+ * 属性前缀为 pictionary.fake
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.fake")
+public class FakeProviderProperties {
+
+    // 随机数种子，相同的种子和相同的请求顺序得到相同的延迟、错误和识别结果；未配置时使用启动时间
+    private Long seed;
+
+    // 完成模拟响应的调度线程数
+    private int schedulerThreads = 1;
+
+    // 延迟分布
+    private Latency latency = new Latency();
+
+    // 注入错误的概率：经过正常的延迟后以异常结束
+    private double errorRate = 0;
+
+    // 注入超时的概率：等待 timeout 后以 TimeoutException 结束
+    private double timeoutRate = 0;
+
+    // 注入超时的等待时间
+    private Duration timeout = Duration.ofSeconds(30);
+
+    /**
+     * 延迟分布配置，含义见 LatencyModel
+     */
+    @Data
+    public static class Latency {
+
+        private LatencyModel.Distribution distribution = LatencyModel.Distribution.LOGNORMAL;
+
+        private Duration median = Duration.ofMillis(400);
+
+        private Duration stddev = Duration.ofMillis(100);
+
+        private double sigma = 0.4;
+
+        private double tailProbability = 0.01;
+
+        private double tailMultiplier = 8;
+
+        private Duration max = Duration.ofSeconds(20);
+
+        public LatencyModel toModel() {
+            return new LatencyModel(distribution, median.toMillis(), stddev.toMillis(), sigma,
+                    tailProbability, tailMultiplier, max.toMillis());
+        }
+    }
+}
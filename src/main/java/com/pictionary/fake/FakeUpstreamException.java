@@ -0,0 +1,12 @@
+package com.pictionary.fake;
+
+/**
+ * 模拟识别服务注入的上游错误
+ * 不记录堆栈：压测时错误率可能很高，日志里只需要错误信息
+ */
+public class FakeUpstreamException extends RuntimeException {
+
+    public FakeUpstreamException(String message) {
+        super(message, null, false, false);
+    }
+}
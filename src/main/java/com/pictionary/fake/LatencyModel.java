@@ -0,0 +1,71 @@
+package com.pictionary.fake;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * 模拟上游延迟的分布
+ * <ul>
+ *     <li>FIXED：总是 median</li>
+ *     <li>NORMAL：均值为 median、标准差为 stddev 的正态分布，负值截断为0</li>
+ *     <li>LOGNORMAL：中位数为 median、形状参数为 sigma 的对数正态分布，更接近真实接口的长尾延迟</li>
+ * </ul>
+ * 在基础分布之上，每个请求以 tailProbability 的概率再乘以 tailMultiplier（尾部尖刺），最终结果不超过 max。
+ *
+ * @param distribution    分布类型
+ * @param medianMs        中位数（正态分布为均值，固定分布为固定值），毫秒
+ * @param stddevMs        正态分布的标准差，毫秒
+ * @param sigma           对数正态分布的形状参数
+ * @param tailProbability 尾部尖刺的概率
+ * @param tailMultiplier  尾部尖刺的倍数
+ * @param maxMs           延迟上限，毫秒
+ */
+public record LatencyModel(Distribution distribution, double medianMs, double stddevMs, double sigma,
+                           double tailProbability, double tailMultiplier, double maxMs) {
+
+    public enum Distribution {
+        FIXED, NORMAL, LOGNORMAL
+    }
+
+    public LatencyModel {
+        if (distribution == null) {
+            throw new IllegalArgumentException("延迟分布不能为空");
+        }
+        if (medianMs < 0 || stddevMs < 0 || sigma < 0 || maxMs < 0) {
+            throw new IllegalArgumentException("延迟参数不能为负数");
+        }
+        if (tailProbability < 0 || tailProbability > 1) {
+            throw new IllegalArgumentException("尾部尖刺概率必须在0到1之间: " + tailProbability);
+        }
+    }
+
+    /**
+     * 固定延迟
+     *
+     * @param millis 延迟，毫秒
+     * @return 延迟分布
+     */
+    public static LatencyModel fixed(long millis) {
+        return new LatencyModel(Distribution.FIXED, millis, 0, 0, 0, 1, millis);
+    }
+
+    /**
+     * 抽取一个延迟样本
+     * 每次调用消耗的随机数个数固定，同一个种子的随机数生成器得到相同的样本
+     *
+     * @param random 随机数生成器
+     * @return 延迟，毫秒
+     */
+    public long sampleMillis(RandomGenerator random) {
+        double gaussian = random.nextGaussian();
+        boolean spike = random.nextDouble() < tailProbability;
+        double millis = switch (distribution) {
+            case FIXED -> medianMs;
+            case NORMAL -> medianMs + stddevMs * gaussian;
+            case LOGNORMAL -> medianMs * Math.exp(sigma * gaussian);
+        };
+        if (spike) {
+            millis *= tailMultiplier;
+        }
+        return Math.round(Math.min(maxMs, Math.max(0, millis)));
+    }
+}
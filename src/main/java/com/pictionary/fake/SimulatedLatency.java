@@ -0,0 +1,69 @@
+package com.pictionary.fake;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 模拟上游延迟的调度器
+ * 模拟识别服务不再用 Thread.sleep 占住线程等待，而是把响应交给调度线程在到期时完成，
+ * 压测时测到的是我们自己的代码，而不是线程池被睡眠线程耗尽。
+ * 响应在调度线程中生成，生成逻辑必须很快且不能阻塞。
+ */
+@Component
+public class SimulatedLatency {
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    public SimulatedLatency(FakeProviderProperties properties) {
+        AtomicInteger counter = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, properties.getSchedulerThreads()), r -> {
+            Thread thread = new Thread(r, "fake-upstream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 延迟后用 supplier 的结果完成
+     *
+     * @param delayMs  延迟，毫秒
+     * @param supplier 响应生成逻辑
+     * @return 到期后完成的结果
+     */
+    public <T> CompletableFuture<T> after(long delayMs, Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    /**
+     * 延迟后以异常结束
+     *
+     * @param delayMs 延迟，毫秒
+     * @param error   异常
+     * @return 到期后以异常结束的结果
+     */
+    public <T> CompletableFuture<T> failAfter(long delayMs, Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.completeExceptionally(error), delayMs, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,42 @@
+package com.pictionary.game;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 游戏回合配置
+ * 属性前缀为 pictionary.game
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.game")
+public class GameProperties {
+
+    // 每回合时长
+    private Duration roundDuration = Duration.ofSeconds(80);
+
+    // 时间轮刻度，回合倒计时的精度
+    private Duration tick = Duration.ofMillis(100);
+
+    // 时间轮每圈的槽位数
+    private int ticksPerWheel = 1024;
+
+    // 单个节点最多的房间数
+    private int maxRooms = 50_000;
+
+    // 每个房间最多的玩家数
+    private int maxPlayersPerRoom = 16;
+
+    // 房间无人操作多久后被回收
+    private Duration roomIdleTimeout = Duration.ofMinutes(30);
+
+    // 猜中得分：回合开始时猜中得 maxPoints，随剩余时间线性递减到 minPoints
+    private int maxPoints = 100;
+    private int minPoints = 10;
+
+    // 每有一名玩家猜中，画手得到的分数
+    private int drawerPointsPerGuess = 20;
+}
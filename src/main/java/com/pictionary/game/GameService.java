@@ -0,0 +1,382 @@
+package com.pictionary.game;
+
+import com.pictionary.label.LabelIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 游戏回合引擎
+ * 管理房间、玩家、目标词、回合倒计时、猜词和计分。
+ * 所有回合倒计时和房间空闲回收共用一个哈希时间轮，不为每个回合创建 ScheduledFuture。
+ * 玩家名称由客户端提供，创建或加入房间时为玩家签发随机令牌，之后以该玩家身份操作、查看目标词都要校验令牌。
+ */
+@Service
+@Slf4j
+public class GameService {
+
+    private final GameProperties properties;
+    private final LabelIndex labelIndex;
+    private final HashedTimingWheel timingWheel;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final SecureRandom tokenRandom = new SecureRandom();
+    // 可作为目标词的标准词（词表中有分类的词）
+    private final List<String[]> targets = new ArrayList<>();
+
+    private final AtomicInteger activeRounds = new AtomicInteger();
+    private final LongAdder startedRounds = new LongAdder();
+    private final LongAdder finishedRounds = new LongAdder();
+    private final LongAdder guesses = new LongAdder();
+
+    public GameService(GameProperties properties, LabelIndex labelIndex) {
+        this.properties = properties;
+        this.labelIndex = labelIndex;
+        for (String category : labelIndex.getCategories()) {
+            for (String label : labelIndex.getLabels(category)) {
+                targets.add(new String[]{label, category});
+            }
+        }
+        if (targets.isEmpty()) {
+            throw new IllegalStateException("词表中没有可用的目标词");
+        }
+        this.timingWheel = new HashedTimingWheel("game-timer",
+                properties.getTick().toNanos(), TimeUnit.NANOSECONDS, properties.getTicksPerWheel());
+    }
+
+    @PreDestroy
+    public void stop() {
+        timingWheel.stop();
+    }
+
+    /**
+     * 创建房间，创建者自动加入
+     *
+     * @param player 玩家名称
+     * @return 创建者的席位
+     */
+    public Seat createRoom(String player) {
+        requirePlayer(player);
+        if (rooms.size() >= properties.getMaxRooms()) {
+            throw new IllegalStateException("房间数已达上限");
+        }
+        long now = System.currentTimeMillis();
+        Room room;
+        do {
+            room = new Room(Long.toString(ThreadLocalRandom.current().nextLong(36L * 36 * 36 * 36 * 36, 36L * 36 * 36 * 36 * 36 * 36), 36), now);
+        } while (rooms.putIfAbsent(room.getId(), room) != null);
+        String token = newToken();
+        synchronized (room) {
+            room.addPlayer(player, token);
+        }
+        scheduleIdleCheck(room, properties.getRoomIdleTimeout().toMillis());
+        log.debug("玩家 {} 创建房间 {}", player, room.getId());
+        return new Seat(room, player, token);
+    }
+
+    /**
+     * 加入房间；已在房间中的玩家凭令牌重新加入，名称被其他玩家占用时拒绝
+     *
+     * @param token 重新加入时的令牌，首次加入时为null
+     * @return 玩家的席位
+     */
+    public Seat joinRoom(String roomId, String player, String token) {
+        requirePlayer(player);
+        Room room = getRoom(roomId);
+        synchronized (room) {
+            checkOpen(room);
+            if (room.getScores().containsKey(player)) {
+                requireToken(room, player, token);
+            } else {
+                if (room.getScores().size() >= properties.getMaxPlayersPerRoom()) {
+                    throw new IllegalStateException("房间人数已满");
+                }
+                room.addPlayer(player, newToken());
+            }
+            room.touch(System.currentTimeMillis());
+            return new Seat(room, player, room.tokenOf(player));
+        }
+    }
+
+    /**
+     * 离开房间，画手离开时结束当前回合，最后一名玩家离开时关闭房间
+     */
+    public void leaveRoom(String roomId, String player, String token) {
+        Room room = getRoom(roomId);
+        synchronized (room) {
+            if (!room.getScores().containsKey(player)) {
+                return;
+            }
+            requireToken(room, player, token);
+            room.removePlayer(player);
+            Round round = room.getCurrentRound();
+            if (round != null && !round.isFinished() && player.equals(round.getDrawer())) {
+                finishRound(room, round, Round.EndReason.DRAWER_LEFT);
+            }
+            if (room.getScores().isEmpty()) {
+                closeRoom(room);
+            }
+            room.touch(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 开始新回合：轮到的玩家作画，从词表中随机选择目标词
+     *
+     * @return 新回合
+     */
+    public Round startRound(String roomId, String player, String token) {
+        Room room = getRoom(roomId);
+        synchronized (room) {
+            checkOpen(room);
+            requireMember(room, player);
+            requireToken(room, player, token);
+            if (room.hasActiveRound()) {
+                throw new IllegalStateException("当前回合尚未结束");
+            }
+            Round previous = room.getCurrentRound();
+            String[] target = pickTarget(previous == null ? null : previous.getTarget());
+            long now = System.currentTimeMillis();
+            long durationMillis = properties.getRoundDuration().toMillis();
+            Round round = room.newRound(target[0], target[1], room.nextDrawer(), now, durationMillis);
+            round.timeout = timingWheel.newTimeout(() -> onRoundTimeout(room, round), durationMillis, TimeUnit.MILLISECONDS);
+            room.touch(now);
+            activeRounds.incrementAndGet();
+            startedRounds.increment();
+            return round;
+        }
+    }
+
+    /**
+     * 提交猜测
+     *
+     * @return 猜测结果：correct 是否猜中，points 本次得分，roundFinished 回合是否因此结束
+     */
+    public Map<String, Object> guess(String roomId, String player, String token, String guess) {
+        Room room = getRoom(roomId);
+        guesses.increment();
+        Map<String, Object> result = new HashMap<>();
+        synchronized (room) {
+            requireMember(room, player);
+            requireToken(room, player, token);
+            Round round = room.getCurrentRound();
+            if (round == null || round.isFinished()) {
+                throw new IllegalStateException("当前没有进行中的回合");
+            }
+            if (player.equals(round.getDrawer())) {
+                throw new IllegalArgumentException("画手不能参与猜词");
+            }
+            long now = System.currentTimeMillis();
+            room.touch(now);
+            if (round.getCorrectGuessers().contains(player)) {
+                result.put("correct", true);
+                result.put("points", 0);
+            } else if (labelIndex.isCorrectGuess(guess, round.getTarget())) {
+                int points = score(round, now);
+                round.getCorrectGuessers().add(player);
+                room.addPoints(player, points);
+                room.addPoints(round.getDrawer(), properties.getDrawerPointsPerGuess());
+                result.put("correct", true);
+                result.put("points", points);
+                // 除画手外的所有玩家都猜中时提前结束回合
+                if (round.getCorrectGuessers().size() >= room.getScores().size() - 1) {
+                    finishRound(room, round, Round.EndReason.ALL_GUESSED);
+                }
+            } else {
+                result.put("correct", false);
+                result.put("points", 0);
+            }
+            result.put("roundFinished", round.isFinished());
+        }
+        return result;
+    }
+
+    /**
+     * 玩家作为画手的当前回合目标词，用于把画手画作的识别结果计入混淆统计
+     *
+     * @return 目标词；房间不存在、没有进行中的回合、玩家不是当前画手或令牌不符时返回null
+     */
+    public String getDrawingTarget(String roomId, String player, String token) {
+        Room room = roomId == null ? null : rooms.get(roomId);
+        if (room == null || player == null) {
+            return null;
+        }
+        synchronized (room) {
+            Round round = room.getCurrentRound();
+            return round != null && !round.isFinished() && player.equals(round.getDrawer())
+                    && room.authenticate(player, token) ? round.getTarget() : null;
+        }
+    }
+
+    /**
+     * 房间状态，目标词只对凭令牌确认身份的画手或在回合结束后可见
+     *
+     * @param player 查看状态的玩家，可以为null
+     * @param token  玩家的令牌，可以为null
+     */
+    public Map<String, Object> getState(String roomId, String player, String token) {
+        Room room = getRoom(roomId);
+        Map<String, Object> state = new HashMap<>();
+        synchronized (room) {
+            state.put("roomId", room.getId());
+            state.put("scores", new HashMap<>(room.getScores()));
+            state.put("roundCount", room.getRoundCount());
+            Round round = room.getCurrentRound();
+            if (round != null) {
+                Map<String, Object> roundState = new HashMap<>();
+                roundState.put("number", round.getNumber());
+                roundState.put("drawer", round.getDrawer());
+                roundState.put("category", round.getCategory());
+                roundState.put("targetLength", round.getTarget().length());
+                roundState.put("endsAt", round.getEndsAt());
+                roundState.put("remainingMs", round.isFinished() ? 0 : Math.max(0, round.getEndsAt() - System.currentTimeMillis()));
+                roundState.put("correctGuessers", new ArrayList<>(round.getCorrectGuessers()));
+                roundState.put("finished", round.isFinished());
+                if (round.isFinished()) {
+                    roundState.put("endReason", round.getEndReason());
+                }
+                if (round.isFinished() || round.getDrawer().equals(player) && room.authenticate(player, token)) {
+                    roundState.put("target", round.getTarget());
+                }
+                state.put("round", roundState);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 运行统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("rooms", rooms.size());
+        stats.put("activeRounds", activeRounds.get());
+        stats.put("startedRounds", startedRounds.sum());
+        stats.put("finishedRounds", finishedRounds.sum());
+        stats.put("guesses", guesses.sum());
+        stats.put("pendingTimers", timingWheel.getPendingCount());
+        return stats;
+    }
+
+    public Room getRoom(String roomId) {
+        Room room = roomId == null ? null : rooms.get(roomId);
+        if (room == null) {
+            throw new IllegalArgumentException("房间不存在: " + roomId);
+        }
+        return room;
+    }
+
+    /**
+     * 得分随剩余时间线性递减
+     */
+    private int score(Round round, long now) {
+        long duration = Math.max(1, round.getEndsAt() - round.getStartedAt());
+        long remaining = Math.max(0, round.getEndsAt() - now);
+        return properties.getMinPoints()
+                + (int) ((properties.getMaxPoints() - properties.getMinPoints()) * remaining / duration);
+    }
+
+    private String[] pickTarget(String previous) {
+        String[] target = targets.get(ThreadLocalRandom.current().nextInt(targets.size()));
+        if (targets.size() > 1 && target[0].equals(previous)) {
+            return pickTarget(previous);
+        }
+        return target;
+    }
+
+    /**
+     * 时间轮工作线程上执行，只做很少的工作
+     */
+    private void onRoundTimeout(Room room, Round round) {
+        synchronized (room) {
+            if (room.getCurrentRound() == round && !round.isFinished()) {
+                finishRound(room, round, Round.EndReason.TIMEOUT);
+            }
+        }
+    }
+
+    private void finishRound(Room room, Round round, Round.EndReason reason) {
+        round.finish(reason, System.currentTimeMillis());
+        if (reason != Round.EndReason.TIMEOUT && round.timeout != null) {
+            round.timeout.cancel();
+        }
+        activeRounds.decrementAndGet();
+        finishedRounds.increment();
+        log.debug("房间 {} 第 {} 回合结束: {}", room.getId(), round.getNumber(), reason);
+    }
+
+    /**
+     * 空闲检查也挂在时间轮上：到期时若房间期间有操作，则按剩余时间重新挂上
+     */
+    private void scheduleIdleCheck(Room room, long delayMillis) {
+        timingWheel.newTimeout(() -> {
+            synchronized (room) {
+                if (room.closed) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                long remainingMillis = properties.getRoomIdleTimeout().toMillis() - (now - room.getLastActiveAt());
+                if (room.hasActiveRound()) {
+                    // 进行中的回合不回收，回合结束后再检查
+                    remainingMillis = Math.max(remainingMillis, room.getCurrentRound().getEndsAt() - now);
+                }
+                if (remainingMillis <= 0) {
+                    log.debug("房间 {} 空闲超时，已回收", room.getId());
+                    closeRoom(room);
+                } else {
+                    scheduleIdleCheck(room, Math.max(remainingMillis, properties.getTick().toMillis()));
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeRoom(Room room) {
+        Round round = room.getCurrentRound();
+        if (round != null && !round.isFinished()) {
+            finishRound(room, round, Round.EndReason.ROOM_CLOSED);
+        }
+        room.closed = true;
+        rooms.remove(room.getId(), room);
+    }
+
+    private static void checkOpen(Room room) {
+        if (room.closed) {
+            throw new IllegalArgumentException("房间不存在: " + room.getId());
+        }
+    }
+
+    private static void requireMember(Room room, String player) {
+        if (player == null || !room.getScores().containsKey(player)) {
+            throw new IllegalArgumentException("玩家不在房间中: " + player);
+        }
+    }
+
+    private static void requireToken(Room room, String player, String token) {
+        if (!room.authenticate(player, token)) {
+            throw new SecurityException("玩家令牌无效: " + player);
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[18];
+        tokenRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void requirePlayer(String player) {
+        if (player == null || player.isBlank() || player.length() > 32) {
+            throw new IllegalArgumentException("玩家名称无效");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.pictionary.game;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 游戏房间
+ * 所有可变状态都在 synchronized (room) 中访问
+ */
+@Getter
+public class Room {
+
+    private final String id;
+    // 玩家及其得分，按加入顺序轮流作画
+    private final Map<String, Integer> scores = new LinkedHashMap<>();
+    // 加入房间时为每名玩家签发的令牌，玩家名称由客户端提供，只凭令牌确认身份
+    @Getter(AccessLevel.NONE)
+    private final Map<String, String> tokens = new HashMap<>();
+
+    private Round currentRound;
+    private int roundCount;
+    private int nextDrawerIndex;
+    private volatile long lastActiveAt;
+    boolean closed;
+
+    Room(String id, long now) {
+        this.id = id;
+        this.lastActiveAt = now;
+    }
+
+    void touch(long now) {
+        lastActiveAt = now;
+    }
+
+    boolean hasActiveRound() {
+        return currentRound != null && !currentRound.isFinished();
+    }
+
+    /**
+     * 选出下一位画手
+     */
+    String nextDrawer() {
+        List<String> players = new ArrayList<>(scores.keySet());
+        String drawer = players.get(nextDrawerIndex % players.size());
+        nextDrawerIndex = (nextDrawerIndex + 1) % players.size();
+        return drawer;
+    }
+
+    Round newRound(String target, String category, String drawer, long now, long durationMillis) {
+        roundCount++;
+        currentRound = new Round(roundCount, target, category, drawer, now, now + durationMillis);
+        return currentRound;
+    }
+
+    void addPlayer(String player, String token) {
+        scores.put(player, 0);
+        tokens.put(player, token);
+    }
+
+    void removePlayer(String player) {
+        scores.remove(player);
+        tokens.remove(player);
+    }
+
+    String tokenOf(String player) {
+        return tokens.get(player);
+    }
+
+    /**
+     * 令牌是否属于该玩家，按常量时间比较
+     */
+    boolean authenticate(String player, String token) {
+        String expected = player == null ? null : tokens.get(player);
+        return expected != null && token != null
+                && MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), token.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    void addPoints(String player, int points) {
+        scores.merge(player, points, Integer::sum);
+    }
+}
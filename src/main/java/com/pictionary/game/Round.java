@@ -0,0 +1,56 @@
+package com.pictionary.game;
+
+import lombok.Getter;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 游戏回合
+ * 可变字段只在持有所属房间的锁时修改
+ */
+@Getter
+public class Round {
+
+    /**
+     * 回合结束原因
+     */
+    public enum EndReason {
+        // 倒计时结束
+        TIMEOUT,
+        // 所有玩家都已猜中
+        ALL_GUESSED,
+        // 画手离开房间
+        DRAWER_LEFT,
+        // 房间关闭（所有玩家离开或空闲回收）
+        ROOM_CLOSED
+    }
+
+    private final int number;
+    private final String target;
+    private final String category;
+    private final String drawer;
+    private final long startedAt;
+    private final long endsAt;
+    private final Set<String> correctGuessers = new LinkedHashSet<>();
+
+    private volatile boolean finished;
+    private long endedAt;
+    private EndReason endReason;
+    HashedTimingWheel.Timeout timeout;
+
+    Round(int number, String target, String category, String drawer, long startedAt, long endsAt) {
+        this.number = number;
+        this.target = target;
+        this.category = category;
+        this.drawer = drawer;
+        this.startedAt = startedAt;
+        this.endsAt = endsAt;
+    }
+
+    void finish(EndReason reason, long now) {
+        this.finished = true;
+        this.endReason = reason;
+        this.endedAt = now;
+    }
+}
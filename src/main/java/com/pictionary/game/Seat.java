@@ -0,0 +1,11 @@
+package com.pictionary.game;
+
+/**
+ * 玩家在房间中的席位
+ *
+ * @param room   房间
+ * @param player 玩家名称
+ * @param token  加入房间时签发的令牌，之后以该玩家身份操作或查看目标词时都要提供
+ */
+public record Seat(Room room, String player, String token) {
+}
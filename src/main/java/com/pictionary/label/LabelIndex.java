@@ -0,0 +1,253 @@
+package com.pictionary.label;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 标签索引
+ * 启动时从词表（见 labels/vocabulary.txt）构建一次，之后只读，可以被多个线程同时使用。
+ * <ul>
+ *     <li>精确匹配：规范化后的同义词（去掉分隔符）到标准词的哈希表</li>
+ *     <li>包含匹配：规范化后的同义词组成的前缀树，在识别结果文本中查找最左最长的标签</li>
+ *     <li>标准词ID：每个标准词按收录顺序编号（从0开始），统计时可以用数组下标代替字符串键</li>
+ * </ul>
+ */
+public class LabelIndex {
+
+    private static final String SIMILAR_SECTION = "相似";
+
+    private final Map<String, LabelMatch> exact = new HashMap<>();
+    private final LabelTrie trie = new LabelTrie();
+    private final Map<String, List<String>> categories = new LinkedHashMap<>();
+    private final Map<String, List<String>> similar = new HashMap<>();
+    private final Map<String, Integer> labelIds = new HashMap<>();
+    private final List<String> labelNames = new ArrayList<>();
+
+    private LabelIndex() {
+    }
+
+    /**
+     * 从词表构建索引
+     *
+     * @param reader 词表内容
+     * @return 标签索引
+     * @throws IllegalArgumentException 词表格式错误，或同一个同义词对应了不同的标准词
+     */
+    public static LabelIndex load(Reader reader) throws IOException {
+        LabelIndex index = new LabelIndex();
+        BufferedReader bufferedReader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        String section = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = bufferedReader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                section = line.substring(1, line.length() - 1).strip();
+                continue;
+            }
+            int eq = line.indexOf('=');
+            String label = (eq < 0 ? line : line.substring(0, eq)).strip();
+            List<String> values = eq < 0 ? List.of() : splitList(line.substring(eq + 1));
+            if (section == null || label.isEmpty()) {
+                throw new IllegalArgumentException("词表第 " + lineNumber + " 行格式错误: " + line);
+            }
+            if (SIMILAR_SECTION.equals(section)) {
+                index.similar.put(label, values);
+            } else {
+                index.categories.computeIfAbsent(section, k -> new ArrayList<>()).add(label);
+                LabelMatch match = new LabelMatch(label, section);
+                index.intern(label);
+                index.register(label, match, lineNumber);
+                for (String alias : values) {
+                    index.register(alias, match, lineNumber);
+                }
+            }
+        }
+
+        // 只出现在相似分组中的词也作为标签收录（没有分类）
+        for (Map.Entry<String, List<String>> entry : index.similar.entrySet()) {
+            index.registerIfAbsent(entry.getKey());
+            entry.getValue().forEach(index::registerIfAbsent);
+        }
+        index.categories.replaceAll((k, v) -> List.copyOf(v));
+        return index;
+    }
+
+    /**
+     * 把任意文本（如识别服务返回的结果）映射为标准词
+     * 先按规范化后的整个文本精确匹配，失败时在文本中查找包含的标签
+     *
+     * @param text 文本
+     * @return 匹配结果，没有匹配的标签时返回null
+     */
+    public LabelMatch canonicalize(String text) {
+        LabelMatch match = lookup(text);
+        if (match != null || text == null) {
+            return match;
+        }
+        return trie.findFirst(LabelNormalizer.normalize(text));
+    }
+
+    /**
+     * 精确匹配：整个文本规范化后必须是某个标签或同义词
+     *
+     * @param text 文本
+     * @return 匹配结果，没有匹配时返回null
+     */
+    public LabelMatch lookup(String text) {
+        if (text == null) {
+            return null;
+        }
+        String key = LabelNormalizer.compact(text);
+        return key.isEmpty() ? null : exact.get(key);
+    }
+
+    /**
+     * 判断玩家的猜测是否命中目标词
+     * 猜测必须整体是目标词或其同义词（忽略大小写、全角/半角、声调、空白和标点），
+     * 避免“不是猫”之类包含目标词的猜测被判为正确
+     *
+     * @param guess  玩家猜测
+     * @param target 目标词
+     * @return 是否命中
+     */
+    public boolean isCorrectGuess(String guess, String target) {
+        return sameLabel(lookup(guess), guess, target);
+    }
+
+    /**
+     * 判断识别服务的预测结果是否命中目标词
+     * 预测结果是自由文本，允许包含匹配（如“一只小猫”命中“猫”）
+     *
+     * @param prediction 预测结果
+     * @param target     目标词（标准词、同义词或英文类别名）
+     * @return 是否命中
+     */
+    public boolean isCorrectPrediction(String prediction, String target) {
+        return sameLabel(canonicalize(prediction), prediction, target);
+    }
+
+    private boolean sameLabel(LabelMatch match, String text, String target) {
+        if (text == null || target == null) {
+            return false;
+        }
+        LabelMatch targetMatch = lookup(target);
+        if (match != null && targetMatch != null) {
+            return match.label().equals(targetMatch.label());
+        }
+        // 目标词不在词表中时按规范化后的文本比较
+        String key = LabelNormalizer.compact(target);
+        return !key.isEmpty() && key.equals(LabelNormalizer.compact(text));
+    }
+
+    /**
+     * @return 所有分类名称（按词表顺序）
+     */
+    public List<String> getCategories() {
+        return List.copyOf(categories.keySet());
+    }
+
+    /**
+     * @param category 分类名称
+     * @return 分类下的标准词，未知分类返回空列表
+     */
+    public List<String> getLabels(String category) {
+        return categories.getOrDefault(category, List.of());
+    }
+
+    /**
+     * @param label 标准词
+     * @return 与标准词难以区分的对象，没有时返回空列表
+     */
+    public List<String> getSimilar(String label) {
+        return similar.getOrDefault(label, List.of());
+    }
+
+    /**
+     * @param label 标准词
+     * @return 标准词的ID（0 到 getLabelCount() - 1），不是标准词时返回-1
+     */
+    public int getLabelId(String label) {
+        Integer id = label == null ? null : labelIds.get(label);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id 标准词ID
+     * @return 标准词
+     * @throws IndexOutOfBoundsException ID无效
+     */
+    public String getLabelName(int id) {
+        return labelNames.get(id);
+    }
+
+    /**
+     * @return 标准词总数（包括只出现在相似分组中的词）
+     */
+    public int getLabelCount() {
+        return labelNames.size();
+    }
+
+    /**
+     * @return 精确匹配表中的键数（标签和同义词总数）
+     */
+    public int size() {
+        return exact.size();
+    }
+
+    private void register(String alias, LabelMatch match, int lineNumber) {
+        String key = LabelNormalizer.compact(alias);
+        if (key.isEmpty()) {
+            return;
+        }
+        LabelMatch existing = exact.putIfAbsent(key, match);
+        if (existing != null && !existing.label().equals(match.label())) {
+            throw new IllegalArgumentException("词表第 " + lineNumber + " 行: 同义词 " + alias
+                    + " 同时对应 " + existing.label() + " 和 " + match.label());
+        }
+        trie.put(LabelNormalizer.normalize(alias), match);
+    }
+
+    private void registerIfAbsent(String label) {
+        String key = LabelNormalizer.compact(label);
+        if (!key.isEmpty() && !exact.containsKey(key)) {
+            LabelMatch match = new LabelMatch(label, null);
+            exact.put(key, match);
+            intern(label);
+            trie.put(LabelNormalizer.normalize(label), match);
+        }
+    }
+
+    private void intern(String label) {
+        if (!labelIds.containsKey(label)) {
+            labelIds.put(label, labelNames.size());
+            labelNames.add(label);
+        }
+    }
+
+    private static List<String> splitList(String text) {
+        List<String> values = new ArrayList<>();
+        int start = 0;
+        while (start <= text.length()) {
+            int comma = text.indexOf(',', start);
+            int end = comma < 0 ? text.length() : comma;
+            String value = text.substring(start, end).strip();
+            if (!value.isEmpty()) {
+                values.add(value);
+            }
+            start = end + 1;
+        }
+        return Collections.unmodifiableList(values);
+    }
+}
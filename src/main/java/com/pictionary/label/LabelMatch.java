@@ -0,0 +1,10 @@
+package com.pictionary.label;
+
+/**
+ * 标签匹配结果
+ *
+ * @param label    标准词
+ * @param category 分类，只出现在相似分组中的词为null
+ */
+public record LabelMatch(String label, String category) {
+}
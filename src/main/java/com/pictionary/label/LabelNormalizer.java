@@ -0,0 +1,104 @@
+package com.pictionary.label;
+
+/**
+ * 标签文本规范化工具类
+ * 逐字符查表处理，不使用正则表达式：
+ * 全角字符转半角、英文转小写、拼音声调字母去掉声调（ü 转为 v），
+ * 标点和空白视为分隔符。
+ */
+public final class LabelNormalizer {
+
+    // 带声调的拼音字母及其对应的无声调字母
+    private static final String TONED = "āáǎàēéěèīíǐìōóǒòūúǔùǖǘǚǜüńňǹ";
+    private static final String PLAIN = "aaaaeeeeiiiioooouuuuvvvvvnnn";
+
+    private LabelNormalizer() {
+    }
+
+    /**
+     * 规范化单个字符
+     *
+     * @param c 字符
+     * @return 规范化后的字符，分隔符（标点、空白等）返回空格
+     */
+    public static char fold(char c) {
+        if (c == '　') {
+            return ' ';
+        }
+        if (c >= '！' && c <= '～') {
+            // 全角ASCII字符转为半角
+            c = (char) (c - 0xFEE0);
+        }
+        if (c < 0x80) {
+            if (c >= 'A' && c <= 'Z') {
+                return (char) (c + 32);
+            }
+            return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : ' ';
+        }
+        if (c >= 'À' && c <= 'ǿ') {
+            int index = TONED.indexOf(Character.toLowerCase(c));
+            if (index >= 0) {
+                return PLAIN.charAt(index);
+            }
+        }
+        return Character.isLetterOrDigit(c) ? c : ' ';
+    }
+
+    /**
+     * 规范化文本：连续的分隔符合并为一个空格，去掉首尾分隔符
+     *
+     * @param text 原始文本
+     * @return 规范化后的文本
+     */
+    public static String normalize(CharSequence text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = fold(text.charAt(i));
+            if (c == ' ') {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 规范化文本并去掉所有分隔符，用作精确匹配的键（如 "Cell Phone"、"cell-phone" 都得到 "cellphone"）
+     *
+     * @param text 原始文本
+     * @return 紧凑形式
+     */
+    public static String compact(CharSequence text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = fold(text.charAt(i));
+            if (c != ' ') {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 去掉标点符号和首尾空白，保留原有字符（用于展示识别结果）
+     *
+     * @param text 原始文本
+     * @return 去掉标点后的文本
+     */
+    public static String stripPunctuation(CharSequence text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) || Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString().strip();
+    }
+}
@@ -0,0 +1,100 @@
+package com.pictionary.label;
+
+import java.util.Arrays;
+
+/**
+ * 标签前缀树
+ * 子节点按字符排序存放在数组中，查找时二分，不需要装箱字符。
+ * 用于在识别结果文本中查找包含的标签（最左最长匹配）。
+ */
+class LabelTrie {
+
+    private final Node root = new Node();
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        // 以此节点结尾的键对应的值，不是键的结尾时为null
+        LabelMatch value;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node getOrAddChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = c;
+            newChildren[insert] = new Node();
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insert];
+        }
+    }
+
+    /**
+     * 插入键，键已存在时保留原有的值
+     *
+     * @return 是否插入成功
+     */
+    boolean put(String key, LabelMatch value) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.getOrAddChild(key.charAt(i));
+        }
+        if (node.value != null) {
+            return false;
+        }
+        node.value = value;
+        return true;
+    }
+
+    /**
+     * 在规范化文本中查找最左最长的键
+     * 以ASCII字母或数字开头/结尾的键必须位于单词边界上，避免英文或拼音键匹配到单词中间
+     *
+     * @param text 规范化文本（见 LabelNormalizer.normalize）
+     * @return 匹配到的值，没有匹配时返回null
+     */
+    LabelMatch findFirst(String text) {
+        for (int start = 0; start < text.length(); start++) {
+            if (isAsciiWordChar(text.charAt(start)) && start > 0 && isAsciiWordChar(text.charAt(start - 1))) {
+                continue;
+            }
+            LabelMatch best = null;
+            Node node = root;
+            for (int i = start; i < text.length(); i++) {
+                node = node.child(text.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                if (node.value != null) {
+                    boolean boundary = !isAsciiWordChar(text.charAt(i))
+                            || i + 1 == text.length()
+                            || !isAsciiWordChar(text.charAt(i + 1));
+                    if (boundary) {
+                        best = node.value;
+                    }
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAsciiWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+}
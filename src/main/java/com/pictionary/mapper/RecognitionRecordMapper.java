@@ -0,0 +1,38 @@
+package com.pictionary.mapper;
+
+import com.pictionary.entity.RecognitionRecord;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 识别历史记录Mapper
+ * SQL定义见 resources/mapper/RecognitionRecordMapper.xml
+ */
+@Mapper
+public interface RecognitionRecordMapper {
+
+    /**
+     * 批量插入识别记录（单条多值INSERT语句）
+     *
+     * @param records 待插入的记录
+     * @return 插入的行数
+     */
+    int insertBatch(@Param("records") List<RecognitionRecord> records);
+
+    /**
+     * 查询最近的识别记录
+     *
+     * @param limit 最大条数
+     * @return 按时间倒序排列的记录
+     */
+    List<RecognitionRecord> selectRecent(@Param("limit") int limit);
+
+    /**
+     * 统计记录总数
+     *
+     * @return 记录总数
+     */
+    long count();
+}
@@ -0,0 +1,84 @@
+package com.pictionary.monitor;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * 飞行记录导出端点：GET /actuator/jfr?minutes=N 导出最近N分钟（默认5分钟），用 JDK Mission Control 或 jfr 命令打开
+ * 记录中有请求路径、线程栈等内部信息，端点默认不暴露；需要时只在内网的管理端口上暴露
+ * （management.server.port + management.endpoints.web.exposure.include，见 application.properties）。
+ * 记录先写入临时文件再流式返回，响应写完后删除，不在内存中缓存整个记录。
+ */
+@Component
+@WebEndpoint(id = "jfr")
+@ConditionalOnProperty(prefix = "pictionary.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FlightRecorderEndpoint {
+
+    private static final int DEFAULT_MINUTES = 5;
+
+    private final FlightRecorderService flightRecorderService;
+
+    public FlightRecorderEndpoint(FlightRecorderService flightRecorderService) {
+        this.flightRecorderService = flightRecorderService;
+    }
+
+    /**
+     * 导出最近N分钟的飞行记录
+     *
+     * @param minutes 分钟数，默认5分钟
+     * @return JFR文件；minutes不是正数时返回400，没有可导出的记录时返回404
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Nullable Integer minutes) throws IOException {
+        int last = minutes != null ? minutes : DEFAULT_MINUTES;
+        if (last <= 0) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Path file = flightRecorderService.dump(Duration.ofMinutes(last));
+        if (file == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+
+    /**
+     * 读完（关闭输入流）后删除的临时文件
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(getFile().toPath(), StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return FileChannel.open(getFile().toPath(), StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+        // 不按文件处理，响应只通过上面的输入流读取文件
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
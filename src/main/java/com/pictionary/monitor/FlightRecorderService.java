@@ -0,0 +1,110 @@
+package com.pictionary.monitor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 持续飞行记录服务
+ * 启动时开启一个只保留最近 max-age 数据的持续记录，自定义事件按配置的阈值过滤，
+ * 需要排查慢请求时可以随时导出最近N分钟的记录（见 FlightRecorderEndpoint）。
+ * 预置配置中记录JVM参数、系统属性、环境变量和进程命令行的事件会泄露API密钥，持续记录中关闭这些事件。
+ */
+@Service
+@ConditionalOnProperty(prefix = "pictionary.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class FlightRecorderService {
+
+    private static final String EVENT_PREFIX = "com.pictionary.";
+
+    // 内容可能包含密钥的JDK事件：JVM和Java程序参数、初始系统属性、初始环境变量、系统进程和子进程的命令行
+    static final List<String> SENSITIVE_EVENTS = List.of(
+            "jdk.JVMInformation",
+            "jdk.InitialSystemProperty",
+            "jdk.InitialEnvironmentVariable",
+            "jdk.SystemProcess",
+            "jdk.ProcessStart");
+
+    private final JfrProperties properties;
+    private Recording recording;
+
+    public FlightRecorderService(JfrProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() throws IOException, ParseException {
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("当前JVM不支持JFR，不开启飞行记录");
+            return;
+        }
+        recording = new Recording(Configuration.getConfiguration(properties.getSettings()));
+        recording.setName("pictionary-continuous");
+        recording.setToDisk(true);
+        recording.setMaxAge(properties.getMaxAge());
+        recording.setMaxSize(properties.getMaxSize());
+        for (Map.Entry<String, Duration> entry : properties.getThresholds().entrySet()) {
+            recording.enable(EVENT_PREFIX + entry.getKey()).withThreshold(entry.getValue());
+        }
+        for (String event : SENSITIVE_EVENTS) {
+            recording.disable(event);
+        }
+        recording.start();
+        log.info("JFR持续记录已开启，保留 {}，阈值 {}", properties.getMaxAge(), properties.getThresholds());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * 导出最近一段时间的飞行记录（JFR格式）到临时文件
+     * 快照包含JVM中所有记录写出的数据，以 -XX:StartFlightRecording 另外开启的记录如果启用了 SENSITIVE_EVENTS 也会导出
+     *
+     * @param last 时间长度，超过 max-age 时按 max-age 导出
+     * @return 临时文件，由调用方读完后删除；没有数据可导出时返回null
+     */
+    public Path dump(Duration last) throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        if (last.compareTo(properties.getMaxAge()) > 0) {
+            last = properties.getMaxAge();
+        }
+        Instant end = Instant.now();
+        // 快照包含当前所有记录已写出的数据，不影响持续记录本身
+        try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+            InputStream stream = snapshot.getStream(end.minus(last), end);
+            if (stream == null) {
+                return null;
+            }
+            Path file = Files.createTempFile("pictionary-", ".jfr");
+            try (stream) {
+                Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            return file;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pictionary.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 图像处理的一个阶段（解码、缩放、对比度增强、二值化、编码等）
+ */
+@Name(ImageStageEvent.NAME)
+@Label("Image Stage")
+@Description("识别前图像处理各阶段的耗时和尺寸")
+@Category({"Pictionary", "Image"})
+@StackTrace(false)
+public class ImageStageEvent extends Event {
+
+    public static final String NAME = "com.pictionary.ImageStage";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Input Width")
+    public int inputWidth;
+
+    @Label("Input Height")
+    public int inputHeight;
+
+    @Label("Output Width")
+    public int outputWidth;
+
+    @Label("Output Height")
+    public int outputHeight;
+
+    @Label("Bytes")
+    @Description("解码阶段为输入文件大小，编码阶段为输出文件大小")
+    @DataAmount
+    public long bytes;
+
+    /**
+     * 开始一个阶段
+     *
+     * @param stage       阶段名称
+     * @param inputWidth  输入宽度（未知时为0）
+     * @param inputHeight 输入高度（未知时为0）
+     * @return 已开始计时的事件
+     */
+    public static ImageStageEvent start(String stage, int inputWidth, int inputHeight) {
+        ImageStageEvent event = new ImageStageEvent();
+        event.begin();
+        event.stage = stage;
+        event.inputWidth = inputWidth;
+        event.inputHeight = inputHeight;
+        return event;
+    }
+
+    /**
+     * 结束阶段，耗时超过阈值时提交事件
+     *
+     * @param outputWidth  输出宽度
+     * @param outputHeight 输出高度
+     * @param bytes        字节数
+     */
+    public void finish(int outputWidth, int outputHeight, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.provider = RecognitionContext.getProvider();
+            this.outputWidth = outputWidth;
+            this.outputHeight = outputHeight;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
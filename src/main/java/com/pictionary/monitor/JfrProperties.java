@@ -0,0 +1,39 @@
+package com.pictionary.monitor;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JFR飞行记录配置
+ * 属性前缀为 pictionary.jfr
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.jfr")
+public class JfrProperties {
+
+    // 是否在启动时开启持续飞行记录
+    private boolean enabled = true;
+
+    // JVM事件使用的预置配置（default 开销约1%，profile 更详细）
+    private String settings = "default";
+
+    // 内存/磁盘中保留的最长时间，也是导出记录时可请求的最长时间
+    private Duration maxAge = Duration.ofMinutes(30);
+
+    // 保留的最大数据量（字节）
+    private long maxSize = 64L * 1024 * 1024;
+
+    // 各自定义事件的阈值，耗时低于阈值的事件不记录；键为事件名称去掉 com.pictionary. 前缀
+    private Map<String, Duration> thresholds = new HashMap<>(Map.of(
+            "RecognitionRequest", Duration.ZERO,
+            "ImageStage", Duration.ofMillis(2),
+            "TokenFetch", Duration.ZERO,
+            "UpstreamCall", Duration.ZERO,
+            "ResponseParse", Duration.ofMillis(1)));
+}
@@ -0,0 +1,57 @@
+package com.pictionary.monitor;
+
+import com.pictionary.cancellation.CancellationToken;
+
+/**
+ * 当前线程正在执行的识别请求上下文
+ * 由 RecognitionRouter 在调用识别服务前设置，供图像处理、上游调用等环节的JFR事件标注识别服务名称，
+ * 并让这些环节在开始前检查请求是否已被取消
+ */
+public final class RecognitionContext {
+
+    private static final ThreadLocal<String> PROVIDER = new ThreadLocal<>();
+    private static final ThreadLocal<CancellationToken> CANCELLATION = new ThreadLocal<>();
+
+    private RecognitionContext() {
+    }
+
+    public static void setProvider(String provider) {
+        PROVIDER.set(provider);
+    }
+
+    /**
+     * @return 当前识别服务名称，不在识别请求中时返回null
+     */
+    public static String getProvider() {
+        return PROVIDER.get();
+    }
+
+    public static void setCancellation(CancellationToken cancellation) {
+        CANCELLATION.set(cancellation);
+    }
+
+    /**
+     * @return 当前识别请求的取消标记，请求不可取消或不在识别请求中时返回null
+     */
+    public static CancellationToken getCancellation() {
+        return CANCELLATION.get();
+    }
+
+    /**
+     * 当前识别请求已被取消时抛出异常，在开始一个耗时环节前调用
+     *
+     * @param stage 即将开始的环节
+     * @throws java.util.concurrent.CancellationException 请求已取消
+     */
+    public static void throwIfCancelled(String stage) {
+        CancellationToken cancellation = CANCELLATION.get();
+        if (cancellation != null) {
+            cancellation.throwIfCancelled(stage);
+        }
+    }
+
+    public static void clear() {
+        PROVIDER.remove();
+        CANCELLATION.remove();
+    }
+}
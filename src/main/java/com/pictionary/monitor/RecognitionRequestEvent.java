@@ -0,0 +1,35 @@
+package com.pictionary.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次识别请求（从路由器收到请求到识别服务返回结果）
+ */
+@Name(RecognitionRequestEvent.NAME)
+@Label("Recognition Request")
+@Description("一次识别请求的总耗时")
+@Category({"Pictionary", "Recognition"})
+@StackTrace(false)
+public class RecognitionRequestEvent extends Event {
+
+    public static final String NAME = "com.pictionary.RecognitionRequest";
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Image Bytes")
+    @DataAmount
+    public long imageBytes;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Prediction")
+    public String prediction;
+}
@@ -0,0 +1,50 @@
+package com.pictionary.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 解析第三方API的识别结果
+ */
+@Name(ResponseParseEvent.NAME)
+@Label("Response Parse")
+@Description("解析第三方API识别结果的耗时")
+@Category({"Pictionary", "Recognition"})
+@StackTrace(false)
+public class ResponseParseEvent extends Event {
+
+    public static final String NAME = "com.pictionary.ResponseParse";
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Prediction")
+    public String prediction;
+
+    /**
+     * 执行解析并记录事件
+     *
+     * @param parser 解析过程
+     * @return 解析结果
+     */
+    public static Map<String, Object> record(Supplier<Map<String, Object>> parser) {
+        ResponseParseEvent event = new ResponseParseEvent();
+        event.begin();
+        Map<String, Object> result = parser.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.provider = RecognitionContext.getProvider();
+            Object prediction = result == null ? null : result.get("prediction");
+            event.prediction = prediction == null ? null : prediction.toString();
+            event.commit();
+        }
+        return result;
+    }
+}
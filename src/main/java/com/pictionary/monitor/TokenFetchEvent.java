@@ -0,0 +1,53 @@
+package com.pictionary.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.Supplier;
+
+/**
+ * 获取第三方API访问令牌
+ */
+@Name(TokenFetchEvent.NAME)
+@Label("Token Fetch")
+@Description("获取第三方API访问令牌的耗时")
+@Category({"Pictionary", "Upstream"})
+@StackTrace(false)
+public class TokenFetchEvent extends Event {
+
+    public static final String NAME = "com.pictionary.TokenFetch";
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Success")
+    public boolean success;
+
+    /**
+     * 获取访问令牌并记录事件
+     *
+     * @param fetcher 获取过程，失败时抛出异常
+     * @return 访问令牌
+     */
+    public static String record(Supplier<String> fetcher) {
+        TokenFetchEvent event = new TokenFetchEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            String token = fetcher.get();
+            success = true;
+            return token;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.provider = RecognitionContext.getProvider();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.pictionary.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次第三方API调用
+ */
+@Name(UpstreamCallEvent.NAME)
+@Label("Upstream Call")
+@Description("调用第三方识别API的耗时（不含访问令牌以外的本地处理）")
+@Category({"Pictionary", "Upstream"})
+@StackTrace(false)
+public class UpstreamCallEvent extends Event {
+
+    public static final String NAME = "com.pictionary.UpstreamCall";
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Host")
+    public String host;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Status Code")
+    public int statusCode;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @Description("响应头中的Content-Length，未知时为-1")
+    @DataAmount
+    public long responseBytes;
+}
@@ -0,0 +1,55 @@
+package com.pictionary.monitor;
+
+import com.pictionary.cancellation.CancellationToken;
+import com.pictionary.cancellation.RecognitionCancellations;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * RestTemplate拦截器：为每次第三方API调用记录 UpstreamCallEvent
+ * 识别请求已被取消时不再发出调用；调用过程中被取消的计入浪费的上游调用
+ */
+public class UpstreamCallInterceptor implements ClientHttpRequestInterceptor {
+
+    private final RecognitionCancellations cancellations;
+
+    public UpstreamCallInterceptor(RecognitionCancellations cancellations) {
+        this.cancellations = cancellations;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        CancellationToken cancellation = RecognitionContext.getCancellation();
+        if (cancellation != null) {
+            cancellation.throwIfCancelled("上游调用 " + request.getURI().getPath());
+        }
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        event.begin();
+        int statusCode = -1;
+        long responseBytes = -1;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            statusCode = response.getStatusCode().value();
+            responseBytes = response.getHeaders().getContentLength();
+            return response;
+        } finally {
+            cancellations.onUpstreamCall(RecognitionContext.getProvider(), cancellation, statusCode >= 0);
+            event.end();
+            if (event.shouldCommit()) {
+                event.provider = RecognitionContext.getProvider();
+                event.method = request.getMethod().name();
+                event.host = request.getURI().getHost();
+                // 只记录路径，查询参数中可能带有访问令牌
+                event.path = request.getURI().getPath();
+                event.statusCode = statusCode;
+                event.requestBytes = body.length;
+                event.responseBytes = responseBytes;
+                event.commit();
+            }
+        }
+    }
+}
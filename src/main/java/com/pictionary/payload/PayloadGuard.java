@@ -0,0 +1,117 @@
+package com.pictionary.payload;
+
+import com.pictionary.tuning.ImageProfile;
+import com.pictionary.tuning.ImageProfiles;
+import com.pictionary.util.CanvasPngDecoder;
+import com.pictionary.util.ImageHeader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 图像请求的准入检查，在解码任何像素之前执行
+ * <ul>
+ *     <li>只解码Base64的开头部分读取文件头，拒绝无法识别的格式和声明了超大尺寸的图像</li>
+ *     <li>按图像尺寸和识别服务的图像规格估算预处理管线的内存，超过单请求预算的拒绝。
+ *     预处理在CPU隔离舱中执行，同时进行的预处理不超过CPU线程数，总内存因此也有上界</li>
+ * </ul>
+ * 所有拒绝（包括 PayloadLimitFilter 的请求体大小拒绝）计入指标 pictionary.payload.rejected（按 reason 标签区分）。
+ */
+@Component
+public class PayloadGuard {
+
+    // 读取文件头时解码的Base64前缀长度（PNG只需要前24字节，JPEG的SOF段可能在EXIF之后）
+    private static final int HEADER_PREFIX_CHARS = 64 * 1024;
+
+    // 预处理中按目标规格边长同时存在的图像数（解码结果、增强对比度后的副本、PNG编码缓冲区）
+    private static final int WORKING_IMAGES = 3;
+
+    private final PayloadProperties properties;
+    private final ImageProfiles imageProfiles;
+    private final Map<PayloadRejectedException.Reason, Counter> rejected = new EnumMap<>(PayloadRejectedException.Reason.class);
+
+    public PayloadGuard(PayloadProperties properties, ImageProfiles imageProfiles, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.imageProfiles = imageProfiles;
+        for (PayloadRejectedException.Reason reason : PayloadRejectedException.Reason.values()) {
+            rejected.put(reason, Counter.builder("pictionary.payload.rejected")
+                    .description("超出大小限制被拒绝的请求数")
+                    .tag("reason", reason.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 检查Base64编码的图像
+     *
+     * @param base64ImageData Base64编码的图像数据（不含Data URL前缀）
+     * @return 文件头信息
+     * @throws PayloadRejectedException 格式无法识别、尺寸或内存估算超出限制
+     */
+    public ImageHeader check(String base64ImageData) {
+        byte[] prefix;
+        try {
+            int prefixChars = Math.min(base64ImageData.length(), HEADER_PREFIX_CHARS) & ~3;
+            prefix = Base64.getDecoder().decode(base64ImageData.substring(0, prefixChars));
+        } catch (IllegalArgumentException e) {
+            throw reject(PayloadRejectedException.Reason.FORMAT, "图像数据不是有效的Base64编码");
+        }
+        ImageHeader header = ImageHeader.read(prefix);
+        if (header == null && prefix.length < base64ImageData.length() * 3L / 4) {
+            // 文件头不在前缀中，解码全部数据（大小已由请求体限制约束）
+            try {
+                header = ImageHeader.read(Base64.getDecoder().decode(base64ImageData));
+            } catch (IllegalArgumentException e) {
+                throw reject(PayloadRejectedException.Reason.FORMAT, "图像数据不是有效的Base64编码");
+            }
+        }
+        if (header == null) {
+            throw reject(PayloadRejectedException.Reason.FORMAT, "无法识别的图像格式");
+        }
+        if (header.width() > properties.getMaxWidth() || header.height() > properties.getMaxHeight()) {
+            throw reject(PayloadRejectedException.Reason.DIMENSIONS, "图像尺寸 " + header.width() + "x" + header.height()
+                    + " 超过限制 " + properties.getMaxWidth() + "x" + properties.getMaxHeight());
+        }
+        long estimate = estimateMemory(base64ImageData.length() * 3L / 4, header, CanvasPngDecoder.isSupported(prefix));
+        if (estimate > properties.getMaxRequestMemory().toBytes()) {
+            throw reject(PayloadRejectedException.Reason.MEMORY, "图像预处理需要约 " + (estimate >> 20)
+                    + "MB 内存，超过单请求预算 " + properties.getMaxRequestMemory().toMegabytes() + "MB");
+        }
+        return header;
+    }
+
+    /**
+     * 估算预处理管线的峰值内存
+     * 画布PNG（8位RGBA非隔行）由 CanvasPngDecoder 逐行解码，只需要两行缓冲区；
+     * 其它格式由 ImageIO 按声明的尺寸分配整张ARGB图像。
+     *
+     * @param encodedBytes 图像文件大小
+     * @param header       文件头信息
+     * @param streaming    是否由 CanvasPngDecoder 逐行解码
+     * @return 估算的字节数
+     */
+    long estimateMemory(long encodedBytes, ImageHeader header, boolean streaming) {
+        long source = streaming ? header.width() * 4L * 2 : header.pixels() * 4;
+        long working = 0;
+        for (ImageProfile profile : imageProfiles.getAll().values()) {
+            working = Math.max(working, (long) profile.size() * profile.size() * 4 * WORKING_IMAGES);
+        }
+        return encodedBytes + source + working;
+    }
+
+    /**
+     * 计数并创建拒绝异常
+     *
+     * @param reason  拒绝原因
+     * @param message 错误信息
+     * @return 拒绝异常
+     */
+    public PayloadRejectedException reject(PayloadRejectedException.Reason reason, String message) {
+        rejected.get(reason).increment();
+        return new PayloadRejectedException(reason, message);
+    }
+}
@@ -0,0 +1,152 @@
+package com.pictionary.payload;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 请求体大小限制
+ * 声明的 Content-Length 超过 max-body-size 时不读取请求体，直接返回413；
+ * 分块传输或声明不实时，在请求体流入的过程中计数，超过限制立即抛出 PayloadRejectedException，
+ * 不会把整个请求体读进内存（由 PayloadExceptionHandler 转换为413）。
+ */
+@Component
+public class PayloadLimitFilter extends OncePerRequestFilter {
+
+    private final PayloadProperties properties;
+    private final PayloadGuard payloadGuard;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public PayloadLimitFilter(PayloadProperties properties, PayloadGuard payloadGuard) {
+        this.properties = properties;
+        this.payloadGuard = payloadGuard;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String pattern : properties.getPaths()) {
+            if (pathMatcher.match(pattern, path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long limit = properties.getMaxBodySize().toBytes();
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > limit) {
+            PayloadRejectedException e = payloadGuard.reject(PayloadRejectedException.Reason.BODY_SIZE,
+                    "请求体 " + contentLength + " 字节，超过限制 " + limit + " 字节");
+            response.setStatus(e.getReason().getStatus());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"success\":false,\"message\":\"" + e.getMessage() + "\"}");
+            return;
+        }
+        filterChain.doFilter(new LimitedRequest(request, limit), response);
+    }
+
+    /**
+     * 读取请求体时计数的请求包装
+     */
+    private class LimitedRequest extends HttpServletRequestWrapper {
+
+        private final long limit;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        LimitedRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new LimitedInputStream(super.getInputStream(), limit);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+    }
+
+    private class LimitedInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(ServletInputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (count > limit) {
+                throw payloadGuard.reject(PayloadRejectedException.Reason.BODY_SIZE,
+                        "请求体超过限制 " + limit + " 字节");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.pictionary.payload;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 请求体和图像大小限制
+ * 属性前缀为 pictionary.payload
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.payload")
+public class PayloadProperties {
+
+    // 请求体的最大字节数（500x400的画布PNG编码为Base64后通常只有几十KB）
+    private DataSize maxBodySize = DataSize.ofMegabytes(2);
+
+    // 限制请求体大小的路径（Ant风格）
+    private List<String> paths = new ArrayList<>(List.of("/api/**"));
+
+    // 图像文件头声明的最大宽度和高度
+    private int maxWidth = 2048;
+    private int maxHeight = 2048;
+
+    // 单个请求在预处理管线中的内存预算，按图像尺寸和识别服务的图像规格估算
+    private DataSize maxRequestMemory = DataSize.ofMegabytes(48);
+}
@@ -0,0 +1,65 @@
+package com.pictionary.payload;
+
+import java.util.Locale;
+
+/**
+ * 请求体或图像超出限制
+ * 不记录堆栈：拒绝是预期内的快速路径
+ */
+public class PayloadRejectedException extends RuntimeException {
+
+    /**
+     * 拒绝原因，对应的HTTP状态码和指标标签
+     */
+    public enum Reason {
+        // 请求体超过 max-body-size（Content-Length 或读取过程中）
+        BODY_SIZE(413),
+        // 不是可识别的图像
+        FORMAT(400),
+        // 文件头声明的尺寸超过 max-width / max-height
+        DIMENSIONS(413),
+        // 预处理内存估算超过 max-request-memory
+        MEMORY(413);
+
+        private final int status;
+
+        Reason(int status) {
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return 指标标签和响应中 rejected 字段的值
+         */
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @param tag 指标标签
+         * @return 拒绝原因，未知标签返回null
+         */
+        public static Reason fromTag(String tag) {
+            for (Reason reason : values()) {
+                if (reason.tag().equals(tag)) {
+                    return reason;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Reason reason;
+
+    public PayloadRejectedException(Reason reason, String message) {
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
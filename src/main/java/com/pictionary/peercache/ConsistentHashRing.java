@@ -0,0 +1,86 @@
+package com.pictionary.peercache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 一致性哈希环
+ * 每个节点在环上放置 virtualNodes 个虚拟节点，键归属于顺时针方向的第一个虚拟节点。
+ * 节点增减时只有相邻区间的键换了归属，其余键的归属不变。
+ * 构建后只读，可以被多个线程同时使用；所有节点使用相同的成员列表时得到相同的归属。
+ */
+public class ConsistentHashRing {
+
+    private final List<String> nodes;
+    private final long[] positions;
+    private final String[] owners;
+
+    /**
+     * @param nodes        节点列表（重复的节点只保留一个）
+     * @param virtualNodes 每个节点的虚拟节点数
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("一致性哈希环至少需要一个节点");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("虚拟节点数必须为正数: " + virtualNodes);
+        }
+        this.nodes = List.copyOf(new LinkedHashSet<>(nodes));
+
+        // 按位置排序的 (位置, 节点) 对，位置相同时按节点名排序保证各节点结果一致
+        List<Object[]> points = new ArrayList<>(this.nodes.size() * virtualNodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.add(new Object[]{hash(node + "#" + i), node});
+            }
+        }
+        points.sort((a, b) -> {
+            int c = Long.compare((long) a[0], (long) b[0]);
+            return c != 0 ? c : ((String) a[1]).compareTo((String) b[1]);
+        });
+        this.positions = new long[points.size()];
+        this.owners = new String[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            positions[i] = (long) points.get(i)[0];
+            owners[i] = (String) points.get(i)[1];
+        }
+    }
+
+    /**
+     * 查找键的归属节点
+     *
+     * @param key 键
+     * @return 节点
+     */
+    public String owner(String key) {
+        int index = Arrays.binarySearch(positions, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == positions.length ? 0 : index];
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * MD5的前8个字节作为环上的位置（与 ketama 相同的做法，分布均匀且与平台无关）
+     */
+    static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.pictionary.peercache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 带过期时间的LRU缓存，超过容量时淘汰最久未访问的条目
+ * 所有方法同步，只保存少量条目，临界区很短
+ */
+class LruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final int capacity;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    LruCache(int capacity, long ttlMillis) {
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            map.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    synchronized void put(K key, V value) {
+        if (capacity > 0) {
+            map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,247 @@
+package com.pictionary.peercache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pictionary.util.CanvasImage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 集群识别结果缓存（与 groupcache 相同的做法）
+ * <ul>
+ *     <li>每个键（图像哈希 + 识别服务）由一致性哈希环上的一个节点负责，只有负责节点调用识别服务并缓存结果</li>
+ *     <li>其他节点把图像转发给负责节点取结果，并在本地热点缓存中保留一份</li>
+ *     <li>同一个键的并发请求在每个节点上合并为一次加载，因此整个集群对同一幅画只调用一次识别服务</li>
+ *     <li>负责节点不可达时退回到本地调用识别服务，结果只进入热点缓存</li>
+ * </ul>
+ * 成员来自静态配置，各节点的 peers 配置必须相同。只缓存成功的识别结果。
+ */
+@Service
+@ConditionalOnProperty(name = "pictionary.peer-cache.enabled", havingValue = "true")
+@Slf4j
+public class PeerCache {
+
+    // 节点间取结果的接口路径，见 PeerCacheController
+    public static final String FILL_PATH = "/api/peer-cache/";
+
+    private static final TypeReference<Map<String, Object>> RESULT_TYPE = new TypeReference<>() {
+    };
+
+    private final PeerCacheProperties properties;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String self;
+    private final ConsistentHashRing ring;
+
+    // 本节点负责的键
+    private final LruCache<String, Map<String, Object>> mainCache;
+    // 其他节点负责的热点键
+    private final LruCache<String, Map<String, Object>> hotCache;
+    private final SingleFlight<String, Map<String, Object>> singleFlight = new SingleFlight<>();
+
+    private final LongAdder mainHits = new LongAdder();
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder peerFetches = new LongAdder();
+    private final LongAdder peerErrors = new LongAdder();
+    private final LongAdder served = new LongAdder();
+
+    public PeerCache(PeerCacheProperties properties, HttpClient httpClient, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.self = normalize(properties.getSelf());
+        List<String> peers = new ArrayList<>();
+        for (String peer : properties.getPeers()) {
+            peers.add(normalize(peer));
+        }
+        if (!peers.contains(self)) {
+            // 单节点或配置遗漏时本节点也参与哈希环，所有键仍有负责节点
+            log.warn("pictionary.peer-cache.peers 中没有本节点 {}，已自动加入", self);
+            peers.add(self);
+        }
+        this.ring = new ConsistentHashRing(peers, properties.getVirtualNodes());
+        long ttlMillis = properties.getTtl().toMillis();
+        this.mainCache = new LruCache<>(properties.getCapacity(), ttlMillis);
+        this.hotCache = new LruCache<>(properties.getHotCapacity(), ttlMillis);
+        log.info("集群识别结果缓存已启用，本节点: {}，节点列表: {}", self, ring.getNodes());
+    }
+
+    /**
+     * 计算缓存键：图像数据的SHA-256（前128位）加上识别服务名称
+     *
+     * @param base64ImageData Base64编码的图像数据
+     * @param provider        请求指定的识别服务，为空表示自动选择
+     * @return 缓存键，只包含URL安全的字符
+     */
+    public static String key(String base64ImageData, String provider) {
+        return key(CanvasImage.of(base64ImageData), provider);
+    }
+
+    /**
+     * 计算缓存键：画布内容的SHA-256（前128位）加上识别服务名称，见 {@link CanvasImage#sha256()}
+     *
+     * @param canvas   画布
+     * @param provider 请求指定的识别服务，为空表示自动选择
+     * @return 缓存键，只包含URL安全的字符
+     */
+    public static String key(CanvasImage canvas, String provider) {
+        String name = provider == null || provider.isBlank() ? "auto" : provider;
+        return HexFormat.of().formatHex(canvas.sha256(), 0, 16) + "-" + name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
+    /**
+     * 获取识别结果：本地缓存命中时直接返回，否则由负责节点加载
+     *
+     * @param key      缓存键，见 {@link #key(CanvasImage, String)}
+     * @param canvas   画布（转发给负责节点时才编码为PNG）
+     * @param provider 请求指定的识别服务
+     * @param loader   在本节点调用识别服务
+     * @return 识别结果（每个调用方得到独立的副本），缓存命中时 cached=true
+     */
+    public CompletableFuture<Map<String, Object>> get(String key, CanvasImage canvas, String provider,
+                                                      Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        String owner = ring.owner(key);
+        if (owner.equals(self)) {
+            return serve(key, loader);
+        }
+        Map<String, Object> cached = hotCache.get(key);
+        if (cached != null) {
+            hotHits.increment();
+            return CompletableFuture.completedFuture(hit(cached));
+        }
+        return singleFlight.execute(key, () -> fetchFromPeer(owner, key, canvas, provider)
+                        .handle((result, error) -> {
+                            if (error == null) {
+                                return CompletableFuture.completedFuture(result);
+                            }
+                            peerErrors.increment();
+                            log.warn("从节点 {} 获取识别结果失败，改为本地识别: {}", owner, error.toString());
+                            loads.increment();
+                            return loader.get();
+                        })
+                        .thenCompose(future -> future)
+                        .thenApply(result -> {
+                            if (isCacheable(result)) {
+                                hotCache.put(key, result);
+                            }
+                            return result;
+                        }))
+                .thenApply(HashMap::new);
+    }
+
+    /**
+     * 以负责节点的身份获取识别结果，只查本节点负责的缓存，不再转发
+     * 其他节点的取结果请求也走这里（见 PeerCacheController）
+     *
+     * @param key    缓存键
+     * @param loader 在本节点调用识别服务
+     * @return 识别结果（每个调用方得到独立的副本）
+     */
+    public CompletableFuture<Map<String, Object>> serve(String key, Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        served.increment();
+        Map<String, Object> cached = mainCache.get(key);
+        if (cached != null) {
+            mainHits.increment();
+            return CompletableFuture.completedFuture(hit(cached));
+        }
+        return singleFlight.execute(key, () -> {
+                    loads.increment();
+                    return loader.get().thenApply(result -> {
+                        if (isCacheable(result)) {
+                            mainCache.put(key, result);
+                        }
+                        return result;
+                    });
+                })
+                .thenApply(HashMap::new);
+    }
+
+    /**
+     * 把图像转发给负责节点，由它查缓存或调用识别服务
+     */
+    private CompletableFuture<Map<String, Object>> fetchFromPeer(String owner, String key, CanvasImage canvas,
+                                                                 String provider) {
+        peerFetches.increment();
+        String base64ImageData;
+        try {
+            base64ImageData = canvas.toBase64();
+        } catch (UncheckedIOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // 光栅化画布的缓存键按像素计算，负责节点需要解码后校验
+        String uri = owner + FILL_PATH + key + "?rendered=" + canvas.isRendered()
+                + (provider == null || provider.isBlank() ? "" : "&provider=" + URLEncoder.encode(provider, StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(properties.getFetchTimeout())
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(base64ImageData, StandardCharsets.US_ASCII))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("节点返回 HTTP " + response.statusCode());
+            }
+            try {
+                return objectMapper.readValue(response.body(), RESULT_TYPE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static boolean isCacheable(Map<String, Object> result) {
+        return result != null && Boolean.TRUE.equals(result.get("success"));
+    }
+
+    private static Map<String, Object> hit(Map<String, Object> cached) {
+        Map<String, Object> result = new HashMap<>(cached);
+        result.put("cached", true);
+        return result;
+    }
+
+    private static String normalize(String address) {
+        String trimmed = address.strip();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @return 命中、加载、转发次数和缓存大小
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("self", self);
+        stats.put("peers", ring.getNodes());
+        stats.put("mainSize", mainCache.size());
+        stats.put("hotSize", hotCache.size());
+        stats.put("mainHits", mainHits.sum());
+        stats.put("hotHits", hotHits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("served", served.sum());
+        stats.put("peerFetches", peerFetches.sum());
+        stats.put("peerErrors", peerErrors.sum());
+        stats.put("merged", singleFlight.getMerged());
+        stats.put("inFlight", singleFlight.getInFlight());
+        return stats;
+    }
+}
@@ -0,0 +1,40 @@
+package com.pictionary.peercache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 集群识别结果缓存配置
+ * 属性前缀为 pictionary.peer-cache
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.peer-cache")
+public class PeerCacheProperties {
+
+    // 本节点的地址，必须与 peers 中的某一项完全一致
+    private String self = "http://localhost:8080";
+
+    // 所有节点的地址（包括本节点），各节点的配置必须相同
+    private List<String> peers = new ArrayList<>();
+
+    // 每个节点在一致性哈希环上的虚拟节点数
+    private int virtualNodes = 160;
+
+    // 本节点负责的键的缓存条目数
+    private int capacity = 10_000;
+
+    // 从其他节点取回的热点键的本地缓存条目数
+    private int hotCapacity = 1_000;
+
+    // 缓存条目的有效期
+    private Duration ttl = Duration.ofHours(1);
+
+    // 向负责节点取结果的超时，负责节点未命中时要等它调用识别服务，需要覆盖识别服务的最长耗时
+    private Duration fetchTimeout = Duration.ofSeconds(40);
+}
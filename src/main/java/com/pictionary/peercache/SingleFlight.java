@@ -0,0 +1,53 @@
+package com.pictionary.peercache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 合并同一个键的并发加载：加载完成前到达的调用共享第一个调用的结果
+ * 加载完成后立即移除，之后的调用应该由缓存命中；加载函数需要在完成前把结果写入缓存。
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder merged = new LongAdder();
+
+    /**
+     * @param key    键
+     * @param loader 加载函数，只在没有同一个键的加载进行中时调用
+     * @return 加载结果（多个调用方共享同一个结果，不要修改）
+     */
+    CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            merged.increment();
+            return existing;
+        }
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.get();
+        } catch (Throwable e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            inFlight.remove(key, promise);
+            if (error != null) {
+                promise.completeExceptionally(error);
+            } else {
+                promise.complete(value);
+            }
+        });
+        return promise;
+    }
+
+    long getMerged() {
+        return merged.sum();
+    }
+
+    int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,105 @@
+package com.pictionary.router;
+
+import com.pictionary.service.ImageRecognitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 识别服务注册表
+ * 按Bean名称管理所有 ImageRecognitionService 实现及其实时统计。
+ * 识别服务在第一次使用时才从容器中获取。
+ */
+@Component
+@Slf4j
+public class ProviderRegistry {
+
+    private final ListableBeanFactory beanFactory;
+    private final RouterProperties routerProperties;
+    private final List<String> providerNames;
+    private final Map<String, ImageRecognitionService> services = new ConcurrentHashMap<>();
+    private final Map<String, ProviderStats> stats = new ConcurrentHashMap<>();
+
+    public ProviderRegistry(ListableBeanFactory beanFactory, RouterProperties routerProperties) {
+        this.beanFactory = beanFactory;
+        this.routerProperties = routerProperties;
+        this.providerNames = List.copyOf(Arrays.asList(beanFactory.getBeanNamesForType(ImageRecognitionService.class)));
+        log.info("已注册识别服务: {}", providerNames);
+    }
+
+    /**
+     * 把前端传入的名称（短名称或Bean名称）解析为Bean名称
+     *
+     * @param name 短名称或Bean名称
+     * @return Bean名称，未知名称返回null
+     */
+    public String resolveName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String resolved = routerProperties.getAliases().getOrDefault(name, name);
+        return providerNames.contains(resolved) ? resolved : null;
+    }
+
+    /**
+     * 获取识别服务实例
+     *
+     * @param name Bean名称
+     * @return 识别服务
+     */
+    public ImageRecognitionService getService(String name) {
+        return services.computeIfAbsent(name, n -> beanFactory.getBean(n, ImageRecognitionService.class));
+    }
+
+    /**
+     * 获取识别服务的统计数据
+     *
+     * @param name Bean名称
+     * @return 统计数据
+     */
+    public ProviderStats getStats(String name) {
+        return stats.computeIfAbsent(name, n -> new ProviderStats(n,
+                routerProperties.getEwmaAlpha(), routerProperties.getInitialLatencyMs()));
+    }
+
+    /**
+     * 获取参与自动路由的识别服务名称
+     *
+     * @return Bean名称列表
+     */
+    public List<String> getRoutableNames() {
+        List<String> names = new ArrayList<>();
+        for (String name : routerProperties.getProviders()) {
+            String resolved = resolveName(name);
+            if (resolved != null) {
+                names.add(resolved);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 获取识别服务的配置权重
+     *
+     * @param name Bean名称
+     * @return 权重
+     */
+    public double getWeight(String name) {
+        return routerProperties.getWeights().getOrDefault(name, 1.0);
+    }
+
+    public List<String> getProviderNames() {
+        return providerNames;
+    }
+
+    public Collection<ProviderStats> getAllStats() {
+        return stats.values();
+    }
+}
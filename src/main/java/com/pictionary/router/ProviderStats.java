@@ -0,0 +1,112 @@
+package com.pictionary.router;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个识别服务的实时统计
+ * 使用EWMA（指数加权移动平均）跟踪延迟和错误率，所有更新均为无锁操作
+ */
+public class ProviderStats {
+
+    private final String name;
+    private final double alpha;
+
+    // 以 Double.doubleToLongBits 存储，便于CAS更新
+    private final AtomicLong ewmaLatencyBits;
+    private final AtomicLong ewmaErrorRateBits = new AtomicLong(Double.doubleToLongBits(0));
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ProviderStats(String name, double alpha, double initialLatencyMs) {
+        this.name = name;
+        this.alpha = alpha;
+        this.ewmaLatencyBits = new AtomicLong(Double.doubleToLongBits(initialLatencyMs));
+    }
+
+    /**
+     * 请求开始
+     */
+    public void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * 请求结束，更新延迟和错误率
+     *
+     * @param latencyMs 请求耗时（毫秒）
+     * @param success   是否成功
+     */
+    public void onComplete(long latencyMs, boolean success) {
+        inFlight.decrementAndGet();
+        calls.increment();
+        if (!success) {
+            errors.increment();
+        }
+        update(ewmaLatencyBits, latencyMs);
+        update(ewmaErrorRateBits, success ? 0 : 1);
+    }
+
+    /**
+     * 请求因隔离舱已满被拒绝，没有调用识别服务，不计入延迟和错误率
+     */
+    public void onRejected() {
+        inFlight.decrementAndGet();
+        rejected.increment();
+    }
+
+    /**
+     * 客户端放弃等待，请求被取消，不计入延迟和错误率
+     */
+    public void onCancelled() {
+        inFlight.decrementAndGet();
+        cancelled.increment();
+    }
+
+    private void update(AtomicLong bits, double sample) {
+        long current;
+        long next;
+        do {
+            current = bits.get();
+            double value = Double.longBitsToDouble(current);
+            next = Double.doubleToLongBits(value + alpha * (sample - value));
+        } while (!bits.compareAndSet(current, next));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getEwmaLatencyMs() {
+        return Double.longBitsToDouble(ewmaLatencyBits.get());
+    }
+
+    public double getErrorRate() {
+        return Double.longBitsToDouble(ewmaErrorRateBits.get());
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getCancelled() {
+        return cancelled.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,409 @@
+package com.pictionary.router;
+
+import com.pictionary.bulkhead.BulkheadRejectedException;
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.cancellation.CancellationToken;
+import com.pictionary.label.LabelIndex;
+import com.pictionary.label.LabelMatch;
+import com.pictionary.monitor.RecognitionContext;
+import com.pictionary.monitor.RecognitionRequestEvent;
+import com.pictionary.payload.PayloadGuard;
+import com.pictionary.payload.PayloadRejectedException;
+import com.pictionary.peercache.PeerCache;
+import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.service.RecognitionHistoryService;
+import com.pictionary.sketchindex.SketchIndex;
+import com.pictionary.util.CanvasImage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * 识别服务路由器
+ * 根据各识别服务的实时EWMA延迟、错误率和配置权重选择识别服务，
+ * 也支持由请求显式指定识别服务。
+ */
+@Component
+@Slf4j
+public class RecognitionRouter {
+
+    private final ProviderRegistry providerRegistry;
+    private final RouterProperties routerProperties;
+    private final LabelIndex labelIndex;
+    private final Bulkheads bulkheads;
+    private final PayloadGuard payloadGuard;
+
+    @Autowired(required = false)
+    private RecognitionHistoryService recognitionHistoryService;
+
+    @Autowired(required = false)
+    private PeerCache peerCache;
+
+    @Autowired(required = false)
+    private SketchIndex sketchIndex;
+
+    public RecognitionRouter(ProviderRegistry providerRegistry, RouterProperties routerProperties, LabelIndex labelIndex,
+                             Bulkheads bulkheads, PayloadGuard payloadGuard) {
+        this.providerRegistry = providerRegistry;
+        this.routerProperties = routerProperties;
+        this.labelIndex = labelIndex;
+        this.bulkheads = bulkheads;
+        this.payloadGuard = payloadGuard;
+    }
+
+    /**
+     * 识别图像（同步等待结果），供离线评测等非Web调用方使用
+     *
+     * @param base64ImageData Base64编码的图像数据（不含Data URL前缀）
+     * @param provider        显式指定的识别服务（短名称或Bean名称），为空时自动选择
+     * @return 识别结果，包含实际使用的识别服务名称 provider
+     */
+    public Map<String, Object> recognize(String base64ImageData, String provider) {
+        return recognizeAsync(base64ImageData, provider).join();
+    }
+
+    /**
+     * 异步识别图像，识别服务在自己的上游调用隔离舱中执行，调用线程不会被阻塞
+     * 启用近邻索引（pictionary.sketch-index.enabled）时先找足够接近的已识别画作，见 SketchIndex；
+     * 启用集群缓存（pictionary.peer-cache.enabled）时再查缓存，见 PeerCache
+     *
+     * @param base64ImageData Base64编码的图像数据（不含Data URL前缀）
+     * @param provider        显式指定的识别服务（短名称或Bean名称），为空时自动选择
+     * @return 识别结果，包含实际使用的识别服务名称 provider；隔离舱已满时 success=false 且 busy=true
+     */
+    public CompletableFuture<Map<String, Object>> recognizeAsync(String base64ImageData, String provider) {
+        return recognizeAsync(base64ImageData, provider, null);
+    }
+
+    /**
+     * 可取消的异步识别：请求被取消后跳过尚未开始的环节（特征提取、预处理、获取令牌、上游调用），
+     * 中断正在为它阻塞的隔离舱线程，结果为 success=false 且 cancelled=true
+     *
+     * @param base64ImageData Base64编码的图像数据（不含Data URL前缀）
+     * @param provider        显式指定的识别服务（短名称或Bean名称），为空时自动选择
+     * @param cancellation    取消标记，为null时不可取消
+     * @return 识别结果，包含实际使用的识别服务名称 provider
+     */
+    public CompletableFuture<Map<String, Object>> recognizeAsync(String base64ImageData, String provider,
+                                                                 CancellationToken cancellation) {
+        return recognizeAsync(CanvasImage.of(base64ImageData), provider, cancellation);
+    }
+
+    /**
+     * 可取消的异步识别画布；服务端光栅化的画布直接交给识别服务预处理，只在需要时编码PNG（见 CanvasImage）
+     *
+     * @param canvas       画布
+     * @param provider     显式指定的识别服务（短名称或Bean名称），为空时自动选择
+     * @param cancellation 取消标记，为null时不可取消
+     * @return 识别结果，包含实际使用的识别服务名称 provider
+     */
+    public CompletableFuture<Map<String, Object>> recognizeAsync(CanvasImage canvas, String provider,
+                                                                 CancellationToken cancellation) {
+        return recognizeAsync(canvas, provider, cancellation, null);
+    }
+
+    /**
+     * 可取消的异步识别画布，支持流式的识别服务（见 ImageRecognitionService#supportsStreaming）在识别过程中回调部分结果；
+     * 命中近邻索引或集群缓存、由其他节点加载或识别服务不支持流式时不回调
+     *
+     * @param canvas       画布
+     * @param provider     显式指定的识别服务（短名称或Bean名称），为空时自动选择
+     * @param cancellation 取消标记，为null时不可取消
+     * @param onPartial    部分结果回调（在隔离舱线程中调用），为null时不使用流式识别
+     * @return 识别结果，包含实际使用的识别服务名称 provider
+     */
+    public CompletableFuture<Map<String, Object>> recognizeAsync(CanvasImage canvas, String provider,
+                                                                 CancellationToken cancellation,
+                                                                 Consumer<String> onPartial) {
+        String name = null;
+        if (provider != null && !provider.isBlank() && !"auto".equals(provider)) {
+            name = providerRegistry.resolveName(provider);
+            if (name == null) {
+                throw new IllegalArgumentException("未知的识别服务: " + provider);
+            }
+        }
+        if (cancellation != null && cancellation.isCancelled()) {
+            return CompletableFuture.completedFuture(cancelled(name));
+        }
+        // 超出限制的图像在提取特征（解码）和转发给集群缓存的负责节点之前就拒绝
+        Map<String, Object> rejected = checkPayload(canvas, name);
+        if (rejected != null) {
+            return CompletableFuture.completedFuture(rejected);
+        }
+        if (sketchIndex == null) {
+            return recognizeCachedAsync(canvas, name, cancellation, onPartial);
+        }
+
+        // 提取特征需要解码图像，放在CPU隔离舱中执行；隔离舱已满时跳过索引
+        String resolved = name;
+        CompletableFuture<long[]> features;
+        try {
+            features = bulkheads.cpu().supply(() -> sketchIndex.features(canvas));
+        } catch (RejectedExecutionException e) {
+            return recognizeCachedAsync(canvas, resolved, cancellation, onPartial);
+        }
+        return features.exceptionally(error -> null).thenCompose(vector -> {
+            Map<String, Object> nearest = sketchIndex.lookup(vector, resolved);
+            if (nearest != null) {
+                return CompletableFuture.completedFuture(nearest);
+            }
+            return recognizeCachedAsync(canvas, resolved, cancellation, onPartial).thenApply(result -> {
+                sketchIndex.learn(vector, result);
+                return result;
+            });
+        });
+    }
+
+    /**
+     * 经过集群缓存（如果启用）识别图像；短名称和Bean名称使用同一个缓存键
+     *
+     * @param name         识别服务Bean名称，为null时自动选择
+     * @param cancellation 取消标记，为null时不可取消
+     * @param onPartial    部分结果回调，为null时不使用流式识别
+     */
+    private CompletableFuture<Map<String, Object>> recognizeCachedAsync(CanvasImage canvas, String name,
+                                                                      CancellationToken cancellation,
+                                                                      Consumer<String> onPartial) {
+        if (peerCache != null) {
+            // 集群缓存：同一幅画只由负责节点调用一次识别服务；加载由并发的相同请求和其它节点共享，
+            // 结果还会写入缓存，一个客户端放弃等待时不取消加载
+            return peerCache.get(PeerCache.key(canvas, name), canvas, name,
+                    () -> invoke(canvas, name, null, call(canvas, onPartial)));
+        }
+        return invoke(canvas, name, cancellation, call(canvas, onPartial));
+    }
+
+    /**
+     * 调用识别服务：有部分结果回调且识别服务支持流式时使用流式识别
+     */
+    private static BiFunction<ImageRecognitionService, Executor, CompletableFuture<Map<String, Object>>> call(
+            CanvasImage canvas, Consumer<String> onPartial) {
+        return (service, executor) -> onPartial != null && service.supportsStreaming()
+                ? CompletableFuture.supplyAsync(() -> service.recognizeCanvasStreaming(canvas, onPartial), executor)
+                : service.recognizeCanvasAsync(canvas, executor);
+    }
+
+    /**
+     * 异步识别图像，不经过集群缓存，总是调用识别服务
+     *
+     * @param base64ImageData Base64编码的图像数据（不含Data URL前缀）
+     * @param provider        显式指定的识别服务（短名称或Bean名称），为空时自动选择
+     * @return 识别结果，包含实际使用的识别服务名称 provider；隔离舱已满时 success=false 且 busy=true，
+     * 图像超出限制时 success=false 且 rejected 为拒绝原因（见 PayloadRejectedException.Reason）
+     */
+    public CompletableFuture<Map<String, Object>> recognizeUncachedAsync(String base64ImageData, String provider) {
+        return recognizeUncachedAsync(CanvasImage.of(base64ImageData), provider);
+    }
+
+    /**
+     * 异步识别画布，不经过集群缓存，总是调用识别服务
+     *
+     * @param canvas   画布
+     * @param provider 显式指定的识别服务（短名称或Bean名称），为空时自动选择
+     * @return 识别结果，包含实际使用的识别服务名称 provider
+     */
+    public CompletableFuture<Map<String, Object>> recognizeUncachedAsync(CanvasImage canvas, String provider) {
+        return invoke(canvas, provider, null, (service, executor) -> service.recognizeCanvasAsync(canvas, executor));
+    }
+
+    /**
+     * 选择识别服务并提交到它的上游调用隔离舱，完成后更新统计数据和识别历史
+     */
+    private CompletableFuture<Map<String, Object>> invoke(CanvasImage canvas, String provider,
+                                                          CancellationToken cancellation,
+                                                          BiFunction<ImageRecognitionService, Executor, CompletableFuture<Map<String, Object>>> call) {
+        String name;
+        if (provider != null && !provider.isBlank() && !"auto".equals(provider)) {
+            name = providerRegistry.resolveName(provider);
+            if (name == null) {
+                throw new IllegalArgumentException("未知的识别服务: " + provider);
+            }
+        } else {
+            name = choose();
+        }
+        if (cancellation != null && cancellation.isCancelled()) {
+            return CompletableFuture.completedFuture(cancelled(name));
+        }
+
+        // 其他节点转发的图像不经过 recognizeAsync，在这里也要检查（只读取文件头）
+        Map<String, Object> rejected = checkPayload(canvas, name);
+        if (rejected != null) {
+            return CompletableFuture.completedFuture(rejected);
+        }
+
+        ImageRecognitionService service = providerRegistry.getService(name);
+        ProviderStats stats = providerRegistry.getStats(name);
+
+        RecognitionRequestEvent event = new RecognitionRequestEvent();
+        event.begin();
+        // 隔离舱提交任务时把识别服务名称和取消标记带到工作线程
+        RecognitionContext.setProvider(name);
+        RecognitionContext.setCancellation(cancellation);
+        stats.onStart();
+        long startTime = System.nanoTime();
+        CompletableFuture<Map<String, Object>> future;
+        try {
+            future = call.apply(service, bulkheads.io(name));
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        } finally {
+            RecognitionContext.clear();
+        }
+        return future.handle((result, error) -> complete(name, canvas, cancellation, stats, event, startTime, result, error));
+    }
+
+    /**
+     * 识别完成：更新统计数据、JFR事件和识别历史，并把预测结果映射为标准词
+     */
+    private Map<String, Object> complete(String name, CanvasImage canvas, CancellationToken cancellation,
+                                         ProviderStats stats, RecognitionRequestEvent event, long startTime,
+                                         Map<String, Object> result, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        boolean success = cause == null && result != null && Boolean.TRUE.equals(result.get("success"));
+        if (!success && cancellation != null && cancellation.isCancelled()) {
+            // 客户端已放弃等待，被跳过或中断的调用不代表识别服务的延迟和错误率，也不记录历史；
+            // 取消前已经成功的结果照常处理，还能填充近邻索引
+            stats.onCancelled();
+            return cancelled(name);
+        }
+        if (cause instanceof BulkheadRejectedException) {
+            // 隔离舱已满，没有调用识别服务，不计入延迟和错误率
+            stats.onRejected();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("busy", true);
+            response.put("provider", name);
+            response.put("message", "识别服务繁忙，请稍后再试");
+            return response;
+        }
+        if (cause != null) {
+            log.error("识别服务 {} 调用失败", name, cause);
+            result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "识别失败: " + cause.getMessage());
+        }
+        long latencyMs = (System.nanoTime() - startTime) / 1_000_000;
+        stats.onComplete(latencyMs, success);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.provider = name;
+            event.imageBytes = canvas.sizeBytes();
+            event.success = success;
+            event.prediction = result == null ? null : (String) result.get("prediction");
+            event.commit();
+        }
+
+        Map<String, Object> response = result == null ? new HashMap<>() : new HashMap<>(result);
+        response.put("provider", name);
+
+        // 把识别服务返回的自由文本映射为游戏词表中的标准词
+        Object prediction = response.get("prediction");
+        LabelMatch match = prediction == null ? null : labelIndex.canonicalize(prediction.toString());
+        if (match != null) {
+            response.put("label", match.label());
+            if (match.category() != null) {
+                response.putIfAbsent("category", match.category());
+            }
+        }
+
+        // 异步记录识别历史（不阻塞识别响应）
+        if (recognitionHistoryService != null) {
+            recognitionHistoryService.record(name, canvas, result, latencyMs);
+        }
+        return response;
+    }
+
+    /**
+     * 解码前检查图像格式、声明的尺寸和预处理内存估算，超出限制时不调用识别服务，也不计入统计；
+     * 服务端光栅化的画布尺寸已由笔画解码限制，不需要检查
+     *
+     * @return 拒绝时的响应（rejected 为拒绝原因），通过检查时返回null
+     */
+    private Map<String, Object> checkPayload(CanvasImage canvas, String name) {
+        if (canvas.isRendered()) {
+            return null;
+        }
+        try {
+            payloadGuard.check(canvas.toBase64());
+            return null;
+        } catch (PayloadRejectedException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("rejected", e.getReason().tag());
+            response.put("provider", name);
+            response.put("message", e.getMessage());
+            return response;
+        }
+    }
+
+    private static Map<String, Object> cancelled(String name) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("cancelled", true);
+        response.put("provider", name);
+        response.put("message", "识别请求已取消");
+        return response;
+    }
+
+    /**
+     * 按得分加权随机选择识别服务
+     * 得分 = 权重 / (EWMA延迟 * (1 + 错误率惩罚 * 错误率))，
+     * 慢的或出错多的服务仍会得到少量流量，从而在恢复后重新获得流量。
+     *
+     * @return 识别服务Bean名称
+     */
+    String choose() {
+        return choose(ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * 按得分加权选择识别服务
+     *
+     * @param uniform [0, 1) 区间内的随机数
+     * @return 识别服务Bean名称
+     */
+    String choose(double uniform) {
+        List<String> candidates = providerRegistry.getRoutableNames();
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("没有可用的识别服务，请检查 pictionary.router.providers 配置");
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        double[] scores = new double[candidates.size()];
+        double total = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            String name = candidates.get(i);
+            ProviderStats stats = providerRegistry.getStats(name);
+            double effectiveLatency = Math.max(1.0, stats.getEwmaLatencyMs())
+                    * (1 + routerProperties.getErrorPenalty() * stats.getErrorRate());
+            scores[i] = Math.max(0, providerRegistry.getWeight(name)) / effectiveLatency;
+            total += scores[i];
+        }
+        if (total <= 0) {
+            return candidates.get(0);
+        }
+
+        double r = uniform * total;
+        for (int i = 0; i < scores.length; i++) {
+            r -= scores[i];
+            if (r < 0) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+}
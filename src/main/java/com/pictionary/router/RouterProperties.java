@@ -0,0 +1,45 @@
+package com.pictionary.router;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 识别服务路由配置
+ * 属性前缀为 pictionary.router
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.router")
+public class RouterProperties {
+
+    // 参与自动路由的识别服务Bean名称
+    private List<String> providers = new ArrayList<>(List.of(
+            "doubaoImageRecognitionService", "baiduAnimalRecognitionService"));
+
+    // 各识别服务的权重，未配置时为1.0
+    private Map<String, Double> weights = new HashMap<>();
+
+    // 前端使用的短名称到Bean名称的映射
+    private Map<String, String> aliases = new HashMap<>(Map.of(
+            "baidu", "baiduAnimalRecognitionService",
+            "baidu-image", "baiduImageRecognitionService",
+            "doubao", "doubaoImageRecognitionService",
+            "mock", "mockImageRecognitionServiceImpl",
+            "fake", "fakeImageRecognitionServiceImpl",
+            "sketch", "sketchRecognitionServiceImpl"));
+
+    // EWMA平滑系数，越大越偏向最近的请求
+    private double ewmaAlpha = 0.2;
+
+    // 错误率惩罚系数：有效延迟 = EWMA延迟 * (1 + errorPenalty * 错误率)
+    private double errorPenalty = 5.0;
+
+    // 尚无统计数据时假定的延迟（毫秒）
+    private double initialLatencyMs = 500;
+}
@@ -1,6 +1,12 @@
 package com.pictionary.service;
 
+import com.pictionary.util.CanvasImage;
+
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * 图像识别服务接口
@@ -15,4 +21,66 @@ public interface ImageRecognitionService {
      * @return 识别结果，包含识别到的物体名称和置信度
      */
     Map<String, Object> recognizeImage(String base64ImageData);
-}
\ No newline at end of file
+
+    /**
+     * 是否支持流式识别，支持时 /api/recognize 的SSE请求改用 {@link #recognizeCanvasStreaming(CanvasImage, Consumer)}
+     *
+     * @return 默认不支持
+     */
+    default boolean supportsStreaming() {
+        return false;
+    }
+
+    /**
+     * 流式识别画布，识别过程中把已得到的部分结果回调给调用方
+     * 默认实现不支持流式，识别完成后把最终结果回调一次
+     *
+     * @param canvas    画布
+     * @param onPartial 部分结果回调（目前为止得到的识别文本）
+     * @return 最终识别结果
+     */
+    default Map<String, Object> recognizeCanvasStreaming(CanvasImage canvas, Consumer<String> onPartial) {
+        Map<String, Object> result = recognizeImage(canvas.toBase64());
+        if (result != null && result.get("prediction") != null) {
+            onPartial.accept(String.valueOf(result.get("prediction")));
+        }
+        return result == null ? new HashMap<>() : result;
+    }
+
+    /**
+     * 异步识别图像内容
+     * 默认实现在给定的执行器（识别服务的上游调用隔离舱）中调用 {@link #recognizeImage(String)}，
+     * 支持非阻塞上游调用的识别服务可以覆盖此方法
+     *
+     * @param base64ImageData Base64编码的图像数据
+     * @param executor        执行识别的执行器
+     * @return 识别结果
+     * @throws java.util.concurrent.RejectedExecutionException 执行器已满
+     */
+    default CompletableFuture<Map<String, Object>> recognizeImageAsync(String base64ImageData, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> recognizeImage(base64ImageData), executor);
+    }
+
+    /**
+     * 异步识别画布
+     * 默认实现把画布编码为PNG后调用 {@link #recognizeImageAsync(String, Executor)}；
+     * 自己预处理图像的识别服务应覆盖此方法，直接使用服务端光栅化的图像（见 CanvasImage）
+     *
+     * @param canvas   画布
+     * @param executor 执行识别的执行器
+     * @return 识别结果
+     * @throws java.util.concurrent.RejectedExecutionException 执行器已满
+     */
+    default CompletableFuture<Map<String, Object>> recognizeCanvasAsync(CanvasImage canvas, Executor executor) {
+        return recognizeImageAsync(canvas.toBase64(), executor);
+    }
+
+    /**
+     * 启动预热：提前获取访问令牌、建立到上游的连接，让部署后的第一次识别不再承担这些开销
+     * 由 WarmupRunner 在上游调用隔离舱中调用，默认不做任何事
+     *
+     * @throws Exception 预热失败（只记录日志，不影响启动）
+     */
+    default void warmUp() throws Exception {
+    }
+}
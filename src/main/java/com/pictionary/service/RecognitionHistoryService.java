@@ -0,0 +1,23 @@
+package com.pictionary.service;
+
+import com.pictionary.util.CanvasImage;
+
+import java.util.Map;
+
+/**
+ * 识别历史记录服务接口
+ * 记录每次画布识别的图像、结果、服务名称和耗时
+ */
+public interface RecognitionHistoryService {
+
+    /**
+     * 记录一次识别结果
+     * 实现不得阻塞调用线程，也不得在识别路径上访问数据库
+     *
+     * @param provider  识别服务名称
+     * @param canvas    识别的画布，可以为null
+     * @param result    识别服务返回的结果
+     * @param latencyMs 识别耗时（毫秒）
+     */
+    void record(String provider, CanvasImage canvas, Map<String, Object> result, long latencyMs);
+}
@@ -0,0 +1,72 @@
+package com.pictionary.service.impl;
+
+import com.pictionary.monitor.TokenFetchEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 访问令牌缓存
+ * 令牌在有效期的90%内重复使用，过期或被上游判定无效后才重新获取；并发请求只有一个会去获取。
+ * 启动预热时提前获取，第一次识别不再等待令牌接口。
+ */
+final class AccessTokenCache {
+
+    // 百度AI的令牌无效（110）和令牌过期（111）错误码
+    static final Set<Integer> BAIDU_INVALID_TOKEN_CODES = Set.of(110, 111);
+
+    /**
+     * 令牌接口返回的令牌
+     *
+     * @param value            令牌
+     * @param expiresInSeconds 有效期（秒）
+     */
+    record Token(String value, long expiresInSeconds) {
+    }
+
+    private final Supplier<Token> fetcher;
+    private volatile String value;
+    private volatile long refreshAt;
+
+    AccessTokenCache(Supplier<Token> fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * @return 有效的访问令牌
+     * @throws RuntimeException 获取令牌失败
+     */
+    String get() {
+        String current = value;
+        if (current != null && System.currentTimeMillis() < refreshAt) {
+            return current;
+        }
+        synchronized (this) {
+            if (value == null || System.currentTimeMillis() >= refreshAt) {
+                TokenFetchEvent.record(() -> {
+                    Token token = fetcher.get();
+                    refreshAt = System.currentTimeMillis() + token.expiresInSeconds() * 900;
+                    value = token.value();
+                    return token.value();
+                });
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 上游判定令牌无效时丢弃，下一次请求重新获取
+     */
+    void invalidate() {
+        value = null;
+    }
+
+    /**
+     * @param response 百度AI接口返回的结果
+     * @return 是否为令牌无效或过期的错误
+     */
+    static boolean isBaiduInvalidToken(Map<?, ?> response) {
+        return response.get("error_code") instanceof Number code && BAIDU_INVALID_TOKEN_CODES.contains(code.intValue());
+    }
+}
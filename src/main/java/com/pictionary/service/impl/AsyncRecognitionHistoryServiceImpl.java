@@ -0,0 +1,286 @@
+package com.pictionary.service.impl;
+
+import com.pictionary.entity.RecognitionRecord;
+import com.pictionary.mapper.RecognitionRecordMapper;
+import com.pictionary.service.RecognitionHistoryService;
+import com.pictionary.util.CanvasImage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步识别历史记录服务实现（write-behind）
+ * 识别线程只把记录放入有界队列，由后台线程按批量大小或时间间隔通过MyBatis批量写入数据库。
+ * 队列已满时直接丢弃记录，保证识别路径不受数据库延迟影响。
+ * 图像摘要和大小在入队前计算，队列中不保留画布数据；保存原图（store-image）时队列中图像的总字节数另有上限，超过上限的记录同样丢弃并单独计数。
+ */
+@Service
+@ConditionalOnProperty(prefix = "pictionary.history", name = "enabled", havingValue = "true")
+@Slf4j
+public class AsyncRecognitionHistoryServiceImpl implements RecognitionHistoryService {
+
+    private final RecognitionRecordMapper recognitionRecordMapper;
+    private final BlockingQueue<PendingRecord> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final boolean storeImage;
+    private final long maxQueuedImageBytes;
+    // 队列中原图的总字节数，只在 store-image 开启时非零
+    private final AtomicLong queuedImageBytes = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+    // 丢弃的记录按原因分别计数：队列已满，或保存原图时队列中的原图超过字节上限；
+    // 每种原因只在每1000次丢弃时打印一次日志，避免日志本身成为负担
+    private final AtomicLong queueFullDropped = new AtomicLong();
+    private final AtomicLong imageBytesDropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public AsyncRecognitionHistoryServiceImpl(RecognitionRecordMapper recognitionRecordMapper,
+                                              @Value("${pictionary.history.queue-capacity:10000}") int queueCapacity,
+                                              @Value("${pictionary.history.batch-size:200}") int batchSize,
+                                              @Value("${pictionary.history.flush-interval-ms:1000}") long flushIntervalMs,
+                                              @Value("${pictionary.history.store-image:false}") boolean storeImage,
+                                              @Value("${pictionary.history.max-queued-image-bytes:64MB}") DataSize maxQueuedImageBytes) {
+        this.recognitionRecordMapper = recognitionRecordMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.storeImage = storeImage;
+        this.maxQueuedImageBytes = maxQueuedImageBytes.toBytes();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "recognition-history-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("识别历史记录已启用: batchSize={}, flushIntervalMs={}, queueCapacity={}",
+                batchSize, flushIntervalMs, queue.remainingCapacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        log.info("识别历史记录已停止: written={}, droppedQueueFull={}, droppedImageBytes={}, failed={}",
+                written.get(), queueFullDropped.get(), imageBytesDropped.get(), failed.get());
+    }
+
+    /**
+     * 上传的画布按PNG文件计算摘要和大小；服务端光栅化的画布只在保存原图时编码PNG，
+     * 否则按像素计算摘要（见 CanvasImage#sha256()），大小为像素数据的字节数
+     */
+    @Override
+    public void record(String provider, CanvasImage canvas, Map<String, Object> result, long latencyMs) {
+        String imageHash = null;
+        int imageSize = 0;
+        byte[] imageData = null;
+        if (canvas != null && canvas.isRendered() && !storeImage) {
+            imageHash = HexFormat.of().formatHex(canvas.sha256());
+            imageSize = (int) canvas.sizeBytes();
+        } else if (canvas != null) {
+            byte[] imageBytes = decodeImage(canvas.toBase64());
+            imageHash = sha256Hex(imageBytes);
+            imageSize = imageBytes.length;
+            if (storeImage) {
+                if (queuedImageBytes.addAndGet(imageSize) > maxQueuedImageBytes) {
+                    queuedImageBytes.addAndGet(-imageSize);
+                    if (imageBytesDropped.incrementAndGet() % 1000 == 1) {
+                        log.warn("识别历史记录队列中的原图超过 {} 字节，已丢弃 {} 条记录", maxQueuedImageBytes, imageBytesDropped.get());
+                    }
+                    return;
+                }
+                imageData = imageBytes;
+            }
+        }
+        PendingRecord pending = new PendingRecord(provider, imageHash, imageSize, imageData, result, latencyMs,
+                LocalDateTime.now());
+        if (!queue.offer(pending)) {
+            if (imageData != null) {
+                queuedImageBytes.addAndGet(-imageSize);
+            }
+            if (queueFullDropped.incrementAndGet() % 1000 == 1) {
+                log.warn("识别历史记录队列已满，已丢弃 {} 条记录", queueFullDropped.get());
+            }
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * 丢弃的记录总数，按原因分见 getQueueFullDroppedCount 和 getImageBytesDroppedCount
+     */
+    public long getDroppedCount() {
+        return queueFullDropped.get() + imageBytesDropped.get();
+    }
+
+    public long getQueueFullDroppedCount() {
+        return queueFullDropped.get();
+    }
+
+    public long getImageBytesDroppedCount() {
+        return imageBytesDropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getQueuedImageBytes() {
+        return queuedImageBytes.get();
+    }
+
+    /**
+     * 后台刷新循环：达到批量大小或时间间隔时写入一批记录
+     */
+    private void flushLoop() {
+        List<PendingRecord> buffer = new ArrayList<>(batchSize);
+        long deadline = System.currentTimeMillis() + flushIntervalMs;
+
+        while (running) {
+            try {
+                long waitMs = deadline - System.currentTimeMillis();
+                if (waitMs > 0) {
+                    PendingRecord pending = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+                    if (pending != null) {
+                        buffer.add(pending);
+                        queue.drainTo(buffer, batchSize - buffer.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stop() 触发的中断，退出循环后写入剩余记录
+                break;
+            }
+
+            if (buffer.size() >= batchSize || System.currentTimeMillis() >= deadline) {
+                flush(buffer);
+                deadline = System.currentTimeMillis() + flushIntervalMs;
+            }
+        }
+
+        // 关闭前写入队列中剩余的记录
+        queue.drainTo(buffer);
+        while (!buffer.isEmpty()) {
+            List<PendingRecord> batch = new ArrayList<>(buffer.subList(0, Math.min(batchSize, buffer.size())));
+            buffer.subList(0, batch.size()).clear();
+            flush(batch);
+        }
+    }
+
+    /**
+     * 将缓冲区中的记录批量写入数据库，写入后清空缓冲区
+     *
+     * @param buffer 待写入的记录
+     */
+    private void flush(List<PendingRecord> buffer) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        List<RecognitionRecord> records = new ArrayList<>(buffer.size());
+        for (PendingRecord pending : buffer) {
+            records.add(toRecord(pending));
+        }
+        try {
+            recognitionRecordMapper.insertBatch(records);
+            written.addAndGet(records.size());
+            log.debug("已写入 {} 条识别历史记录", records.size());
+        } catch (Exception e) {
+            failed.addAndGet(records.size());
+            log.error("写入识别历史记录失败，丢弃 {} 条记录", records.size(), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 转换为数据库记录
+     *
+     * @param pending 待写入的记录
+     * @return 数据库记录
+     */
+    private RecognitionRecord toRecord(PendingRecord pending) {
+        RecognitionRecord record = new RecognitionRecord();
+        record.setProvider(pending.provider());
+        record.setLatencyMs(pending.latencyMs());
+        record.setCreatedAt(pending.createdAt());
+
+        Map<String, Object> result = pending.result();
+        if (result != null) {
+            record.setSuccess(Boolean.TRUE.equals(result.get("success")));
+            Object prediction = result.get("prediction");
+            if (prediction != null) {
+                String text = prediction.toString();
+                record.setPrediction(text.length() > 255 ? text.substring(0, 255) : text);
+            }
+            if (result.get("confidence") instanceof Number confidence) {
+                record.setConfidence(confidence.intValue());
+            }
+        } else {
+            record.setSuccess(false);
+        }
+
+        if (pending.imageHash() != null) {
+            record.setImageHash(pending.imageHash());
+            record.setImageSize(pending.imageSize());
+        }
+        if (pending.imageData() != null) {
+            record.setImageData(pending.imageData());
+            queuedImageBytes.addAndGet(-pending.imageSize());
+        }
+        return record;
+    }
+
+    private static byte[] decodeImage(String base64ImageData) {
+        try {
+            return Base64.getDecoder().decode(base64ImageData);
+        } catch (IllegalArgumentException e) {
+            return base64ImageData.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 队列中的待写入记录，imageData 只在保存原图时非空
+     */
+    private record PendingRecord(String provider, String imageHash, int imageSize, byte[] imageData,
+                                 Map<String, Object> result, long latencyMs, LocalDateTime createdAt) {
+    }
+}
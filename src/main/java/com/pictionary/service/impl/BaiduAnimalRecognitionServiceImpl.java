@@ -1,38 +1,45 @@
 package com.pictionary.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.monitor.RecognitionContext;
 import com.pictionary.service.ImageRecognitionService;
-import com.pictionary.util.ImageUtil;
+import com.pictionary.monitor.ResponseParseEvent;
+import com.pictionary.tuning.ImageProfile;
+import com.pictionary.tuning.ImageProfiles;
+import com.pictionary.util.CanvasImage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 百度AI线条识别服务实现
  * 基于百度AI平台的手写文字识别API，适用于识别画布上的简笔画和线条
  */
 @Service("baiduAnimalRecognitionService")
+@Lazy
 @Slf4j
 public class BaiduAnimalRecognitionServiceImpl implements ImageRecognitionService {
 
     private final RestTemplate restTemplate;
+    private final ImageProfiles imageProfiles;
+    private final Bulkheads bulkheads;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AccessTokenCache accessTokenCache = new AccessTokenCache(this::requestAccessToken);
     
     @Value("${ai.baidu.api-key:}")
     private String apiKey;
@@ -47,16 +54,22 @@ public class BaiduAnimalRecognitionServiceImpl implements ImageRecognitionServic
     private static final String TOKEN_URL = "https://aip.baidubce.com/oauth/2.0/token";
     private static final String HANDWRITING_URL = "https://aip.baidubce.com/rest/2.0/ocr/v1/handwriting";
     
-    public BaiduAnimalRecognitionServiceImpl(RestTemplate restTemplate) {
+    public BaiduAnimalRecognitionServiceImpl(RestTemplate restTemplate, ImageProfiles imageProfiles, Bulkheads bulkheads) {
         this.restTemplate = restTemplate;
+        this.imageProfiles = imageProfiles;
+        this.bulkheads = bulkheads;
     }
     
     /**
-     * 获取百度AI访问令牌
+     * 获取百度AI访问令牌（有效期内使用缓存的令牌）
      *
      * @return 访问令牌
      */
     private String getAccessToken() {
+        return accessTokenCache.get();
+    }
+
+    private AccessTokenCache.Token requestAccessToken() {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -70,7 +83,9 @@ public class BaiduAnimalRecognitionServiceImpl implements ImageRecognitionServic
             ResponseEntity<Map> response = restTemplate.postForEntity(TOKEN_URL, request, Map.class);
             
             if (response.getBody() != null && response.getBody().containsKey("access_token")) {
-                return (String) response.getBody().get("access_token");
+                Object expiresIn = response.getBody().get("expires_in");
+                return new AccessTokenCache.Token((String) response.getBody().get("access_token"),
+                        expiresIn instanceof Number number ? number.longValue() : 0);
             } else {
                 throw new RuntimeException("获取百度AI访问令牌失败");
             }
@@ -80,8 +95,30 @@ public class BaiduAnimalRecognitionServiceImpl implements ImageRecognitionServic
         }
     }
     
+    /**
+     * 预热：获取并缓存访问令牌，同时建立到百度AI的TLS连接（与识别接口同一个主机，连接保持复用）
+     */
+    @Override
+    public void warmUp() {
+        if (enabled) {
+            getAccessToken();
+        }
+    }
+
     @Override
     public Map<String, Object> recognizeImage(String base64ImageData) {
+        return recognize(CanvasImage.of(base64ImageData));
+    }
+
+    /**
+     * 服务端光栅化的画布直接缩放预处理，不经过PNG编解码
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeCanvasAsync(CanvasImage canvas, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> recognize(canvas), executor);
+    }
+
+    private Map<String, Object> recognize(CanvasImage canvas) {
         try {
             // 如果百度AI服务未启用，返回模拟数据
             if (!enabled) {
@@ -89,32 +126,25 @@ public class BaiduAnimalRecognitionServiceImpl implements ImageRecognitionServic
                 return getMockResult();
             }
             
-            // 解码Base64图像数据
-            byte[] imageBytes = Base64.getDecoder().decode(base64ImageData);
-            
+            String base64ImageData = null;
             try {
-                // 使用ImageUtil处理图像，增强线条对比度
-                BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-                if (originalImage != null) {
-                    log.debug("原始图像尺寸: {}x{}", originalImage.getWidth(), originalImage.getHeight());
-                    
-                    // 调整图像大小，确保不超过API限制
-                    BufferedImage processedImage = ImageUtil.resizeImage(originalImage, 500, 500);
-                    // 增强对比度，使线条更清晰
-                    processedImage = ImageUtil.enhanceContrast(processedImage);
-                    // 可以添加更多的图像处理步骤，如二值化处理，使线条更明显
-                    
-                    // 将处理后的图像转换回Base64
-                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                    ImageIO.write(processedImage, "PNG", outputStream);
-                    base64ImageData = Base64.getEncoder().encodeToString(outputStream.toByteArray());
-                    log.debug("图像已预处理，增强线条对比度");
+                // 按图像规格（默认500x500，可由调优结果覆盖）缩放、增强线条对比度并编码，确保不超过API限制
+                ImageProfile profile = imageProfiles.get("baiduAnimalRecognitionService");
+                // 图像处理在CPU隔离舱中执行，上游调用线程只等待结果
+                base64ImageData = bulkheads.cpu().call(() -> profile.preprocess(canvas));
+                if (base64ImageData != null) {
+                    log.debug("原始图像 {} 字节，已按规格 {} 预处理", canvas.sizeBytes(), profile);
                 } else {
                     log.warn("无法解析图像数据，将使用原始数据");
                 }
             } catch (Exception e) {
+                // 预处理因识别请求被取消而中断时不再回退到原始图像
+                RecognitionContext.throwIfCancelled("上传原始图像");
                 log.warn("图像预处理失败，将使用原始图像: {}", e.getMessage());
             }
+            if (base64ImageData == null) {
+                base64ImageData = canvas.toBase64();
+            }
             
             // 获取访问令牌
             String accessToken = getAccessToken();
@@ -131,9 +161,12 @@ public class BaiduAnimalRecognitionServiceImpl implements ImageRecognitionServic
             
             ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
             Map<String, Object> responseMap = objectMapper.readValue(response.getBody(), Map.class);
+            if (AccessTokenCache.isBaiduInvalidToken(responseMap)) {
+                accessTokenCache.invalidate();
+            }
             
             // 解析百度AI返回的结果
-            return parseRecognitionResult(responseMap);
+            return ResponseParseEvent.record(() -> parseRecognitionResult(responseMap));
             
         } catch (Exception e) {
             log.error("线条识别过程中发生错误", e);
@@ -1,37 +1,43 @@
 package com.pictionary.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pictionary.bulkhead.Bulkheads;
 import com.pictionary.service.ImageRecognitionService;
-import com.pictionary.util.ImageUtil;
+import com.pictionary.monitor.ResponseParseEvent;
+import com.pictionary.tuning.ImageProfile;
+import com.pictionary.tuning.ImageProfiles;
+import com.pictionary.util.CanvasImage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 百度AI图像识别服务实现
  * 使用百度AI开放平台的图像识别API
  */
 @Service("baiduImageRecognitionService")
+@Lazy
 @Slf4j
 public class BaiduImageRecognitionServiceImpl implements ImageRecognitionService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    private final ImageProfiles imageProfiles;
+    private final Bulkheads bulkheads;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AccessTokenCache accessTokenCache = new AccessTokenCache(this::requestAccessToken);
     
     @Value("${ai.baidu.api-key:}")
     private String apiKey;
@@ -50,12 +56,22 @@ public class BaiduImageRecognitionServiceImpl implements ImageRecognitionService
     private static final long POLLING_INTERVAL_MS = 1000; // 轮询间隔1秒
     private static final long POLLING_TIMEOUT_MS = 30000; // 超时时间30秒
     
+    public BaiduImageRecognitionServiceImpl(RestTemplate restTemplate, ImageProfiles imageProfiles, Bulkheads bulkheads) {
+        this.restTemplate = restTemplate;
+        this.imageProfiles = imageProfiles;
+        this.bulkheads = bulkheads;
+    }
+    
     /**
-     * 获取百度AI访问令牌
+     * 获取百度AI访问令牌（有效期内使用缓存的令牌）
      *
      * @return 访问令牌
      */
     private String getAccessToken() {
+        return accessTokenCache.get();
+    }
+
+    private AccessTokenCache.Token requestAccessToken() {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -69,7 +85,9 @@ public class BaiduImageRecognitionServiceImpl implements ImageRecognitionService
             ResponseEntity<Map> response = restTemplate.postForEntity(TOKEN_URL, request, Map.class);
             
             if (response.getBody() != null && response.getBody().containsKey("access_token")) {
-                return (String) response.getBody().get("access_token");
+                Object expiresIn = response.getBody().get("expires_in");
+                return new AccessTokenCache.Token((String) response.getBody().get("access_token"),
+                        expiresIn instanceof Number number ? number.longValue() : 0);
             } else {
                 throw new RuntimeException("获取百度AI访问令牌失败");
             }
@@ -79,8 +97,30 @@ public class BaiduImageRecognitionServiceImpl implements ImageRecognitionService
         }
     }
     
+    /**
+     * 预热：获取并缓存访问令牌，同时建立到百度AI的TLS连接（与识别接口同一个主机，连接保持复用）
+     */
+    @Override
+    public void warmUp() {
+        if (enabled) {
+            getAccessToken();
+        }
+    }
+
     @Override
     public Map<String, Object> recognizeImage(String base64ImageData) {
+        return recognize(CanvasImage.of(base64ImageData));
+    }
+
+    /**
+     * 服务端光栅化的画布直接缩放预处理，不经过PNG编解码
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeCanvasAsync(CanvasImage canvas, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> recognize(canvas), executor);
+    }
+
+    private Map<String, Object> recognize(CanvasImage canvas) {
         try {
             // 如果百度AI服务未启用，返回模拟数据
             if (!enabled) {
@@ -88,18 +128,12 @@ public class BaiduImageRecognitionServiceImpl implements ImageRecognitionService
                 return getMockResult();
             }
             
-            // 解码Base64图像数据
-            byte[] imageBytes = Base64.getDecoder().decode(base64ImageData);
-            
-            // 使用ImageUtil处理图像
-            BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-            BufferedImage processedImage = ImageUtil.resizeImage(originalImage, 300, 300);
-            processedImage = ImageUtil.enhanceContrast(processedImage);
-            
-            // 将处理后的图像转换回Base64
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(processedImage, "PNG", outputStream);
-            String processedBase64 = Base64.getEncoder().encodeToString(outputStream.toByteArray());
+            // 按图像规格缩放、增强对比度并编码（在CPU隔离舱中执行）
+            ImageProfile profile = imageProfiles.get("baiduImageRecognitionService");
+            String processedBase64 = bulkheads.cpu().call(() -> profile.preprocess(canvas));
+            if (processedBase64 == null) {
+                throw new IllegalArgumentException("无法解析图像数据");
+            }
             
             // 获取访问令牌
             String accessToken = getAccessToken();
@@ -107,7 +141,7 @@ public class BaiduImageRecognitionServiceImpl implements ImageRecognitionService
             // 提交识别请求并获取结果
             Map<String, Object> responseMap = submitRecognitionRequest(processedBase64, accessToken);
             
-            return parseRecognitionResult(responseMap);
+            return ResponseParseEvent.record(() -> parseRecognitionResult(responseMap));
             
         } catch (Exception e) {
             log.error("图像识别过程中发生错误", e);
@@ -140,6 +174,9 @@ public class BaiduImageRecognitionServiceImpl implements ImageRecognitionService
         Map<String, Object> responseMap = objectMapper.readValue(response.getBody(), Map.class);
         
         if (responseMap.containsKey("error_code")) {
+            if (AccessTokenCache.isBaiduInvalidToken(responseMap)) {
+                accessTokenCache.invalidate();
+            }
             throw new RuntimeException("识别请求失败: " + responseMap);
         }
         return responseMap;
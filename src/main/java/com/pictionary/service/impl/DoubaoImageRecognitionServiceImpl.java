@@ -1,49 +1,164 @@
 package com.pictionary.service.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.cancellation.CancellationToken;
+import com.pictionary.capture.ReplayRequestFactory;
+import com.pictionary.capture.TeeInputStream;
+import com.pictionary.capture.TrafficCapture;
+import com.pictionary.cancellation.RecognitionCancellations;
 import com.pictionary.service.ImageRecognitionService;
-import com.pictionary.util.ImageUtil;
+import com.pictionary.label.LabelNormalizer;
+import com.pictionary.monitor.RecognitionContext;
+import com.pictionary.monitor.ResponseParseEvent;
+import com.pictionary.monitor.UpstreamCallEvent;
+import com.pictionary.tuning.ImageProfile;
+import com.pictionary.tuning.ImageProfiles;
+import com.pictionary.util.CanvasImage;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * 豆包API图像识别服务实现
  * 使用豆包API进行线条画识别
  */
 @Service("doubaoImageRecognitionService")
+@Lazy
 @Slf4j
 public class DoubaoImageRecognitionServiceImpl implements ImageRecognitionService {
 
     private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final ImageProfiles imageProfiles;
+    private final Bulkheads bulkheads;
+    private final RecognitionCancellations cancellations;
+    // 流量采集和回放模式的上游替身，未启用时为null；流式请求不经过RestTemplate，在这里单独接入
+    private final TrafficCapture trafficCapture;
+    private final ReplayRequestFactory replay;
+
+    // 流式响应的截止时间：到期时关闭仍在读取的响应流
+    private final ScheduledThreadPoolExecutor streamDeadlines;
     
     @Value("${ai.doubao.api-key:}")
     private String apiKey;
     
     @Value("${ai.doubao.enabled:true}")
     private boolean enabled;
+
+    // 是否使用流式接口：读到第一行（第一个词语）后立即结束读取并关闭连接
+    @Value("${ai.doubao.stream:true}")
+    private boolean stream;
+
+    // 流式请求的超时时间（毫秒）
+    @Value("${ai.doubao.stream-timeout-ms:30000}")
+    private long streamTimeoutMs;
     
     // 豆包API接口地址
     private static final String CHAT_COMPLETION_URL = "https://ark.cn-beijing.volces.com/api/v3/chat/completions";
-    
-    public DoubaoImageRecognitionServiceImpl(RestTemplate restTemplate, ObjectMapper objectMapper) {
+
+    public DoubaoImageRecognitionServiceImpl(RestTemplate restTemplate, HttpClient httpClient, ObjectMapper objectMapper,
+                                             ImageProfiles imageProfiles, Bulkheads bulkheads,
+                                             RecognitionCancellations cancellations,
+                                             ObjectProvider<TrafficCapture> trafficCapture,
+                                             ObjectProvider<ReplayRequestFactory> replay) {
         this.restTemplate = restTemplate;
+        this.httpClient = httpClient;
         this.objectMapper = objectMapper;
+        this.imageProfiles = imageProfiles;
+        this.bulkheads = bulkheads;
+        this.cancellations = cancellations;
+        this.trafficCapture = trafficCapture.getIfAvailable();
+        this.replay = replay.getIfAvailable();
+        this.streamDeadlines = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "doubao-stream-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.streamDeadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamDeadlines.shutdownNow();
     }
     
+    /**
+     * 预热：初始化HTTP客户端并与豆包API完成DNS解析和TLS握手（HEAD请求，不产生调用费用，状态码不重要）
+     */
+    @Override
+    public void warmUp() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        if (stream && replay == null) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(CHAT_COMPLETION_URL))
+                    .timeout(Duration.ofSeconds(10))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            log.debug("豆包API连接预热完成，状态码 {}", response.statusCode());
+        } else {
+            try {
+                restTemplate.headForHeaders(CHAT_COMPLETION_URL);
+            } catch (RestClientResponseException e) {
+                log.debug("豆包API连接预热完成，状态码 {}", e.getStatusCode().value());
+            }
+        }
+    }
+
     @Override
     public Map<String, Object> recognizeImage(String base64ImageData) {
+        return recognize(CanvasImage.of(base64ImageData));
+    }
+
+    /**
+     * 服务端光栅化的画布直接缩放预处理，不经过PNG编解码
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeCanvasAsync(CanvasImage canvas, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> recognize(canvas), executor);
+    }
+
+    private Map<String, Object> recognize(CanvasImage canvas) {
+        if (stream) {
+            return recognizeStreaming(canvas, text -> {
+            });
+        }
         try {
             // 如果豆包AI服务未启用，返回模拟数据
             if (!enabled) {
@@ -51,18 +166,7 @@ public class DoubaoImageRecognitionServiceImpl implements ImageRecognitionServic
                 return getMockResult();
             }
             
-            // 解码Base64图像数据
-            byte[] imageBytes = Base64.getDecoder().decode(base64ImageData);
-            
-            // 使用ImageUtil处理图像
-            BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-            BufferedImage processedImage = ImageUtil.resizeImage(originalImage, 300, 300);
-            processedImage = ImageUtil.enhanceContrast(processedImage);
-            
-            // 将处理后的图像转换回Base64
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(processedImage, "PNG", outputStream);
-            String processedBase64 = Base64.getEncoder().encodeToString(outputStream.toByteArray());
+            String processedBase64 = preprocessImage(canvas);
             
             // 准备请求参数
             HttpHeaders headers = new HttpHeaders();
@@ -70,54 +174,312 @@ public class DoubaoImageRecognitionServiceImpl implements ImageRecognitionServic
             headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey);
             headers.set("Volc-Access-Key", apiKey);
             
-            // 构建多模态请求内容
-            Map<String, Object> messageContent = new HashMap<>();
-            messageContent.put("type", "text");
-            messageContent.put("text", "这是什么画？请只回答一个词语，表示你认为画的是什么，不要有任何额外解释。");
-
-            Map<String, Object> imageContent = new HashMap<>();
-            imageContent.put("type", "image_url");
-            
-            // 构建图像URL对象
-            Map<String, String> imageUrl = new HashMap<>();
-            imageUrl.put("url", "data:image/png;base64," + processedBase64);
-            imageContent.put("image_url", imageUrl);
-
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "doubao-1.5-ui-tars-250328");
-            
-            // 构建消息数组
-            List<Map<String, Object>> contentList = new ArrayList<>();
-            contentList.add(messageContent);
-            contentList.add(imageContent);
-            
-            Map<String, Object> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put("content", contentList);
-            
-            List<Map<String, Object>> messages = new ArrayList<>();
-            messages.add(userMessage);
-            
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", 0.3);
-            requestBody.put("max_tokens", 50);
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+            HttpEntity<Map<String, Object>> request = new HttpEntity<>(buildRequestBody(processedBase64), headers);
             
             // 发送请求到豆包API
             Map<String, Object> responseMap = restTemplate.postForObject(CHAT_COMPLETION_URL, request, Map.class);
             
             // 解析豆包API返回的结果
-            return parseRecognitionResult(responseMap);
+            return ResponseParseEvent.record(() -> parseRecognitionResult(responseMap));
             
         } catch (Exception e) {
             log.error("图像识别过程中发生错误", e);
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "识别失败: " + e.getMessage());
-            return errorResult;
+            return getErrorResult(e);
+        }
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return stream;
+    }
+
+    /**
+     * 流式识别画布：请求 stream=true 的对话补全，逐个读取SSE数据块，
+     * 一旦第一行（第一个词语）完整就停止读取并关闭上游连接，不再等待剩余内容
+     *
+     * @param canvas    画布
+     * @param onPartial 部分结果回调（目前为止得到的识别文本）
+     * @return 最终识别结果
+     */
+    @Override
+    public Map<String, Object> recognizeCanvasStreaming(CanvasImage canvas, Consumer<String> onPartial) {
+        return recognizeStreaming(canvas, onPartial);
+    }
+
+    private Map<String, Object> recognizeStreaming(CanvasImage canvas, Consumer<String> onPartial) {
+        try {
+            // 如果豆包AI服务未启用，返回模拟数据
+            if (!enabled) {
+                log.warn("豆包AI服务未启用，返回模拟数据");
+                Map<String, Object> mockResult = getMockResult();
+                onPartial.accept((String) mockResult.get("prediction"));
+                return mockResult;
+            }
+
+            String processedBase64 = preprocessImage(canvas);
+            Map<String, Object> requestBody = buildRequestBody(processedBase64);
+            requestBody.put("stream", true);
+
+            // 请求超时只覆盖到收到响应头为止，读取响应流的剩余时间由截止时间限制
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(streamTimeoutMs);
+            byte[] requestBytes = objectMapper.writeValueAsBytes(requestBody);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(CHAT_COMPLETION_URL))
+                    .timeout(Duration.ofMillis(streamTimeoutMs))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                    .header("Volc-Access-Key", apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(requestBytes))
+                    .build();
+
+            // 流式调用不经过RestTemplate拦截器，在这里检查取消并记录上游调用事件（到读取结束为止）；
+            // 识别请求被取消时线程被中断，send 和读取响应流都会中止
+            CancellationToken cancellation = RecognitionContext.getCancellation();
+            if (cancellation != null) {
+                cancellation.throwIfCancelled("上游调用 " + request.uri().getPath());
+            }
+            UpstreamCallEvent upstreamEvent = new UpstreamCallEvent();
+            upstreamEvent.begin();
+            long start = System.nanoTime();
+            int status;
+            String contentType;
+            InputStream responseBody;
+            try {
+                if (replay != null) {
+                    // 回放模式下由语料中记录的SSE响应回答
+                    ClientHttpResponse replayed = replay.createRequest(request.uri(), HttpMethod.POST).execute();
+                    status = replayed.getStatusCode().value();
+                    contentType = replayed.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+                    responseBody = replayed.getBody();
+                } else {
+                    HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                    status = response.statusCode();
+                    contentType = response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse(null);
+                    responseBody = response.body();
+                }
+            } catch (IOException | InterruptedException e) {
+                cancellations.onUpstreamCall(RecognitionContext.getProvider(), cancellation, false);
+                throw e;
+            }
+            // 采样到的调用在读取时复制读到的SSE数据块，读取结束后脱敏记录
+            ByteArrayOutputStream captured = trafficCapture != null && trafficCapture.shouldCapture("POST", request.uri())
+                    ? new ByteArrayOutputStream() : null;
+            // 关闭响应流即中止上游连接，提前结束时不会再读取剩余数据
+            try (InputStream body = captured == null ? responseBody
+                    : new TeeInputStream(responseBody, captured, trafficCapture.getMaxBodyBytes() + 1)) {
+                if (status != 200) {
+                    String error = new String(body.readNBytes(4096), StandardCharsets.UTF_8);
+                    log.warn("豆包API流式请求失败，状态码 {}: {}", status, error);
+                    Map<String, Object> errorResult = new HashMap<>();
+                    errorResult.put("success", false);
+                    errorResult.put("message", "识别失败: HTTP " + status);
+                    return errorResult;
+                }
+                return readStream(body, objectMapper, onPartial, streamDeadlines, deadline - System.nanoTime());
+            } finally {
+                if (captured != null) {
+                    trafficCapture.onUpstream(RecognitionContext.getProvider(), "POST", request.uri(), status,
+                            (System.nanoTime() - start) / 1_000_000, contentType, captured.toByteArray());
+                }
+                cancellations.onUpstreamCall(RecognitionContext.getProvider(), cancellation, true);
+                upstreamEvent.end();
+                if (upstreamEvent.shouldCommit()) {
+                    upstreamEvent.provider = RecognitionContext.getProvider();
+                    upstreamEvent.method = "POST";
+                    upstreamEvent.host = request.uri().getHost();
+                    upstreamEvent.path = request.uri().getPath();
+                    upstreamEvent.statusCode = status;
+                    upstreamEvent.requestBytes = requestBytes.length;
+                    upstreamEvent.responseBytes = -1;
+                    upstreamEvent.commit();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("豆包流式识别被中断");
+            return getErrorResult(e);
+        } catch (Exception e) {
+            log.error("流式图像识别过程中发生错误", e);
+            return getErrorResult(e);
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("关闭豆包流式响应失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在截止时间内从SSE流中读取识别结果
+     * 到截止时间还没读完时关闭响应流，阻塞在读取上的线程随之结束
+     *
+     * @param body         SSE响应流
+     * @param objectMapper 解析数据块的JSON
+     * @param onPartial    部分结果回调
+     * @param deadlines    执行关闭的定时器
+     * @param timeoutNanos 剩余的读取时间
+     * @return 识别结果，截止时已读到部分词语则以其为结果，还没读到词语时返回识别超时
+     */
+    static Map<String, Object> readStream(InputStream body, ObjectMapper objectMapper, Consumer<String> onPartial,
+                                          ScheduledExecutorService deadlines, long timeoutNanos) throws IOException {
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> abort = deadlines.schedule(() -> {
+            expired.set(true);
+            closeQuietly(body);
+        }, Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        // 截止时读取会因流被关闭而失败，保留已经推送的部分结果
+        AtomicReference<String> latest = new AtomicReference<>();
+        String guessedWord;
+        try {
+            guessedWord = readFirstLine(body, objectMapper, word -> {
+                latest.set(word);
+                onPartial.accept(word);
+            });
+        } catch (IOException e) {
+            if (!expired.get()) {
+                throw e;
+            }
+            guessedWord = latest.get();
+        } finally {
+            abort.cancel(false);
+        }
+        if (expired.get() && (guessedWord == null || guessedWord.isEmpty())) {
+            log.warn("豆包流式响应在 {} 毫秒内没有读到词语，已中止", TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+            Map<String, Object> timeoutResult = new HashMap<>();
+            timeoutResult.put("success", false);
+            timeoutResult.put("message", "识别超时");
+            return timeoutResult;
+        }
+        return buildGuessResult(guessedWord, null);
+    }
+
+    /**
+     * 从SSE流中读取识别文本，直到第一行结束、出现标点或流结束
+     *
+     * @param body         SSE响应流
+     * @param objectMapper 解析数据块的JSON
+     * @param onPartial    部分结果回调
+     * @return 去除标点后的第一行文本
+     */
+    static String readFirstLine(InputStream body, ObjectMapper objectMapper, Consumer<String> onPartial) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        StringBuilder content = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                break;
+            }
+            JsonNode choice = objectMapper.readTree(data).path("choices").path(0);
+            String delta = choice.path("delta").path("content").asText("");
+            if (!delta.isEmpty()) {
+                content.append(delta);
+                int end = firstLineEnd(content);
+                if (end >= 0) {
+                    content.setLength(end);
+                    String guessedWord = cleanGuess(content);
+                    onPartial.accept(guessedWord);
+                    log.debug("豆包流式响应已得到完整词语，提前结束读取: {}", guessedWord);
+                    return guessedWord;
+                }
+                onPartial.accept(cleanGuess(content));
+            }
+            if (!choice.path("finish_reason").isMissingNode() && !choice.path("finish_reason").isNull()) {
+                break;
+            }
+        }
+        return cleanGuess(content);
+    }
+
+    /**
+     * 查找第一行（第一个词语）的结束位置：跳过开头的空白和标点后，遇到的第一个换行或标点
+     *
+     * @return 结束位置，第一行尚未结束时返回-1
+     */
+    static int firstLineEnd(CharSequence content) {
+        boolean started = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            boolean separator = c == '\n' || c == '\r' || "，。！？,.!?".indexOf(c) >= 0;
+            if (!started) {
+                started = !separator && !Character.isWhitespace(c);
+            } else if (separator) {
+                return i;
+            }
         }
+        return -1;
+    }
+
+    private static String cleanGuess(CharSequence content) {
+        return LabelNormalizer.stripPunctuation(content);
+    }
+
+    /**
+     * 解码并预处理图像，返回发送给豆包API的Base64 PNG
+     */
+    private String preprocessImage(CanvasImage canvas) throws Exception {
+        // 按图像规格缩放、增强对比度并编码（在CPU隔离舱中执行）
+        ImageProfile profile = imageProfiles.get("doubaoImageRecognitionService");
+        String processedBase64 = bulkheads.cpu().call(() -> profile.preprocess(canvas));
+        if (processedBase64 == null) {
+            throw new IllegalArgumentException("无法解析图像数据");
+        }
+        return processedBase64;
+    }
+
+    /**
+     * 构建识别请求体
+     *
+     * @param processedBase64 预处理后的Base64 PNG
+     * @return 请求体
+     */
+    private Map<String, Object> buildRequestBody(String processedBase64) {
+        // 构建多模态请求内容
+        Map<String, Object> messageContent = new HashMap<>();
+        messageContent.put("type", "text");
+        messageContent.put("text", "这是什么画？请只回答一个词语，表示你认为画的是什么，不要有任何额外解释。");
+
+        Map<String, Object> imageContent = new HashMap<>();
+        imageContent.put("type", "image_url");
+        
+        // 构建图像URL对象
+        Map<String, String> imageUrl = new HashMap<>();
+        imageUrl.put("url", "data:image/png;base64," + processedBase64);
+        imageContent.put("image_url", imageUrl);
+
+        // 构建请求体
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "doubao-1.5-ui-tars-250328");
+        
+        // 构建消息数组
+        List<Map<String, Object>> contentList = new ArrayList<>();
+        contentList.add(messageContent);
+        contentList.add(imageContent);
+        
+        Map<String, Object> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("content", contentList);
+        
+        List<Map<String, Object>> messages = new ArrayList<>();
+        messages.add(userMessage);
+        
+        requestBody.put("messages", messages);
+        requestBody.put("temperature", 0.3);
+        requestBody.put("max_tokens", 50);
+        return requestBody;
+    }
+
+    private Map<String, Object> getErrorResult(Exception e) {
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("success", false);
+        errorResult.put("message", "识别失败: " + e.getMessage());
+        return errorResult;
     }
     
     /**
@@ -141,13 +503,9 @@ public class DoubaoImageRecognitionServiceImpl implements ImageRecognitionServic
                             String content = (String) message.get("content");
                             
                             // 提取第一行作为猜测的词语，并移除可能的标点符号
-                            String guessedWord = content.split("\\n")[0]
-                                    .replaceAll("[，。！？,.!?]", "")
-                                    .trim();
-                            
-                            result.put("prediction", guessedWord);
-                            result.put("confidence", 85); // 设置一个默认的置信度
-                            log.info("豆包AI识别结果: {}", guessedWord);
+                            int lineEnd = content.indexOf('\n');
+                            String guessedWord = cleanGuess(lineEnd < 0 ? content : content.substring(0, lineEnd));
+                            return buildGuessResult(guessedWord, responseMap);
                         }
                     }
                 }
@@ -170,6 +528,31 @@ public class DoubaoImageRecognitionServiceImpl implements ImageRecognitionServic
         return result;
     }
     
+    /**
+     * 根据识别出的词语构建结果
+     *
+     * @param guessedWord 识别出的词语
+     * @param rawResponse 原始响应，无法提取词语时放入结果便于排查
+     * @return 格式化后的结果
+     */
+    private static Map<String, Object> buildGuessResult(String guessedWord, Object rawResponse) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        if (guessedWord == null || guessedWord.isEmpty()) {
+            result.put("prediction", "未知物体");
+            result.put("confidence", 0);
+            if (rawResponse != null) {
+                result.put("error", rawResponse);
+            }
+            log.warn("无法从豆包API响应中提取有效内容: {}", rawResponse);
+            return result;
+        }
+        result.put("prediction", guessedWord);
+        result.put("confidence", 85); // 设置一个默认的置信度
+        log.info("豆包AI识别结果: {}", guessedWord);
+        return result;
+    }
+
     /**
      * 获取模拟的识别结果（当豆包AI服务未启用时使用）
      *
@@ -0,0 +1,126 @@
+package com.pictionary.service.impl;
+
+import com.pictionary.fake.FakeProviderProperties;
+import com.pictionary.fake.FakeUpstreamException;
+import com.pictionary.fake.LatencyModel;
+import com.pictionary.fake.SimulatedLatency;
+import com.pictionary.label.LabelIndex;
+import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.util.CanvasImage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 可配置的模拟识别服务，用于压测和故障演练
+ * <ul>
+ *     <li>延迟来自可配置的分布（固定、正态、对数正态，可叠加尾部尖刺），见 LatencyModel</li>
+ *     <li>按概率注入上游错误和超时</li>
+ *     <li>响应由调度线程到期完成，不占用隔离舱线程，也不阻塞调用方</li>
+ *     <li>第N个请求的随机数生成器由种子和N确定，相同种子、相同请求顺序的两次压测得到相同的延迟、故障和识别结果</li>
+ * </ul>
+ * 配置见 FakeProviderProperties，通过 provider=fake 使用，或加入 pictionary.router.providers 参与自动路由。
+ */
+@Service
+@Lazy
+@Slf4j
+public class FakeImageRecognitionServiceImpl implements ImageRecognitionService {
+
+    // 相邻请求的种子间隔（黄金分割常数），使各请求的随机序列互不相关
+    private static final long SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final FakeProviderProperties properties;
+    private final SimulatedLatency simulatedLatency;
+    private final LatencyModel latencyModel;
+    private final long seed;
+    private final AtomicLong requestCounter = new AtomicLong();
+
+    // 词表中所有分类下的标准词及其分类
+    private final List<String[]> labels = new ArrayList<>();
+
+    public FakeImageRecognitionServiceImpl(FakeProviderProperties properties, SimulatedLatency simulatedLatency,
+                                           LabelIndex labelIndex) {
+        this.properties = properties;
+        this.simulatedLatency = simulatedLatency;
+        this.latencyModel = properties.getLatency().toModel();
+        this.seed = properties.getSeed() != null ? properties.getSeed() : System.nanoTime();
+        for (String category : labelIndex.getCategories()) {
+            for (String label : labelIndex.getLabels(category)) {
+                labels.add(new String[]{label, category});
+            }
+        }
+        log.info("模拟识别服务已启用，种子: {}，延迟分布: {}，错误率: {}，超时率: {}",
+                seed, latencyModel, properties.getErrorRate(), properties.getTimeoutRate());
+    }
+
+    @Override
+    public Map<String, Object> recognizeImage(String base64ImageData) {
+        try {
+            return recognizeImageAsync(base64ImageData, Runnable::run).join();
+        } catch (CompletionException e) {
+            Map<String, Object> errorResult = new HashMap<>();
+            errorResult.put("success", false);
+            errorResult.put("message", "识别失败: " + e.getCause().getMessage());
+            return errorResult;
+        }
+    }
+
+    /**
+     * 异步识别：按请求序号确定延迟和故障，交给调度线程到期完成
+     * 不使用传入的执行器，模拟的上游调用不占用隔离舱线程
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeImageAsync(String base64ImageData, Executor executor) {
+        long requestNumber = requestCounter.getAndIncrement();
+        SplittableRandom random = new SplittableRandom(seed + requestNumber * SEED_GAMMA);
+
+        // 随机数的使用顺序固定：故障、延迟、识别结果
+        double fault = random.nextDouble();
+        long latencyMs = latencyModel.sampleMillis(random);
+        if (fault < properties.getTimeoutRate()) {
+            return simulatedLatency.failAfter(properties.getTimeout().toMillis(),
+                    new TimeoutException("模拟上游超时（请求 #" + requestNumber + "）"));
+        }
+        if (fault < properties.getTimeoutRate() + properties.getErrorRate()) {
+            return simulatedLatency.failAfter(latencyMs,
+                    new FakeUpstreamException("模拟上游错误（请求 #" + requestNumber + "）"));
+        }
+        return simulatedLatency.after(latencyMs, () -> buildResult(random, latencyMs));
+    }
+
+    /**
+     * 模拟识别不读取图像，光栅化的画布不需要编码为PNG
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeCanvasAsync(CanvasImage canvas, Executor executor) {
+        return recognizeImageAsync(null, executor);
+    }
+
+    private Map<String, Object> buildResult(SplittableRandom random, long latencyMs) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("fake", true);
+        result.put("simulated_latency_ms", latencyMs);
+        if (labels.isEmpty()) {
+            result.put("prediction", "未知");
+            result.put("confidence", 0);
+            return result;
+        }
+        String[] label = labels.get(random.nextInt(labels.size()));
+        result.put("prediction", label[0]);
+        result.put("category", label[1]);
+        result.put("confidence", 40 + random.nextInt(55));
+        return result;
+    }
+}
@@ -1,8 +1,11 @@
 package com.pictionary.service.impl;
 
+import com.pictionary.confusion.ConfusionStats;
+import com.pictionary.fake.SimulatedLatency;
 import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.util.CanvasImage;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -10,6 +13,8 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 模拟图像识别服务实现
@@ -17,11 +22,19 @@ import java.util.List;
  * 专门针对简笔画和线条画进行优化
  */
 @Service
-@Primary
+@Lazy
 @Slf4j
 public class MockImageRecognitionServiceImpl implements ImageRecognitionService {
 
+    // 模拟处理延迟（毫秒）
+    private static final long SIMULATED_DELAY_MS = 500;
+
     private final Random random = new Random();
+
+    private final SimulatedLatency simulatedLatency;
+
+    // 替代识别结果来自线上的混淆统计，数据不足时使用词表的相似分组
+    private final ConfusionStats confusionStats;
     
     // 可能的识别结果列表（简笔画常见对象）
     private final List<String> commonObjects = Arrays.asList(
@@ -40,25 +53,34 @@ public class MockImageRecognitionServiceImpl implements ImageRecognitionService
         "圆形", "正方形", "三角形", "长方形", "五角星", "心形"
     );
     
-    // 简笔画难以区分的对象组（相似对象）
-    private final Map<String, List<String>> similarObjects = new HashMap<String, List<String>>() {{
-        put("猫", Arrays.asList("狗", "老虎", "兔子"));
-        put("鸟", Arrays.asList("鸭子", "鹅", "鹰"));
-        put("圆形", Arrays.asList("太阳", "苹果", "橙子"));
-        put("长方形", Arrays.asList("正方形", "房子", "电视"));
-    }};
+    public MockImageRecognitionServiceImpl(SimulatedLatency simulatedLatency, ConfusionStats confusionStats) {
+        this.simulatedLatency = simulatedLatency;
+        this.confusionStats = confusionStats;
+    }
     
     @Override
     public Map<String, Object> recognizeImage(String base64ImageData) {
+        return recognizeImageAsync(base64ImageData, Runnable::run).join();
+    }
+
+    /**
+     * 异步识别：模拟处理延迟由调度线程到期完成，不占用隔离舱线程
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeImageAsync(String base64ImageData, Executor executor) {
         log.info("使用模拟简笔画识别服务");
-        
-        // 模拟处理延迟
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
+        return simulatedLatency.after(SIMULATED_DELAY_MS, this::buildResult);
+    }
+
+    /**
+     * 模拟识别不读取图像，光栅化的画布不需要编码为PNG
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeCanvasAsync(CanvasImage canvas, Executor executor) {
+        return recognizeImageAsync(null, executor);
+    }
+
+    private Map<String, Object> buildResult() {
         // 随机选择一个主要预测对象
         String mainPrediction = commonObjects.get(random.nextInt(commonObjects.size()));
         
@@ -73,10 +95,10 @@ public class MockImageRecognitionServiceImpl implements ImageRecognitionService
         result.put("mock", true);
         result.put("sketch_recognition", true); // 标记为简笔画识别
         
-        // 添加可能的替代识别结果（相似对象）
-        if (similarObjects.containsKey(mainPrediction)) {
+        // 添加可能的替代识别结果（最常混淆的对象）
+        List<String> similars = confusionStats.alternatives(mainPrediction, 3);
+        if (!similars.isEmpty()) {
             List<Map<String, Object>> alternatives = new java.util.ArrayList<>();
-            List<String> similars = similarObjects.get(mainPrediction);
             
             // 添加1-3个相似对象作为替代结果
             int altCount = 1 + random.nextInt(Math.min(3, similars.size()));
@@ -1,134 +1,130 @@
 package com.pictionary.service.impl;
 
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.confusion.ConfusionStats;
+import com.pictionary.fake.SimulatedLatency;
+import com.pictionary.label.LabelIndex;
+import com.pictionary.monitor.ImageStageEvent;
 import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.tuning.ImageProfiles;
+import com.pictionary.util.CanvasImage;
 import com.pictionary.util.ImageUtil;
+import com.pictionary.util.SketchBitmap;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.util.*;
-import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * 简笔画识别服务实现
  * 专门针对线条画和简笔画进行优化的识别服务
  */
 @Service
-@Primary
+@Lazy
 @Slf4j
 public class SketchRecognitionServiceImpl implements ImageRecognitionService {
 
+    // 模拟处理延迟（毫秒）
+    private static final long SIMULATED_DELAY_MS = 800;
+
     private final Random random = new Random();
     
-    // 简笔画常见对象分类
-    private final Map<String, List<String>> categoryObjects = new HashMap<String, List<String>>() {{
-        // 动物类
-        put("动物", Arrays.asList(
-            "猫", "狗", "老虎", "狮子", "大象", "长颈鹿", "斑马", "熊猫", 
-            "猴子", "兔子", "鹿", "鱼", "鸟", "鹰", "鸭子", "鹅", 
-            "蛇", "乌龟", "青蛙", "蝴蝶"
-        ));
-        
-        // 日常物品类
-        put("物品", Arrays.asList(
-            "房子", "树", "花", "太阳", "月亮", "星星", "云", "雨",
-            "伞", "汽车", "自行车", "飞机", "船", "火车",
-            "苹果", "香蕉", "橙子", "西瓜", "草莓",
-            "椅子", "桌子", "电视", "电脑", "手机"
-        ));
-        
-        // 简单几何图形
-        put("几何图形", Arrays.asList(
-            "圆形", "正方形", "三角形", "长方形", "五角星", "心形"
-        ));
-    }};
-    
-    // 简笔画难以区分的对象组（相似对象）
-    private final Map<String, List<String>> similarObjects = new HashMap<String, List<String>>() {{
-        put("猫", Arrays.asList("狗", "老虎", "兔子"));
-        put("狗", Arrays.asList("猫", "狼", "狐狸"));
-        put("鸟", Arrays.asList("鸭子", "鹅", "鹰"));
-        put("圆形", Arrays.asList("太阳", "苹果", "橙子", "球"));
-        put("长方形", Arrays.asList("正方形", "房子", "电视"));
-        put("三角形", Arrays.asList("山", "帐篷"));
-        put("星星", Arrays.asList("五角星", "花"));
-        put("树", Arrays.asList("花", "草"));
-        put("汽车", Arrays.asList("公交车", "卡车"));
-    }};
-    
+    // 游戏词表：分类、分类下的对象以及简笔画难以区分的相似对象（见 labels/vocabulary.txt）
+    private final LabelIndex labelIndex;
+
+    private final ImageProfiles imageProfiles;
+    private final Bulkheads bulkheads;
+    private final SimulatedLatency simulatedLatency;
+
+    // 替代识别结果来自线上的混淆统计，数据不足时使用词表的相似分组
+    private final ConfusionStats confusionStats;
+
+    public SketchRecognitionServiceImpl(LabelIndex labelIndex, ImageProfiles imageProfiles, Bulkheads bulkheads,
+                                        SimulatedLatency simulatedLatency, ConfusionStats confusionStats) {
+        this.labelIndex = labelIndex;
+        this.imageProfiles = imageProfiles;
+        this.bulkheads = bulkheads;
+        this.simulatedLatency = simulatedLatency;
+        this.confusionStats = confusionStats;
+    }
+
     @Override
     public Map<String, Object> recognizeImage(String base64ImageData) {
+        return recognizeImageAsync(base64ImageData, Runnable::run).join();
+    }
+
+    /**
+     * 异步识别：预处理在CPU隔离舱中执行，模拟处理延迟由调度线程到期完成，不占用线程等待
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeImageAsync(String base64ImageData, Executor executor) {
+        return recognizeCanvasAsync(CanvasImage.of(base64ImageData), executor);
+    }
+
+    /**
+     * 服务端光栅化的画布直接缩放预处理，不经过PNG编解码
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> recognizeCanvasAsync(CanvasImage canvas, Executor executor) {
         log.info("使用简笔画专用识别服务");
-        
-        try {
-            // 预处理图像，增强线条特征
-            String processedImageData = preprocessSketchImage(base64ImageData);
-            
-            // 模拟处理延迟
-            Thread.sleep(800); // 稍长一点的延迟，模拟更复杂的处理
-            
-            // 分析图像特征并返回识别结果
-            return analyzeSketch(processedImageData);
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("简笔画识别过程被中断", e);
-            
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "识别过程被中断");
-            return errorResult;
-            
-        } catch (Exception e) {
-            log.error("简笔画识别过程中发生错误", e);
-            
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "识别失败: " + e.getMessage());
-            return errorResult;
-        }
+
+        // 图像规格在调用线程中确定（调优时的临时规格只对调用线程生效）
+        int size = imageProfiles.get("sketchRecognitionServiceImpl").size();
+        return bulkheads.cpu().supply(() -> preprocessSketchImage(canvas, size))
+                // 模拟处理延迟，稍长一点，模拟更复杂的处理；然后分析图像特征并返回识别结果
+                .thenCompose(processedImageData -> simulatedLatency.after(SIMULATED_DELAY_MS,
+                        () -> analyzeSketch(processedImageData)))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.error("简笔画识别过程中发生错误", cause);
+
+                    Map<String, Object> errorResult = new HashMap<>();
+                    errorResult.put("success", false);
+                    errorResult.put("message", "识别失败: " + cause.getMessage());
+                    return errorResult;
+                });
     }
     
     /**
      * 预处理简笔画图像
      * 增强线条特征，去除噪点，标准化图像
      * 
-     * @param base64ImageData 原始图像数据
+     * @param canvas 原始画布
+     * @param size   图像规格的边长（简笔画总是二值化，规格中的位深不起作用）
      * @return 处理后的图像数据
      */
-    private String preprocessSketchImage(String base64ImageData) {
+    private String preprocessSketchImage(CanvasImage canvas, int size) {
         try {
-            // 解码Base64图像数据
-            byte[] imageBytes = Base64.getDecoder().decode(base64ImageData);
-            
-            // 读取图像
-            BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-            
             // 应用图像处理
-            // 1. 调整大小为标准尺寸
-            BufferedImage processedImage = ImageUtil.resizeImage(originalImage, 300, 300);
+            // 1. 解码并调整大小为图像规格的边长
+            BufferedImage processedImage = canvas.decode(size, size);
+            if (processedImage == null) {
+                return canvas.toBase64();
+            }
             
             // 2. 增强对比度，使线条更明显
             processedImage = ImageUtil.enhanceContrast(processedImage);
             
-            // 3. 转换为黑白图像，突出线条
-            processedImage = ImageUtil.convertToBlackAndWhite(processedImage);
+            // 3. 按阈值转换为1位墨迹位图，突出线条并去除浅色噪点
+            ImageStageEvent binarizeEvent = ImageStageEvent.start("binarize", processedImage.getWidth(), processedImage.getHeight());
+            SketchBitmap bitmap = SketchBitmap.fromImage(processedImage, 200);
+            binarizeEvent.finish(bitmap.getWidth(), bitmap.getHeight(), bitmap.getWords().length * 8L);
+            log.debug("简笔画墨迹像素数: {}, 包围盒: {}", bitmap.inkCount(), Arrays.toString(bitmap.boundingBox()));
             
-            // 4. 简化图像，去除噪点
-            processedImage = ImageUtil.simplifyImage(processedImage, 200);
+            // 4. 转换回黑色线条、透明背景的图像
+            processedImage = bitmap.toImage();
             
             // 将处理后的图像转换回Base64
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(processedImage, "PNG", outputStream);
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+            return ImageUtil.toPngBase64(processedImage);
             
         } catch (Exception e) {
             log.warn("简笔画图像预处理失败，将使用原始图像", e);
-            return base64ImageData; // 如果处理失败，返回原始数据
+            return canvas.toBase64(); // 如果处理失败，返回原始数据
         }
     }
     
@@ -141,7 +137,7 @@ public class SketchRecognitionServiceImpl implements ImageRecognitionService {
     private Map<String, Object> analyzeSketch(String processedImageData) {
         // 选择一个随机类别
         String category = getRandomCategory();
-        List<String> objectsInCategory = categoryObjects.get(category);
+        List<String> objectsInCategory = labelIndex.getLabels(category);
         
         // 从类别中选择一个主要预测对象
         String mainPrediction = objectsInCategory.get(random.nextInt(objectsInCategory.size()));
@@ -160,9 +156,9 @@ public class SketchRecognitionServiceImpl implements ImageRecognitionService {
         // 添加可能的替代识别结果
         List<Map<String, Object>> alternatives = new ArrayList<>();
         
-        // 首先添加相似对象（如果有）
-        if (similarObjects.containsKey(mainPrediction)) {
-            List<String> similars = similarObjects.get(mainPrediction);
+        // 首先添加最常混淆的对象（如果有）
+        List<String> similars = confusionStats.alternatives(mainPrediction, 3);
+        if (!similars.isEmpty()) {
             addAlternatives(alternatives, similars, mainConfidence, 2);
         }
         
@@ -215,7 +211,7 @@ public class SketchRecognitionServiceImpl implements ImageRecognitionService {
      * @return 随机类别名称
      */
     private String getRandomCategory() {
-        List<String> categories = new ArrayList<>(categoryObjects.keySet());
+        List<String> categories = labelIndex.getCategories();
         return categories.get(random.nextInt(categories.size()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.pictionary.session;
+
+import com.pictionary.util.StrokeCodec;
+import com.pictionary.util.StrokeRasterizer;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 绘画会话在服务端的画布
+ * 保存与前端 paths 相同的笔画列表和画布大小的ARGB工作缓冲区。追加笔画时只绘制新笔画，
+ * 撤销时只清空被撤销笔画覆盖的区域并在该区域内重绘其余笔画。
+ * 结果与 StrokeRasterizer.render 整幅绘制的像素完全相同，识别时交给识别服务的是工作缓冲区的快照，不编码PNG。
+ * 非线程安全，由 DrawingSessions 加锁访问。
+ */
+class DrawingCanvas {
+
+    // 每个点在笔画列表中占用的字节数（x、y两个int）
+    private static final int BYTES_PER_POINT = 8;
+
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final Rectangle canvasBounds;
+
+    private final List<StrokeCodec.Stroke> strokes = new ArrayList<>();
+    // 各笔画在画布内会改动的像素范围，空笔画或完全在画布外时为null
+    private final List<Rectangle> strokeBounds = new ArrayList<>();
+    private long strokeBytes;
+
+    DrawingCanvas(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.canvasBounds = new Rectangle(0, 0, width, height);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int size() {
+        return strokes.size();
+    }
+
+    /**
+     * 撤销第 from 个之后的所有笔画，再按顺序追加新笔画
+     *
+     * @param from  保留的笔画数，不能大于当前笔画数
+     * @param added 新笔画（画布坐标）
+     */
+    void apply(int from, List<StrokeCodec.Stroke> added) {
+        if (from < 0 || from > strokes.size()) {
+            throw new IllegalArgumentException("保留的笔画数无效: " + from + "，当前 " + strokes.size());
+        }
+        if (from == strokes.size() && added.isEmpty()) {
+            return;
+        }
+        Graphics2D graphics2D = StrokeRasterizer.createGraphics(image);
+        try {
+            List<Rectangle> removed = new ArrayList<>();
+            while (strokes.size() > from) {
+                int last = strokes.size() - 1;
+                strokeBytes -= (long) strokes.remove(last).xs().length * BYTES_PER_POINT;
+                Rectangle bounds = strokeBounds.remove(last);
+                if (bounds != null) {
+                    removed.add(bounds);
+                }
+            }
+            for (Rectangle region : removed) {
+                redraw(graphics2D, region);
+            }
+            for (StrokeCodec.Stroke stroke : added) {
+                Rectangle bounds = StrokeRasterizer.bounds(stroke);
+                bounds = bounds == null ? null : bounds.intersection(canvasBounds);
+                if (bounds != null && bounds.isEmpty()) {
+                    bounds = null;
+                }
+                strokes.add(stroke);
+                strokeBounds.add(bounds);
+                strokeBytes += (long) stroke.xs().length * BYTES_PER_POINT;
+                if (bounds != null) {
+                    StrokeRasterizer.draw(graphics2D, stroke, 1, 1, 1);
+                }
+            }
+        } finally {
+            graphics2D.dispose();
+        }
+    }
+
+    /**
+     * 清空区域，再在区域内按顺序重绘与它相交的笔画
+     */
+    private void redraw(Graphics2D graphics2D, Rectangle region) {
+        for (int y = region.y; y < region.y + region.height; y++) {
+            int offset = y * width;
+            Arrays.fill(pixels, offset + region.x, offset + region.x + region.width, 0);
+        }
+        graphics2D.setClip(region);
+        for (int i = 0; i < strokes.size(); i++) {
+            Rectangle bounds = strokeBounds.get(i);
+            if (bounds != null && bounds.intersects(region)) {
+                StrokeRasterizer.draw(graphics2D, strokes.get(i), 1, 1, 1);
+            }
+        }
+        graphics2D.setClip(null);
+    }
+
+    /**
+     * 复制工作缓冲区，识别在会话锁之外进行，之后的增量不会影响快照
+     *
+     * @return 画布大小的ARGB图像
+     */
+    BufferedImage snapshot() {
+        BufferedImage copy = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        System.arraycopy(pixels, 0, ((DataBufferInt) copy.getRaster().getDataBuffer()).getData(), 0, pixels.length);
+        return copy;
+    }
+
+    /**
+     * @return 估算的内存占用：工作缓冲区和笔画坐标
+     */
+    long memoryBytes() {
+        return (long) pixels.length * 4 + strokeBytes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.pictionary.session;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 服务端绘画会话配置
+ * 属性前缀为 pictionary.session
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.session")
+public class DrawingSessionProperties {
+
+    // 所有会话的内存上限（主要是画布大小的ARGB工作缓冲区，500x400 的画布约 800KB），超出时淘汰最久未使用的会话
+    private DataSize maxMemory = DataSize.ofMegabytes(256);
+
+    // 会话空闲超过该时间后淘汰，之后的增量上传需要重新上传全部笔画
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    // 单个会话的画布像素上限
+    private long maxCanvasPixels = 2048L * 2048;
+}
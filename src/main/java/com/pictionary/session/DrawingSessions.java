@@ -0,0 +1,236 @@
+package com.pictionary.session;
+
+import com.pictionary.util.StrokeCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 服务端绘画会话
+ * 每个绘画（前端的 drawingId）在服务端保存一份笔画列表和画布，AI猜测时前端只上传上次猜测之后的变化：
+ * 保留前 from 个笔画（其后的笔画已被撤销），再追加新笔画。服务端只重绘改动的区域（见 DrawingCanvas），
+ * 画布的快照直接交给识别服务预处理，与上传全部笔画时一样不经过PNG编解码。
+ * <p>
+ * 所有会话的内存有上限，超出时淘汰最久未使用的会话，空闲超时的会话定期淘汰；
+ * 会话被淘汰或服务重启后，增量上传返回需要重新同步（SessionResyncException），由前端上传全部笔画。
+ */
+@Service
+@ConditionalOnProperty(name = "pictionary.session.enabled", havingValue = "true")
+@Slf4j
+public class DrawingSessions {
+
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    /**
+     * 应用增量后的会话状态
+     *
+     * @param image    画布快照，调用方之后不能再修改
+     * @param strokes  会话中的笔画数
+     * @param revision 已应用的修订号
+     */
+    public record Update(BufferedImage image, int strokes, long revision) {
+    }
+
+    private static final class Session {
+        final DrawingCanvas canvas;
+        long revision;
+        long lastAccess;
+        // 计入总内存的字节数，只在持有 DrawingSessions 的锁时修改
+        long accountedBytes;
+
+        Session(DrawingCanvas canvas) {
+            this.canvas = canvas;
+        }
+    }
+
+    private final DrawingSessionProperties properties;
+    // 按访问顺序排列，最前面的是最久未使用的会话
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private ScheduledExecutorService sweeper;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder memoryEvictions = new LongAdder();
+
+    public DrawingSessions(DrawingSessionProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMs = Math.max(1000, properties.getIdleTimeout().toMillis() / 4);
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "drawing-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictIdle, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 把增量应用到会话并复制画布，from=0 时创建或重建会话
+     *
+     * @param sessionId 会话ID（前端的 drawingId）
+     * @param revision  修订号，同一会话内必须递增；晚到的旧请求被拒绝，不会覆盖新的状态
+     * @param from      保留的笔画数，其后的笔画已被撤销
+     * @param delta     新笔画，宽高为画布尺寸
+     * @return 应用后的会话状态
+     * @throws SessionResyncException   需要上传全部笔画
+     * @throws IllegalArgumentException 会话ID无效或画布过大
+     */
+    public Update apply(String sessionId, long revision, int from, StrokeCodec.Drawing delta) {
+        if (sessionId == null || !SESSION_ID.matcher(sessionId).matches()) {
+            throw new IllegalArgumentException("会话ID无效");
+        }
+        if (from < 0) {
+            throw new IllegalArgumentException("from 不能为负数");
+        }
+        if ((long) delta.width() * delta.height() > properties.getMaxCanvasPixels()) {
+            throw new IllegalArgumentException("画布过大: " + delta.width() + "x" + delta.height());
+        }
+
+        Session session;
+        synchronized (this) {
+            session = sessions.get(sessionId);
+            boolean sameCanvas = session != null && session.canvas.getWidth() == delta.width()
+                    && session.canvas.getHeight() == delta.height();
+            if (!sameCanvas) {
+                if (from != 0) {
+                    resyncs.increment();
+                    throw new SessionResyncException(session == null ? "会话不存在或已过期" : "画布尺寸已改变");
+                }
+                if (session != null) {
+                    remove(sessionId);
+                }
+                session = new Session(new DrawingCanvas(delta.width(), delta.height()));
+                session.revision = Long.MIN_VALUE;
+                sessions.put(sessionId, session);
+                created.increment();
+            }
+            session.lastAccess = System.currentTimeMillis();
+        }
+
+        Update update;
+        synchronized (session) {
+            if (revision <= session.revision) {
+                resyncs.increment();
+                throw new SessionResyncException("请求已过期: revision=" + revision + "，会话已应用 " + session.revision);
+            }
+            if (from > session.canvas.size()) {
+                resyncs.increment();
+                throw new SessionResyncException("会话缺少笔画: 只有 " + session.canvas.size() + " 个");
+            }
+            session.canvas.apply(from, delta.strokes());
+            session.revision = revision;
+            update = new Update(session.canvas.snapshot(), session.canvas.size(), revision);
+        }
+        updates.increment();
+        account(sessionId, session);
+        return update;
+    }
+
+    /**
+     * 删除会话（前端清除画布时调用）
+     *
+     * @return 会话是否存在
+     */
+    public synchronized boolean remove(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        totalBytes -= session.accountedBytes;
+        return true;
+    }
+
+    /**
+     * 会话统计
+     *
+     * @return 会话数、内存占用和淘汰次数
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("memoryBytes", totalBytes);
+        stats.put("maxMemoryBytes", properties.getMaxMemory().toBytes());
+        stats.put("created", created.sum());
+        stats.put("updates", updates.sum());
+        stats.put("resyncs", resyncs.sum());
+        stats.put("idleEvictions", idleEvictions.sum());
+        stats.put("memoryEvictions", memoryEvictions.sum());
+        return stats;
+    }
+
+    /**
+     * 更新会话的内存占用，超出上限时从最久未使用的会话开始淘汰（不淘汰刚更新的会话）
+     */
+    private void account(String sessionId, Session session) {
+        long bytes;
+        synchronized (session) {
+            bytes = session.canvas.memoryBytes();
+        }
+        synchronized (this) {
+            if (sessions.get(sessionId) != session) {
+                // 更新期间已被淘汰或替换
+                return;
+            }
+            totalBytes += bytes - session.accountedBytes;
+            session.accountedBytes = bytes;
+            long maxBytes = properties.getMaxMemory().toBytes();
+            Iterator<Map.Entry<String, Session>> iterator = sessions.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Session> eldest = iterator.next();
+                if (eldest.getValue() == session) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= eldest.getValue().accountedBytes;
+                memoryEvictions.increment();
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long deadline = System.currentTimeMillis() - properties.getIdleTimeout().toMillis();
+        int evicted = 0;
+        synchronized (this) {
+            Iterator<Session> iterator = sessions.values().iterator();
+            while (iterator.hasNext()) {
+                Session session = iterator.next();
+                if (session.lastAccess >= deadline) {
+                    // 按访问顺序排列，后面的会话更新
+                    break;
+                }
+                iterator.remove();
+                totalBytes -= session.accountedBytes;
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            idleEvictions.add(evicted);
+            log.debug("淘汰 {} 个空闲的绘画会话", evicted);
+        }
+    }
+}
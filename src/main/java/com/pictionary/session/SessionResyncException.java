@@ -0,0 +1,12 @@
+package com.pictionary.session;
+
+/**
+ * 增量上传无法应用到服务端会话：会话不存在或已淘汰、缺少前缀笔画、画布尺寸改变或请求已过期
+ * 客户端收到后应该上传全部笔画（from=0）重建会话。不记录堆栈：这是预期内的路径
+ */
+public class SessionResyncException extends RuntimeException {
+
+    public SessionResyncException(String message) {
+        super(message, null, false, false);
+    }
+}
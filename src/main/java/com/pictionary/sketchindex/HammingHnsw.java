@@ -0,0 +1,566 @@
+package com.pictionary.sketchindex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * 汉明距离的 HNSW（分层可导航小世界图）近似最近邻索引
+ * <ul>
+ *     <li>向量为定长 long[]，连续存放在一个数组中；每个节点的各层邻居表预先分配，内存只与容量有关</li>
+ *     <li>容量固定，写满后按插入顺序覆盖最旧的节点：先从它的邻居的邻居表中删除它并让这些邻居互相连接，
+ *     再在同一个槽位插入新向量。没有被清理的单向入边指向复用后的新向量，搜索时跳过层数不够的节点，其余作为普通的边使用</li>
+ *     <li>邻居选择使用论文中的启发式（只保留比已选邻居更近的候选），不足时用最近的候选补足</li>
+ * </ul>
+ * 搜索持有读锁可以并发，插入持有写锁。
+ *
+ * @param <V> 节点附带的值
+ */
+public class HammingHnsw<V> {
+
+    // 层数上限，容量在千万以内时随机层数几乎不会超过
+    private static final int MAX_LEVEL = 16;
+
+    private final int words;
+    private final int capacity;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final long[] vectors;
+    private final int[] levels;
+    // 第0层邻居表，每个节点 1 + maxM0 个int：邻居数、邻居
+    private final int[] links0;
+    // 第1层及以上的邻居表，每层 1 + m 个int
+    private final int[][] upperLinks;
+    private final Object[] values;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SplittableRandom random;
+
+    private int size;
+    // 下一个写入的槽位，写满后即最旧的节点
+    private int next;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private long evictions;
+
+    /**
+     * 搜索结果
+     *
+     * @param value    节点附带的值
+     * @param distance 与查询向量的汉明距离
+     * @param bitCount 节点向量的置位数
+     */
+    public record Neighbor<V>(V value, int distance, int bitCount) {
+    }
+
+    /**
+     * @param words          向量长度（long的个数）
+     * @param capacity       最大节点数
+     * @param m              第1层及以上每个节点的邻居数，第0层为它的两倍
+     * @param efConstruction 插入时每层搜索的候选数
+     * @param seed           随机层数的种子
+     */
+    public HammingHnsw(int words, int capacity, int m, int efConstruction, long seed) {
+        if (words <= 0 || capacity <= 0 || m < 2 || efConstruction < m) {
+            throw new IllegalArgumentException("HNSW参数无效: words=" + words + ", capacity=" + capacity
+                    + ", m=" + m + ", efConstruction=" + efConstruction);
+        }
+        this.words = words;
+        this.capacity = capacity;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.vectors = new long[capacity * words];
+        this.levels = new int[capacity];
+        this.links0 = new int[capacity * (maxM0 + 1)];
+        this.upperLinks = new int[capacity][];
+        this.values = new Object[capacity];
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * 插入向量，已满时覆盖最旧的节点
+     *
+     * @param vector 向量（会被复制）
+     * @param value  附带的值
+     * @return 是否覆盖了旧节点
+     */
+    public boolean add(long[] vector, V value) {
+        if (vector.length != words) {
+            throw new IllegalArgumentException("向量长度应为 " + words + ": " + vector.length);
+        }
+        lock.writeLock().lock();
+        try {
+            boolean evicted = size == capacity;
+            int node;
+            if (evicted) {
+                node = next;
+                remove(node);
+                evictions++;
+            } else {
+                node = size++;
+            }
+            next = (node + 1) % capacity;
+
+            int level = Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier));
+            System.arraycopy(vector, 0, vectors, node * words, words);
+            levels[node] = level;
+            values[node] = value;
+            links0[node * (maxM0 + 1)] = 0;
+            upperLinks[node] = level == 0 ? null : new int[level * (m + 1)];
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return evicted;
+            }
+
+            int ep = entryPoint;
+            for (int layer = maxLevel; layer > level; layer--) {
+                ep = greedy(vector, ep, layer, node);
+            }
+            for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+                BitSet visited = new BitSet(size);
+                // 复用的槽位可能还有指向自己的旧入边，不能把自己选为邻居
+                visited.set(node);
+                long[] candidates = searchLayer(vector, ep, efConstruction, layer, visited);
+                if (candidates.length == 0) {
+                    continue;
+                }
+                int[] neighbors = selectNeighbors(candidates, m);
+                int base = linkBase(node, layer);
+                int[] links = linkArray(node, layer);
+                links[base] = neighbors.length;
+                System.arraycopy(neighbors, 0, links, base + 1, neighbors.length);
+                for (int neighbor : neighbors) {
+                    connect(neighbor, node, layer);
+                }
+                ep = id(candidates[0]);
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+            return evicted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索最近的 k 个节点
+     *
+     * @param query 查询向量
+     * @param k     返回的节点数
+     * @param ef    第0层搜索的候选数，越大召回率越高、越慢
+     * @return 按距离从近到远排列的节点
+     */
+    @SuppressWarnings("unchecked")
+    public List<Neighbor<V>> search(long[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int ep = entryPoint;
+            for (int layer = maxLevel; layer > 0; layer--) {
+                ep = greedy(query, ep, layer, -1);
+            }
+            long[] found = searchLayer(query, ep, Math.max(ef, k), 0, new BitSet(size));
+            List<Neighbor<V>> result = new ArrayList<>(Math.min(k, found.length));
+            for (int i = 0; i < found.length && i < k; i++) {
+                int node = id(found[i]);
+                result.add(new Neighbor<>((V) values[node], distance(found[i]), bitCount(node)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按插入顺序（从旧到新）遍历所有节点，用于保存快照
+     *
+     * @param consumer 接收向量副本和值
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachOldestFirst(BiConsumer<long[], V> consumer) {
+        lock.readLock().lock();
+        try {
+            int start = size == capacity ? next : 0;
+            for (int i = 0; i < size; i++) {
+                int node = (start + i) % capacity;
+                consumer.accept(Arrays.copyOfRange(vectors, node * words, (node + 1) * words), (V) values[node]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long evictions() {
+        lock.readLock().lock();
+        try {
+            return evictions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在一层内贪心地移动到离查询向量最近的节点
+     */
+    private int greedy(long[] query, int ep, int layer, int exclude) {
+        int current = ep;
+        int currentDistance = distance(current, query);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] links = linkArray(current, layer);
+            int base = linkBase(current, layer);
+            for (int i = 1; i <= links[base]; i++) {
+                int neighbor = links[base + i];
+                if (neighbor == exclude || levels[neighbor] < layer) {
+                    continue;
+                }
+                int d = distance(neighbor, query);
+                if (d < currentDistance) {
+                    current = neighbor;
+                    currentDistance = d;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在一层内做宽度为 ef 的最佳优先搜索
+     *
+     * @return 按距离从近到远排列的编码结果，见 {@link #encode(int, int)}
+     */
+    private long[] searchLayer(long[] query, int ep, int ef, int layer, BitSet visited) {
+        LongHeap candidates = new LongHeap(ef * 2);
+        // 结果为最大堆（存负数），堆顶是当前最远的结果
+        LongHeap results = new LongHeap(ef + 1);
+        long start = encode(distance(ep, query), ep);
+        visited.set(ep);
+        candidates.push(start);
+        results.push(-start);
+
+        while (candidates.size() > 0) {
+            long candidate = candidates.poll();
+            if (distance(candidate) > distance(-results.peek()) && results.size() >= ef) {
+                break;
+            }
+            int node = id(candidate);
+            int[] links = linkArray(node, layer);
+            int base = linkBase(node, layer);
+            for (int i = 1; i <= links[base]; i++) {
+                int neighbor = links[base + i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                if (levels[neighbor] < layer) {
+                    // 槽位被复用后残留的旧入边
+                    continue;
+                }
+                int d = distance(neighbor, query);
+                if (results.size() < ef || d < distance(-results.peek())) {
+                    long encoded = encode(d, neighbor);
+                    candidates.push(encoded);
+                    results.push(-encoded);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        long[] sorted = new long[results.size()];
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            sorted[i] = -results.poll();
+        }
+        return sorted;
+    }
+
+    /**
+     * 启发式邻居选择：按距离从近到远，只保留离基准点比离所有已选邻居都近的候选，使邻居分布在不同方向；
+     * 不足 max 个时用剩余的最近候选补足
+     *
+     * @param candidates 按距离排序的编码候选（距离相对于基准点）
+     */
+    private int[] selectNeighbors(long[] candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.length)];
+        boolean[] taken = new boolean[candidates.length];
+        int count = 0;
+        for (int c = 0; c < candidates.length && count < selected.length; c++) {
+            int node = id(candidates[c]);
+            int d = distance(candidates[c]);
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (distance(node, selected[j]) < d) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = node;
+                taken[c] = true;
+            }
+        }
+        for (int c = 0; c < candidates.length && count < selected.length; c++) {
+            if (!taken[c]) {
+                selected[count++] = id(candidates[c]);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 把 node 加入 target 在 layer 层的邻居表，表满时重新挑选
+     */
+    private void connect(int target, int node, int layer) {
+        int[] links = linkArray(target, layer);
+        int base = linkBase(target, layer);
+        int count = links[base];
+        int max = layer == 0 ? maxM0 : m;
+        if (contains(links, base, node)) {
+            return;
+        }
+        if (count < max) {
+            links[base + count + 1] = node;
+            links[base] = count + 1;
+            return;
+        }
+
+        long[] candidates = new long[count + 1];
+        int n = 0;
+        for (int i = 1; i <= count; i++) {
+            int neighbor = links[base + i];
+            // 顺便清理层数不够的旧入边
+            if (levels[neighbor] >= layer) {
+                candidates[n++] = encode(distance(target, neighbor), neighbor);
+            }
+        }
+        candidates[n++] = encode(distance(target, node), node);
+        candidates = Arrays.copyOf(candidates, n);
+        Arrays.sort(candidates);
+        int[] selected = selectNeighbors(candidates, max);
+        links[base] = selected.length;
+        System.arraycopy(selected, 0, links, base + 1, selected.length);
+    }
+
+    /**
+     * 从邻居的邻居表中删除节点，并让这些邻居互相连接以弥补失去的边（否则反复覆盖后图会逐渐不连通），
+     * 必要时另选入口节点
+     */
+    private void remove(int node) {
+        for (int layer = 0; layer <= levels[node]; layer++) {
+            int[] links = linkArray(node, layer);
+            int base = linkBase(node, layer);
+            int count = links[base];
+            int[] neighbors = new int[count];
+            int n = 0;
+            for (int i = 1; i <= count; i++) {
+                int neighbor = links[base + i];
+                if (neighbor != node && levels[neighbor] >= layer) {
+                    neighbors[n++] = neighbor;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                unlink(neighbors[i], node, layer);
+                relink(neighbors[i], neighbors, n, layer);
+            }
+        }
+        if (entryPoint == node) {
+            entryPoint = -1;
+            maxLevel = -1;
+            for (int i = 0; i < size; i++) {
+                if (i != node && levels[i] > maxLevel) {
+                    entryPoint = i;
+                    maxLevel = levels[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * 从 target 现有的邻居和被删除节点的其它邻居中重新挑选 target 的邻居
+     */
+    private void relink(int target, int[] extra, int extraCount, int layer) {
+        int[] links = linkArray(target, layer);
+        int base = linkBase(target, layer);
+        int count = links[base];
+        long[] candidates = new long[count + extraCount];
+        int n = 0;
+        for (int i = 1; i <= count; i++) {
+            int neighbor = links[base + i];
+            if (levels[neighbor] >= layer) {
+                candidates[n++] = encode(distance(target, neighbor), neighbor);
+            }
+        }
+        for (int i = 0; i < extraCount; i++) {
+            int candidate = extra[i];
+            if (candidate != target && !contains(links, base, candidate)) {
+                candidates[n++] = encode(distance(target, candidate), candidate);
+            }
+        }
+        candidates = Arrays.copyOf(candidates, n);
+        Arrays.sort(candidates);
+        int[] selected = selectNeighbors(candidates, layer == 0 ? maxM0 : m);
+        links[base] = selected.length;
+        System.arraycopy(selected, 0, links, base + 1, selected.length);
+    }
+
+    private static boolean contains(int[] links, int base, int node) {
+        for (int i = 1; i <= links[base]; i++) {
+            if (links[base + i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void unlink(int target, int node, int layer) {
+        int[] links = linkArray(target, layer);
+        int base = linkBase(target, layer);
+        int count = links[base];
+        for (int i = 1; i <= count; i++) {
+            if (links[base + i] == node) {
+                links[base + i] = links[base + count];
+                links[base] = count - 1;
+                return;
+            }
+        }
+    }
+
+    private int[] linkArray(int node, int layer) {
+        return layer == 0 ? links0 : upperLinks[node];
+    }
+
+    private int linkBase(int node, int layer) {
+        return layer == 0 ? node * (maxM0 + 1) : (layer - 1) * (m + 1);
+    }
+
+    private int distance(int node, long[] query) {
+        int base = node * words;
+        int distance = 0;
+        for (int i = 0; i < words; i++) {
+            distance += Long.bitCount(vectors[base + i] ^ query[i]);
+        }
+        return distance;
+    }
+
+    private int distance(int a, int b) {
+        int baseA = a * words;
+        int baseB = b * words;
+        int distance = 0;
+        for (int i = 0; i < words; i++) {
+            distance += Long.bitCount(vectors[baseA + i] ^ vectors[baseB + i]);
+        }
+        return distance;
+    }
+
+    private int bitCount(int node) {
+        int base = node * words;
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(vectors[base + i]);
+        }
+        return count;
+    }
+
+    /**
+     * 距离放在高32位、节点放在低32位，按 long 比较即按距离排序
+     */
+    private static long encode(int distance, int node) {
+        return ((long) distance << 32) | node;
+    }
+
+    private static int distance(long encoded) {
+        return (int) (encoded >>> 32);
+    }
+
+    private static int id(long encoded) {
+        return (int) encoded;
+    }
+
+    /**
+     * long 的最小堆，避免 PriorityQueue&lt;Long&gt; 的装箱
+     */
+    private static final class LongHeap {
+
+        private long[] heap;
+        private int size;
+
+        LongHeap(int initialCapacity) {
+            heap = new long[Math.max(4, initialCapacity)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void push(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long poll() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.pictionary.sketchindex;
+
+import com.pictionary.util.CanvasPngDecoder;
+import com.pictionary.util.GrayAlphaImage;
+import com.pictionary.util.ImageUtil;
+import com.pictionary.util.SketchBitmap;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * 简笔画特征向量
+ * 把画布缩小到 DECODE_SIZE 见方后取墨迹包围盒，等比例缩放居中到 GRID x GRID 的网格（有墨迹即置位），
+ * 再做一次3x3膨胀，使笔画位置和粗细的小差异只改变少量位。
+ * 结果按行打包为 WORDS 个 long（第 y 行第 x 列为第 y * GRID + x 位），用汉明距离比较。
+ */
+public final class SketchFeatures {
+
+    public static final int GRID = 32;
+    public static final int BITS = GRID * GRID;
+    public static final int WORDS = BITS / 64;
+
+    // 解码时的画布大小，足够分辨笔画又不必解码全尺寸
+    private static final int DECODE_SIZE = 128;
+
+    private SketchFeatures() {
+    }
+
+    /**
+     * 提取特征
+     *
+     * @param imageBytes 图像文件数据
+     * @param threshold  墨迹亮度阈值 (0-255)
+     * @return 特征向量；无法解析或没有墨迹时返回null
+     * @throws IOException 解码失败
+     */
+    public static long[] extract(byte[] imageBytes, int threshold) throws IOException {
+        SketchBitmap bitmap;
+        GrayAlphaImage grayImage = CanvasPngDecoder.decode(imageBytes, DECODE_SIZE, DECODE_SIZE);
+        if (grayImage != null) {
+            bitmap = SketchBitmap.fromGrayAlpha(grayImage, threshold);
+        } else {
+            BufferedImage image = ImageUtil.decodeCanvas(imageBytes, DECODE_SIZE, DECODE_SIZE);
+            if (image == null) {
+                return null;
+            }
+            bitmap = SketchBitmap.fromImage(image, threshold);
+        }
+        return fromBitmap(bitmap);
+    }
+
+    /**
+     * 从服务端光栅化的图像提取特征，不经过PNG编解码
+     *
+     * @param image     图像
+     * @param threshold 墨迹亮度阈值 (0-255)
+     * @return 特征向量；没有墨迹时返回null
+     */
+    public static long[] extract(BufferedImage image, int threshold) {
+        return fromBitmap(SketchBitmap.fromGrayAlpha(CanvasPngDecoder.downscale(image, DECODE_SIZE, DECODE_SIZE), threshold));
+    }
+
+    /**
+     * 从位图提取特征
+     *
+     * @param bitmap 位图
+     * @return 特征向量；没有墨迹时返回null
+     */
+    public static long[] fromBitmap(SketchBitmap bitmap) {
+        int[] box = bitmap.boundingBox();
+        if (box == null) {
+            return null;
+        }
+        int boxWidth = box[2] - box[0] + 1;
+        int boxHeight = box[3] - box[1] + 1;
+        int side = Math.max(boxWidth, boxHeight);
+        // 较短的一边居中
+        int offsetX = (side - boxWidth) / 2 - box[0];
+        int offsetY = (side - boxHeight) / 2 - box[1];
+
+        SketchBitmap grid = new SketchBitmap(GRID, GRID);
+        for (int y = box[1]; y <= box[3]; y++) {
+            int gy = (y + offsetY) * GRID / side;
+            for (int x = box[0]; x <= box[2]; x++) {
+                if (bitmap.get(x, y)) {
+                    grid.set((x + offsetX) * GRID / side, gy, true);
+                }
+            }
+        }
+
+        // GRID 为32时位图每行一个字、只用低32位，两行合并为一个 long
+        long[] rows = grid.dilate().getWords();
+        long[] features = new long[WORDS];
+        for (int y = 0; y < GRID; y++) {
+            features[y >>> 1] |= rows[y] << ((y & 1) * GRID);
+        }
+        return features;
+    }
+
+    /**
+     * 汉明距离：不同的位数
+     */
+    public static int distance(long[] a, long[] b) {
+        int distance = 0;
+        for (int i = 0; i < WORDS; i++) {
+            distance += Long.bitCount(a[i] ^ b[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * 置位数（墨迹格数）
+     */
+    public static int bitCount(long[] features) {
+        int count = 0;
+        for (long word : features) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
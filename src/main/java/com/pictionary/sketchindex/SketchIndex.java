@@ -0,0 +1,334 @@
+package com.pictionary.sketchindex;
+
+import com.pictionary.util.CanvasImage;
+import com.pictionary.util.ImageHeader;
+import com.pictionary.util.ImageUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 简笔画近邻索引
+ * 保存识别服务已经识别出标准词的画作特征（见 SketchFeatures），新画作与某幅已识别画作足够接近时
+ * 直接使用它的结果，不再调用识别服务。特征放在容量固定的 HammingHnsw 中，写满后覆盖最旧的画作。
+ * 启动时从快照文件重建索引，关闭时和定期（有新画作时）保存快照。
+ */
+@Service
+@ConditionalOnProperty(name = "pictionary.sketch-index.enabled", havingValue = "true")
+@Slf4j
+public class SketchIndex {
+
+    // 快照文件格式：魔数、版本、特征长度、条目数，然后按从旧到新的顺序存放每个条目
+    private static final int SNAPSHOT_MAGIC = 0x534B4958;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * 索引中的一幅画作的识别结果
+     */
+    record Entry(String label, String prediction, String provider, String category) {
+    }
+
+    private final SketchIndexProperties properties;
+    private final HammingHnsw<Entry> index;
+    private final Path snapshotPath;
+    private ScheduledExecutorService snapshotScheduler;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+    // 已插入的条目数和快照中的条目数，两者不同时才需要保存
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong savedVersion = new AtomicLong();
+
+    public SketchIndex(SketchIndexProperties properties) {
+        this.properties = properties;
+        this.index = new HammingHnsw<>(SketchFeatures.WORDS, properties.getCapacity(), properties.getM(),
+                properties.getEfConstruction(), System.nanoTime());
+        String path = properties.getSnapshotPath();
+        this.snapshotPath = path == null || path.isBlank() ? null : Paths.get(path);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (snapshotPath == null) {
+            return;
+        }
+        if (Files.exists(snapshotPath)) {
+            long start = System.nanoTime();
+            try (InputStream in = Files.newInputStream(snapshotPath)) {
+                int loaded = load(in);
+                log.info("已从快照 {} 加载 {} 幅画作，索引 {} 幅，耗时 {} ms", snapshotPath.toAbsolutePath(), loaded,
+                        index.size(), (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException | RuntimeException e) {
+                log.warn("加载近邻索引快照 {} 失败，从空索引开始", snapshotPath.toAbsolutePath(), e);
+            }
+        }
+        long intervalMs = properties.getSnapshotInterval().toMillis();
+        if (intervalMs > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "sketch-index-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::saveIfChanged, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        saveIfChanged();
+    }
+
+    /**
+     * 提取画作特征，服务端光栅化的画布直接缩放，不经过PNG编解码
+     *
+     * @param canvas 画布
+     * @return 特征向量；图像无法解析、尺寸过大或墨迹太少时返回null（不查也不存）
+     */
+    public long[] features(CanvasImage canvas) {
+        if (!canvas.isRendered()) {
+            return features(canvas.toBase64());
+        }
+        long[] features = SketchFeatures.extract(canvas.getRendered(), properties.getThreshold());
+        return features == null || SketchFeatures.bitCount(features) < properties.getMinInk() ? null : features;
+    }
+
+    /**
+     * 提取画作特征
+     *
+     * @param base64ImageData Base64编码的图像数据
+     * @return 特征向量；图像无法解析、尺寸过大或墨迹太少时返回null（不查也不存）
+     */
+    public long[] features(String base64ImageData) {
+        try {
+            byte[] imageBytes = Base64.getDecoder().decode(base64ImageData);
+            // 完整的尺寸限制由 PayloadGuard 在调用识别服务前检查，这里只避免解码巨大的图像
+            ImageHeader header = ImageHeader.read(imageBytes);
+            if (header == null || header.pixels() > ImageUtil.MAX_DECODE_PIXELS) {
+                return null;
+            }
+            long[] features = SketchFeatures.extract(imageBytes, properties.getThreshold());
+            return features == null || SketchFeatures.bitCount(features) < properties.getMinInk() ? null : features;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查找足够接近的已识别画作
+     *
+     * @param features 特征向量，为null时直接返回null
+     * @param provider 请求指定的识别服务Bean名称，为空时接受任意识别服务的结果
+     * @return 识别结果（nearDuplicate=true，distance 为归一化距离）；没有足够接近的画作时返回null
+     */
+    public Map<String, Object> lookup(long[] features, String provider) {
+        if (features == null) {
+            skipped.increment();
+            return null;
+        }
+        int bits = SketchFeatures.bitCount(features);
+        List<HammingHnsw.Neighbor<Entry>> neighbors = index.search(features, properties.getEfSearch(), properties.getEfSearch());
+        for (HammingHnsw.Neighbor<Entry> neighbor : neighbors) {
+            double distance = (double) neighbor.distance() / (bits + neighbor.bitCount());
+            if (distance > properties.getMaxDistance()) {
+                // 按距离排序，后面的更远；墨迹多的画作归一化后可能更近，但差别很小，不再继续
+                break;
+            }
+            Entry entry = neighbor.value();
+            if (provider == null || provider.equals(entry.provider())) {
+                hits.increment();
+                return toResult(entry, distance);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 记录识别结果：成功且映射到了标准词的结果才加入索引
+     *
+     * @param features 特征向量，为null时忽略
+     * @param result   识别结果（包含 provider、label 等字段）
+     */
+    public void learn(long[] features, Map<String, Object> result) {
+        if (features == null || result == null || !Boolean.TRUE.equals(result.get("success"))
+                || result.get("label") == null || result.get("provider") == null) {
+            return;
+        }
+        Object prediction = result.get("prediction");
+        Object category = result.get("category");
+        index.add(features, new Entry(result.get("label").toString(),
+                prediction == null ? null : prediction.toString(),
+                result.get("provider").toString(),
+                category == null ? null : category.toString()));
+        inserts.increment();
+        version.incrementAndGet();
+    }
+
+    /**
+     * 索引统计
+     *
+     * @return 条目数、命中、未命中等统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", index.size());
+        stats.put("capacity", index.capacity());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("inserts", inserts.sum());
+        stats.put("evictions", index.evictions());
+        stats.put("maxDistance", properties.getMaxDistance());
+        stats.put("snapshot", snapshotPath == null ? null : snapshotPath.toAbsolutePath().toString());
+        stats.put("unsavedInserts", version.get() - savedVersion.get());
+        return stats;
+    }
+
+    /**
+     * 立即保存快照
+     *
+     * @return 保存的条目数
+     * @throws IOException 写入失败
+     */
+    public synchronized int saveSnapshot() throws IOException {
+        if (snapshotPath == null) {
+            throw new IllegalStateException("未配置快照文件（pictionary.sketch-index.snapshot-path）");
+        }
+        long currentVersion = version.get();
+        // 先在读锁内复制条目，写文件时不阻塞插入
+        List<long[]> vectors = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+        index.forEachOldestFirst((vector, entry) -> {
+            vectors.add(vector);
+            entries.add(entry);
+        });
+
+        Path directory = snapshotPath.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            write(out, vectors, entries);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        savedVersion.set(currentVersion);
+        return entries.size();
+    }
+
+    private void saveIfChanged() {
+        if (snapshotPath == null || version.get() == savedVersion.get()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int saved = saveSnapshot();
+            log.info("近邻索引快照已保存: {} 幅画作，耗时 {} ms", saved, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("保存近邻索引快照失败: {}", snapshotPath.toAbsolutePath(), e);
+        }
+    }
+
+    private static void write(OutputStream stream, List<long[]> vectors, List<Entry> entries) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(SketchFeatures.WORDS);
+        out.writeInt(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            for (long word : vectors.get(i)) {
+                out.writeLong(word);
+            }
+            Entry entry = entries.get(i);
+            out.writeUTF(entry.label());
+            writeNullable(out, entry.prediction());
+            out.writeUTF(entry.provider());
+            writeNullable(out, entry.category());
+        }
+        out.flush();
+    }
+
+    /**
+     * 按快照中的顺序重新插入，索引参数（容量、邻居数）可以与保存时不同；超出容量时较旧的条目被覆盖
+     *
+     * @return 快照中的条目数
+     */
+    int load(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("不是近邻索引快照文件");
+        }
+        int fileVersion = in.readInt();
+        int words = in.readInt();
+        if (fileVersion != SNAPSHOT_VERSION || words != SketchFeatures.WORDS) {
+            throw new IOException("快照版本或特征长度不兼容: version=" + fileVersion + ", words=" + words);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long[] vector = new long[words];
+            for (int w = 0; w < words; w++) {
+                vector[w] = in.readLong();
+            }
+            Entry entry = new Entry(in.readUTF(), readNullable(in), in.readUTF(), readNullable(in));
+            index.add(vector, entry);
+        }
+        version.set(0);
+        savedVersion.set(0);
+        return count;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static Map<String, Object> toResult(Entry entry, double distance) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("label", entry.label());
+        result.put("prediction", entry.prediction() != null ? entry.prediction() : entry.label());
+        result.put("provider", entry.provider());
+        if (entry.category() != null) {
+            result.put("category", entry.category());
+        }
+        result.put("nearDuplicate", true);
+        result.put("distance", Math.round(distance * 1000) / 1000.0);
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package com.pictionary.sketchindex;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 简笔画近邻索引配置
+ * 属性前缀为 pictionary.sketch-index
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.sketch-index")
+public class SketchIndexProperties {
+
+    // 最多保存的画作数，写满后覆盖最旧的；每幅约 400 字节（特征128字节 + 邻居表 + 结果）
+    private int capacity = 50_000;
+
+    // 归一化汉明距离（不同位数 / 两幅画的墨迹格数之和，即 1 - Dice 相似度）不超过该值时直接使用近邻的结果
+    private double maxDistance = 0.2;
+
+    // 墨迹格数（32x32网格，膨胀后）少于该值的画太简单，不查也不存
+    private int minInk = 24;
+
+    // 墨迹亮度阈值 (0-255)
+    private int threshold = 200;
+
+    // HNSW 每层邻居数
+    private int m = 16;
+
+    // 插入时的候选数
+    private int efConstruction = 100;
+
+    // 查询时的候选数
+    private int efSearch = 64;
+
+    // 快照文件，启动时加载，关闭时和定期保存；为空时不保存
+    private String snapshotPath = "./data/sketch-index.bin";
+
+    // 定期保存快照的间隔（有新画作时才保存）
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+}
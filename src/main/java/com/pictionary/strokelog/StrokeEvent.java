@@ -0,0 +1,36 @@
+package com.pictionary.strokelog;
+
+/**
+ * 笔画事件
+ *
+ * @param drawingId 绘画ID（前端每次清空画布后生成新的ID）
+ * @param seq       事件序号
+ * @param type      事件类型
+ * @param timestamp 事件时间（毫秒）
+ * @param payload   事件数据，笔画事件为 StrokeCodec 编码的单个笔画
+ */
+public record StrokeEvent(String drawingId, int seq, Type type, long timestamp, byte[] payload) {
+
+    /**
+     * 事件类型，按序号写入日志
+     */
+    public enum Type {
+        // 新增一笔
+        STROKE,
+        // 撤销上一笔
+        UNDO,
+        // 清空画布
+        CLEAR,
+        // 绘画结束
+        END;
+
+        private static final Type[] VALUES = values();
+
+        public static Type of(int ordinal) {
+            if (ordinal < 0 || ordinal >= VALUES.length) {
+                throw new IllegalArgumentException("未知的笔画事件类型: " + ordinal);
+            }
+            return VALUES[ordinal];
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.pictionary.strokelog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 笔画事件日志（只追加）
+ * 事件写入内存映射的段文件，每个段写满后滚动到新段，超过保留时间或段数上限的旧段整体删除。
+ * 绘画线程只把事件放入有界队列，由单个后台线程顺序写入，队列已满时丢弃事件，不会阻塞绘画。
+ * 内存中按绘画ID维护记录位置索引，回放时直接返回映射缓冲区的只读切片，不复制记录数据。
+ * 每个绘画每秒的追加次数有上限，单个客户端不能用一个绘画ID占满写入队列和段文件。
+ */
+@Service
+@ConditionalOnProperty(prefix = "pictionary.stroke-log", name = "enabled", havingValue = "true")
+@Slf4j
+public class StrokeLog {
+
+    private static final Pattern DRAWING_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String SEGMENT_SUFFIX = ".seg";
+    // 检查保留策略的间隔
+    private static final long RETENTION_CHECK_INTERVAL_MS = 60_000;
+    // 写线程等待事件的最长时间，也是停止时的最大等待延迟
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long retentionMs;
+    private final int maxSegments;
+    private final int maxPayload;
+    private final int maxEventsPerSecond;
+    private final BlockingQueue<StrokeEvent> queue;
+
+    // 段号 -> 段，包含正在写入的段
+    private final ConcurrentSkipListMap<Long, StrokeLogSegment> segments = new ConcurrentSkipListMap<>();
+    // 绘画ID -> 记录位置索引
+    private final ConcurrentHashMap<String, DrawingIndex> index = new ConcurrentHashMap<>();
+    // 绘画ID -> 当前一秒内的追加次数，由写线程定期清理不再活跃的绘画
+    private final ConcurrentHashMap<String, AppendWindow> appendWindows = new ConcurrentHashMap<>();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deletedSegments = new AtomicLong();
+
+    // 只由写线程访问
+    private StrokeLogSegment active;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public StrokeLog(@Value("${pictionary.stroke-log.directory:./data/stroke-log}") String directory,
+                     @Value("${pictionary.stroke-log.segment-size:67108864}") int segmentSize,
+                     @Value("${pictionary.stroke-log.retention:24h}") Duration retention,
+                     @Value("${pictionary.stroke-log.max-segments:64}") int maxSegments,
+                     @Value("${pictionary.stroke-log.max-payload:65536}") int maxPayload,
+                     @Value("${pictionary.stroke-log.queue-capacity:65536}") int queueCapacity,
+                     @Value("${pictionary.stroke-log.max-events-per-second:50}") int maxEventsPerSecond) {
+        if (segmentSize < StrokeLogSegment.HEADER_SIZE + 4 + StrokeLogSegment.RECORD_FIXED_SIZE + 64 + maxPayload) {
+            throw new IllegalArgumentException("段文件大小不足以容纳一条最大记录: " + segmentSize);
+        }
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.retentionMs = retention.toMillis();
+        this.maxSegments = Math.max(1, maxSegments);
+        this.maxPayload = maxPayload;
+        this.maxEventsPerSecond = maxEventsPerSecond;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        recover();
+        if (active == null) {
+            active = StrokeLogSegment.create(directory, nextSegmentNumber(), segmentSize);
+            segments.put(active.getNumber(), active);
+        }
+        applyRetention();
+
+        running = true;
+        writer = new Thread(this::writeLoop, "stroke-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("笔画日志已启用: directory={}, segments={}, drawings={}, segmentSize={}",
+                directory.toAbsolutePath(), segments.size(), index.size(), segmentSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // 不中断写线程：中断会关闭正在映射的文件通道，只等待它写完队列中剩余的事件后退出
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        for (StrokeLogSegment segment : segments.values()) {
+            try {
+                segment.force();
+                segment.close();
+            } catch (IOException e) {
+                log.warn("关闭笔画日志段失败: {}", segment.getNumber(), e);
+            }
+        }
+        log.info("笔画日志已停止: written={}, dropped={}, failed={}", written.get(), dropped.get(), failed.get());
+    }
+
+    /**
+     * 追加一个笔画事件（非阻塞）
+     *
+     * @param drawingId 绘画ID
+     * @param seq       事件序号
+     * @param type      事件类型
+     * @param payload   事件数据
+     * @return 是否已放入写入队列，队列已满时返回false
+     * @throws IllegalArgumentException    绘画ID格式错误或数据超出上限
+     * @throws StrokeLogThrottledException 绘画的追加速率超出上限
+     */
+    public boolean append(String drawingId, int seq, StrokeEvent.Type type, byte[] payload) {
+        if (drawingId == null || !DRAWING_ID.matcher(drawingId).matches()) {
+            throw new IllegalArgumentException("绘画ID格式错误");
+        }
+        byte[] data = payload == null ? new byte[0] : payload;
+        if (data.length > maxPayload) {
+            throw new IllegalArgumentException("笔画数据超出上限: " + data.length + " > " + maxPayload);
+        }
+        if (maxEventsPerSecond > 0) {
+            long second = System.currentTimeMillis() / 1000;
+            if (!appendWindows.computeIfAbsent(drawingId, id -> new AppendWindow()).tryAcquire(second, maxEventsPerSecond)) {
+                throttled.incrementAndGet();
+                throw new StrokeLogThrottledException(drawingId, maxEventsPerSecond);
+            }
+        }
+        if (queue.offer(new StrokeEvent(drawingId, seq, type, System.currentTimeMillis(), data))) {
+            return true;
+        }
+        // 队列已满，丢弃事件（只在每1000次丢弃时打印一次日志）
+        if (dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("笔画日志队列已满，已丢弃 {} 个事件", dropped.get());
+        }
+        return false;
+    }
+
+    /**
+     * 按写入顺序返回绘画中序号不小于 fromSeq 的记录
+     * 每个缓冲区是一条完整记录（含长度字段）的只读切片，格式见 {@link StrokeLogSegment}
+     *
+     * @param drawingId 绘画ID
+     * @param fromSeq   起始序号（含）
+     * @return 记录列表，绘画不存在或已过期时为空
+     */
+    public List<ByteBuffer> replay(String drawingId, int fromSeq) {
+        DrawingIndex drawing = index.get(drawingId);
+        if (drawing == null) {
+            return List.of();
+        }
+        long[] positions = drawing.positionsFrom(fromSeq);
+        List<ByteBuffer> records = new ArrayList<>(positions.length);
+        for (long position : positions) {
+            StrokeLogSegment segment = segments.get(position >>> 32);
+            if (segment != null) {
+                records.add(segment.record((int) position));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 绘画的索引信息
+     *
+     * @param drawingId 绘画ID
+     * @return 事件数和最后一个序号，绘画不存在时返回null
+     */
+    public Map<String, Object> getDrawingInfo(String drawingId) {
+        DrawingIndex drawing = index.get(drawingId);
+        return drawing == null ? null : drawing.info();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("throttled", throttled.get());
+        stats.put("failed", failed.get());
+        stats.put("queueSize", queue.size());
+        stats.put("segments", segments.size());
+        stats.put("deletedSegments", deletedSegments.get());
+        stats.put("drawings", index.size());
+        return stats;
+    }
+
+    /**
+     * 后台写入循环
+     */
+    private void writeLoop() {
+        long nextRetentionCheck = System.currentTimeMillis() + RETENTION_CHECK_INTERVAL_MS;
+        while (running) {
+            StrokeEvent event;
+            try {
+                event = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (event != null) {
+                write(event);
+            }
+            if (System.currentTimeMillis() >= nextRetentionCheck) {
+                applyRetention();
+                removeIdleAppendWindows();
+                nextRetentionCheck = System.currentTimeMillis() + RETENTION_CHECK_INTERVAL_MS;
+            }
+        }
+
+        // 关闭前写入队列中剩余的事件
+        StrokeEvent event;
+        while ((event = queue.poll()) != null) {
+            write(event);
+        }
+    }
+
+    /**
+     * 写入一个事件，当前段空间不足时滚动到新段
+     */
+    private void write(StrokeEvent event) {
+        byte[] drawingId = event.drawingId().getBytes(StandardCharsets.UTF_8);
+        try {
+            int offset = active.append(event, drawingId);
+            if (offset < 0) {
+                roll();
+                offset = active.append(event, drawingId);
+            }
+            index.computeIfAbsent(event.drawingId(), id -> new DrawingIndex())
+                    .add(active.getNumber() << 32 | offset, event.seq());
+            written.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            log.error("写入笔画日志失败: drawingId={}", event.drawingId(), e);
+        }
+    }
+
+    /**
+     * 结束当前段并创建新段，写满的段仍保留映射供回放读取
+     */
+    private void roll() throws IOException {
+        active.force();
+        StrokeLogSegment next = StrokeLogSegment.create(directory, active.getNumber() + 1, segmentSize);
+        segments.put(next.getNumber(), next);
+        log.info("笔画日志段滚动: {} -> {}", active.getNumber(), next.getNumber());
+        active = next;
+        applyRetention();
+    }
+
+    /**
+     * 删除超过保留时间或超出段数上限的旧段（正在写入的段除外），并清理指向这些段的索引
+     */
+    private void applyRetention() {
+        long expireBefore = System.currentTimeMillis() - retentionMs;
+        long deletedUpTo = -1;
+        while (segments.size() > 1) {
+            Map.Entry<Long, StrokeLogSegment> oldest = segments.firstEntry();
+            StrokeLogSegment segment = oldest.getValue();
+            if (segment == active || (segments.size() <= maxSegments && segment.getCreatedAt() >= expireBefore)) {
+                break;
+            }
+            segments.remove(oldest.getKey());
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("删除笔画日志段失败: {}", segment.getNumber(), e);
+            }
+            deletedSegments.incrementAndGet();
+            deletedUpTo = segment.getNumber();
+        }
+        if (deletedUpTo >= 0) {
+            long firstValid = (deletedUpTo + 1) << 32;
+            index.entrySet().removeIf(entry -> entry.getValue().removeBefore(firstValid));
+            log.info("已删除笔画日志段至 {}，剩余 {} 个段", deletedUpTo, segments.size());
+        }
+    }
+
+    /**
+     * 启动时扫描已有段文件并重建索引，最后一个段继续写入
+     */
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long number;
+            try {
+                number = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            List<Integer> offsets = new ArrayList<>();
+            StrokeLogSegment segment = StrokeLogSegment.open(file, number, offset -> offsets.add((int) offset));
+            if (segment == null) {
+                log.warn("跳过无效的笔画日志段: {}", file);
+                continue;
+            }
+            for (int offset : offsets) {
+                index.computeIfAbsent(segment.drawingId(offset), id -> new DrawingIndex())
+                        .add(number << 32 | offset, segment.seq(offset));
+            }
+            segments.put(number, segment);
+            active = segment;
+        }
+    }
+
+    private long nextSegmentNumber() {
+        return segments.isEmpty() ? 0 : segments.lastKey() + 1;
+    }
+
+    /**
+     * 删除一分钟内没有追加事件的绘画的计数窗口
+     */
+    private void removeIdleAppendWindows() {
+        long idleBefore = System.currentTimeMillis() / 1000 - 60;
+        appendWindows.values().removeIf(window -> window.isIdleSince(idleBefore));
+    }
+
+    /**
+     * 单个绘画当前一秒内的追加次数
+     */
+    private static final class AppendWindow {
+        private long second;
+        private int count;
+
+        synchronized boolean tryAcquire(long now, int limit) {
+            if (now != second) {
+                second = now;
+                count = 0;
+            }
+            if (count >= limit) {
+                return false;
+            }
+            count++;
+            return true;
+        }
+
+        synchronized boolean isIdleSince(long before) {
+            return second < before;
+        }
+    }
+
+    /**
+     * 单个绘画的记录位置索引
+     * 位置为 (段号 << 32 | 段内偏移)，按写入顺序递增
+     */
+    private static final class DrawingIndex {
+        private long[] positions = new long[16];
+        private int[] seqs = new int[16];
+        private int size;
+        private long updatedAt;
+
+        synchronized void add(long position, int seq) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                seqs = Arrays.copyOf(seqs, size * 2);
+            }
+            positions[size] = position;
+            seqs[size] = seq;
+            size++;
+            updatedAt = System.currentTimeMillis();
+        }
+
+        synchronized long[] positionsFrom(int fromSeq) {
+            long[] result = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (seqs[i] >= fromSeq) {
+                    result[count++] = positions[i];
+                }
+            }
+            return count == size ? result : Arrays.copyOf(result, count);
+        }
+
+        /**
+         * 删除位于已删除段中的记录
+         *
+         * @return 删除后是否为空
+         */
+        synchronized boolean removeBefore(long firstValidPosition) {
+            int from = 0;
+            while (from < size && positions[from] < firstValidPosition) {
+                from++;
+            }
+            if (from > 0) {
+                System.arraycopy(positions, from, positions, 0, size - from);
+                System.arraycopy(seqs, from, seqs, 0, size - from);
+                size -= from;
+            }
+            return size == 0;
+        }
+
+        synchronized Map<String, Object> info() {
+            Map<String, Object> info = new HashMap<>();
+            info.put("events", size);
+            info.put("lastSeq", size == 0 ? -1 : seqs[size - 1]);
+            info.put("updatedAt", updatedAt);
+            return info;
+        }
+    }
+}
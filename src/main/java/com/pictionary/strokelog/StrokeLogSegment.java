@@ -0,0 +1,164 @@
+package com.pictionary.strokelog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * 笔画日志段文件
+ * 整个文件通过 FileChannel.map 映射到内存，只由写线程追加。
+ * <pre>
+ * 文件头：魔数 "SLG1"(4字节) 段创建时间(8字节)
+ * 记录：  记录长度(4字节，不含自身) 时间戳(8) 序号(4) 类型(1) 绘画ID长度(2) 绘画ID(UTF-8) 数据
+ * </pre>
+ * 记录长度为0表示后面没有记录（文件创建时全部为0）。
+ */
+class StrokeLogSegment {
+
+    static final int MAGIC = 0x534C4731;
+    static final int HEADER_SIZE = 12;
+    // 记录长度字段之后的固定部分：时间戳 + 序号 + 类型 + 绘画ID长度
+    static final int RECORD_FIXED_SIZE = 8 + 4 + 1 + 2;
+
+    private final long number;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long createdAt;
+    private int writePosition;
+
+    private StrokeLogSegment(long number, Path path, FileChannel channel, MappedByteBuffer buffer,
+                             long createdAt, int writePosition) {
+        this.number = number;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+        this.writePosition = writePosition;
+    }
+
+    static Path fileName(Path directory, long number) {
+        return directory.resolve(String.format("%020d.seg", number));
+    }
+
+    /**
+     * 创建新的段文件
+     */
+    static StrokeLogSegment create(Path directory, long number, int size) throws IOException {
+        Path path = fileName(directory, number);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        long now = System.currentTimeMillis();
+        buffer.putInt(0, MAGIC);
+        buffer.putLong(4, now);
+        return new StrokeLogSegment(number, path, channel, buffer, now, HEADER_SIZE);
+    }
+
+    /**
+     * 打开已有的段文件，逐条扫描记录找到写入位置
+     *
+     * @param onRecord 每条有效记录的偏移量回调，用于重建索引
+     * @return 段，文件头无效时返回null
+     */
+    static StrokeLogSegment open(Path path, long number, LongConsumer onRecord) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            channel.close();
+            return null;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            return null;
+        }
+        int position = HEADER_SIZE;
+        while (position + 4 <= size) {
+            int length = buffer.getInt(position);
+            if (length < RECORD_FIXED_SIZE || position + 4L + length > size) {
+                break;
+            }
+            onRecord.accept(position);
+            position += 4 + length;
+        }
+        return new StrokeLogSegment(number, path, channel, buffer, buffer.getLong(4), position);
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 记录的偏移量，剩余空间不足时返回-1
+     */
+    int append(StrokeEvent event, byte[] drawingId) {
+        int length = RECORD_FIXED_SIZE + drawingId.length + event.payload().length;
+        if ((long) writePosition + 4 + length > buffer.capacity()) {
+            return -1;
+        }
+        int offset = writePosition;
+        int p = offset + 4;
+        buffer.putLong(p, event.timestamp());
+        buffer.putInt(p + 8, event.seq());
+        buffer.put(p + 12, (byte) event.type().ordinal());
+        buffer.putShort(p + 13, (short) drawingId.length);
+        buffer.put(p + RECORD_FIXED_SIZE, drawingId);
+        buffer.put(p + RECORD_FIXED_SIZE + drawingId.length, event.payload());
+        // 最后写入长度，扫描时长度不为0的记录一定已经完整写入
+        buffer.putInt(offset, length);
+        writePosition = offset + 4 + length;
+        return offset;
+    }
+
+    /**
+     * 记录（含长度字段）的只读视图，不复制数据
+     */
+    ByteBuffer record(int offset) {
+        int length = buffer.getInt(offset);
+        return buffer.slice(offset, 4 + length).asReadOnlyBuffer();
+    }
+
+    String drawingId(int offset) {
+        int idLength = buffer.getShort(offset + 4 + 13) & 0xFFFF;
+        byte[] id = new byte[idLength];
+        buffer.get(offset + 4 + RECORD_FIXED_SIZE, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    int seq(int offset) {
+        return buffer.getInt(offset + 4 + 8);
+    }
+
+    long getNumber() {
+        return number;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * 关闭文件通道。映射在缓冲区被回收前仍然有效，正在进行的回放不受影响
+     */
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,18 @@
+package com.pictionary.strokelog;
+
+/**
+ * 单个绘画的追加速率超出上限（pictionary.stroke-log.max-events-per-second），事件被拒绝
+ */
+public class StrokeLogThrottledException extends RuntimeException {
+
+    private final String drawingId;
+
+    public StrokeLogThrottledException(String drawingId, int maxEventsPerSecond) {
+        super("绘画 " + drawingId + " 的笔画事件超过每秒 " + maxEventsPerSecond + " 个的上限");
+        this.drawingId = drawingId;
+    }
+
+    public String getDrawingId() {
+        return drawingId;
+    }
+}
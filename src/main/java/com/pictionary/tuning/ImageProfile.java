@@ -0,0 +1,81 @@
+package com.pictionary.tuning;
+
+import com.pictionary.util.CanvasImage;
+import com.pictionary.util.ImageUtil;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * 发送给识别服务的图像规格
+ * 文本形式为 "边长x位深"，如 "300x32"；只写边长时位深为32（保留原始RGBA）
+ *
+ * @param size     图像边长（像素），画布缩放到 size x size
+ * @param bitDepth 位深：32、8、4、2 或 1，见 {@link ImageUtil#toPngBase64(BufferedImage, int)}
+ */
+public record ImageProfile(int size, int bitDepth) {
+
+    public static final int FULL_COLOR = 32;
+
+    public ImageProfile {
+        if (size <= 0 || size > 4096) {
+            throw new IllegalArgumentException("图像边长无效: " + size);
+        }
+        if (bitDepth != FULL_COLOR && bitDepth != 8 && bitDepth != 4 && bitDepth != 2 && bitDepth != 1) {
+            throw new IllegalArgumentException("不支持的位深: " + bitDepth);
+        }
+    }
+
+    /**
+     * 解析 "边长x位深" 或 "边长"
+     *
+     * @param text 文本
+     * @return 图像规格
+     */
+    public static ImageProfile parse(String text) {
+        String value = text.trim().toLowerCase(Locale.ROOT);
+        int separator = value.indexOf('x');
+        try {
+            if (separator < 0) {
+                return new ImageProfile(Integer.parseInt(value), FULL_COLOR);
+            }
+            return new ImageProfile(Integer.parseInt(value.substring(0, separator).trim()),
+                    Integer.parseInt(value.substring(separator + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("图像规格格式错误: " + text);
+        }
+    }
+
+    /**
+     * 识别服务通用的预处理：解码画布并缩放到规格边长，增强对比度，按规格位深编码为PNG
+     *
+     * @param imageBytes 画布PNG数据
+     * @return Base64编码的PNG，无法解析图像时返回null
+     */
+    public String preprocess(byte[] imageBytes) throws IOException {
+        return encode(ImageUtil.decodeCanvas(imageBytes, size, size));
+    }
+
+    /**
+     * 识别服务通用的预处理，服务端光栅化的画布直接缩放，不经过PNG编解码
+     *
+     * @param canvas 画布
+     * @return Base64编码的PNG，无法解析图像时返回null
+     */
+    public String preprocess(CanvasImage canvas) throws IOException {
+        return encode(canvas.decode(size, size));
+    }
+
+    private String encode(BufferedImage image) throws IOException {
+        if (image == null) {
+            return null;
+        }
+        return ImageUtil.toPngBase64(ImageUtil.enhanceContrast(image), bitDepth);
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + bitDepth;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pictionary.tuning;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 识别服务图像规格配置
+ * 属性前缀为 pictionary.image
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.image")
+public class ImageProfileProperties {
+
+    // 各识别服务（Bean名称）的默认图像规格，格式见 ImageProfile
+    private Map<String, String> profiles = new HashMap<>(Map.of(
+            "baiduAnimalRecognitionService", "500x32",
+            "baiduImageRecognitionService", "300x32",
+            "doubaoImageRecognitionService", "300x32",
+            "sketchRecognitionServiceImpl", "300x32"));
+
+    // 未配置的识别服务使用的规格
+    private String defaultProfile = "300x32";
+
+    // 调优结果文件（properties格式：Bean名称=边长x位深），存在时覆盖上面的默认规格
+    private String profileFile = "./data/image-profiles.properties";
+}
@@ -0,0 +1,107 @@
+package com.pictionary.tuning;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 各识别服务的图像规格
+ * 启动时加载配置中的默认规格，再用调优结果文件覆盖。
+ * 调优运行器通过 {@link #override(ImageProfile)} 为当前线程临时指定规格。
+ */
+@Component
+@Slf4j
+public class ImageProfiles {
+
+    private static final ThreadLocal<ImageProfile> OVERRIDE = new ThreadLocal<>();
+
+    private final ImageProfileProperties properties;
+    private final ImageProfile defaultProfile;
+    private final Map<String, ImageProfile> profiles = new ConcurrentHashMap<>();
+
+    public ImageProfiles(ImageProfileProperties properties) {
+        this.properties = properties;
+        this.defaultProfile = ImageProfile.parse(properties.getDefaultProfile());
+        properties.getProfiles().forEach((provider, profile) -> profiles.put(provider, ImageProfile.parse(profile)));
+        loadProfileFile();
+    }
+
+    /**
+     * 获取识别服务的图像规格
+     *
+     * @param provider 识别服务Bean名称
+     * @return 当前线程的临时规格，或识别服务的配置规格
+     */
+    public ImageProfile get(String provider) {
+        ImageProfile override = OVERRIDE.get();
+        if (override != null) {
+            return override;
+        }
+        return profiles.getOrDefault(provider, defaultProfile);
+    }
+
+    /**
+     * 获取所有识别服务的配置规格
+     *
+     * @return Bean名称到规格的映射
+     */
+    public Map<String, ImageProfile> getAll() {
+        return Map.copyOf(profiles);
+    }
+
+    /**
+     * 为当前线程临时指定图像规格，关闭返回值后恢复
+     *
+     * @param profile 图像规格
+     * @return 用于恢复的句柄
+     */
+    public static Scope override(ImageProfile profile) {
+        OVERRIDE.set(profile);
+        return OVERRIDE::remove;
+    }
+
+    /**
+     * 临时规格的作用范围
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public Path getProfileFile() {
+        return Path.of(properties.getProfileFile());
+    }
+
+    private void loadProfileFile() {
+        if (properties.getProfileFile() == null || properties.getProfileFile().isBlank()) {
+            return;
+        }
+        Path file = getProfileFile();
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        Properties tuned = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            tuned.load(reader);
+        } catch (IOException e) {
+            log.warn("读取图像规格调优结果失败: {}", file, e);
+            return;
+        }
+        for (String provider : tuned.stringPropertyNames()) {
+            try {
+                profiles.put(provider, ImageProfile.parse(tuned.getProperty(provider)));
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略无效的图像规格 {}={}", provider, tuned.getProperty(provider));
+            }
+        }
+        log.info("已加载图像规格调优结果 {}: {}", file.toAbsolutePath(), profiles);
+    }
+}
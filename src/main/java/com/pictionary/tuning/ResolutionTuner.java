@@ -0,0 +1,418 @@
+package com.pictionary.tuning;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pictionary.evaluation.DatasetReader;
+import com.pictionary.evaluation.EvaluationSample;
+import com.pictionary.label.LabelIndex;
+import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.util.ImageUtil;
+import com.pictionary.util.SketchBitmap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * 图像规格调优运行器
+ * 把本地标注数据集按边长和位深组成的阶梯逐级送入识别服务，
+ * 在准确率不低于基准（阶梯中最大的规格）减去容差的规格中选出编码后最小的一个，写入调优结果文件。
+ * 运行时 {@link ImageProfiles} 读取该文件，各识别服务按自己的规格预处理图像。
+ *
+ * 两种模式：
+ * provider 直接调用识别服务，同时把基准规格下的预测结果写入 ground-truth-[识别服务].properties；
+ * stub     不调用识别服务，用已保存的基准预测结果作为标准答案，
+ *          降低规格后的图像与基准图像的墨迹重合度（IoU）不低于阈值时视为识别结果不变。
+ *
+ * 使用方式：
+ * java -jar pictionary.jar --spring.profiles.active=tuning
+ *      --pictionary.tuning.dataset=/data/cat.ndjson
+ *      --pictionary.tuning.providers=doubaoImageRecognitionService,baiduAnimalRecognitionService
+ */
+@Component
+@ConditionalOnProperty(prefix = "pictionary.tuning", name = "enabled", havingValue = "true")
+@Slf4j
+public class ResolutionTuner implements ApplicationRunner {
+
+    // 计算墨迹重合度时的亮度阈值，与简笔画预处理一致
+    private static final int INK_THRESHOLD = 200;
+
+    private final ConfigurableApplicationContext applicationContext;
+    private final DatasetReader datasetReader;
+    private final LabelIndex labelIndex;
+    private final ImageProfiles imageProfiles;
+
+    @Value("${pictionary.tuning.dataset}")
+    private Path dataset;
+
+    @Value("${pictionary.tuning.providers:sketchRecognitionServiceImpl}")
+    private List<String> providers;
+
+    // provider 或 stub
+    @Value("${pictionary.tuning.mode:provider}")
+    private String mode;
+
+    @Value("${pictionary.tuning.sizes:500,400,300,256,224,192,160,128,96,64}")
+    private List<Integer> sizes;
+
+    @Value("${pictionary.tuning.bit-depths:32,8,2,1}")
+    private List<Integer> bitDepths;
+
+    // 允许的准确率下降（绝对值，0.02表示2个百分点）
+    @Value("${pictionary.tuning.tolerance:0.02}")
+    private double tolerance;
+
+    @Value("${pictionary.tuning.limit:200}")
+    private int limit;
+
+    @Value("${pictionary.tuning.parallelism:4}")
+    private int parallelism;
+
+    // stub 模式使用的基准预测结果目录，为空时取 report-dir
+    @Value("${pictionary.tuning.ground-truth-dir:}")
+    private String groundTruthDir;
+
+    // stub 模式下视为识别结果不变的最小墨迹重合度
+    @Value("${pictionary.tuning.stub-min-iou:0.6}")
+    private double stubMinIou;
+
+    @Value("${pictionary.tuning.report-dir:./data/tuning}")
+    private String reportDir;
+
+    @Value("${pictionary.tuning.exit-on-finish:true}")
+    private boolean exitOnFinish;
+
+    public ResolutionTuner(ConfigurableApplicationContext applicationContext, ObjectMapper objectMapper,
+                           LabelIndex labelIndex, ImageProfiles imageProfiles) {
+        this.applicationContext = applicationContext;
+        this.labelIndex = labelIndex;
+        this.imageProfiles = imageProfiles;
+        this.datasetReader = new DatasetReader(objectMapper);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Sample> samples = loadSamples();
+        List<ImageProfile> ladder = buildLadder();
+        log.info("开始图像规格调优: dataset={}, samples={}, providers={}, mode={}, ladder={}",
+                dataset, samples.size(), providers, mode, ladder);
+
+        Map<String, ImageProfile> tuned = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (String provider : providers) {
+                tuned.put(provider, tune(provider, samples, ladder, executor));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        writeProfiles(tuned);
+
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    /**
+     * 对单个识别服务逐级评测规格阶梯，返回满足准确率容差的最小规格
+     */
+    private ImageProfile tune(String provider, List<Sample> samples, List<ImageProfile> ladder,
+                              ExecutorService executor) throws Exception {
+        boolean stub = "stub".equalsIgnoreCase(mode);
+        ImageRecognitionService service = stub ? null : applicationContext.getBean(provider, ImageRecognitionService.class);
+        Map<String, String> groundTruth = stub ? loadGroundTruth(provider) : new LinkedHashMap<>();
+
+        ImageProfile baseline = ladder.get(0);
+        List<Outcome> baselineOutcomes = evaluate(service, baseline, samples, null, groundTruth, executor);
+        Result baselineResult = Result.of(baseline, baselineOutcomes);
+        if (!stub) {
+            for (int i = 0; i < samples.size(); i++) {
+                String prediction = baselineOutcomes.get(i).prediction();
+                groundTruth.put(samples.get(i).id(), prediction == null ? "" : prediction);
+            }
+            writeGroundTruth(provider, groundTruth);
+        }
+
+        List<Result> results = new ArrayList<>();
+        results.add(baselineResult);
+        for (ImageProfile profile : ladder.subList(1, ladder.size())) {
+            Result result = Result.of(profile, evaluate(service, profile, samples, baselineOutcomes, groundTruth, executor));
+            results.add(result);
+            log.info("{} {}: 准确率 {}%，平均 {} 字节，预处理 {} ms", provider, profile,
+                    String.format("%.2f", result.accuracy() * 100), result.averageBytes(),
+                    String.format("%.2f", result.averagePreprocessMs()));
+        }
+
+        Result best = results.stream()
+                .filter(r -> r.accuracy() >= baselineResult.accuracy() - tolerance)
+                .min(Comparator.comparingLong(Result::averageBytes).thenComparingInt(r -> r.profile().size()))
+                .orElse(baselineResult);
+        String report = toText(provider, baselineResult, best, results);
+        log.info("\n{}", report);
+        Path dir = Files.createDirectories(Path.of(reportDir));
+        Files.writeString(dir.resolve("tuning-" + provider + ".txt"), report, StandardCharsets.UTF_8);
+        return best.profile();
+    }
+
+    /**
+     * 用指定规格评测所有样本
+     *
+     * @param baselineOutcomes 基准规格的结果，评测基准规格本身时为null
+     */
+    private List<Outcome> evaluate(ImageRecognitionService service, ImageProfile profile, List<Sample> samples,
+                                   List<Outcome> baselineOutcomes, Map<String, String> groundTruth,
+                                   ExecutorService executor) throws Exception {
+        List<Callable<Outcome>> tasks = new ArrayList<>(samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            Sample sample = samples.get(i);
+            Outcome baseline = baselineOutcomes == null ? null : baselineOutcomes.get(i);
+            tasks.add(() -> evaluate(service, profile, sample, baseline, groundTruth));
+        }
+        List<Outcome> outcomes = new ArrayList<>(samples.size());
+        for (Future<Outcome> future : executor.invokeAll(tasks)) {
+            outcomes.add(future.get());
+        }
+        return outcomes;
+    }
+
+    private Outcome evaluate(ImageRecognitionService service, ImageProfile profile, Sample sample,
+                             Outcome baseline, Map<String, String> groundTruth) {
+        long start = System.nanoTime();
+        String processed;
+        try {
+            processed = profile.preprocess(sample.png());
+        } catch (IOException e) {
+            processed = null;
+        }
+        long preprocessNanos = System.nanoTime() - start;
+        if (processed == null) {
+            return new Outcome(null, false, 0, preprocessNanos, null);
+        }
+        byte[] encoded = Base64.getDecoder().decode(processed);
+
+        if (service == null) {
+            // stub 模式：基准预测正确，且墨迹与基准图像足够重合时视为正确
+            SketchBitmap bitmap = inkBitmap(encoded, baseline == null ? profile.size() : baseline.bitmap().getWidth());
+            String prediction = groundTruth.get(sample.id());
+            boolean baselineCorrect = prediction == null || isCorrect(sample.label(), prediction);
+            boolean correct = baselineCorrect && (baseline == null || inkIou(baseline.bitmap(), bitmap) >= stubMinIou);
+            return new Outcome(prediction, correct, encoded.length, preprocessNanos, bitmap);
+        }
+
+        String prediction = null;
+        try (ImageProfiles.Scope ignored = ImageProfiles.override(profile)) {
+            Map<String, Object> result = service.recognizeImage(Base64.getEncoder().encodeToString(sample.png()));
+            if (Boolean.TRUE.equals(result.get("success")) && result.get("prediction") != null) {
+                prediction = result.get("prediction").toString();
+            }
+        } catch (Exception e) {
+            log.debug("样本 {} 识别失败: {}", sample.id(), e.getMessage());
+        }
+        return new Outcome(prediction, isCorrect(sample.label(), prediction), encoded.length, preprocessNanos, null);
+    }
+
+    /**
+     * 解码预处理后的PNG，缩放到比较尺寸后转换为墨迹位图，再膨胀一次以容忍缩放造成的1像素偏移
+     */
+    private static SketchBitmap inkBitmap(byte[] png, int size) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+            if (image.getWidth() != size || image.getHeight() != size) {
+                image = ImageUtil.resizeImage(image, size, size);
+            }
+            return SketchBitmap.fromImage(image, INK_THRESHOLD).dilate();
+        } catch (IOException e) {
+            return new SketchBitmap(size, size);
+        }
+    }
+
+    /**
+     * 两个同尺寸墨迹位图的交并比，都没有墨迹时为1
+     */
+    static double inkIou(SketchBitmap a, SketchBitmap b) {
+        long[] wordsA = a.getWords();
+        long[] wordsB = b.getWords();
+        long intersection = 0;
+        long union = 0;
+        for (int i = 0; i < wordsA.length; i++) {
+            intersection += Long.bitCount(wordsA[i] & wordsB[i]);
+            union += Long.bitCount(wordsA[i] | wordsB[i]);
+        }
+        return union == 0 ? 1.0 : (double) intersection / union;
+    }
+
+    /**
+     * 判断预测是否正确：与期望类别对应同一个标准词，或包含期望类别（忽略大小写和首尾空白）
+     */
+    private boolean isCorrect(String label, String prediction) {
+        if (prediction == null || prediction.isBlank()) {
+            return false;
+        }
+        if (labelIndex.isCorrectPrediction(prediction, label)) {
+            return true;
+        }
+        String expected = label.trim().toLowerCase(Locale.ROOT);
+        return !expected.isEmpty() && prediction.trim().toLowerCase(Locale.ROOT).contains(expected);
+    }
+
+    /**
+     * 读取样本到内存，每个规格都要重新处理同一批样本
+     */
+    private List<Sample> loadSamples() throws Exception {
+        List<Sample> samples = new ArrayList<>();
+        try (Stream<EvaluationSample> stream = datasetReader.open(dataset)) {
+            Iterator<EvaluationSample> iterator = stream.iterator();
+            while (iterator.hasNext() && samples.size() < limit) {
+                EvaluationSample sample = iterator.next();
+                samples.add(new Sample(sample.id(), sample.label(), sample.png().call()));
+            }
+        }
+        if (samples.isEmpty()) {
+            throw new IllegalStateException("数据集中没有样本: " + dataset);
+        }
+        return samples;
+    }
+
+    /**
+     * 边长和位深的所有组合，按边长、位深从大到小排列，第一个为基准规格
+     */
+    private List<ImageProfile> buildLadder() {
+        List<ImageProfile> ladder = new ArrayList<>();
+        for (int size : sizes.stream().sorted(Comparator.reverseOrder()).toList()) {
+            for (int bitDepth : bitDepths.stream().sorted(Comparator.reverseOrder()).toList()) {
+                ladder.add(new ImageProfile(size, bitDepth));
+            }
+        }
+        return ladder;
+    }
+
+    private Path groundTruthFile(String provider) {
+        String dir = groundTruthDir == null || groundTruthDir.isBlank() ? reportDir : groundTruthDir;
+        return Path.of(dir, "ground-truth-" + provider + ".properties");
+    }
+
+    private Map<String, String> loadGroundTruth(String provider) throws IOException {
+        Map<String, String> groundTruth = new LinkedHashMap<>();
+        Path file = groundTruthFile(provider);
+        if (!Files.isRegularFile(file)) {
+            log.warn("没有 {} 的基准预测结果 {}，stub 模式假定基准规格全部识别正确", provider, file);
+            return groundTruth;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        for (String id : properties.stringPropertyNames()) {
+            groundTruth.put(id, properties.getProperty(id));
+        }
+        log.info("已加载 {} 条 {} 的基准预测结果", groundTruth.size(), provider);
+        return groundTruth;
+    }
+
+    private void writeGroundTruth(String provider, Map<String, String> groundTruth) throws IOException {
+        Path file = groundTruthFile(provider);
+        Files.createDirectories(file.getParent());
+        Properties properties = new Properties();
+        properties.putAll(groundTruth);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, "基准规格下的预测结果，供 stub 模式使用");
+        }
+    }
+
+    /**
+     * 把调优结果合并写入 ImageProfiles 读取的文件，下次启动时生效
+     */
+    private void writeProfiles(Map<String, ImageProfile> tuned) throws IOException {
+        Path file = imageProfiles.getProfileFile();
+        Properties properties = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        tuned.forEach((provider, profile) -> properties.setProperty(provider, profile.toString()));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, "图像规格调优结果（边长x位深），由 ResolutionTuner 生成");
+        }
+        log.info("图像规格调优结果已写入 {}: {}", file.toAbsolutePath(), tuned);
+    }
+
+    private String toText(String provider, Result baseline, Result best, List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("识别服务: ").append(provider).append('\n');
+        sb.append("模式: ").append(mode).append("，容差: ").append(tolerance).append('\n');
+        sb.append(String.format("%-10s %10s %12s %14s%n", "规格", "准确率", "平均字节", "预处理(ms)"));
+        for (Result result : results) {
+            sb.append(String.format("%-10s %9.2f%% %12d %14.2f%s%n", result.profile(), result.accuracy() * 100,
+                    result.averageBytes(), result.averagePreprocessMs(), result == best ? "  <- 选中" : ""));
+        }
+        sb.append(String.format("基准 %s -> 选中 %s，上传大小减少 %.1f%%，预处理耗时减少 %.1f%%%n",
+                baseline.profile(), best.profile(),
+                100.0 * (baseline.averageBytes() - best.averageBytes()) / Math.max(1, baseline.averageBytes()),
+                100.0 * (baseline.averagePreprocessMs() - best.averagePreprocessMs()) / Math.max(1e-9, baseline.averagePreprocessMs())));
+        return sb.toString();
+    }
+
+    /**
+     * 内存中的样本
+     */
+    private record Sample(String id, String label, byte[] png) {
+    }
+
+    /**
+     * 单个样本在某个规格下的结果
+     *
+     * @param bitmap stub 模式下的墨迹位图，用于与基准比较
+     */
+    private record Outcome(String prediction, boolean correct, int bytes, long preprocessNanos, SketchBitmap bitmap) {
+    }
+
+    /**
+     * 某个规格的汇总结果
+     */
+    private record Result(ImageProfile profile, double accuracy, long averageBytes, double averagePreprocessMs) {
+
+        static Result of(ImageProfile profile, List<Outcome> outcomes) {
+            long correct = 0;
+            long bytes = 0;
+            long nanos = 0;
+            for (Outcome outcome : outcomes) {
+                correct += outcome.correct() ? 1 : 0;
+                bytes += outcome.bytes();
+                nanos += outcome.preprocessNanos();
+            }
+            int n = Math.max(1, outcomes.size());
+            return new Result(profile, (double) correct / n, bytes / n, nanos / 1e6 / n);
+        }
+    }
+}
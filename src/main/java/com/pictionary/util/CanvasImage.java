@@ -0,0 +1,168 @@
+package com.pictionary.util;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * 待识别的画布
+ * 前端上传的画布是Base64 PNG；前端上传笔画时由服务端光栅化，得到的图像直接交给识别服务预处理，
+ * 只在确实需要PNG时（转发给集群缓存的负责节点、识别服务不直接处理图像、保存原图）才编码，且只编码一次。
+ */
+public final class CanvasImage {
+
+    private final BufferedImage rendered;
+    private volatile String base64;
+
+    private CanvasImage(String base64, BufferedImage rendered) {
+        this.base64 = base64;
+        this.rendered = rendered;
+    }
+
+    /**
+     * 前端上传的画布
+     *
+     * @param base64ImageData Base64编码的图像数据（不含Data URL前缀）
+     * @return 画布
+     */
+    public static CanvasImage of(String base64ImageData) {
+        return new CanvasImage(base64ImageData, null);
+    }
+
+    /**
+     * 服务端光栅化的画布，调用方之后不能再修改图像
+     *
+     * @param image 光栅化的图像
+     * @return 画布
+     */
+    public static CanvasImage rendered(BufferedImage image) {
+        return new CanvasImage(null, image);
+    }
+
+    /**
+     * 还原其他节点转发的光栅化画布
+     * PNG是无损编码，解码后的像素与原图相同，{@link #sha256()} 也相同
+     *
+     * @param base64ImageData Base64编码的PNG数据
+     * @return 光栅化的画布
+     * @throws IOException              解码失败
+     * @throws IllegalArgumentException Base64无效、无法识别的图像格式或图像尺寸过大
+     */
+    public static CanvasImage decodeRendered(String base64ImageData) throws IOException {
+        byte[] imageBytes = Base64.getDecoder().decode(base64ImageData);
+        ImageHeader header = ImageHeader.read(imageBytes);
+        if (header == null) {
+            throw new IllegalArgumentException("无法识别的图像格式");
+        }
+        if (header.pixels() > ImageUtil.MAX_DECODE_PIXELS) {
+            throw new IllegalArgumentException("图像尺寸过大: " + header.width() + "x" + header.height());
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+        if (image == null) {
+            throw new IllegalArgumentException("无法识别的图像格式");
+        }
+        return rendered(image);
+    }
+
+    public boolean isRendered() {
+        return rendered != null;
+    }
+
+    /**
+     * @return 服务端光栅化的图像，上传的画布返回null
+     */
+    public BufferedImage getRendered() {
+        return rendered;
+    }
+
+    /**
+     * Base64编码的PNG，光栅化的画布在第一次调用时编码
+     *
+     * @return Base64编码的图像数据
+     * @throws UncheckedIOException PNG编码失败
+     */
+    public String toBase64() {
+        String encoded = base64;
+        if (encoded == null) {
+            try {
+                encoded = ImageUtil.toPngBase64(rendered);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            base64 = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * 解码并缩放到目标大小；光栅化的画布直接按区域平均缩放（与解码画布PNG的结果相同），不经过PNG编解码
+     *
+     * @param targetWidth  目标宽度
+     * @param targetHeight 目标高度
+     * @return 调整大小后的图像，无法解析时返回null
+     * @throws IllegalArgumentException Base64无效或图像尺寸过大
+     */
+    public BufferedImage decode(int targetWidth, int targetHeight) throws IOException {
+        if (rendered != null) {
+            return CanvasPngDecoder.downscale(rendered, targetWidth, targetHeight).toBufferedImage();
+        }
+        return ImageUtil.decodeCanvas(Base64.getDecoder().decode(base64), targetWidth, targetHeight);
+    }
+
+    /**
+     * 图像的大致字节数：上传的画布为PNG文件大小，光栅化的画布为ARGB像素数据大小
+     *
+     * @return 字节数
+     */
+    public long sizeBytes() {
+        if (rendered != null) {
+            return (long) rendered.getWidth() * rendered.getHeight() * 4;
+        }
+        return base64.length() * 3L / 4;
+    }
+
+    /**
+     * 图像内容的SHA-256：上传的画布按Base64文本计算，光栅化的画布按尺寸和ARGB像素计算（不编码PNG）
+     *
+     * @return 32字节的摘要
+     */
+    public byte[] sha256() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (rendered == null) {
+            // Base64文本只含ASCII字符，按ISO-8859-1取字节即一次复制，整体计算摘要
+            return digest.digest(base64.getBytes(StandardCharsets.ISO_8859_1));
+        }
+        int width = rendered.getWidth();
+        int height = rendered.getHeight();
+        digest.update(ByteBuffer.allocate(8).putInt(width).putInt(height).array());
+        ByteBuffer row = ByteBuffer.allocate(width * 4);
+        int[] pixels = rendered.getRaster().getDataBuffer() instanceof DataBufferInt buffer
+                && rendered.getType() == BufferedImage.TYPE_INT_ARGB && rendered.getRaster().getParent() == null
+                && buffer.getData().length == width * height ? buffer.getData() : null;
+        int[] line = pixels == null ? new int[width] : null;
+        for (int y = 0; y < height; y++) {
+            row.clear();
+            if (pixels != null) {
+                row.asIntBuffer().put(pixels, y * width, width);
+            } else {
+                rendered.getRGB(0, y, width, 1, line, 0, width);
+                row.asIntBuffer().put(line);
+            }
+            digest.update(row.array());
+        }
+        return digest.digest();
+    }
+}
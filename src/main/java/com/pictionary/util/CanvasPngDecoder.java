@@ -0,0 +1,375 @@
+package com.pictionary.util;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 画布PNG专用解码器
+ * 浏览器 canvas.toDataURL('image/png') 输出的总是 8 位 RGBA、非隔行扫描的PNG。
+ * 针对这种格式逐行解压、反滤波，并在解码的同时按区域平均缩放到目标尺寸，
+ * 直接输出 8 位灰度加透明度数据，不创建中间的 BufferedImage。
+ * 其它格式返回 null，由调用方回退到 ImageIO。
+ */
+public class CanvasPngDecoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IHDR = 0x49484452;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+
+    // 每个像素4字节（RGBA）
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // 超过该大小的行缓冲区不在线程中保留，避免个别大图长期占用内存
+    private static final int MAX_RETAINED_ROW_BYTES = 64 * 1024;
+
+    private static final ThreadLocal<CanvasPngDecoder> DECODERS = ThreadLocal.withInitial(CanvasPngDecoder::new);
+
+    // 可复用的解压器和缓冲区
+    private final Inflater inflater = new Inflater();
+    private byte[] currentRow = new byte[0];
+    private byte[] previousRow = new byte[0];
+    private int[] columnMap = new int[0];
+    private long[] sumLuminance = new long[0];
+    private long[] sumAlpha = new long[0];
+    private int[] pixelCount = new int[0];
+
+    // 当前解码状态
+    private byte[] png;
+    private int nextChunk;
+
+    private CanvasPngDecoder() {
+    }
+
+    /**
+     * 解码画布PNG并缩放到目标尺寸
+     *
+     * @param png          PNG文件数据
+     * @param targetWidth  目标宽度
+     * @param targetHeight 目标高度
+     * @return 灰度加透明度图像；不是8位RGBA非隔行PNG或数据损坏时返回null
+     */
+    public static GrayAlphaImage decode(byte[] png, int targetWidth, int targetHeight) {
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("目标尺寸无效: " + targetWidth + "x" + targetHeight);
+        }
+        CanvasPngDecoder decoder = DECODERS.get();
+        try {
+            return decoder.decodeInternal(png, targetWidth, targetHeight);
+        } catch (DataFormatException | IndexOutOfBoundsException e) {
+            return null;
+        } finally {
+            decoder.png = null;
+        }
+    }
+
+    /**
+     * 判断数据是否为本解码器支持的PNG（8位RGBA、非隔行）
+     *
+     * @param png PNG文件数据
+     * @return 是否支持
+     */
+    public static boolean isSupported(byte[] png) {
+        return png != null && png.length >= 33 && hasSignature(png) && readInt(png, 8) == 13
+                && readInt(png, 12) == IHDR
+                && png[24] == 8 && png[25] == 6 && png[26] == 0 && png[27] == 0 && png[28] == 0;
+    }
+
+    private GrayAlphaImage decodeInternal(byte[] data, int targetWidth, int targetHeight) throws DataFormatException {
+        if (!isSupported(data)) {
+            return null;
+        }
+        int width = readInt(data, 16);
+        int height = readInt(data, 20);
+        if (width <= 0 || height <= 0 || width > (Integer.MAX_VALUE - 1) / BYTES_PER_PIXEL) {
+            return null;
+        }
+
+        this.png = data;
+        this.nextChunk = 8 + 8 + 13 + 4;
+        inflater.reset();
+
+        // 只做缩小；放大时先按原尺寸解码，再做最近邻放大
+        int outWidth = Math.min(targetWidth, width);
+        int outHeight = Math.min(targetHeight, height);
+        byte[] out = new byte[outWidth * outHeight * 2];
+
+        int rowBytes = width * BYTES_PER_PIXEL;
+        prepareBuffers(rowBytes + 1, width, outWidth);
+        byte[] cur = currentRow;
+        byte[] prev = previousRow;
+        Arrays.fill(prev, 0, rowBytes + 1, (byte) 0);
+        for (int x = 0; x < width; x++) {
+            columnMap[x] = (int) ((long) x * outWidth / width);
+        }
+
+        for (int y = 0; y < height; y++) {
+            if (!readRow(cur, rowBytes + 1)) {
+                return null;
+            }
+            if (!unfilter(cur, prev, rowBytes)) {
+                return null;
+            }
+            accumulate(cur, width);
+
+            int targetRow = (int) ((long) y * outHeight / height);
+            if (y == height - 1 || (int) ((long) (y + 1) * outHeight / height) != targetRow) {
+                emitRow(out, targetRow, outWidth);
+            }
+
+            byte[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+
+        releaseOversizedBuffers(rowBytes + 1);
+        return toImage(out, outWidth, outHeight, targetWidth, targetHeight);
+    }
+
+    /**
+     * 按与解码PNG相同的区域平均把服务端光栅化的图像缩放到目标尺寸
+     * PNG是无损编码，结果与先编码为PNG再调用 {@link #decode(byte[], int, int)} 相同
+     *
+     * @param image        图像
+     * @param targetWidth  目标宽度
+     * @param targetHeight 目标高度
+     * @return 灰度加透明度图像
+     */
+    public static GrayAlphaImage downscale(BufferedImage image, int targetWidth, int targetHeight) {
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("目标尺寸无效: " + targetWidth + "x" + targetHeight);
+        }
+        return DECODERS.get().downscaleInternal(image, targetWidth, targetHeight);
+    }
+
+    private GrayAlphaImage downscaleInternal(BufferedImage image, int targetWidth, int targetHeight) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int outWidth = Math.min(targetWidth, width);
+        int outHeight = Math.min(targetHeight, height);
+        byte[] out = new byte[outWidth * outHeight * 2];
+
+        // 每行像素转为与PNG扫描行相同的RGBA字节（数据从下标1开始），复用解码时的累加逻辑
+        int rowBytes = width * BYTES_PER_PIXEL;
+        prepareBuffers(rowBytes + 1, width, outWidth);
+        byte[] row = currentRow;
+        int[] argb = new int[width];
+        for (int x = 0; x < width; x++) {
+            columnMap[x] = (int) ((long) x * outWidth / width);
+        }
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, argb, 0, width);
+            for (int x = 0, i = 1; x < width; x++, i += BYTES_PER_PIXEL) {
+                int pixel = argb[x];
+                row[i] = (byte) (pixel >> 16);
+                row[i + 1] = (byte) (pixel >> 8);
+                row[i + 2] = (byte) pixel;
+                row[i + 3] = (byte) (pixel >>> 24);
+            }
+            accumulate(row, width);
+
+            int targetRow = (int) ((long) y * outHeight / height);
+            if (y == height - 1 || (int) ((long) (y + 1) * outHeight / height) != targetRow) {
+                emitRow(out, targetRow, outWidth);
+            }
+        }
+
+        releaseOversizedBuffers(rowBytes + 1);
+        return toImage(out, outWidth, outHeight, targetWidth, targetHeight);
+    }
+
+    private static GrayAlphaImage toImage(byte[] out, int outWidth, int outHeight, int targetWidth, int targetHeight) {
+        if (outWidth == targetWidth && outHeight == targetHeight) {
+            return new GrayAlphaImage(outWidth, outHeight, out);
+        }
+        return new GrayAlphaImage(targetWidth, targetHeight, upscale(out, outWidth, outHeight, targetWidth, targetHeight));
+    }
+
+    /**
+     * 从IDAT数据流中解压一整行（含行首的滤波类型字节）
+     */
+    private boolean readRow(byte[] row, int length) throws DataFormatException {
+        int filled = 0;
+        while (filled < length) {
+            int n = inflater.inflate(row, filled, length - filled);
+            if (n == 0) {
+                if (inflater.needsInput()) {
+                    if (!feedNextIdat()) {
+                        return false;
+                    }
+                } else if (inflater.finished() || inflater.needsDictionary()) {
+                    return false;
+                }
+            }
+            filled += n;
+        }
+        return true;
+    }
+
+    /**
+     * 把下一个IDAT块直接作为解压器的输入（不复制数据）
+     */
+    private boolean feedNextIdat() {
+        while (nextChunk + 8 <= png.length) {
+            int length = readInt(png, nextChunk);
+            int type = readInt(png, nextChunk + 4);
+            int dataStart = nextChunk + 8;
+            if (length < 0 || dataStart + length > png.length) {
+                return false;
+            }
+            nextChunk = dataStart + length + 4;
+            if (type == IDAT) {
+                inflater.setInput(png, dataStart, length);
+                return true;
+            }
+            if (type == IEND) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按PNG规范对一行做反滤波，数据从下标1开始
+     */
+    private static boolean unfilter(byte[] cur, byte[] prev, int rowBytes) {
+        int filter = cur[0];
+        int end = rowBytes + 1;
+        switch (filter) {
+            case 0:
+                break;
+            case 1:
+                for (int i = 1 + BYTES_PER_PIXEL; i < end; i++) {
+                    cur[i] += cur[i - BYTES_PER_PIXEL];
+                }
+                break;
+            case 2:
+                for (int i = 1; i < end; i++) {
+                    cur[i] += prev[i];
+                }
+                break;
+            case 3:
+                for (int i = 1; i < end; i++) {
+                    int a = i > BYTES_PER_PIXEL ? cur[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                    cur[i] += (byte) ((a + (prev[i] & 0xFF)) >>> 1);
+                }
+                break;
+            case 4:
+                for (int i = 1; i < end; i++) {
+                    int a = i > BYTES_PER_PIXEL ? cur[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                    int b = prev[i] & 0xFF;
+                    int c = i > BYTES_PER_PIXEL ? prev[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                    cur[i] += (byte) paeth(a, b, c);
+                }
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * 把一行RGBA像素转为亮度并累加到目标列（亮度按透明度加权，避免透明背景把线条边缘拉暗）
+     */
+    private void accumulate(byte[] row, int width) {
+        for (int x = 0, i = 1; x < width; x++, i += BYTES_PER_PIXEL) {
+            int r = row[i] & 0xFF;
+            int g = row[i + 1] & 0xFF;
+            int b = row[i + 2] & 0xFF;
+            int a = row[i + 3] & 0xFF;
+            int luminance = (77 * r + 150 * g + 29 * b + 128) >> 8;
+            int tx = columnMap[x];
+            sumLuminance[tx] += luminance * a;
+            sumAlpha[tx] += a;
+            pixelCount[tx]++;
+        }
+    }
+
+    /**
+     * 输出一行目标像素并清空累加器
+     */
+    private void emitRow(byte[] out, int targetRow, int outWidth) {
+        int p = targetRow * outWidth * 2;
+        for (int tx = 0; tx < outWidth; tx++, p += 2) {
+            int count = pixelCount[tx];
+            long alphaSum = sumAlpha[tx];
+            if (count > 0) {
+                out[p] = (byte) (alphaSum > 0 ? (sumLuminance[tx] + alphaSum / 2) / alphaSum : 0);
+                out[p + 1] = (byte) ((alphaSum + count / 2) / count);
+            }
+            sumLuminance[tx] = 0;
+            sumAlpha[tx] = 0;
+            pixelCount[tx] = 0;
+        }
+    }
+
+    private static byte[] upscale(byte[] src, int srcWidth, int srcHeight, int targetWidth, int targetHeight) {
+        byte[] out = new byte[targetWidth * targetHeight * 2];
+        for (int y = 0; y < targetHeight; y++) {
+            int sy = (int) ((long) y * srcHeight / targetHeight);
+            for (int x = 0; x < targetWidth; x++) {
+                int sx = (int) ((long) x * srcWidth / targetWidth);
+                int s = (sy * srcWidth + sx) * 2;
+                int d = (y * targetWidth + x) * 2;
+                out[d] = src[s];
+                out[d + 1] = src[s + 1];
+            }
+        }
+        return out;
+    }
+
+    private void prepareBuffers(int rowLength, int width, int outWidth) {
+        if (currentRow.length < rowLength) {
+            currentRow = new byte[rowLength];
+            previousRow = new byte[rowLength];
+        }
+        if (columnMap.length < width) {
+            columnMap = new int[width];
+        }
+        if (sumLuminance.length < outWidth) {
+            sumLuminance = new long[outWidth];
+            sumAlpha = new long[outWidth];
+            pixelCount = new int[outWidth];
+        } else {
+            Arrays.fill(sumLuminance, 0, outWidth, 0);
+            Arrays.fill(sumAlpha, 0, outWidth, 0);
+            Arrays.fill(pixelCount, 0, outWidth, 0);
+        }
+    }
+
+    private void releaseOversizedBuffers(int rowLength) {
+        if (rowLength > MAX_RETAINED_ROW_BYTES) {
+            currentRow = new byte[0];
+            previousRow = new byte[0];
+            columnMap = new int[0];
+        }
+    }
+
+    private static boolean hasSignature(byte[] data) {
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (data[i] != SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,65 @@
+package com.pictionary.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * 8位灰度加透明度图像
+ * 像素按行存储在 byte[] 中，每个像素两个字节：亮度、透明度
+ */
+public class GrayAlphaImage {
+
+    private final int width;
+    private final int height;
+    private final byte[] data;
+
+    public GrayAlphaImage(int width, int height, byte[] data) {
+        if (data.length < width * height * 2) {
+            throw new IllegalArgumentException("像素数据长度不足: " + data.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.data = data;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 像素数据，每个像素依次为亮度和透明度
+     *
+     * @return 像素数据（非副本）
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLuminance(int x, int y) {
+        return data[(y * width + x) * 2] & 0xFF;
+    }
+
+    public int getAlpha(int x, int y) {
+        return data[(y * width + x) * 2 + 1] & 0xFF;
+    }
+
+    /**
+     * 转换为 TYPE_INT_ARGB 图像，供仍基于 BufferedImage 的处理步骤使用
+     *
+     * @return 灰度ARGB图像
+     */
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0, p = 0; i < pixels.length; i++, p += 2) {
+            int l = data[p] & 0xFF;
+            int a = data[p + 1] & 0xFF;
+            pixels[i] = (a << 24) | (l << 16) | (l << 8) | l;
+        }
+        return image;
+    }
+}
@@ -0,0 +1,86 @@
+package com.pictionary.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图像文件头信息
+ * 只读取文件头中声明的尺寸，不解码像素：PNG直接读取IHDR块，其它格式由 ImageIO 的 ImageReader 读取文件头。
+ * 在解码前用它拒绝声明了超大尺寸的图像（解压炸弹），ImageIO.read 会按声明的尺寸分配整张 BufferedImage。
+ *
+ * @param format 格式名称（png、jpeg等）
+ * @param width  声明的宽度
+ * @param height 声明的高度
+ */
+public record ImageHeader(String format, int width, int height) {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IHDR = 0x49484452;
+
+    /**
+     * @return 像素数
+     */
+    public long pixels() {
+        return (long) width * height;
+    }
+
+    /**
+     * 读取图像文件头，数据可以只是文件开头的一部分（PNG需要前24字节）
+     *
+     * @param data 图像文件数据
+     * @return 文件头信息，不是可识别的图像或文件头不完整时返回null
+     */
+    public static ImageHeader read(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (isPng(data)) {
+            if (data.length < 24 || readInt(data, 12) != IHDR) {
+                return null;
+            }
+            // PNG的宽高是无符号32位整数，超过int范围的直接视为无效
+            int width = readInt(data, 16);
+            int height = readInt(data, 20);
+            return width > 0 && height > 0 ? new ImageHeader("png", width, height) : null;
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new ImageHeader(reader.getFormatName().toLowerCase(), reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isPng(byte[] data) {
+        if (data.length < PNG_SIGNATURE.length) {
+            return false;
+        }
+        for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+            if (data[i] != PNG_SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
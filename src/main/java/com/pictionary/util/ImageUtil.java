@@ -1,13 +1,135 @@
 package com.pictionary.util;
 
+import com.pictionary.monitor.ImageStageEvent;
+
+import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
 
 /**
  * 图像处理工具类
  */
 public class ImageUtil {
 
+    // 解码前检查文件头声明的尺寸，超过该像素数（ARGB约64MB）的图像一律拒绝；Web请求在 PayloadGuard 中有更严格的限制
+    public static final long MAX_DECODE_PIXELS = 16L * 1024 * 1024;
+
+    // 对比度增强和二值化的逐像素内核，按是否为 vector 构建以及JVM是否加载了 jdk.incubator.vector 选择实现
+    private static final PixelKernels KERNELS = PixelKernels.select();
+
+    /**
+     * 解码画布PNG并调整到目标大小
+     * 浏览器画布输出的8位RGBA PNG由 CanvasPngDecoder 直接解码为灰度图像，其它格式回退到 ImageIO
+     *
+     * @param imageBytes   图像文件数据
+     * @param targetWidth  目标宽度
+     * @param targetHeight 目标高度
+     * @return 调整大小后的图像，无法解析时返回null
+     * @throws IllegalArgumentException 文件头声明的尺寸超过 MAX_DECODE_PIXELS
+     */
+    public static BufferedImage decodeCanvas(byte[] imageBytes, int targetWidth, int targetHeight) throws IOException {
+        ImageHeader header = ImageHeader.read(imageBytes);
+        if (header == null) {
+            return null;
+        }
+        if (header.pixels() > MAX_DECODE_PIXELS) {
+            throw new IllegalArgumentException("图像尺寸过大: " + header.width() + "x" + header.height());
+        }
+        ImageStageEvent event = ImageStageEvent.start("decode", 0, 0);
+        GrayAlphaImage grayImage = CanvasPngDecoder.decode(imageBytes, targetWidth, targetHeight);
+        if (grayImage != null) {
+            BufferedImage image = grayImage.toBufferedImage();
+            event.finish(image.getWidth(), image.getHeight(), imageBytes.length);
+            return image;
+        }
+
+        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
+        if (originalImage == null) {
+            return null;
+        }
+        event.inputWidth = originalImage.getWidth();
+        event.inputHeight = originalImage.getHeight();
+        event.finish(originalImage.getWidth(), originalImage.getHeight(), imageBytes.length);
+        return resizeImage(originalImage, targetWidth, targetHeight);
+    }
+
+    /**
+     * 把图像编码为Base64格式的PNG
+     *
+     * @param image 图像
+     * @return Base64编码的PNG数据
+     */
+    public static String toPngBase64(BufferedImage image) throws IOException {
+        ImageStageEvent event = ImageStageEvent.start("encode", image.getWidth(), image.getHeight());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", outputStream);
+        event.finish(image.getWidth(), image.getHeight(), outputStream.size());
+        return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+    }
+
+    /**
+     * 按位深把图像编码为Base64格式的PNG
+     *
+     * @param image    图像
+     * @param bitDepth 位深：32 保留原始RGBA；8、4、2、1 合成到白色背景后按灰度编码，
+     *                 小于8时量化为 2^bitDepth 级灰度
+     * @return Base64编码的PNG数据
+     */
+    public static String toPngBase64(BufferedImage image, int bitDepth) throws IOException {
+        return toPngBase64(bitDepth >= 32 ? image : toGray(image, bitDepth));
+    }
+
+    /**
+     * 把图像合成到白色背景上并转换为指定位深的灰度图像
+     *
+     * @param image    原始图像
+     * @param bitDepth 位深（1、2、4 或 8）
+     * @return 灰度图像
+     */
+    public static BufferedImage toGray(BufferedImage image, int bitDepth) {
+        if (bitDepth != 1 && bitDepth != 2 && bitDepth != 4 && bitDepth != 8) {
+            throw new IllegalArgumentException("不支持的位深: " + bitDepth);
+        }
+        ImageStageEvent event = ImageStageEvent.start("gray" + bitDepth, image.getWidth(), image.getHeight());
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int levels = 1 << bitDepth;
+        BufferedImage grayImage;
+        if (bitDepth == 8) {
+            grayImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        } else {
+            byte[] palette = new byte[levels];
+            for (int i = 0; i < levels; i++) {
+                palette[i] = (byte) (i * 255 / (levels - 1));
+            }
+            IndexColorModel colorModel = new IndexColorModel(bitDepth, levels, palette, palette, palette);
+            grayImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, colorModel);
+        }
+
+        WritableRaster raster = grayImage.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int argb = row[x];
+                int alpha = argb >>> 24;
+                int brightness = (((argb >> 16) & 0xFF) + ((argb >> 8) & 0xFF) + (argb & 0xFF)) / 3;
+                // 按透明度与白色背景混合
+                int gray = (brightness * alpha + 255 * (255 - alpha) + 127) / 255;
+                raster.setSample(x, y, 0, bitDepth == 8 ? gray : (gray * (levels - 1) + 127) / 255);
+            }
+        }
+        event.finish(width, height, 0);
+        return grayImage;
+    }
+
     /**
      * 调整图像大小
      *
@@ -17,6 +139,7 @@ public class ImageUtil {
      * @return 调整大小后的图像
      */
     public static BufferedImage resizeImage(BufferedImage originalImage, int targetWidth, int targetHeight) {
+        ImageStageEvent event = ImageStageEvent.start("resize", originalImage.getWidth(), originalImage.getHeight());
         BufferedImage resizedImage = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_ARGB);
         Graphics2D graphics2D = resizedImage.createGraphics();
 
@@ -29,6 +152,7 @@ public class ImageUtil {
         graphics2D.drawImage(originalImage, 0, 0, targetWidth, targetHeight, null);
         graphics2D.dispose();
 
+        event.finish(targetWidth, targetHeight, 0);
         return resizedImage;
     }
 
@@ -39,33 +163,17 @@ public class ImageUtil {
      * @return 对比度增强后的图像
      */
     public static BufferedImage enhanceContrast(BufferedImage image) {
+        ImageStageEvent event = ImageStageEvent.start("enhanceContrast", image.getWidth(), image.getHeight());
         BufferedImage enhancedImage = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
 
-        // 对比度增强因子 (1.2 表示增强20%)
-        float factor = 1.2f;
-
-        // 对每个像素点进行处理
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                Color color = new Color(image.getRGB(x, y), true);
-
-                // 获取RGB值
-                int red = color.getRed();
-                int green = color.getGreen();
-                int blue = color.getBlue();
-                int alpha = color.getAlpha();
-
-                // 计算新的RGB值，增强对比度
-                red = Math.min(255, Math.max(0, Math.round((red - 128) * factor + 128)));
-                green = Math.min(255, Math.max(0, Math.round((green - 128) * factor + 128)));
-                blue = Math.min(255, Math.max(0, Math.round((blue - 128) * factor + 128)));
-
-                // 设置新的颜色
-                Color newColor = new Color(red, green, blue, alpha);
-                enhancedImage.setRGB(x, y, newColor.getRGB());
-            }
+        int[] pixels = readArgb(image);
+        int[] target = directArgb(enhancedImage);
+        KERNELS.enhanceContrast(pixels, target != null ? target : pixels, pixels.length);
+        if (target == null) {
+            enhancedImage.setRGB(0, 0, image.getWidth(), image.getHeight(), pixels, 0, image.getWidth());
         }
 
+        event.finish(enhancedImage.getWidth(), enhancedImage.getHeight(), 0);
         return enhancedImage;
     }
 
@@ -76,10 +184,12 @@ public class ImageUtil {
      * @return 黑白图像
      */
     public static BufferedImage convertToBlackAndWhite(BufferedImage image) {
+        ImageStageEvent event = ImageStageEvent.start("blackAndWhite", image.getWidth(), image.getHeight());
         BufferedImage bwImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
         Graphics2D g2d = bwImage.createGraphics();
         g2d.drawImage(image, 0, 0, null);
         g2d.dispose();
+        event.finish(bwImage.getWidth(), bwImage.getHeight(), 0);
         return bwImage;
     }
 
@@ -91,32 +201,47 @@ public class ImageUtil {
      * @return 简化后的图像
      */
     public static BufferedImage simplifyImage(BufferedImage image, int threshold) {
+        ImageStageEvent event = ImageStageEvent.start("simplify", image.getWidth(), image.getHeight());
         BufferedImage simplifiedImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
 
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                Color color = new Color(image.getRGB(x, y), true);
-
-                // 如果透明度为0，则跳过
-                if (color.getAlpha() == 0) {
-                    simplifiedImage.setRGB(x, y, color.getRGB());
-                    continue;
-                }
-
-                // 计算亮度
-                int brightness = (color.getRed() + color.getGreen() + color.getBlue()) / 3;
-
-                // 根据阈值决定黑白
-                if (brightness > threshold) {
-                    // 白色 (透明)
-                    simplifiedImage.setRGB(x, y, new Color(0, 0, 0, 0).getRGB());
-                } else {
-                    // 黑色
-                    simplifiedImage.setRGB(x, y, Color.BLACK.getRGB());
-                }
-            }
-        }
+        KERNELS.simplify(readArgb(image), directArgb(simplifiedImage), image.getWidth() * image.getHeight(), threshold);
 
+        event.finish(simplifiedImage.getWidth(), simplifiedImage.getHeight(), 0);
         return simplifiedImage;
     }
-}
\ No newline at end of file
+
+    /**
+     * 当前使用的像素内核名称
+     *
+     * @return scalar 或 vector-位宽
+     */
+    public static String getPixelKernels() {
+        return KERNELS.name();
+    }
+
+    /**
+     * 读取全部像素为 getRGB 格式的 ARGB 数组
+     * TYPE_INT_ARGB 图像直接返回底层数组（不能修改），其它类型批量转换为新数组
+     */
+    private static int[] readArgb(BufferedImage image) {
+        int[] direct = directArgb(image);
+        if (direct != null) {
+            return direct;
+        }
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * TYPE_INT_ARGB 图像的底层像素数组，其存储格式与 getRGB 相同；
+     * 其它类型或子图像（与父图像共享数组）返回null
+     */
+    private static int[] directArgb(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB || raster.getParent() != null
+                || !(raster.getDataBuffer() instanceof DataBufferInt buffer)) {
+            return null;
+        }
+        int[] data = buffer.getData();
+        return data.length == image.getWidth() * image.getHeight() ? data : null;
+    }
+}
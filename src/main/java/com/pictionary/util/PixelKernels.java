@@ -0,0 +1,62 @@
+package com.pictionary.util;
+
+/**
+ * 逐像素图像内核
+ * 像素为 BufferedImage.getRGB 格式的非预乘 ARGB 整数。标量实现总是可用；
+ * vector 构建（mvn -Pvector，源码在 src/vector/java）的JVM以 --add-modules jdk.incubator.vector 启动时
+ * 改用 Vector API 实现，两者结果逐位一致
+ */
+public interface PixelKernels {
+
+    // 对比度增强因子 (1.2 表示增强20%)
+    float CONTRAST_FACTOR = 1.2f;
+
+    // 设置为 false 时强制使用标量实现：-Dpictionary.simd=false
+    String SIMD_PROPERTY = "pictionary.simd";
+
+    /**
+     * 增强对比度：每个颜色通道按 (c - 128) * 1.2 + 128 四舍五入并截断到 0-255，透明度不变
+     *
+     * @param src    源像素
+     * @param dst    目标像素，可以与源像素是同一个数组
+     * @param length 像素数
+     */
+    void enhanceContrast(int[] src, int[] dst, int length);
+
+    /**
+     * 二值化：完全透明的像素原样保留，其余像素平均亮度大于阈值时变为透明，否则变为不透明黑色
+     *
+     * @param src       源像素
+     * @param dst       目标像素，可以与源像素是同一个数组
+     * @param length    像素数
+     * @param threshold 阈值 (0-255)
+     */
+    void simplify(int[] src, int[] dst, int length, int threshold);
+
+    /**
+     * 实现名称，用于日志和基准测试输出
+     *
+     * @return 名称，例如 scalar 或 vector-256
+     */
+    String name();
+
+    /**
+     * 选择当前JVM上可用的最快实现
+     * 未加载 jdk.incubator.vector 模块、不是 vector 构建或加载失败时回退到标量实现
+     *
+     * @return 像素内核
+     */
+    static PixelKernels select() {
+        if (!Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return ScalarPixelKernels.INSTANCE;
+        }
+        try {
+            // 通过反射加载：默认构建不包含 VectorPixelKernels，未加载模块时它引用的类也不存在，不能直接引用
+            return (PixelKernels) Class.forName("com.pictionary.util.VectorPixelKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return ScalarPixelKernels.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pictionary.util;
+
+/**
+ * 标量像素内核，逐个像素按通道计算
+ */
+public final class ScalarPixelKernels implements PixelKernels {
+
+    public static final ScalarPixelKernels INSTANCE = new ScalarPixelKernels();
+
+    private ScalarPixelKernels() {
+    }
+
+    @Override
+    public void enhanceContrast(int[] src, int[] dst, int length) {
+        enhanceContrast(src, dst, 0, length);
+    }
+
+    @Override
+    public void simplify(int[] src, int[] dst, int length, int threshold) {
+        simplify(src, dst, 0, length, threshold);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    /**
+     * 处理 [from, to) 范围内的像素，向量实现用它处理凑不满一个向量的尾部
+     */
+    static void enhanceContrast(int[] src, int[] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int argb = src[i];
+            int red = contrast((argb >>> 16) & 0xFF);
+            int green = contrast((argb >>> 8) & 0xFF);
+            int blue = contrast(argb & 0xFF);
+            dst[i] = (argb & 0xFF000000) | (red << 16) | (green << 8) | blue;
+        }
+    }
+
+    static void simplify(int[] src, int[] dst, int from, int to, int threshold) {
+        for (int i = from; i < to; i++) {
+            int argb = src[i];
+            // 如果透明度为0，则原样保留
+            if ((argb >>> 24) == 0) {
+                dst[i] = argb;
+                continue;
+            }
+            int brightness = (((argb >>> 16) & 0xFF) + ((argb >>> 8) & 0xFF) + (argb & 0xFF)) / 3;
+            // 亮度高于阈值为白色（透明），否则为黑色
+            dst[i] = brightness > threshold ? 0 : 0xFF000000;
+        }
+    }
+
+    private static int contrast(int channel) {
+        return Math.min(255, Math.max(0, Math.round((channel - 128) * CONTRAST_FACTOR + 128)));
+    }
+}
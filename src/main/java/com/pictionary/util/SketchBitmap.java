@@ -0,0 +1,329 @@
+package com.pictionary.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * 简笔画位图
+ * 每个像素1位（有墨迹/无墨迹），按行存储在 long[] 中，每行占 (width + 63) / 64 个字。
+ * 字内第 (x % 64) 位表示第 x 列，行尾多余的位始终为0。
+ * 与 TYPE_INT_ARGB 相比内存占用缩小32倍，膨胀、腐蚀、计数等操作按字并行处理64个像素。
+ */
+public class SketchBitmap {
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public SketchBitmap(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("位图尺寸无效: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.words = new long[wordsPerRow * height];
+    }
+
+    /**
+     * 从图像创建位图，与 ImageUtil.simplifyImage 规则一致：
+     * 不透明且亮度（RGB平均值）不超过阈值的像素为墨迹
+     *
+     * @param image     原始图像
+     * @param threshold 亮度阈值 (0-255)
+     * @return 位图
+     */
+    public static SketchBitmap fromImage(BufferedImage image, int threshold) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        SketchBitmap bitmap = new SketchBitmap(w, h);
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            image.getRGB(0, y, w, 1, row, 0, w);
+            int base = y * bitmap.wordsPerRow;
+            for (int x = 0; x < w; x++) {
+                int argb = row[x];
+                if ((argb >>> 24) == 0) {
+                    continue;
+                }
+                int brightness = (((argb >> 16) & 0xFF) + ((argb >> 8) & 0xFF) + (argb & 0xFF)) / 3;
+                if (brightness <= threshold) {
+                    bitmap.words[base + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * 从灰度加透明度图像创建位图：不透明且亮度不超过阈值的像素为墨迹
+     *
+     * @param image     灰度加透明度图像
+     * @param threshold 亮度阈值 (0-255)
+     * @return 位图
+     */
+    public static SketchBitmap fromGrayAlpha(GrayAlphaImage image, int threshold) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        byte[] data = image.getData();
+        SketchBitmap bitmap = new SketchBitmap(w, h);
+        for (int y = 0, p = 0; y < h; y++) {
+            int base = y * bitmap.wordsPerRow;
+            for (int x = 0; x < w; x++, p += 2) {
+                if (data[p + 1] != 0 && (data[p] & 0xFF) <= threshold) {
+                    bitmap.words[base + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * 转换为 TYPE_INT_ARGB 图像：墨迹为不透明黑色，其余为透明
+     *
+     * @return 图像
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; y++) {
+            int base = y * wordsPerRow;
+            for (int wi = 0; wi < wordsPerRow; wi++) {
+                long word = words[base + wi];
+                while (word != 0) {
+                    int x = (wi << 6) + Long.numberOfTrailingZeros(word);
+                    pixels[y * width + x] = 0xFF000000;
+                    word &= word - 1;
+                }
+            }
+        }
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean get(int x, int y) {
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public void set(int x, int y, boolean ink) {
+        int index = y * wordsPerRow + (x >>> 6);
+        if (ink) {
+            words[index] |= 1L << x;
+        } else {
+            words[index] &= ~(1L << x);
+        }
+    }
+
+    /**
+     * 墨迹像素数
+     *
+     * @return 像素数
+     */
+    public int inkCount() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * 墨迹的包围盒
+     *
+     * @return {minX, minY, maxX, maxY}（含边界），没有墨迹时返回null
+     */
+    public int[] boundingBox() {
+        int minX = Integer.MAX_VALUE, maxX = -1, minY = -1, maxY = -1;
+        for (int y = 0; y < height; y++) {
+            int base = y * wordsPerRow;
+            for (int wi = 0; wi < wordsPerRow; wi++) {
+                long word = words[base + wi];
+                if (word == 0) {
+                    continue;
+                }
+                if (minY < 0) {
+                    minY = y;
+                }
+                maxY = y;
+                minX = Math.min(minX, (wi << 6) + Long.numberOfTrailingZeros(word));
+                maxX = Math.max(maxX, (wi << 6) + 63 - Long.numberOfLeadingZeros(word));
+            }
+        }
+        return minY < 0 ? null : new int[]{minX, minY, maxX, maxY};
+    }
+
+    /**
+     * 3x3 膨胀：与任意墨迹像素相邻（含对角）的像素都成为墨迹，用于加粗细线条
+     *
+     * @return 新的位图
+     */
+    public SketchBitmap dilate() {
+        long[] horizontal = new long[words.length];
+        for (int y = 0; y < height; y++) {
+            int base = y * wordsPerRow;
+            for (int wi = 0; wi < wordsPerRow; wi++) {
+                horizontal[base + wi] = words[base + wi] | shiftTowardsHigherX(words, base, wi) | shiftTowardsLowerX(words, base, wi);
+            }
+        }
+        SketchBitmap result = new SketchBitmap(width, height);
+        for (int y = 0; y < height; y++) {
+            int base = y * wordsPerRow;
+            for (int wi = 0; wi < wordsPerRow; wi++) {
+                long word = horizontal[base + wi];
+                if (y > 0) {
+                    word |= horizontal[base - wordsPerRow + wi];
+                }
+                if (y < height - 1) {
+                    word |= horizontal[base + wordsPerRow + wi];
+                }
+                result.words[base + wi] = word;
+            }
+            result.clearPadding(y);
+        }
+        return result;
+    }
+
+    /**
+     * 3x3 腐蚀：只有自身和8个相邻像素都是墨迹的像素才保留（图像边界之外视为无墨迹），用于去除孤立噪点
+     *
+     * @return 新的位图
+     */
+    public SketchBitmap erode() {
+        long[] horizontal = new long[words.length];
+        for (int y = 0; y < height; y++) {
+            int base = y * wordsPerRow;
+            for (int wi = 0; wi < wordsPerRow; wi++) {
+                horizontal[base + wi] = words[base + wi] & shiftTowardsHigherX(words, base, wi) & shiftTowardsLowerX(words, base, wi);
+            }
+        }
+        SketchBitmap result = new SketchBitmap(width, height);
+        for (int y = 1; y < height - 1; y++) {
+            int base = y * wordsPerRow;
+            for (int wi = 0; wi < wordsPerRow; wi++) {
+                result.words[base + wi] = horizontal[base + wi]
+                        & horizontal[base - wordsPerRow + wi]
+                        & horizontal[base + wordsPerRow + wi];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按整数倍缩小（或池化）：目标像素对应的 factor x factor 区域内有任意墨迹即为墨迹，细线条缩小后不会断开
+     *
+     * @param factor 缩小倍数
+     * @return 新的位图
+     */
+    public SketchBitmap downsample(int factor) {
+        if (factor <= 1) {
+            return copy();
+        }
+        int targetWidth = (width + factor - 1) / factor;
+        int targetHeight = (height + factor - 1) / factor;
+        SketchBitmap result = new SketchBitmap(targetWidth, targetHeight);
+        long[] merged = new long[wordsPerRow];
+
+        for (int ty = 0; ty < targetHeight; ty++) {
+            // 先把 factor 行按位或合并为一行
+            Arrays.fill(merged, 0);
+            int yEnd = Math.min(height, (ty + 1) * factor);
+            for (int y = ty * factor; y < yEnd; y++) {
+                int base = y * wordsPerRow;
+                for (int wi = 0; wi < wordsPerRow; wi++) {
+                    merged[wi] |= words[base + wi];
+                }
+            }
+            // 再检查每个目标像素对应的列区间内是否有墨迹
+            int targetBase = ty * result.wordsPerRow;
+            for (int tx = 0; tx < targetWidth; tx++) {
+                int from = tx * factor;
+                int to = Math.min(width, from + factor);
+                if (anyBitSet(merged, from, to)) {
+                    result.words[targetBase + (tx >>> 6)] |= 1L << tx;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 复制位图
+     *
+     * @return 新的位图
+     */
+    public SketchBitmap copy() {
+        SketchBitmap result = new SketchBitmap(width, height);
+        System.arraycopy(words, 0, result.words, 0, words.length);
+        return result;
+    }
+
+    /**
+     * 每行像素按位存储的原始数据
+     *
+     * @return 原始数据（非副本）
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * 把行内像素整体向x增大方向移动一位后的第 wi 个字
+     */
+    private long shiftTowardsHigherX(long[] words, int base, int wi) {
+        long carry = wi > 0 ? words[base + wi - 1] >>> 63 : 0;
+        return (words[base + wi] << 1) | carry;
+    }
+
+    /**
+     * 把行内像素整体向x减小方向移动一位后的第 wi 个字
+     */
+    private long shiftTowardsLowerX(long[] words, int base, int wi) {
+        long carry = wi < wordsPerRow - 1 ? words[base + wi + 1] << 63 : 0;
+        return (words[base + wi] >>> 1) | carry;
+    }
+
+    /**
+     * 清除行尾超出宽度的位
+     */
+    private void clearPadding(int y) {
+        int tail = width & 63;
+        if (tail != 0) {
+            words[y * wordsPerRow + wordsPerRow - 1] &= (1L << tail) - 1;
+        }
+    }
+
+    /**
+     * 判断 [from, to) 列区间内是否有置位的位
+     */
+    private static boolean anyBitSet(long[] row, int from, int to) {
+        int fromWord = from >>> 6;
+        int toWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (fromWord == toWord) {
+            return (row[fromWord] & firstMask & lastMask) != 0;
+        }
+        if ((row[fromWord] & firstMask) != 0 || (row[toWord] & lastMask) != 0) {
+            return true;
+        }
+        for (int wi = fromWord + 1; wi < toWord; wi++) {
+            if (row[wi] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
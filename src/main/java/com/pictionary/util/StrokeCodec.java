@@ -0,0 +1,264 @@
+package com.pictionary.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 笔画二进制编解码工具类
+ * 与前端 stroke-codec.js 使用相同的格式：
+ * <pre>
+ * 版本(1字节)  画布宽  画布高  量化步长  笔画数
+ * 每个笔画：颜色(0xRRGGBB)  线宽  点数  第一个点的x、y  其余各点相对前一点的dx、dy
+ * </pre>
+ * 除版本外所有数值都是 varint 编码，坐标差值先做 zigzag 变换。坐标按量化步长取整后存储。
+ */
+public class StrokeCodec {
+
+    public static final int VERSION = 1;
+
+    // 解码时的上限，防止恶意数据造成大量内存分配
+    private static final int MAX_CANVAS_SIZE = 4096;
+    private static final int MAX_STROKES = 10_000;
+    private static final int MAX_TOTAL_POINTS = 200_000;
+
+    /**
+     * 单个笔画
+     *
+     * @param color     颜色 0xRRGGBB
+     * @param lineWidth 线宽（像素）
+     * @param xs        各点x坐标（画布像素）
+     * @param ys        各点y坐标（画布像素）
+     */
+    public record Stroke(int color, int lineWidth, int[] xs, int[] ys) {
+    }
+
+    /**
+     * 一幅绘画
+     *
+     * @param width   画布宽度
+     * @param height  画布高度
+     * @param strokes 笔画列表
+     */
+    public record Drawing(int width, int height, List<Stroke> strokes) {
+    }
+
+    /**
+     * 编码绘画
+     *
+     * @param drawing  绘画
+     * @param quantum  量化步长（像素），1表示按整数像素存储
+     * @return 编码后的数据
+     */
+    public static byte[] encode(Drawing drawing, int quantum) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("量化步长必须为正数: " + quantum);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        writeVarint(out, drawing.width());
+        writeVarint(out, drawing.height());
+        writeVarint(out, quantum);
+        writeVarint(out, drawing.strokes().size());
+        for (Stroke stroke : drawing.strokes()) {
+            writeVarint(out, stroke.color() & 0xFFFFFF);
+            writeVarint(out, stroke.lineWidth());
+            int n = stroke.xs().length;
+            writeVarint(out, n);
+            int lastX = 0;
+            int lastY = 0;
+            for (int i = 0; i < n; i++) {
+                int x = Math.round((float) stroke.xs()[i] / quantum);
+                int y = Math.round((float) stroke.ys()[i] / quantum);
+                writeVarint(out, zigzag(x - lastX));
+                writeVarint(out, zigzag(y - lastY));
+                lastX = x;
+                lastY = y;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码绘画
+     *
+     * @param data 编码数据
+     * @return 绘画
+     * @throws IllegalArgumentException 数据格式错误或超出上限
+     */
+    public static Drawing decode(byte[] data) {
+        Reader reader = new Reader(data);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("不支持的笔画编码版本: " + version);
+        }
+        int width = reader.readVarint();
+        int height = reader.readVarint();
+        int quantum = reader.readVarint();
+        int strokeCount = reader.readVarint();
+        if (width <= 0 || height <= 0 || width > MAX_CANVAS_SIZE || height > MAX_CANVAS_SIZE) {
+            throw new IllegalArgumentException("画布尺寸无效: " + width + "x" + height);
+        }
+        if (quantum <= 0 || strokeCount > MAX_STROKES) {
+            throw new IllegalArgumentException("笔画数据无效");
+        }
+
+        List<Stroke> strokes = new ArrayList<>(strokeCount);
+        int totalPoints = 0;
+        for (int s = 0; s < strokeCount; s++) {
+            int color = reader.readVarint();
+            int lineWidth = reader.readVarint();
+            int n = reader.readVarint();
+            totalPoints += n;
+            if (n < 0 || totalPoints > MAX_TOTAL_POINTS) {
+                throw new IllegalArgumentException("笔画点数超出上限");
+            }
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            int x = 0;
+            int y = 0;
+            for (int i = 0; i < n; i++) {
+                x += unzigzag(reader.readVarint());
+                y += unzigzag(reader.readVarint());
+                xs[i] = x * quantum;
+                ys[i] = y * quantum;
+            }
+            strokes.add(new Stroke(color, lineWidth, xs, ys));
+        }
+        return new Drawing(width, height, strokes);
+    }
+
+    /**
+     * Ramer–Douglas–Peucker 折线简化
+     * 删除与保留线段距离不超过容差的点，首尾点总是保留
+     *
+     * @param stroke    笔画
+     * @param tolerance 容差（像素），不大于0时原样返回
+     * @return 简化后的笔画
+     */
+    public static Stroke simplify(Stroke stroke, double tolerance) {
+        int n = stroke.xs().length;
+        if (tolerance <= 0 || n <= 2) {
+            return stroke;
+        }
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        // 用显式栈代替递归，避免长笔画导致栈溢出
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        double toleranceSq = tolerance * tolerance;
+        int kept = 2;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            double maxDistSq = 0;
+            int index = -1;
+            for (int i = start + 1; i < end; i++) {
+                double d = segmentDistanceSq(stroke.xs()[i], stroke.ys()[i],
+                        stroke.xs()[start], stroke.ys()[start], stroke.xs()[end], stroke.ys()[end]);
+                if (d > maxDistSq) {
+                    maxDistSq = d;
+                    index = i;
+                }
+            }
+            if (index >= 0 && maxDistSq > toleranceSq) {
+                keep[index] = true;
+                kept++;
+                stack[top++] = start;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = end;
+            }
+        }
+
+        int[] xs = new int[kept];
+        int[] ys = new int[kept];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (keep[i]) {
+                xs[j] = stroke.xs()[i];
+                ys[j] = stroke.ys()[i];
+                j++;
+            }
+        }
+        return new Stroke(stroke.color(), stroke.lineWidth(), xs, ys);
+    }
+
+    /**
+     * 对绘画中的每个笔画做简化
+     *
+     * @param drawing   绘画
+     * @param tolerance 容差（像素）
+     * @return 简化后的绘画
+     */
+    public static Drawing simplify(Drawing drawing, double tolerance) {
+        if (tolerance <= 0) {
+            return drawing;
+        }
+        List<Stroke> strokes = new ArrayList<>(drawing.strokes().size());
+        for (Stroke stroke : drawing.strokes()) {
+            strokes.add(simplify(stroke, tolerance));
+        }
+        return new Drawing(drawing.width(), drawing.height(), strokes);
+    }
+
+    private static double segmentDistanceSq(int px, int py, int ax, int ay, int bx, int by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSq));
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * 顺序读取字节和 varint
+     */
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (pos >= data.length) {
+                throw new IllegalArgumentException("笔画数据不完整");
+            }
+            return data[pos++] & 0xFF;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varint 过长");
+        }
+    }
+}
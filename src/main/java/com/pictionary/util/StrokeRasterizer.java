@@ -0,0 +1,174 @@
+package com.pictionary.util;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * 笔画光栅化工具类
+ * 把笔画坐标绘制成与前端画布一致的透明背景黑色线条图像
+ */
+public class StrokeRasterizer {
+
+    // 画布边缘留白（像素）
+    private static final int PADDING = 10;
+
+    /**
+     * 把笔画缩放居中后绘制到指定大小的画布上
+     *
+     * @param strokes   笔画列表，每个笔画为 {xs, ys} 两个等长坐标数组
+     * @param width     画布宽度
+     * @param height    画布高度
+     * @param lineWidth 线宽
+     * @return 绘制后的图像
+     */
+    public static BufferedImage rasterize(List<int[][]> strokes, int width, int height, float lineWidth) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        if (strokes.isEmpty()) {
+            return image;
+        }
+
+        // 计算所有笔画的包围盒
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int[][] stroke : strokes) {
+            for (int i = 0; i < stroke[0].length; i++) {
+                minX = Math.min(minX, stroke[0][i]);
+                maxX = Math.max(maxX, stroke[0][i]);
+                minY = Math.min(minY, stroke[1][i]);
+                maxY = Math.max(maxY, stroke[1][i]);
+            }
+        }
+        if (minX > maxX) {
+            return image;
+        }
+
+        // 等比例缩放，使图形居中并填满画布
+        double scale = Math.min((width - 2.0 * PADDING) / Math.max(1, maxX - minX),
+                (height - 2.0 * PADDING) / Math.max(1, maxY - minY));
+        double offsetX = (width - (maxX - minX) * scale) / 2 - minX * scale;
+        double offsetY = (height - (maxY - minY) * scale) / 2 - minY * scale;
+
+        Graphics2D graphics2D = image.createGraphics();
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2D.setColor(Color.BLACK);
+        graphics2D.setStroke(new BasicStroke(lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+
+        for (int[][] stroke : strokes) {
+            int[] xs = stroke[0];
+            int[] ys = stroke[1];
+            if (xs.length == 0) {
+                continue;
+            }
+            Path2D.Double path = new Path2D.Double();
+            path.moveTo(xs[0] * scale + offsetX, ys[0] * scale + offsetY);
+            if (xs.length == 1) {
+                // 单点笔画画成一个圆点
+                path.lineTo(xs[0] * scale + offsetX, ys[0] * scale + offsetY);
+            }
+            for (int i = 1; i < xs.length; i++) {
+                path.lineTo(xs[i] * scale + offsetX, ys[i] * scale + offsetY);
+            }
+            graphics2D.draw(path);
+        }
+        graphics2D.dispose();
+
+        return image;
+    }
+
+    /**
+     * 按画布上的原始位置、颜色和线宽绘制笔画，并缩放到目标大小（与 ImageUtil.resizeImage 一样拉伸到目标尺寸）
+     * 直接从笔画生成目标尺寸的图像，不需要先生成画布大小的PNG再解码缩放
+     *
+     * @param drawing 解码后的绘画
+     * @param width   目标宽度
+     * @param height  目标高度
+     * @return 绘制后的图像
+     */
+    public static BufferedImage render(StrokeCodec.Drawing drawing, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        double scaleX = (double) width / drawing.width();
+        double scaleY = (double) height / drawing.height();
+        float lineScale = (float) Math.sqrt(scaleX * scaleY);
+
+        Graphics2D graphics2D = createGraphics(image);
+        for (StrokeCodec.Stroke stroke : drawing.strokes()) {
+            draw(graphics2D, stroke, scaleX, scaleY, lineScale);
+        }
+        graphics2D.dispose();
+
+        return image;
+    }
+
+    /**
+     * 创建与 {@link #render} 使用相同渲染参数的绘图上下文，增量绘制与整幅重绘的像素完全一致
+     *
+     * @param image 目标图像
+     * @return 绘图上下文，用完后调用 dispose
+     */
+    public static Graphics2D createGraphics(BufferedImage image) {
+        Graphics2D graphics2D = image.createGraphics();
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        return graphics2D;
+    }
+
+    /**
+     * 按原始颜色和线宽绘制一个笔画
+     *
+     * @param graphics2D 绘图上下文
+     * @param stroke     笔画
+     * @param scaleX     横向缩放比例
+     * @param scaleY     纵向缩放比例
+     * @param lineScale  线宽缩放比例
+     */
+    public static void draw(Graphics2D graphics2D, StrokeCodec.Stroke stroke, double scaleX, double scaleY, float lineScale) {
+        int[] xs = stroke.xs();
+        int[] ys = stroke.ys();
+        if (xs.length == 0) {
+            return;
+        }
+        graphics2D.setColor(new Color(stroke.color() & 0xFFFFFF));
+        graphics2D.setStroke(new BasicStroke(lineWidth(stroke) * lineScale, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+
+        Path2D.Double path = new Path2D.Double();
+        path.moveTo(xs[0] * scaleX, ys[0] * scaleY);
+        if (xs.length == 1) {
+            // 单点笔画画成一个圆点
+            path.lineTo(xs[0] * scaleX, ys[0] * scaleY);
+        }
+        for (int i = 1; i < xs.length; i++) {
+            path.lineTo(xs[i] * scaleX, ys[i] * scaleY);
+        }
+        graphics2D.draw(path);
+    }
+
+    /**
+     * 笔画按原始尺寸绘制时会改变的像素范围：坐标包围盒向外扩展半个线宽，再留出抗锯齿的边缘
+     *
+     * @param stroke 笔画
+     * @return 像素范围（可能超出画布），空笔画返回null
+     */
+    public static Rectangle bounds(StrokeCodec.Stroke stroke) {
+        int[] xs = stroke.xs();
+        int[] ys = stroke.ys();
+        if (xs.length == 0) {
+            return null;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        int margin = (int) Math.ceil(lineWidth(stroke) / 2.0) + 2;
+        return new Rectangle(minX - margin, minY - margin, maxX - minX + 2 * margin + 1, maxY - minY + 2 * margin + 1);
+    }
+
+    private static float lineWidth(StrokeCodec.Stroke stroke) {
+        return Math.max(1, Math.min(100, stroke.lineWidth()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.pictionary.warmup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动预热配置
+ * 属性前缀为 pictionary.warmup
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pictionary.warmup")
+public class WarmupProperties {
+
+    // 预热的总时间预算，超出后不再等待，直接报告就绪
+    private Duration budget = Duration.ofSeconds(30);
+
+    // 预热的识别服务Bean名称，为空时预热参与自动路由的识别服务
+    private List<String> providers = new ArrayList<>();
+
+    // 每轮中每个CPU线程处理的合成画布数
+    private int canvasesPerRound = 4;
+
+    // 最少轮数
+    private int minRounds = 10;
+
+    // 最多轮数
+    private int maxRounds = 500;
+
+    // 一轮中新增的JIT编译耗时低于该值时认为热点方法已编译完成
+    private Duration quietCompileTime = Duration.ofMillis(5);
+}
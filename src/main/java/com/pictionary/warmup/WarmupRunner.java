@@ -0,0 +1,252 @@
+package com.pictionary.warmup;
+
+import com.pictionary.bulkhead.Bulkhead;
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.monitor.RecognitionContext;
+import com.pictionary.router.ProviderRegistry;
+import com.pictionary.tuning.ImageProfile;
+import com.pictionary.tuning.ImageProfiles;
+import com.pictionary.util.ImageUtil;
+import com.pictionary.util.SketchBitmap;
+import com.pictionary.util.StrokeCodec;
+import com.pictionary.util.StrokeRasterizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 启动预热
+ * 部署后的第一批识别请求要承担获取访问令牌、建立TLS连接、ImageIO插件发现、Java2D初始化和像素循环的解释执行，
+ * 比稳定状态慢得多。预热在 ApplicationRunner 中同步执行：Spring Boot 在所有 ApplicationRunner 结束后才把就绪状态
+ * 设为 ACCEPTING_TRAFFIC，因此预热完成（或用完时间预算）之前 /actuator/health/readiness 一直是 OUT_OF_SERVICE。
+ * <ul>
+ *     <li>识别服务：在各自的上游调用隔离舱中调用 ImageRecognitionService.warmUp()，获取令牌并建立连接</li>
+ *     <li>图像管线：在CPU隔离舱的每个线程上反复处理合成画布（笔画编解码、光栅化、各识别服务的图像规格预处理、
+ *     简笔画二值化），直到一轮新增的JIT编译耗时低于 quiet-compile-time</li>
+ * </ul>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "pictionary.warmup.enabled", havingValue = "true")
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    // 与前端画布相同的大小
+    private static final int CANVAS_WIDTH = 500;
+    private static final int CANVAS_HEIGHT = 400;
+
+    private final WarmupProperties properties;
+    private final ProviderRegistry providerRegistry;
+    private final ImageProfiles imageProfiles;
+    private final Bulkheads bulkheads;
+
+    public WarmupRunner(WarmupProperties properties, ProviderRegistry providerRegistry, ImageProfiles imageProfiles,
+                        Bulkheads bulkheads) {
+        this.properties = properties;
+        this.providerRegistry = providerRegistry;
+        this.imageProfiles = imageProfiles;
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + properties.getBudget().toNanos();
+        log.info("开始启动预热，时间预算 {}", properties.getBudget());
+
+        // 识别服务的网络预热与图像管线的CPU预热同时进行
+        List<CompletableFuture<Void>> providerTasks = warmUpProviders();
+        warmUpPipeline(deadline);
+
+        try {
+            CompletableFuture.allOf(providerTasks.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("识别服务预热超出时间预算，未完成的预热继续在后台执行");
+        } catch (ExecutionException e) {
+            // 单个识别服务的失败已在 warmUpProvider 中记录
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("启动预热结束，耗时 {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 在各识别服务的上游调用隔离舱中执行预热
+     */
+    private List<CompletableFuture<Void>> warmUpProviders() {
+        Set<String> names = new LinkedHashSet<>();
+        List<String> configured = properties.getProviders().isEmpty()
+                ? providerRegistry.getRoutableNames() : properties.getProviders();
+        for (String name : configured) {
+            String resolved = providerRegistry.resolveName(name);
+            if (resolved == null) {
+                log.warn("预热配置了未知的识别服务: {}", name);
+            } else {
+                names.add(resolved);
+            }
+        }
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (String name : names) {
+            RecognitionContext.setProvider(name);
+            try {
+                tasks.add(CompletableFuture.runAsync(() -> warmUpProvider(name), bulkheads.io(name)));
+            } catch (RejectedExecutionException e) {
+                log.warn("识别服务 {} 的上游调用隔离舱已满，跳过预热", name);
+            } finally {
+                RecognitionContext.clear();
+            }
+        }
+        return tasks;
+    }
+
+    private void warmUpProvider(String name) {
+        long start = System.nanoTime();
+        try {
+            // 第一次获取时创建识别服务Bean（识别服务都是懒加载的）
+            providerRegistry.getService(name).warmUp();
+            log.info("识别服务 {} 预热完成，耗时 {} ms", name, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("识别服务 {} 预热失败: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 按轮处理合成画布，直到JIT编译平息、达到最多轮数或用完时间预算
+     */
+    private void warmUpPipeline(long deadline) {
+        Bulkhead cpu = bulkheads.cpu();
+        List<ImageProfile> profiles = List.copyOf(new LinkedHashSet<>(imageProfiles.getAll().values()));
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean compileTimeSupported = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        long quietCompileMs = properties.getQuietCompileTime().toMillis();
+
+        long compileStart = compileTimeSupported ? compilation.getTotalCompilationTime() : 0;
+        long lastCompileTime = compileStart;
+        long firstRoundMs = -1;
+        long lastRoundMs = -1;
+        int round = 0;
+        while (round < properties.getMaxRounds() && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            try {
+                for (int t = 0; t < cpu.getThreads(); t++) {
+                    long seed = (long) round * cpu.getThreads() + t;
+                    tasks.add(CompletableFuture.runAsync(() -> processCanvases(seed, profiles), cpu));
+                }
+            } catch (RejectedExecutionException e) {
+                // Web服务器已经开始接收请求，CPU隔离舱已满时让位给真实请求
+                log.warn("CPU隔离舱已满，提前结束图像管线预热");
+                break;
+            }
+            try {
+                CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                break;
+            } catch (ExecutionException e) {
+                log.warn("图像管线预热失败", e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            round++;
+            lastRoundMs = (System.nanoTime() - roundStart) / 1_000_000;
+            if (firstRoundMs < 0) {
+                firstRoundMs = lastRoundMs;
+            }
+
+            if (round >= properties.getMinRounds()) {
+                if (!compileTimeSupported) {
+                    break;
+                }
+                long compileTime = compilation.getTotalCompilationTime();
+                long delta = compileTime - lastCompileTime;
+                lastCompileTime = compileTime;
+                if (delta < quietCompileMs) {
+                    break;
+                }
+            } else if (compileTimeSupported) {
+                lastCompileTime = compilation.getTotalCompilationTime();
+            }
+        }
+        log.info("图像管线预热 {} 轮（每轮 {} 线程 x {} 幅画布，像素内核 {}），第一轮 {} ms，最后一轮 {} ms，JIT编译耗时 {} ms",
+                round, cpu.getThreads(), properties.getCanvasesPerRound(), ImageUtil.getPixelKernels(), firstRoundMs, lastRoundMs,
+                compileTimeSupported ? compilation.getTotalCompilationTime() - compileStart : -1);
+    }
+
+    /**
+     * 让合成画布走一遍识别请求的完整预处理路径
+     */
+    private void processCanvases(long seed, List<ImageProfile> profiles) {
+        Random random = new Random(seed);
+        try {
+            for (int i = 0; i < properties.getCanvasesPerRound(); i++) {
+                // 笔画上传：编解码和简化
+                StrokeCodec.Drawing drawing = syntheticDrawing(random);
+                drawing = StrokeCodec.simplify(StrokeCodec.decode(StrokeCodec.encode(drawing, 1)), 1.0);
+
+                // 光栅化并编码为PNG（前端画布上传的格式）
+                String canvas = ImageUtil.toPngBase64(StrokeRasterizer.render(drawing, drawing.width(), drawing.height()));
+                byte[] png = Base64.getDecoder().decode(canvas);
+
+                // 各识别服务的图像规格
+                for (ImageProfile profile : profiles) {
+                    profile.preprocess(png);
+                }
+
+                // 简笔画二值化
+                BufferedImage image = ImageUtil.decodeCanvas(png, 300, 300);
+                if (image != null) {
+                    SketchBitmap.fromImage(ImageUtil.enhanceContrast(image), 200).toImage();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 生成随机游走的笔画，粗细和点数与手绘相近
+     */
+    private static StrokeCodec.Drawing syntheticDrawing(Random random) {
+        int strokeCount = 3 + random.nextInt(8);
+        List<StrokeCodec.Stroke> strokes = new ArrayList<>(strokeCount);
+        for (int s = 0; s < strokeCount; s++) {
+            int points = 10 + random.nextInt(80);
+            int[] xs = new int[points];
+            int[] ys = new int[points];
+            xs[0] = random.nextInt(CANVAS_WIDTH);
+            ys[0] = random.nextInt(CANVAS_HEIGHT);
+            for (int i = 1; i < points; i++) {
+                xs[i] = Math.max(0, Math.min(CANVAS_WIDTH - 1, xs[i - 1] + random.nextInt(21) - 10));
+                ys[i] = Math.max(0, Math.min(CANVAS_HEIGHT - 1, ys[i - 1] + random.nextInt(21) - 10));
+            }
+            strokes.add(new StrokeCodec.Stroke(0x000000, 3 + random.nextInt(8), xs, ys));
+        }
+        return new StrokeCodec.Drawing(CANVAS_WIDTH, CANVAS_HEIGHT, strokes);
+    }
+}
@@ -0,0 +1,13 @@
+-- 识别历史记录表（H2 / MySQL 通用）
+CREATE TABLE IF NOT EXISTS recognition_history (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    image_hash  CHAR(64),
+    image_size  INT,
+    image_data  BLOB,
+    provider    VARCHAR(64),
+    prediction  VARCHAR(255),
+    confidence  INT,
+    success     BOOLEAN,
+    latency_ms  BIGINT,
+    created_at  TIMESTAMP
+);
@@ -9,8 +9,14 @@ document.addEventListener('DOMContentLoaded', function() {
     const resultArea = document.getElementById('resultArea');
     const loadingIndicator = document.getElementById('loadingIndicator');
     
-    // 默认使用百度API
-    let currentApi = 'baidu';
+    // 默认由服务端根据延迟和错误率自动选择
+    let currentApi = 'auto';
+
+    const apiNames = {
+        auto: '自动选择',
+        baidu: '百度AI',
+        doubao: '豆包AI'
+    };
     
     // 创建API选择器UI
     function createApiSelector() {
@@ -28,6 +34,11 @@ document.addEventListener('DOMContentLoaded', function() {
         apiSelector.id = 'apiSelector';
         
         // 添加选项
+        const autoOption = document.createElement('option');
+        autoOption.value = 'auto';
+        autoOption.textContent = apiNames.auto;
+        apiSelector.appendChild(autoOption);
+
         const baiduOption = document.createElement('option');
         baiduOption.value = 'baidu';
         baiduOption.textContent = '百度AI';
@@ -47,7 +58,7 @@ document.addEventListener('DOMContentLoaded', function() {
         // 添加选择器变更事件
         apiSelector.addEventListener('change', function(e) {
             currentApi = e.target.value;
-            console.log('已切换到', currentApi === 'baidu' ? '百度AI' : '豆包AI');
+            console.log('已切换到', apiNames[currentApi]);
         });
     }
 
@@ -64,19 +75,15 @@ document.addEventListener('DOMContentLoaded', function() {
         const canvas = document.getElementById('drawingCanvas');
         const imageData = canvas.toDataURL('image/png');
         
-        // 根据选择的API确定请求URL
-        const apiUrl = currentApi === 'baidu' 
-            ? '/api/drawing/recognize' 
-            : '/api/drawing/doubao/recognize';
-
-        // 发送到后端API
-        fetch(apiUrl, {
+        // 统一识别入口，provider为auto时由服务端自动选择识别服务
+        fetch('/api/recognize', {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json'
             },
             body: JSON.stringify({
-                imageData: imageData
+                imageData: imageData,
+                provider: currentApi
             })
         })
         .then(response => response.json())
@@ -86,7 +93,8 @@ document.addEventListener('DOMContentLoaded', function() {
             if (data.success) {
                 const prediction = data.prediction;
                 const confidence = data.confidence;
-                const apiName = currentApi === 'baidu' ? '百度AI' : '豆包AI';
+                const apiName = data.provider && data.provider.startsWith('baidu') ? '百度AI'
+                    : data.provider && data.provider.startsWith('doubao') ? '豆包AI' : 'AI';
 
                 resultArea.innerHTML = `
                     <div class="prediction">
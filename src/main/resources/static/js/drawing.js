@@ -14,12 +14,39 @@ document.addEventListener('DOMContentLoaded', function() {
     const resultArea = document.getElementById('resultArea');
     const loadingIndicator = document.getElementById('loadingIndicator');
 
+    // 上传笔画时的RDP简化容差（像素），小于线宽的偏差对识别没有影响
+    const STROKE_SIMPLIFY_TOLERANCE = 1.5;
+
     let isDrawing = false;
     let lastX = 0;
     let lastY = 0;
     let paths = [];
     let currentPath = [];
     let currentStyle = {};
+    // 笔画日志：每幅绘画一个ID，清空画布后开始新的绘画
+    let drawingId = newDrawingId();
+    let strokeSeq = 0;
+    // 服务端未启用笔画日志（404）后不再上传笔画事件
+    let strokeLogEnabled = true;
+    // 进行中的AI猜测，新的猜测、清除画布或关闭页面时中止
+    let guessController = null;
+    let guessId = null;
+    // 服务端绘画会话：paths 的前 sessionSynced 个笔画已同步到服务端，猜测时只上传之后的变化；
+    // 服务端未启用会话时改为每次上传全部笔画
+    let sessionsEnabled = true;
+    let sessionSynced = 0;
+    let sessionRevision = 0;
+    // 游戏中以 ?room=<房间ID>&player=<玩家>&token=<玩家令牌> 打开画板时随识别请求发送，
+    // 玩家是当前回合的画手时服务端按回合的目标词记录混淆统计；令牌读取后从地址栏移除，不留在浏览历史中
+    const pageParams = new URLSearchParams(window.location.search);
+    const gameRoom = pageParams.get('room') || undefined;
+    const gamePlayer = pageParams.get('player') || undefined;
+    const gameToken = pageParams.get('token') || undefined;
+    if (gameToken) {
+        pageParams.delete('token');
+        const query = pageParams.toString();
+        history.replaceState(history.state, '', window.location.pathname + (query ? '?' + query : '') + window.location.hash);
+    }
 
     // 阻止触摸设备上的默认滚动行为
     canvas.addEventListener('touchstart', function(e) {
@@ -85,28 +112,65 @@ document.addEventListener('DOMContentLoaded', function() {
         if (isDrawing) {
             isDrawing = false;
             if (currentPath.length > 0) {
-                paths.push({
+                const path = {
                     points: currentPath,
                     style: currentStyle
-                });
+                };
+                paths.push(path);
+                logStrokeEvent('stroke', StrokeCodec.encode([path], canvas.width, canvas.height, STROKE_SIMPLIFY_TOLERANCE, 1));
             }
         }
     }
 
     // 清除画布
     function clearCanvas() {
+        cancelGuess();
+        loadingIndicator.classList.add('hidden');
         ctx.clearRect(0, 0, canvas.width, canvas.height);
         paths = [];
+        logStrokeEvent('clear');
+        deleteSession();
+        drawingId = newDrawingId();
+        strokeSeq = 0;
         resultArea.innerHTML = '<p>请在左侧画布上绘制一个物体，然后点击"AI猜测"按钮。</p>';
     }
 
     function undoLastPath() {
         if (paths.length > 0) {
             paths.pop();
+            sessionSynced = Math.min(sessionSynced, paths.length);
+            logStrokeEvent('undo');
             redrawCanvas();
         }
     }
 
+    function newDrawingId() {
+        if (window.crypto && crypto.randomUUID) {
+            return crypto.randomUUID();
+        }
+        return Date.now().toString(36) + '-' + Math.random().toString(36).slice(2, 10);
+    }
+
+    // 上传笔画事件用于回放和观战，不等待响应，失败时直接忽略，不影响绘画
+    function logStrokeEvent(type, payload) {
+        if (!strokeLogEnabled) {
+            return;
+        }
+        const seq = strokeSeq++;
+        fetch('/api/strokes/' + drawingId + '?seq=' + seq + '&type=' + type, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/octet-stream'
+            },
+            body: payload || new Uint8Array(0),
+            keepalive: true
+        }).then(response => {
+            if (response.status === 404) {
+                strokeLogEnabled = false;
+            }
+        }).catch(() => {});
+    }
+
     function redrawCanvas() {
         ctx.clearRect(0, 0, canvas.width, canvas.height);
         paths.forEach(path => {
@@ -133,26 +197,182 @@ document.addEventListener('DOMContentLoaded', function() {
         ctx.lineWidth = lineWidth.value;
     }
 
+    // 中止进行中的猜测：中止fetch只会关闭连接，服务端未必能立即察觉，再按猜测ID通知服务端取消上游调用
+    function cancelGuess() {
+        if (!guessController) {
+            return;
+        }
+        guessController.abort();
+        guessController = null;
+        fetch('/api/recognize/' + encodeURIComponent(guessId) + '/cancel', {
+            method: 'POST',
+            keepalive: true
+        }).catch(() => {});
+    }
+
+    // 释放服务端的绘画会话，失败时由服务端按空闲超时淘汰
+    function deleteSession() {
+        if (sessionsEnabled && sessionRevision > 0) {
+            fetch('/api/recognize/sessions/' + encodeURIComponent(drawingId), {
+                method: 'DELETE',
+                keepalive: true
+            }).catch(() => {});
+        }
+        sessionSynced = 0;
+        sessionRevision = 0;
+    }
+
+    // 两个笔画列表相同的前缀长度（按对象比较，撤销后重画的笔画是新对象）
+    function commonPrefix(a, b) {
+        let n = 0;
+        while (n < a.length && n < b.length && a[n] === b[n]) {
+            n++;
+        }
+        return n;
+    }
+
+    // 读取识别响应：服务端以SSE返回时逐个处理事件，partial 事件为部分识别文本，result 事件为最终结果
+    // （JSON接口的响应体，HTTP状态码在 status 中）；其它响应（例如请求错误）按JSON读取
+    function readGuessResponse(response, onPartial) {
+        const contentType = response.headers.get('Content-Type') || '';
+        if (!contentType.startsWith('text/event-stream') || !response.body) {
+            return response.json().then(data => ({ status: response.status, data: data }));
+        }
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+        let result = null;
+
+        function handleEvent(block) {
+            let name = 'message';
+            const lines = [];
+            block.split('\n').forEach(line => {
+                if (line.startsWith('event:')) {
+                    name = line.slice(6).trim();
+                } else if (line.startsWith('data:')) {
+                    lines.push(line.slice(5).replace(/^ /, ''));
+                }
+            });
+            if (lines.length === 0) {
+                return;
+            }
+            const data = JSON.parse(lines.join('\n'));
+            if (name === 'partial') {
+                onPartial(data.prediction);
+            } else if (name === 'result') {
+                result = data;
+            }
+        }
+
+        function pump() {
+            return reader.read().then(({ done, value }) => {
+                buffer += decoder.decode(value || new Uint8Array(0), { stream: !done });
+                buffer = buffer.replace(/\r\n/g, '\n');
+                let end;
+                while ((end = buffer.indexOf('\n\n')) >= 0) {
+                    handleEvent(buffer.slice(0, end));
+                    buffer = buffer.slice(end + 2);
+                }
+                if (!done) {
+                    return pump();
+                }
+                if (buffer.trim()) {
+                    handleEvent(buffer);
+                }
+                if (!result) {
+                    throw new Error('识别结果流意外结束');
+                }
+                return { status: result.status || response.status, data: result };
+            });
+        }
+        return pump();
+    }
+
+    // 发送笔画识别：启用绘画会话时只上传保留的笔画数和之后的新笔画，会话失效（409）时重新上传全部笔画一次。
+    // 请求以SSE返回，支持流式的识别服务在识别过程中通过 onPartial 给出部分结果
+    function postGuess(controller, resync, onPartial) {
+        const headers = {
+            'Content-Type': 'application/json',
+            'Accept': 'text/event-stream, application/json;q=0.9',
+            'X-Guess-Id': guessId
+        };
+        if (!sessionsEnabled) {
+            // 上传简化后的笔画而不是整张PNG，数据量小得多，由服务端光栅化
+            return fetch('/api/recognize', {
+                method: 'POST',
+                headers: headers,
+                body: JSON.stringify({
+                    strokes: StrokeCodec.encodeBase64(paths, canvas.width, canvas.height, STROKE_SIMPLIFY_TOLERANCE, 1),
+                    roomId: gameRoom,
+                    player: gamePlayer,
+                    playerToken: gameToken
+                }),
+                signal: controller.signal
+            })
+            .then(response => readGuessResponse(response, onPartial))
+            .then(result => result.data);
+        }
+
+        const sent = paths.slice();
+        const session = drawingId;
+        const from = resync ? 0 : Math.min(sessionSynced, sent.length);
+        const revision = ++sessionRevision;
+        return fetch('/api/recognize/sessions/' + encodeURIComponent(session), {
+            method: 'POST',
+            headers: headers,
+            body: JSON.stringify({
+                revision: revision,
+                from: from,
+                strokes: StrokeCodec.encodeBase64(sent.slice(from), canvas.width, canvas.height, STROKE_SIMPLIFY_TOLERANCE, 1),
+                roomId: gameRoom,
+                player: gamePlayer,
+                playerToken: gameToken
+            }),
+            signal: controller.signal
+        })
+        .then(response => readGuessResponse(response, onPartial))
+        .then(({ status, data }) => {
+            if (status === 404) {
+                sessionsEnabled = false;
+                return postGuess(controller, false, onPartial);
+            }
+            if (status === 409 && data.resync && !resync) {
+                return postGuess(controller, true, onPartial);
+            }
+            // 服务端已应用这次上传；等待期间撤销或新画的笔画留到下次上传
+            if (data.sessionRevision === revision && drawingId === session) {
+                sessionSynced = commonPrefix(sent, paths);
+            }
+            return data;
+        });
+    }
+
     // AI猜测功能
     function aiGuess() {
+        cancelGuess();
+        const controller = new AbortController();
+        guessController = controller;
+        guessId = newDrawingId();
         loadingIndicator.classList.remove('hidden');
         resultArea.innerHTML = '';
 
-        // 获取画布数据
-        const imageData = canvas.toDataURL('image/png');
+        // 部分识别结果先显示出来，最终结果到达后替换
+        const showPartial = text => {
+            if (guessController === controller && text) {
+                resultArea.innerHTML = `
+                    <div class="prediction">
+                        <p>我猜这是一个: ${text}…</p>
+                    </div>
+                `;
+            }
+        };
 
-        // 发送到后端API
-        fetch('/api/drawing/doubao/recognize', {
-            method: 'POST',
-            headers: {
-                'Content-Type': 'application/json'
-            },
-            body: JSON.stringify({
-                imageData: imageData
-            })
-        })
-        .then(response => response.json())
+        // 发送到后端统一识别入口，由服务端选择识别服务
+        postGuess(controller, false, showPartial)
         .then(data => {
+            if (guessController === controller) {
+                guessController = null;
+            }
             loadingIndicator.classList.add('hidden');
 
             if (data.success) {
@@ -177,6 +397,13 @@ document.addEventListener('DOMContentLoaded', function() {
             }
         })
         .catch(error => {
+            // 被新的猜测或清除画布取代，界面已由取代它的操作更新
+            if (error.name === 'AbortError') {
+                return;
+            }
+            if (guessController === controller) {
+                guessController = null;
+            }
             loadingIndicator.classList.add('hidden');
             resultArea.innerHTML = `
                 <div class="error">
@@ -203,6 +430,7 @@ document.addEventListener('DOMContentLoaded', function() {
     clearButton.addEventListener('click', clearCanvas);
     undoButton.addEventListener('click', undoLastPath);
     guessButton.addEventListener('click', aiGuess);
+    window.addEventListener('pagehide', cancelGuess);
     colorPicker.addEventListener('change', updateColor);
     lineWidth.addEventListener('input', updateLineWidth);
 });
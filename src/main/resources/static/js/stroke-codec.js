@@ -0,0 +1,123 @@
+// 笔画二进制编码，与服务端 com.pictionary.util.StrokeCodec 格式一致：
+// 版本(1字节)  画布宽  画布高  量化步长  笔画数
+// 每个笔画：颜色(0xRRGGBB)  线宽  点数  第一个点的x、y  其余各点相对前一点的dx、dy
+// 除版本外所有数值都是 varint 编码，坐标差值先做 zigzag 变换。
+
+const StrokeCodec = (function() {
+    const VERSION = 1;
+
+    function writeVarint(out, value) {
+        value = value >>> 0;
+        while (value > 0x7F) {
+            out.push((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.push(value);
+    }
+
+    function zigzag(value) {
+        return ((value << 1) ^ (value >> 31)) >>> 0;
+    }
+
+    // '#rrggbb' 转为整数颜色，无法解析时按黑色处理
+    function parseColor(color) {
+        if (typeof color === 'string' && /^#[0-9a-fA-F]{6}$/.test(color)) {
+            return parseInt(color.substring(1), 16);
+        }
+        return 0;
+    }
+
+    // 点到线段距离的平方
+    function segmentDistanceSq(p, a, b) {
+        const dx = b.x - a.x;
+        const dy = b.y - a.y;
+        const lengthSq = dx * dx + dy * dy;
+        let t = lengthSq === 0 ? 0 : ((p.x - a.x) * dx + (p.y - a.y) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        const ex = a.x + t * dx - p.x;
+        const ey = a.y + t * dy - p.y;
+        return ex * ex + ey * ey;
+    }
+
+    // Ramer–Douglas–Peucker 折线简化，首尾点总是保留
+    function simplify(points, tolerance) {
+        const n = points.length;
+        if (tolerance <= 0 || n <= 2) {
+            return points;
+        }
+        const keep = new Uint8Array(n);
+        keep[0] = 1;
+        keep[n - 1] = 1;
+        const toleranceSq = tolerance * tolerance;
+        const stack = [0, n - 1];
+        while (stack.length > 0) {
+            const end = stack.pop();
+            const start = stack.pop();
+            let maxDistSq = 0;
+            let index = -1;
+            for (let i = start + 1; i < end; i++) {
+                const d = segmentDistanceSq(points[i], points[start], points[end]);
+                if (d > maxDistSq) {
+                    maxDistSq = d;
+                    index = i;
+                }
+            }
+            if (index >= 0 && maxDistSq > toleranceSq) {
+                keep[index] = 1;
+                stack.push(start, index, index, end);
+            }
+        }
+        return points.filter((p, i) => keep[i]);
+    }
+
+    /**
+     * 编码笔画
+     * @param paths     [{points: [{x, y}], style: {color, width}}]
+     * @param width     画布宽度
+     * @param height    画布高度
+     * @param tolerance RDP简化容差（像素）
+     * @param quantum   量化步长（像素）
+     * @returns {Uint8Array}
+     */
+    function encode(paths, width, height, tolerance, quantum) {
+        quantum = quantum || 1;
+        const out = [VERSION];
+        writeVarint(out, width);
+        writeVarint(out, height);
+        writeVarint(out, quantum);
+        writeVarint(out, paths.length);
+        paths.forEach(path => {
+            const points = simplify(path.points, tolerance || 0);
+            writeVarint(out, parseColor(path.style.color));
+            writeVarint(out, Math.max(1, Math.round(path.style.width)));
+            writeVarint(out, points.length);
+            let lastX = 0;
+            let lastY = 0;
+            points.forEach(p => {
+                const x = Math.round(p.x / quantum);
+                const y = Math.round(p.y / quantum);
+                writeVarint(out, zigzag(x - lastX));
+                writeVarint(out, zigzag(y - lastY));
+                lastX = x;
+                lastY = y;
+            });
+        });
+        return Uint8Array.from(out);
+    }
+
+    // 编码并转为Base64，便于放入JSON请求体
+    function encodeBase64(paths, width, height, tolerance, quantum) {
+        const bytes = encode(paths, width, height, tolerance, quantum);
+        let binary = '';
+        for (let i = 0; i < bytes.length; i += 0x8000) {
+            binary += String.fromCharCode.apply(null, bytes.subarray(i, i + 0x8000));
+        }
+        return btoa(binary);
+    }
+
+    return {
+        simplify: simplify,
+        encode: encode,
+        encodeBase64: encodeBase64
+    };
+})();
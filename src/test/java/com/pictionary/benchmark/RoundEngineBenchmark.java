@@ -0,0 +1,142 @@
+package com.pictionary.benchmark;
+
+import com.pictionary.game.GameProperties;
+import com.pictionary.game.GameService;
+import com.pictionary.game.Room;
+import com.pictionary.game.Round;
+import com.pictionary.game.Seat;
+import com.pictionary.label.LabelIndex;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 回合引擎基准测试
+ * 在单个节点上创建大量房间并持续开局、猜词，测量：
+ * 1. 每秒完成的回合数和猜词数
+ * 2. 同时进行的回合数
+ * 3. 倒计时结束的回合实际结束时间相对预定时间的延迟（时间轮精度）
+ *
+ * 用法：RoundEngineBenchmark [房间数=20000] [回合秒数=5] [运行秒数=30] [线程数=CPU核数]
+ */
+public class RoundEngineBenchmark {
+
+    private static final String[] WRONG_GUESSES = {"未知物体", "香肠", "火箭", "mountain", "钢琴"};
+
+    public static void main(String[] args) throws Exception {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int roundSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int runSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        GameProperties properties = new GameProperties();
+        properties.setRoundDuration(Duration.ofSeconds(roundSeconds));
+        properties.setMaxRooms(roomCount);
+        LabelIndex labelIndex;
+        try (Reader reader = new InputStreamReader(
+                RoundEngineBenchmark.class.getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            labelIndex = LabelIndex.load(reader);
+        }
+        GameService gameService = new GameService(properties, labelIndex);
+
+        // 每个房间3名玩家：1名画手、2名猜词者
+        String[] roomIds = new String[roomCount];
+        Map<String, Map<String, String>> tokens = new HashMap<>();
+        for (int i = 0; i < roomCount; i++) {
+            Seat seat = gameService.createRoom("p0");
+            String roomId = seat.room().getId();
+            Map<String, String> roomTokens = new HashMap<>();
+            roomTokens.put("p0", seat.token());
+            roomTokens.put("p1", gameService.joinRoom(roomId, "p1", null).token());
+            roomTokens.put("p2", gameService.joinRoom(roomId, "p2", null).token());
+            tokens.put(roomId, roomTokens);
+            roomIds[i] = roomId;
+        }
+        System.out.printf("已创建 %d 个房间，回合时长 %ds，运行 %ds，%d 个线程%n", roomCount, roundSeconds, runSeconds, threads);
+
+        ConcurrentLinkedQueue<Round> timedRounds = new ConcurrentLinkedQueue<>();
+        LongAdder operations = new LongAdder();
+        long deadline = System.nanoTime() + Duration.ofSeconds(runSeconds).toNanos();
+        long startNanos = System.nanoTime();
+        long startedBefore = (long) gameService.getStats().get("startedRounds");
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String roomId = roomIds[random.nextInt(roomIds.length)];
+                    Room room = gameService.getRoom(roomId);
+                    try {
+                        Round round = room.getCurrentRound();
+                        if (round == null || round.isFinished()) {
+                            timedRounds.add(gameService.startRound(roomId, "p0", tokens.get(roomId).get("p0")));
+                        } else {
+                            String player = random.nextBoolean() ? "p1" : "p2";
+                            if (player.equals(round.getDrawer())) {
+                                player = "p0";
+                            }
+                            // 约2%的猜测正确，其余回合靠倒计时结束
+                            String guess = random.nextInt(50) == 0
+                                    ? round.getTarget()
+                                    : WRONG_GUESSES[random.nextInt(WRONG_GUESSES.length)];
+                            gameService.guess(roomId, player, tokens.get(roomId).get(player), guess);
+                        }
+                        operations.increment();
+                    } catch (IllegalStateException | IllegalArgumentException e) {
+                        // 与其它线程竞争同一个房间时的正常冲突
+                    }
+                }
+            }, "bench-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(5000);
+            Map<String, Object> stats = gameService.getStats();
+            System.out.printf("进行中回合 %s，已完成回合 %s，猜词 %s，待执行定时器 %s%n",
+                    stats.get("activeRounds"), stats.get("finishedRounds"), stats.get("guesses"), stats.get("pendingTimers"));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        // 等待最后一批回合倒计时结束，统计时间轮延迟
+        Thread.sleep(Duration.ofSeconds(roundSeconds).toMillis() + 1000);
+        long[] lateness = timedRounds.stream()
+                .filter(r -> r.isFinished() && r.getEndReason() == Round.EndReason.TIMEOUT)
+                .mapToLong(r -> r.getEndedAt() - r.getEndsAt())
+                .sorted()
+                .toArray();
+
+        Map<String, Object> stats = gameService.getStats();
+        long started = (long) stats.get("startedRounds") - startedBefore;
+        System.out.println();
+        System.out.printf("开局回合数:      %d (%.0f 回合/秒)%n", started, started / elapsedSeconds);
+        System.out.printf("操作数:          %d (%.0f 次/秒)%n", operations.sum(), operations.sum() / elapsedSeconds);
+        System.out.printf("最大并发回合数:  约 %d%n", Math.min(roomCount, (long) (started / elapsedSeconds * roundSeconds)));
+        if (lateness.length > 0) {
+            System.out.printf("倒计时延迟(ms):  p50=%d p99=%d max=%d (共 %d 个回合，刻度 %dms)%n",
+                    percentile(lateness, 0.5), percentile(lateness, 0.99), lateness[lateness.length - 1],
+                    lateness.length, properties.getTick().toMillis());
+        }
+        System.out.printf("堆内存占用:      %d MB%n",
+                (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024 * 1024));
+        gameService.stop();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+}
@@ -0,0 +1,161 @@
+package com.pictionary.benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 启动时间基准测试
+ * 分别以普通方式和 AppCDS + Spring AOT 方式多次启动应用，测量：
+ * 1. 启动时间：进程启动到首页返回200
+ * 2. 首次识别时间：进程启动到第一次识别请求成功返回
+ *
+ * 由 fast-startup 构建profile在 verify 阶段调用：
+ * StartupBenchmark &lt;应用jar&gt; &lt;CDS归档&gt; &lt;运行次数&gt; &lt;报告文件&gt;
+ */
+public class StartupBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("用法: StartupBenchmark <jar> <jsa> <runs> <report>");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        Path jsa = Path.of(args[1]);
+        int runs = Integer.parseInt(args[2]);
+        Path report = Path.of(args[3]);
+
+        StartupBenchmark benchmark = new StartupBenchmark();
+        String guessBody = "{\"imageData\":\"" + samplePng() + "\",\"provider\":\"mock\"}";
+
+        List<String> baseline = List.of();
+        List<String> optimized = new ArrayList<>(List.of("-Dspring.aot.enabled=true"));
+        if (Files.exists(jsa)) {
+            optimized.add("-XX:SharedArchiveFile=" + jsa.toAbsolutePath());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("启动基准测试: %s, 每种配置运行 %d 次%n", jar.getFileName(), runs));
+        sb.append(benchmark.measure("baseline", jar, baseline, runs, guessBody));
+        sb.append(benchmark.measure("cds+aot", jar, optimized, runs, guessBody));
+
+        System.out.print(sb);
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        Files.writeString(report, sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 以指定JVM参数多次启动应用，返回中位数统计
+     */
+    private String measure(String name, Path jar, List<String> jvmArgs, int runs, String guessBody) throws Exception {
+        List<Long> startupMs = new ArrayList<>();
+        List<Long> firstGuessMs = new ArrayList<>();
+
+        for (int i = 0; i < runs; i++) {
+            int port = freePort();
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmArgs);
+            command.add("-jar");
+            command.add(jar.toAbsolutePath().toString());
+            command.add("--server.port=" + port);
+            command.add("--logging.level.root=WARN");
+            command.add("--logging.level.com.pictionary=WARN");
+
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .directory(jar.toAbsolutePath().getParent().toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                String base = "http://localhost:" + port;
+                awaitOk(HttpRequest.newBuilder(URI.create(base + "/index2")).GET().build(), process);
+                startupMs.add((System.nanoTime() - start) / 1_000_000);
+
+                awaitOk(HttpRequest.newBuilder(URI.create(base + "/api/recognize"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(guessBody))
+                        .build(), process);
+                firstGuessMs.add((System.nanoTime() - start) / 1_000_000);
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+
+        return String.format("%-10s 启动时间中位数 %6d ms, 首次识别时间中位数 %6d ms  (启动: %s, 首次识别: %s)%n",
+                name, median(startupMs), median(firstGuessMs), startupMs, firstGuessMs);
+    }
+
+    /**
+     * 轮询请求直到返回200
+     */
+    private void awaitOk(HttpRequest request, Process process) throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("应用进程已退出，退出码 " + process.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // 端口尚未监听，继续等待
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("等待 " + request.uri() + " 超时");
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.isEmpty() ? -1 : sorted.get(sorted.size() / 2);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 生成一张与前端画布大小一致的简单线条画
+     */
+    private static String samplePng() throws IOException {
+        BufferedImage image = new BufferedImage(500, 400, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke(3));
+        g.drawOval(150, 100, 200, 200);
+        g.dispose();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", outputStream);
+        return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+    }
+}
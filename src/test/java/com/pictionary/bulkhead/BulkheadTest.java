@@ -0,0 +1,124 @@
+package com.pictionary.bulkhead;
+
+import com.pictionary.cancellation.CancellationToken;
+import com.pictionary.monitor.RecognitionContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTest {
+
+    @Test
+    void rejectsWhenThreadsAndQueueAreFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Integer> running = bulkhead.supply(() -> {
+                started.countDown();
+                await(release);
+                return 1;
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Integer> queued = bulkhead.supply(() -> 2);
+
+            assertThrows(BulkheadRejectedException.class, () -> bulkhead.supply(() -> 3));
+            assertThrows(BulkheadRejectedException.class, () -> bulkhead.call(() -> 4));
+            assertEquals(2, bulkhead.getRejectedCount());
+            assertEquals(1, bulkhead.getQueueSize());
+            assertEquals(1.0, bulkhead.getSaturation());
+
+            release.countDown();
+            assertEquals(1, running.get(5, TimeUnit.SECONDS).intValue());
+            assertEquals(2, queued.get(5, TimeUnit.SECONDS).intValue());
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void propagatesRecognitionContextAndRunsNestedCallsInline() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0);
+        try {
+            RecognitionContext.setProvider("doubao");
+            String provider = bulkhead.call(() -> {
+                // 只有一个线程，嵌套调用必须在当前线程直接执行，否则会互相等待
+                return bulkhead.call(RecognitionContext::getProvider);
+            });
+            assertEquals("doubao", provider);
+        } finally {
+            RecognitionContext.clear();
+            bulkhead.shutdown();
+        }
+        assertNull(RecognitionContext.getProvider());
+    }
+
+    @Test
+    void unwrapsTaskExceptions() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> bulkhead.call(() -> {
+                throw new IllegalStateException("boom");
+            }));
+            assertEquals("boom", e.getMessage());
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void cancellationInterruptsRunningTasksAndSkipsQueuedOnes() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+        CancellationToken cancellation = new CancellationToken();
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            RecognitionContext.setCancellation(cancellation);
+            CompletableFuture<String> running = bulkhead.supply(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                    return "finished";
+                } catch (InterruptedException e) {
+                    return "interrupted";
+                }
+            });
+            CompletableFuture<String> queued = bulkhead.supply(() -> "ran");
+            RecognitionContext.clear();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertTrue(cancellation.cancel(CancellationToken.Reason.CLIENT));
+            assertFalse(cancellation.cancel(CancellationToken.Reason.TIMEOUT));
+            assertEquals("interrupted", running.get(5, TimeUnit.SECONDS));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CancellationException.class, e.getCause());
+
+            // 取消留下的中断标记不会影响线程执行下一个请求的任务
+            assertEquals(Boolean.FALSE, bulkhead.supply(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+            RecognitionContext.setCancellation(cancellation);
+            assertThrows(CancellationException.class, () -> bulkhead.call(() -> "skipped"));
+        } finally {
+            RecognitionContext.clear();
+            bulkhead.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.pictionary.capture;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class CaptureCorpusTest {
+
+    @Test
+    void roundTripsRecordsAndIgnoresTruncatedTail() throws Exception {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new GZIPOutputStream(file, true));
+        CaptureCorpus.writeHeader(out, 1234L);
+        byte[] request = "{\"strokes\":\"AAEC\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] response = "{\"words_result\":[{\"words\":\"猫\"}]}".getBytes(StandardCharsets.UTF_8);
+        CaptureCorpus.write(out, new CaptureRecord.Recognize(5, "/api/recognize", "provider=fake", request));
+        CaptureCorpus.write(out, new CaptureRecord.Upstream(9, "baidu", "POST", "aip.baidubce.com",
+                "/rest/2.0/ocr/v1/handwriting", "access_token=REDACTED", 200, 321, "application/json", response));
+        out.flush();
+        int complete = file.size();
+        // 进程在写下一条记录时退出：只有部分数据被刷新
+        CaptureCorpus.write(out, new CaptureRecord.Recognize(10, "/api/recognize", "", new byte[4096]));
+        out.flush();
+        byte[] truncated = Arrays.copyOf(file.toByteArray(), complete + (file.size() - complete) / 2);
+
+        CaptureCorpus.Contents contents = CaptureCorpus.read(new ByteArrayInputStream(truncated));
+        assertEquals(1234L, contents.startEpochMs());
+        assertEquals(2, contents.records().size());
+        CaptureRecord.Recognize recognize = assertInstanceOf(CaptureRecord.Recognize.class, contents.records().get(0));
+        assertEquals("/api/recognize", recognize.path());
+        assertEquals("provider=fake", recognize.query());
+        assertArrayEquals(request, recognize.body());
+        CaptureRecord.Upstream upstream = assertInstanceOf(CaptureRecord.Upstream.class, contents.records().get(1));
+        assertEquals(9, upstream.offsetMs());
+        assertEquals("/rest/2.0/ocr/v1/handwriting", upstream.path());
+        assertEquals(200, upstream.status());
+        assertEquals(321, upstream.latencyMs());
+        assertArrayEquals(response, upstream.body());
+    }
+
+    @Test
+    void redactsTokensInQueriesAndBodies() {
+        assertEquals("access_token=REDACTED&image_type=BASE64",
+                Redactor.redactQuery("access_token=24.abc&image_type=BASE64"));
+        assertEquals("", Redactor.redactQuery(null));
+
+        String body = "{\"access_token\":\"24.6c5e\\\"x\",\"expires_in\":2592000,\"scope\":\"public\"}";
+        String redacted = new String(Redactor.redactBody(body.getBytes(StandardCharsets.UTF_8), "application/json;charset=UTF-8"),
+                StandardCharsets.UTF_8);
+        assertEquals("{\"access_token\":\"REDACTED\",\"expires_in\":2592000,\"scope\":\"public\"}", redacted);
+
+        assertEquals("error: Bearer REDACTED rejected", new String(Redactor.redactBody(
+                "error: Bearer sk-123.abc rejected".getBytes(StandardCharsets.UTF_8), "text/plain"), StandardCharsets.UTF_8));
+
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        assertArrayEquals(png, Redactor.redactBody(png, "image/png"));
+    }
+}
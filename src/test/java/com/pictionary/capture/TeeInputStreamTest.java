@@ -0,0 +1,38 @@
+package com.pictionary.capture;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeeInputStreamTest {
+
+    @Test
+    void copiesOnlyWhatWasReadUpToTheLimit() throws Exception {
+        String event = "data: {\"choices\":[{\"delta\":{\"content\":\"猫\"}}]}\n\n";
+        String sse = event.repeat(1000) + "data: [DONE]\n\n";
+        byte[] bytes = sse.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new TeeInputStream(new ByteArrayInputStream(bytes), copy, Long.MAX_VALUE), StandardCharsets.UTF_8))) {
+            assertEquals(event.trim(), reader.readLine());
+        }
+        // 提前关闭时只复制已读到的数据块（读取器的缓冲区），剩余的数据不会被读取
+        assertTrue(copy.size() >= event.length() && copy.size() < bytes.length, "copied " + copy.size());
+        assertTrue(Arrays.equals(bytes, 0, copy.size(), copy.toByteArray(), 0, copy.size()));
+
+        ByteArrayOutputStream limited = new ByteArrayOutputStream();
+        try (TeeInputStream in = new TeeInputStream(new ByteArrayInputStream(bytes), limited, 5)) {
+            assertEquals(bytes.length, in.readAllBytes().length);
+        }
+        assertEquals(5, limited.size());
+    }
+}
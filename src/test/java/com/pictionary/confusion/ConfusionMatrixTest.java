@@ -0,0 +1,81 @@
+package com.pictionary.confusion;
+
+import com.pictionary.label.LabelIndex;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfusionMatrixTest {
+
+    private static LabelIndex index;
+
+    @BeforeAll
+    static void loadVocabulary() throws IOException {
+        try (Reader reader = new InputStreamReader(
+                ConfusionMatrixTest.class.getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            index = LabelIndex.load(reader);
+        }
+    }
+
+    @Test
+    void countsConcurrentRecordsPerCellAndProvider() throws Exception {
+        ConfusionMatrix matrix = new ConfusionMatrix(index);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    // 目标词和识别结果按同义词归一：cat 是猫，“一只小狗”包含狗
+                    matrix.record("sketch", "cat", i % 4 == 0 ? "一只小狗" : "猫咪");
+                    matrix.record("mock", "狗", "qwerty");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(matrix.record("sketch", "不在词表里的词", "猫"));
+
+        ConfusionSnapshot snapshot = matrix.snapshot();
+        int cat = index.getLabelId("猫");
+        int dog = index.getLabelId("狗");
+        int other = snapshot.labels().length;
+        assertEquals(6000, snapshot.count(cat, cat));
+        assertEquals(2000, snapshot.count(cat, dog));
+        assertEquals(8000, snapshot.count(dog, other));
+        assertEquals(8000, snapshot.rowTotal(cat));
+        assertEquals(1, snapshot.unknownTargets());
+        assertEquals(0.75, snapshot.providers().get("sketch").hitRate(), 1e-9);
+        assertEquals(0, snapshot.providers().get("mock").hits());
+    }
+
+    @Test
+    void confusedWithRanksBothDirectionsAndNeedsEnoughSamples() {
+        ConfusionMatrix matrix = new ConfusionMatrix(index);
+        for (int i = 0; i < 10; i++) {
+            matrix.record("sketch", "猫", "猫");
+            matrix.record("sketch", "老虎", "猫");
+        }
+        for (int i = 0; i < 4; i++) {
+            matrix.record("sketch", "猫", "兔子");
+        }
+        matrix.record("sketch", "猫", "狗");
+
+        ConfusionSnapshot snapshot = matrix.snapshot();
+        int cat = index.getLabelId("猫");
+        assertEquals(List.of("老虎", "兔子", "狗"), snapshot.confusedWith(cat, 5, 25));
+        assertEquals(List.of("老虎"), snapshot.confusedWith(cat, 1, 25));
+        assertTrue(snapshot.confusedWith(cat, 5, 26).isEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+package com.pictionary.confusion;
+
+import com.pictionary.label.LabelIndex;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfusionStatsTest {
+
+    private static LabelIndex index;
+
+    @BeforeAll
+    static void loadVocabulary() throws IOException {
+        try (Reader reader = new InputStreamReader(
+                ConfusionStatsTest.class.getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            index = LabelIndex.load(reader);
+        }
+    }
+
+    @Test
+    void cachedAndNearDuplicateResultsAreNotRecorded() {
+        ConfusionStats stats = new ConfusionStats(index, new ConfusionProperties());
+
+        assertTrue(stats.recordResult("猫", result("doubao", "狗")));
+        assertFalse(stats.recordResult("猫", with(result("doubao", "狗"), "cached")));
+        assertFalse(stats.recordResult("猫", with(result("sketch", "狗"), "nearDuplicate")));
+        assertFalse(stats.recordResult("猫", Map.of("success", false, "message", "识别超时")));
+        assertFalse(stats.recordResult(null, result("doubao", "狗")));
+        assertFalse(stats.recordResult("猫", null));
+
+        stats.refresh();
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) stats.getStats().get("matrix");
+        assertEquals(1, rows.size());
+        assertEquals("猫", rows.get(0).get("target"));
+        assertEquals(1L, rows.get(0).get("total"));
+        assertEquals(Map.of("狗", 1L), rows.get(0).get("predicted"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> providers = (Map<String, Object>) stats.getStats().get("providers");
+        assertEquals(List.of("doubao"), List.copyOf(providers.keySet()));
+    }
+
+    private static Map<String, Object> result(String provider, String prediction) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("provider", provider);
+        result.put("prediction", prediction);
+        return result;
+    }
+
+    private static Map<String, Object> with(Map<String, Object> result, String flag) {
+        result.put(flag, true);
+        return result;
+    }
+}
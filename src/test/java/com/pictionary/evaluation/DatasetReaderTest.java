@@ -0,0 +1,81 @@
+package com.pictionary.evaluation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DatasetReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DatasetReader reader = new DatasetReader(objectMapper);
+
+    @Test
+    void parsesSimplifiedAndRawStrokes() throws Exception {
+        // 简化格式 [xs, ys]、原始格式 [xs, ys, ts]（坐标为小数）、长度不一致时按较短的一维截断
+        List<int[][]> strokes = DatasetReader.parseStrokes(objectMapper.readTree(
+                "[[[0,10,20],[5,6,7]], [[1.4,2.6],[3.5,4.2],[0,16]], [[1,2,3],[4,5]], [[7]]]"));
+
+        assertEquals(3, strokes.size());
+        assertArrayEquals(new int[]{0, 10, 20}, strokes.get(0)[0]);
+        assertArrayEquals(new int[]{5, 6, 7}, strokes.get(0)[1]);
+        assertArrayEquals(new int[]{1, 3}, strokes.get(1)[0]);
+        assertArrayEquals(new int[]{4, 4}, strokes.get(1)[1]);
+        assertArrayEquals(new int[]{1, 2}, strokes.get(2)[0]);
+    }
+
+    @Test
+    void readsNdjsonAndSkipsInvalidLines(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("cat.ndjson");
+        Files.writeString(file, String.join("\n",
+                "{\"word\":\"cat\",\"key_id\":\"42\",\"drawing\":[[[10,200],[10,150]]]}",
+                "",
+                "not json",
+                "{\"word\":\"cat\"}",
+                "{\"word\":\"dog\",\"drawing\":[[[0,50],[0,50],[0,10]]]}"), StandardCharsets.UTF_8);
+
+        List<EvaluationSample> samples;
+        try (Stream<EvaluationSample> stream = reader.open(file)) {
+            samples = stream.toList();
+        }
+
+        assertEquals(2, samples.size());
+        assertEquals("42", samples.get(0).id());
+        assertEquals("cat", samples.get(0).label());
+        assertEquals("cat.ndjson:5", samples.get(1).id());
+        assertEquals("dog", samples.get(1).label());
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(samples.get(0).png().call()));
+        assertEquals(DatasetReader.CANVAS_WIDTH, image.getWidth());
+        assertEquals(DatasetReader.CANVAS_HEIGHT, image.getHeight());
+    }
+
+    @Test
+    void labelsPngFilesBySubdirectoryOrFilePrefix(@TempDir Path dir) throws Exception {
+        Files.createDirectories(dir.resolve("苹果"));
+        Files.write(dir.resolve("苹果").resolve("001.png"), new byte[]{1});
+        Files.write(dir.resolve("cat_002.png"), new byte[]{2});
+        Files.write(dir.resolve("dog.PNG"), new byte[]{3});
+        Files.write(dir.resolve("notes.txt"), new byte[]{4});
+
+        List<EvaluationSample> samples;
+        try (Stream<EvaluationSample> stream = reader.open(dir)) {
+            samples = stream.sorted(Comparator.comparing(EvaluationSample::label)).toList();
+        }
+
+        assertEquals(List.of("cat", "dog", "苹果"), samples.stream().map(EvaluationSample::label).toList());
+        assertArrayEquals(new byte[]{2}, samples.get(0).png().call());
+    }
+}
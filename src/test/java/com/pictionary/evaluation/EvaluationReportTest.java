@@ -0,0 +1,86 @@
+package com.pictionary.evaluation;
+
+import com.pictionary.label.LabelIndex;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvaluationReportTest {
+
+    @Test
+    void latencyQuantilesAreBucketUpperBounds() {
+        EvaluationReport report = new EvaluationReport("mock");
+        assertEquals(0, report.latencyQuantileMs(0.5));
+
+        // 90个样本在 10ms 以内，9个在 200ms 桶，1个超过最后一个桶
+        for (int i = 0; i < 90; i++) {
+            report.record("猫", "猫", true, 5);
+        }
+        for (int i = 0; i < 9; i++) {
+            report.record("猫", "狗", false, 150);
+        }
+        report.record("猫", null, false, 60_000);
+
+        assertEquals(10, report.latencyQuantileMs(0.5));
+        assertEquals(10, report.latencyQuantileMs(0.9));
+        assertEquals(200, report.latencyQuantileMs(0.95));
+        assertEquals(200, report.latencyQuantileMs(0.99));
+        assertEquals(-1, report.latencyQuantileMs(1.0));
+        assertEquals(0.9, report.getAccuracy(), 1e-9);
+        assertTrue(report.toText().contains("P99<=200"));
+    }
+
+    @Test
+    void confusionMatrixCsvQuotesLabelsAndCountsErrors() {
+        EvaluationReport report = new EvaluationReport("mock");
+        report.record("cat", "cat", true, 1);
+        report.record("cat", "dog, maybe", false, 1);
+        report.record("dog", null, false, 1);
+        report.record("dog", "say \"dog\"", false, 1);
+
+        String[] lines = report.confusionMatrixCsv().split("\n");
+        assertEquals("label,<error>,cat,\"dog, maybe\",\"say \"\"dog\"\"\"", lines[0]);
+        assertEquals("cat,0,1,1,0", lines[1]);
+        assertEquals("dog,1,0,0,1", lines[2]);
+        assertEquals(3, lines.length);
+    }
+
+    @Test
+    void labelMappedHitsFollowCorrectnessAndColumnsUseCanonicalLabels() throws Exception {
+        LabelIndex labelIndex;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            labelIndex = LabelIndex.load(reader);
+        }
+        // 数据集类别 cat 通过类别映射对应“猫”，预测是自由文本
+        EvaluationReport report = new EvaluationReport("mock", labelIndex);
+        report.record("cat", "一只小猫", true, 1);
+        report.record("cat", "猫咪", true, 1);
+        report.record("cat", "小狗", false, 1);
+
+        String text = report.toText();
+        assertTrue(text.matches("(?s).*\\ncat +2/3 +最常混淆: 狗\\(1\\)\\n.*"), text);
+        String[] lines = report.confusionMatrixCsv().split("\n");
+        assertEquals("label,狗,猫", lines[0]);
+        assertEquals("cat,1,2", lines[1]);
+    }
+
+    @Test
+    void incompleteReportStatesUnevaluatedSamples() {
+        EvaluationReport report = new EvaluationReport("mock");
+        report.record("cat", "cat", true, 1);
+        report.finish();
+        assertTrue(report.isComplete());
+        assertFalse(report.toText().contains("未完成"));
+
+        report.markIncomplete(5);
+        assertFalse(report.isComplete());
+        assertTrue(report.toText().contains("4 个已提交的样本未评测"));
+    }
+}
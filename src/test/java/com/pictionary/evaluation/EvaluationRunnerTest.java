@@ -0,0 +1,48 @@
+package com.pictionary.evaluation;
+
+import com.pictionary.label.LabelIndex;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvaluationRunnerTest {
+
+    private static LabelIndex labelIndex;
+
+    @BeforeAll
+    static void loadVocabulary() throws IOException {
+        try (Reader reader = new InputStreamReader(
+                EvaluationRunnerTest.class.getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            labelIndex = LabelIndex.load(reader);
+        }
+    }
+
+    @Test
+    void datasetLabelsMatchCanonicalPredictions() {
+        // 数据集的英文类别名通过词表的同义词对应标准词
+        assertTrue(EvaluationRunner.isCorrect(labelIndex, "cat", "猫咪", Map.of()));
+        assertTrue(EvaluationRunner.isCorrect(labelIndex, "cat", "  CAT ", Map.of()));
+        assertFalse(EvaluationRunner.isCorrect(labelIndex, "cat", "狗", Map.of()));
+        assertFalse(EvaluationRunner.isCorrect(labelIndex, "cat", null, Map.of()));
+    }
+
+    @Test
+    void labelMapAndContainedLabelsCountAsCorrect() {
+        Map<String, List<String>> labelMap = Map.of("qwerty", List.of("键盘", "keyboard"));
+
+        assertTrue(EvaluationRunner.isCorrect(labelIndex, "qwerty", "a black keyboard", labelMap));
+        assertTrue(EvaluationRunner.isCorrect(labelIndex, "qwerty", "键盘", labelMap));
+        assertFalse(EvaluationRunner.isCorrect(labelIndex, "qwerty", "qwerty", labelMap));
+        // 不在词表中的类别按包含关系判断
+        assertTrue(EvaluationRunner.isCorrect(labelIndex, "zebra crossing", "a zebra crossing sign", Map.of()));
+    }
+}
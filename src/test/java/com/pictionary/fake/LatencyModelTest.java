@@ -0,0 +1,55 @@
+package com.pictionary.fake;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyModelTest {
+
+    private static long[] sample(LatencyModel model, long seed, int count) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = model.sampleMillis(random);
+        }
+        return samples;
+    }
+
+    @Test
+    void sameSeedGivesSameSamples() {
+        LatencyModel model = new LatencyModel(LatencyModel.Distribution.LOGNORMAL, 400, 0, 0.5, 0.05, 8, 20_000);
+        assertArrayEquals(sample(model, 42, 1000), sample(model, 42, 1000));
+        assertTrue(!Arrays.equals(sample(model, 42, 1000), sample(model, 43, 1000)));
+    }
+
+    @Test
+    void lognormalMedianAndTailSpikes() {
+        LatencyModel model = new LatencyModel(LatencyModel.Distribution.LOGNORMAL, 400, 0, 0.3, 0.02, 10, 60_000);
+        long[] samples = sample(model, 7, 20_000);
+        Arrays.sort(samples);
+        long median = samples[samples.length / 2];
+        assertTrue(median > 360 && median < 440, "median " + median);
+        // 不带尖刺时 sigma=0.3 的99.9分位约为 400*e^(0.3*3.1) ≈ 1000ms，尖刺把尾部拉到数千毫秒
+        assertTrue(samples[samples.length - 1] > 2000, "max " + samples[samples.length - 1]);
+    }
+
+    @Test
+    void fixedAndClamped() {
+        long[] fixed = sample(LatencyModel.fixed(500), 1, 100);
+        assertTrue(Arrays.stream(fixed).allMatch(v -> v == 500));
+
+        LatencyModel normal = new LatencyModel(LatencyModel.Distribution.NORMAL, 10, 100, 0, 0, 1, 50);
+        long[] samples = sample(normal, 3, 5000);
+        assertEquals(0, Arrays.stream(samples).min().getAsLong());
+        assertEquals(50, Arrays.stream(samples).max().getAsLong());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new LatencyModel(LatencyModel.Distribution.FIXED, 10, 0, 0, 1.5, 1, 10));
+    }
+}
@@ -0,0 +1,100 @@
+package com.pictionary.game;
+
+import com.pictionary.label.LabelIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameServiceTest {
+
+    private GameService gameService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LabelIndex labelIndex;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            labelIndex = LabelIndex.load(reader);
+        }
+        gameService = new GameService(new GameProperties(), labelIndex);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameService.stop();
+    }
+
+    @Test
+    void nonDrawerCannotObtainTarget() {
+        Seat drawer = gameService.createRoom("alice");
+        String roomId = drawer.room().getId();
+        Seat guesser = gameService.joinRoom(roomId, "bob", null);
+        assertNotEquals(drawer.token(), guesser.token());
+
+        Round round = gameService.startRound(roomId, "bob", guesser.token());
+        assertEquals("alice", round.getDrawer());
+
+        assertFalse(roundState(roomId, "bob", guesser.token()).containsKey("target"));
+        assertFalse(roundState(roomId, null, null).containsKey("target"));
+        // 冒用画手的名称
+        assertFalse(roundState(roomId, "alice", null).containsKey("target"));
+        assertFalse(roundState(roomId, "alice", guesser.token()).containsKey("target"));
+        assertEquals(round.getTarget(), roundState(roomId, "alice", drawer.token()).get("target"));
+    }
+
+    @Test
+    void playerActionsRequireTheirOwnToken() {
+        Seat drawer = gameService.createRoom("alice");
+        String roomId = drawer.room().getId();
+        Seat guesser = gameService.joinRoom(roomId, "bob", null);
+
+        // 名称已被占用时不能顶替，也拿不到对方的令牌
+        assertThrows(SecurityException.class, () -> gameService.joinRoom(roomId, "alice", null));
+        assertEquals(drawer.token(), gameService.joinRoom(roomId, "alice", drawer.token()).token());
+
+        assertThrows(SecurityException.class, () -> gameService.startRound(roomId, "alice", guesser.token()));
+        Round round = gameService.startRound(roomId, "alice", drawer.token());
+        assertThrows(SecurityException.class, () -> gameService.guess(roomId, "bob", drawer.token(), round.getTarget()));
+        assertThrows(SecurityException.class, () -> gameService.leaveRoom(roomId, "alice", guesser.token()));
+        assertFalse(round.isFinished());
+
+        assertTrue((Boolean) gameService.guess(roomId, "bob", guesser.token(), round.getTarget()).get("correct"));
+    }
+
+    @Test
+    void drawingTargetIsOnlyGivenToTheDrawerDuringTheRound() {
+        Seat drawer = gameService.createRoom("alice");
+        String roomId = drawer.room().getId();
+        Seat guesser = gameService.joinRoom(roomId, "bob", null);
+        assertNull(gameService.getDrawingTarget(roomId, "alice", drawer.token()));
+
+        Round round = gameService.startRound(roomId, "alice", drawer.token());
+        assertEquals(round.getTarget(), gameService.getDrawingTarget(roomId, "alice", drawer.token()));
+        assertNull(gameService.getDrawingTarget(roomId, "bob", guesser.token()));
+        assertNull(gameService.getDrawingTarget(roomId, "alice", guesser.token()));
+        assertNull(gameService.getDrawingTarget(roomId, "alice", null));
+        assertNull(gameService.getDrawingTarget("no-such-room", "alice", drawer.token()));
+
+        // 所有玩家猜中后回合结束
+        gameService.guess(roomId, "bob", guesser.token(), round.getTarget());
+        assertTrue(round.isFinished());
+        assertNull(gameService.getDrawingTarget(roomId, "alice", drawer.token()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> roundState(String roomId, String player, String token) {
+        return (Map<String, Object>) gameService.getState(roomId, player, token).get("round");
+    }
+}
@@ -0,0 +1,110 @@
+package com.pictionary.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void firesTimeoutsInOrderAcrossRevolutions() throws InterruptedException {
+        // 8个槽位、每刻度10ms，一圈80ms，250ms的任务需要转3圈
+        HashedTimingWheel wheel = new HashedTimingWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+        try {
+            int[] delays = {250, 15, 90, 0, 170};
+            long[] firedAt = new long[delays.length];
+            CountDownLatch latch = new CountDownLatch(delays.length);
+            long start = System.nanoTime();
+            for (int i = 0; i < delays.length; i++) {
+                int index = i;
+                wheel.newTimeout(() -> {
+                    firedAt[index] = System.nanoTime() - start;
+                    latch.countDown();
+                }, delays[i], TimeUnit.MILLISECONDS);
+            }
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+            for (int i = 0; i < delays.length; i++) {
+                long firedMillis = TimeUnit.NANOSECONDS.toMillis(firedAt[i]);
+                assertTrue(firedMillis >= delays[i], "任务 " + i + " 提前执行: " + firedMillis);
+                assertTrue(firedMillis < delays[i] + 200, "任务 " + i + " 执行过晚: " + firedMillis);
+            }
+            assertEquals(0, wheel.getPendingCount());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void concurrentFirstUseWaitsForStartTime() throws Exception {
+        // 工作线程推迟100ms才开始运行：同时第一次新增任务的线程都必须等它设置启动时间，
+        // 否则到期时间按0计算，任务要等几百年才执行
+        ThreadFactory slowStart = runnable -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                runnable.run();
+            }, "test-timer");
+            thread.setDaemon(true);
+            return thread;
+        };
+        HashedTimingWheel wheel = new HashedTimingWheel(slowStart, 5, TimeUnit.MILLISECONDS, 16);
+        try {
+            int threads = 8;
+            CountDownLatch go = new CountDownLatch(1);
+            CountDownLatch fired = new CountDownLatch(threads);
+            Thread[] callers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                callers[i] = new Thread(() -> {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    wheel.newTimeout(fired::countDown, 10, TimeUnit.MILLISECONDS);
+                });
+                callers[i].start();
+            }
+            go.countDown();
+            for (Thread caller : callers) {
+                caller.join();
+            }
+            assertTrue(fired.await(2, TimeUnit.SECONDS), "有任务没有按时执行");
+            assertEquals(0, wheel.getPendingCount());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() throws InterruptedException {
+        HashedTimingWheel wheel = new HashedTimingWheel("test-timer", 5, TimeUnit.MILLISECONDS, 16);
+        try {
+            AtomicInteger fired = new AtomicInteger();
+            HashedTimingWheel.Timeout[] timeouts = new HashedTimingWheel.Timeout[1000];
+            for (int i = 0; i < timeouts.length; i++) {
+                timeouts[i] = wheel.newTimeout(fired::incrementAndGet, 20 + i % 50, TimeUnit.MILLISECONDS);
+            }
+            for (int i = 0; i < timeouts.length; i += 2) {
+                assertTrue(timeouts[i].cancel());
+                assertFalse(timeouts[i].cancel());
+            }
+            Thread.sleep(300);
+            assertEquals(timeouts.length / 2, fired.get());
+            assertTrue(timeouts[1].isExpired());
+            assertTrue(timeouts[0].isCancelled());
+            assertEquals(0, wheel.getPendingCount());
+        } finally {
+            wheel.stop();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.pictionary.label;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LabelIndexTest {
+
+    private static LabelIndex index;
+
+    @BeforeAll
+    static void loadVocabulary() throws IOException {
+        try (Reader reader = new InputStreamReader(
+                LabelIndexTest.class.getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            index = LabelIndex.load(reader);
+        }
+    }
+
+    @Test
+    void canonicalizesSynonymsEnglishAndPinyin() {
+        assertEquals("猫", index.canonicalize("猫咪").label());
+        assertEquals("动物", index.canonicalize("猫咪").category());
+        assertEquals("猫", index.canonicalize("CAT").label());
+        assertEquals("猫", index.canonicalize("māo").label());
+        assertEquals("长颈鹿", index.canonicalize("Chang Jing Lu").label());
+        assertEquals("手机", index.canonicalize("ｃｅｌｌ　ｐｈｏｎｅ").label());
+        assertEquals("苹果", index.canonicalize("苹果。").label());
+    }
+
+    @Test
+    void findsLabelsContainedInFreeText() {
+        assertEquals("兔子", index.canonicalize("一只可爱的小兔，正在吃胡萝卜").label());
+        assertEquals("猫", index.canonicalize("小猫, 小狗").label());
+        assertEquals("自行车", index.canonicalize("a red bike").label());
+        // 拼音和英文只在单词边界上匹配
+        assertNull(index.canonicalize("mountain"));
+        assertNull(index.canonicalize("未知物体"));
+    }
+
+    @Test
+    void similarOnlyWordsAreLabelsWithoutCategory() {
+        LabelMatch match = index.canonicalize("帐篷");
+        assertEquals("帐篷", match.label());
+        assertNull(match.category());
+        assertTrue(index.getSimilar("猫").contains("老虎"));
+        assertTrue(index.getLabels("几何图形").contains("心形"));
+    }
+
+    @Test
+    void guessMustMatchWholeWordButPredictionMayContainIt() {
+        assertTrue(index.isCorrectGuess("Kitty", "猫"));
+        assertTrue(index.isCorrectGuess("猫", "cat"));
+        assertFalse(index.isCorrectGuess("不是猫", "猫"));
+        assertFalse(index.isCorrectGuess("狗", "猫"));
+        assertTrue(index.isCorrectPrediction("一只猫", "cat"));
+        // 不在词表中的目标词按规范化文本比较
+        assertTrue(index.isCorrectGuess("Ｒｏｂｏｔ", "robot"));
+    }
+
+    @Test
+    void rejectsConflictingSynonyms() {
+        String vocabulary = "[动物]\n猫=mao\n[物品]\n帽子=mao\n";
+        assertThrows(IllegalArgumentException.class, () -> LabelIndex.load(new StringReader(vocabulary)));
+    }
+
+    @Test
+    void internsCanonicalLabelsAsDenseIds() {
+        int cat = index.getLabelId("猫");
+        assertTrue(cat >= 0 && cat < index.getLabelCount());
+        assertEquals("猫", index.getLabelName(cat));
+        // 只出现在相似分组中的词也有ID，同义词没有
+        assertEquals("狼", index.getLabelName(index.getLabelId("狼")));
+        assertEquals(-1, index.getLabelId("猫咪"));
+    }
+}
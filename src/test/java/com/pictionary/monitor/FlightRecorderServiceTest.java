@@ -0,0 +1,46 @@
+package com.pictionary.monitor;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FlightRecorderServiceTest {
+
+    @Test
+    void dumpDoesNotContainEnvironmentOrJvmArguments() throws Exception {
+        assumeTrue(FlightRecorder.isAvailable(), "当前JVM不支持JFR");
+        FlightRecorderService service = new FlightRecorderService(new JfrProperties());
+        service.start();
+        Path file = null;
+        try {
+            // 子进程的命令行记录在 jdk.ProcessStart 中
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            new ProcessBuilder(java, "-version").redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor();
+            file = service.dump(Duration.ofMinutes(5));
+            assertNotNull(file);
+            boolean recorded = false;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                String name = event.getEventType().getName();
+                assertFalse(FlightRecorderService.SENSITIVE_EVENTS.contains(name), name);
+                recorded |= name.startsWith("jdk.");
+            }
+            assertTrue(recorded, "预置配置的其它JVM事件照常记录");
+        } finally {
+            service.stop();
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
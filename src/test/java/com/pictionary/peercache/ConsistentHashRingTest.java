@@ -0,0 +1,52 @@
+package com.pictionary.peercache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of(
+            "http://localhost:8080", "http://localhost:8081", "http://localhost:8082");
+
+    @Test
+    void spreadsKeysEvenlyAndAgreesAcrossInstances() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 160);
+        // 成员顺序不同的另一个节点必须得到相同的归属
+        ConsistentHashRing other = new ConsistentHashRing(List.of(NODES.get(2), NODES.get(0), NODES.get(1)), 160);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            String key = "key-" + i;
+            String owner = ring.owner(key);
+            assertEquals(owner, other.owner(key));
+            counts.merge(owner, 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 8_000 && count < 12_000, "count " + count);
+        }
+    }
+
+    @Test
+    void addingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 160);
+        ConsistentHashRing after = new ConsistentHashRing(List.of(
+                NODES.get(0), NODES.get(1), NODES.get(2), "http://localhost:8083"), 160);
+        int moved = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String key = "key-" + i;
+            String oldOwner = before.owner(key);
+            String newOwner = after.owner(key);
+            if (!oldOwner.equals(newOwner)) {
+                assertEquals("http://localhost:8083", newOwner);
+                moved++;
+            }
+        }
+        assertTrue(moved > 3_500 && moved < 6_500, "moved " + moved);
+    }
+}
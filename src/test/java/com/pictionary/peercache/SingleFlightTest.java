@@ -0,0 +1,50 @@
+package com.pictionary.peercache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void mergesConcurrentLoadsOfSameKey() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute("a", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = singleFlight.execute("a", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.getInFlight());
+
+        upstream.complete("result");
+        assertEquals("result", second.join());
+        assertEquals(0, singleFlight.getInFlight());
+        assertEquals(1L, singleFlight.getMerged());
+
+        // 完成后的调用重新加载
+        assertEquals("again", singleFlight.execute("a", () -> CompletableFuture.completedFuture("again")).join());
+    }
+
+    @Test
+    void failedLoadIsNotRemembered() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> failed = singleFlight.execute("a", () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("ok", singleFlight.execute("a", () -> CompletableFuture.completedFuture("ok")).join());
+    }
+}
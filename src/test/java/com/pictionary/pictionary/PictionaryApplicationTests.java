@@ -3,7 +3,7 @@ package com.pictionary.pictionary;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "pictionary.warmup.enabled=false")
 class PictionaryApplicationTests {
 
     @Test
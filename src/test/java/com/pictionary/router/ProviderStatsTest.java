@@ -0,0 +1,55 @@
+package com.pictionary.router;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProviderStatsTest {
+
+    @Test
+    void ewmaTracksLatencyAndErrorRate() {
+        ProviderStats stats = new ProviderStats("test", 0.5, 100);
+        assertEquals(100, stats.getEwmaLatencyMs(), 1e-9);
+        assertEquals(0, stats.getErrorRate(), 1e-9);
+
+        stats.onStart();
+        stats.onComplete(300, true);
+        assertEquals(200, stats.getEwmaLatencyMs(), 1e-9);
+        assertEquals(0, stats.getErrorRate(), 1e-9);
+
+        stats.onStart();
+        stats.onComplete(200, false);
+        assertEquals(200, stats.getEwmaLatencyMs(), 1e-9);
+        assertEquals(0.5, stats.getErrorRate(), 1e-9);
+
+        stats.onStart();
+        stats.onComplete(0, true);
+        assertEquals(100, stats.getEwmaLatencyMs(), 1e-9);
+        assertEquals(0.25, stats.getErrorRate(), 1e-9);
+
+        assertEquals(3, stats.getCalls());
+        assertEquals(1, stats.getErrors());
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    void rejectedAndCancelledRequestsDoNotSkewStats() {
+        ProviderStats stats = new ProviderStats("test", 0.5, 100);
+        stats.onStart();
+        stats.onStart();
+        stats.onStart();
+        assertEquals(3, stats.getInFlight());
+
+        stats.onRejected();
+        stats.onCancelled();
+        stats.onComplete(100, true);
+
+        assertEquals(100, stats.getEwmaLatencyMs(), 1e-9);
+        assertEquals(0, stats.getErrorRate(), 1e-9);
+        assertEquals(1, stats.getCalls());
+        assertEquals(0, stats.getErrors());
+        assertEquals(1, stats.getRejected());
+        assertEquals(1, stats.getCancelled());
+        assertEquals(0, stats.getInFlight());
+    }
+}
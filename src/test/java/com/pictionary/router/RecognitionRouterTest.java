@@ -0,0 +1,269 @@
+package com.pictionary.router;
+
+import com.pictionary.bulkhead.BulkheadProperties;
+import com.pictionary.bulkhead.Bulkheads;
+import com.pictionary.cancellation.CancellationToken;
+import com.pictionary.label.LabelIndex;
+import com.pictionary.payload.PayloadGuard;
+import com.pictionary.payload.PayloadProperties;
+import com.pictionary.payload.PayloadRejectedException;
+import com.pictionary.service.ImageRecognitionService;
+import com.pictionary.sketchindex.SketchIndex;
+import com.pictionary.sketchindex.SketchIndexProperties;
+import com.pictionary.tuning.ImageProfileProperties;
+import com.pictionary.tuning.ImageProfiles;
+import com.pictionary.util.CanvasImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecognitionRouterTest {
+
+    private static LabelIndex labelIndex;
+    private static String png;
+
+    private final RouterProperties routerProperties = new RouterProperties();
+    private final BulkheadProperties bulkheadProperties = new BulkheadProperties();
+    private final Map<String, Object> beans = new LinkedHashMap<>();
+    private Bulkheads bulkheads;
+    private ProviderRegistry registry;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        try (Reader reader = new InputStreamReader(
+                RecognitionRouterTest.class.getResourceAsStream("/labels/vocabulary.txt"), StandardCharsets.UTF_8)) {
+            labelIndex = LabelIndex.load(reader);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB), "PNG", out);
+        png = Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (bulkheads != null) {
+            bulkheads.shutdown();
+        }
+    }
+
+    @Test
+    void weightedSelectionPenalizesErrors() {
+        routerProperties.setProviders(List.of("a", "b"));
+        routerProperties.setEwmaAlpha(1.0);
+        routerProperties.setErrorPenalty(5.0);
+        RecognitionRouter router = router(Map.of("a", result("猫"), "b", result("狗")));
+
+        // 延迟相同，b 的错误率为1：有效延迟 100 和 600，a 得到 6/7 的流量
+        complete("a", 100, true);
+        complete("b", 100, false);
+        assertEquals("a", router.choose(0.0));
+        assertEquals("a", router.choose(0.85));
+        assertEquals("b", router.choose(0.86));
+        assertEquals("b", router.choose(0.999));
+
+        // 权重抵消错误惩罚后两者各占一半
+        routerProperties.getWeights().put("b", 6.0);
+        assertEquals("a", router.choose(0.49));
+        assertEquals("b", router.choose(0.51));
+
+        // 权重为0的服务不再被选中
+        routerProperties.getWeights().put("b", 0.0);
+        assertEquals("a", router.choose(0.999));
+    }
+
+    @Test
+    void successfulCallsUpdateStatsAndCanonicalizeLabel() {
+        RecognitionRouter router = router(Map.of("a", result("一只小猫")));
+
+        Map<String, Object> response = router.recognizeAsync(png, "a").join();
+
+        assertEquals(true, response.get("success"));
+        assertEquals("a", response.get("provider"));
+        assertEquals("猫", response.get("label"));
+        ProviderStats stats = registry.getStats("a");
+        assertEquals(1, stats.getCalls());
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    void rejectedRequestsDoNotSkewStats() throws Exception {
+        bulkheadProperties.getProviders().put("a", new BulkheadProperties.Pool(1, 1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecognitionRouter router = router(Map.of("a", image -> {
+            started.countDown();
+            await(release);
+            return Map.of("success", true, "prediction", "猫");
+        }));
+
+        CompletableFuture<Map<String, Object>> running = router.recognizeAsync(png, "a");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Map<String, Object>> queued = router.recognizeAsync(png, "a");
+
+        Map<String, Object> busy = router.recognizeAsync(png, "a").join();
+        assertEquals(true, busy.get("busy"));
+        ProviderStats stats = registry.getStats("a");
+        assertEquals(1, stats.getRejected());
+        assertEquals(0, stats.getCalls());
+        assertEquals(routerProperties.getInitialLatencyMs(), stats.getEwmaLatencyMs(), 1e-9);
+
+        release.countDown();
+        assertEquals(true, running.get(5, TimeUnit.SECONDS).get("success"));
+        assertEquals(true, queued.get(5, TimeUnit.SECONDS).get("success"));
+        assertEquals(2, stats.getCalls());
+        assertEquals(0, stats.getErrorRate(), 1e-9);
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    void cancelledRequestsDoNotSkewStats() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        RecognitionRouter router = router(Map.of("a", image -> {
+            started.countDown();
+            // 取消时隔离舱线程被中断
+            await(new CountDownLatch(1));
+            return Map.of("success", true, "prediction", "猫");
+        }));
+        CancellationToken cancellation = new CancellationToken();
+
+        CompletableFuture<Map<String, Object>> future = router.recognizeAsync(png, "a", cancellation);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        cancellation.cancel(CancellationToken.Reason.CLIENT);
+
+        Map<String, Object> response = future.get(5, TimeUnit.SECONDS);
+        assertEquals(true, response.get("cancelled"));
+        ProviderStats stats = registry.getStats("a");
+        assertEquals(1, stats.getCancelled());
+        assertEquals(0, stats.getCalls());
+        assertEquals(0, stats.getErrorRate(), 1e-9);
+        assertEquals(0, stats.getInFlight());
+
+        // 已取消的请求不再调用识别服务
+        Map<String, Object> skipped = router.recognizeAsync(png, "a", cancellation).join();
+        assertEquals(true, skipped.get("cancelled"));
+        assertEquals(1, stats.getCancelled());
+    }
+
+    @Test
+    void rejectedPayloadsNeverReachTheProvider() {
+        RecognitionRouter router = router(Map.of("a", image -> {
+            throw new AssertionError("不应调用识别服务");
+        }));
+
+        Map<String, Object> response = router.recognizeAsync(
+                Base64.getEncoder().encodeToString("not an image".getBytes(StandardCharsets.UTF_8)), "a").join();
+
+        assertFalse((Boolean) response.get("success"));
+        assertEquals(PayloadRejectedException.Reason.FORMAT.tag(), response.get("rejected"));
+        ProviderStats stats = registry.getStats("a");
+        assertEquals(0, stats.getCalls());
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    void rejectedPayloadsAreNotDecodedForTheSketchIndex() {
+        RecognitionRouter router = router(Map.of("a", image -> {
+            throw new AssertionError("不应调用识别服务");
+        }));
+        ReflectionTestUtils.setField(router, "sketchIndex", new SketchIndex(new SketchIndexProperties()) {
+            @Override
+            public long[] features(CanvasImage canvas) {
+                throw new AssertionError("被拒绝的图像不应提取特征");
+            }
+        });
+
+        Map<String, Object> response = router.recognizeAsync(
+                Base64.getEncoder().encodeToString("not an image".getBytes(StandardCharsets.UTF_8)), "a").join();
+
+        assertFalse((Boolean) response.get("success"));
+        assertEquals(PayloadRejectedException.Reason.FORMAT.tag(), response.get("rejected"));
+        assertEquals("a", response.get("provider"));
+    }
+
+    @Test
+    void partialResultsOnlyComeFromStreamingProviders() {
+        ImageRecognitionService streaming = new ImageRecognitionService() {
+            @Override
+            public Map<String, Object> recognizeImage(String base64ImageData) {
+                throw new AssertionError("流式请求应调用 recognizeCanvasStreaming");
+            }
+
+            @Override
+            public boolean supportsStreaming() {
+                return true;
+            }
+
+            @Override
+            public Map<String, Object> recognizeCanvasStreaming(CanvasImage canvas, Consumer<String> onPartial) {
+                onPartial.accept("小");
+                onPartial.accept("小猫");
+                return Map.of("success", true, "prediction", "小猫");
+            }
+        };
+        RecognitionRouter router = router(Map.of("a", streaming, "b", result("狗")));
+        List<String> partials = new CopyOnWriteArrayList<>();
+
+        Map<String, Object> response = router.recognizeAsync(CanvasImage.of(png), "a", null, partials::add).join();
+        assertEquals("猫", response.get("label"));
+        assertEquals(List.of("小", "小猫"), partials);
+
+        // 不支持流式的识别服务照常识别，不回调部分结果
+        partials.clear();
+        response = router.recognizeAsync(CanvasImage.of(png), "b", null, partials::add).join();
+        assertEquals("狗", response.get("prediction"));
+        assertTrue(partials.isEmpty());
+    }
+
+    private RecognitionRouter router(Map<String, ImageRecognitionService> services) {
+        beans.putAll(services);
+        registry = new ProviderRegistry(new StaticListableBeanFactory(beans), routerProperties);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        bulkheads = new Bulkheads(bulkheadProperties, meterRegistry);
+        PayloadGuard payloadGuard = new PayloadGuard(new PayloadProperties(),
+                new ImageProfiles(new ImageProfileProperties()), meterRegistry);
+        return new RecognitionRouter(registry, routerProperties, labelIndex, bulkheads, payloadGuard);
+    }
+
+    private void complete(String name, long latencyMs, boolean success) {
+        ProviderStats stats = registry.getStats(name);
+        stats.onStart();
+        stats.onComplete(latencyMs, success);
+    }
+
+    private static ImageRecognitionService result(String prediction) {
+        return image -> Map.of("success", true, "prediction", prediction);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("识别被中断", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.pictionary.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessTokenCacheTest {
+
+    @Test
+    void reusesTokenUntilInvalidated() {
+        AtomicInteger fetches = new AtomicInteger();
+        AccessTokenCache cache = new AccessTokenCache(
+                () -> new AccessTokenCache.Token("token-" + fetches.incrementAndGet(), 2_592_000));
+
+        assertEquals("token-1", cache.get());
+        assertEquals("token-1", cache.get());
+        assertEquals(1, fetches.get());
+
+        cache.invalidate();
+        assertEquals("token-2", cache.get());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void refetchesWhenLifetimeUnknown() {
+        AtomicInteger fetches = new AtomicInteger();
+        AccessTokenCache cache = new AccessTokenCache(
+                () -> new AccessTokenCache.Token("token-" + fetches.incrementAndGet(), 0));
+        cache.get();
+        cache.get();
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void recognizesBaiduInvalidTokenErrors() {
+        assertTrue(AccessTokenCache.isBaiduInvalidToken(Map.of("error_code", 110)));
+        assertTrue(AccessTokenCache.isBaiduInvalidToken(Map.of("error_code", 111)));
+        assertFalse(AccessTokenCache.isBaiduInvalidToken(Map.of("error_code", 17)));
+        assertFalse(AccessTokenCache.isBaiduInvalidToken(Map.of("words_result", "x")));
+    }
+}
@@ -0,0 +1,119 @@
+package com.pictionary.service.impl;
+
+import com.pictionary.entity.RecognitionRecord;
+import com.pictionary.mapper.RecognitionRecordMapper;
+import com.pictionary.util.CanvasImage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "pictionary.history.enabled=true",
+        "pictionary.history.batch-size=10",
+        "pictionary.history.flush-interval-ms=100",
+        "pictionary.history.datasource.url=jdbc:h2:mem:history;DB_CLOSE_DELAY=-1",
+        "pictionary.history.datasource.username=sa",
+        "pictionary.history.datasource.password="
+})
+class AsyncRecognitionHistoryServiceImplTest {
+
+    @Autowired
+    private AsyncRecognitionHistoryServiceImpl historyService;
+
+    @Autowired
+    private RecognitionRecordMapper recognitionRecordMapper;
+
+    @Test
+    void recordsAreFlushedInBatches() throws InterruptedException {
+        long before = recognitionRecordMapper.count();
+        String image = Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4});
+
+        for (int i = 0; i < 25; i++) {
+            historyService.record("mockImageRecognitionServiceImpl", CanvasImage.of(image),
+                    Map.of("success", true, "prediction", "猫", "confidence", 80), 12);
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recognitionRecordMapper.count() < before + 25 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(before + 25, recognitionRecordMapper.count());
+
+        RecognitionRecord latest = recognitionRecordMapper.selectRecent(1).get(0);
+        assertEquals("猫", latest.getPrediction());
+        assertEquals(80, latest.getConfidence());
+        assertEquals(4, latest.getImageSize());
+        assertEquals(64, latest.getImageHash().length());
+        assertTrue(latest.getSuccess());
+    }
+
+    @Test
+    void recordsAreShedWhenQueueIsFull() {
+        // 不启动后台线程，队列只能容纳2条记录
+        AsyncRecognitionHistoryServiceImpl service = new AsyncRecognitionHistoryServiceImpl(noopMapper(), 2, 10, 100,
+                false, DataSize.ofMegabytes(64));
+
+        for (int i = 0; i < 5; i++) {
+            service.record("mock", null, Map.of("success", true), 1);
+        }
+
+        assertEquals(2, service.getQueueSize());
+        assertEquals(3, service.getDroppedCount());
+        assertEquals(3, service.getQueueFullDroppedCount());
+        assertEquals(0, service.getImageBytesDroppedCount());
+    }
+
+    @Test
+    void queuedImagesAreBoundedByBytes() {
+        String image = Base64.getEncoder().encodeToString(new byte[400]);
+
+        // 不保存原图时队列中只有摘要，不占用图像字节
+        AsyncRecognitionHistoryServiceImpl hashOnly = new AsyncRecognitionHistoryServiceImpl(noopMapper(), 100, 10, 100,
+                false, DataSize.ofBytes(1000));
+        for (int i = 0; i < 5; i++) {
+            hashOnly.record("mock", CanvasImage.of(image), Map.of("success", true), 1);
+        }
+        assertEquals(5, hashOnly.getQueueSize());
+        assertEquals(0, hashOnly.getQueuedImageBytes());
+
+        // 保存原图时按字节数限制，1000字节只能容纳2张400字节的图像
+        AsyncRecognitionHistoryServiceImpl storing = new AsyncRecognitionHistoryServiceImpl(noopMapper(), 100, 10, 100,
+                true, DataSize.ofBytes(1000));
+        for (int i = 0; i < 5; i++) {
+            storing.record("mock", CanvasImage.of(image), Map.of("success", true), 1);
+        }
+        assertEquals(2, storing.getQueueSize());
+        assertEquals(800, storing.getQueuedImageBytes());
+        assertEquals(3, storing.getDroppedCount());
+        // 超过字节上限的丢弃与队列已满分开计数
+        assertEquals(3, storing.getImageBytesDroppedCount());
+        assertEquals(0, storing.getQueueFullDroppedCount());
+    }
+
+    private static RecognitionRecordMapper noopMapper() {
+        return new RecognitionRecordMapper() {
+            @Override
+            public int insertBatch(List<RecognitionRecord> records) {
+                return records.size();
+            }
+
+            @Override
+            public List<RecognitionRecord> selectRecent(int limit) {
+                return List.of();
+            }
+
+            @Override
+            public long count() {
+                return 0;
+            }
+        };
+    }
+}
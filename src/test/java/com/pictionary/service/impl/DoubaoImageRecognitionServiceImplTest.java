@@ -0,0 +1,164 @@
+package com.pictionary.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoubaoImageRecognitionServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> partials = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        deadlines.shutdownNow();
+    }
+
+    @Test
+    void singleTokenAnswerFollowedByDone() throws Exception {
+        String word = read(sse(delta("猫")) + "data: [DONE]\n\n");
+
+        assertEquals("猫", word);
+        assertEquals(List.of("猫"), partials);
+    }
+
+    @Test
+    void wordSplitAcrossDeltasEndsAtNewline() throws Exception {
+        String word = read(sse(delta("自行"), delta("车"), delta("\n这是"), delta("一辆自行车")));
+
+        assertEquals("自行车", word);
+        assertEquals(List.of("自行", "自行车", "自行车"), partials);
+    }
+
+    @Test
+    void punctuationAndNewlineEndTheFirstWord() throws Exception {
+        assertEquals("香蕉", read(sse(delta("香蕉。这是一根香蕉"))));
+        assertEquals("苹果", read(sse(delta("苹果\r\n梨"))));
+        // 开头的空白和标点不算第一行结束
+        assertEquals("西瓜", read(sse(delta("\n「"), delta("西瓜"), delta("」，"))));
+
+        assertEquals(-1, DoubaoImageRecognitionServiceImpl.firstLineEnd("\n ，"));
+        assertEquals(-1, DoubaoImageRecognitionServiceImpl.firstLineEnd(" 小狗"));
+        assertEquals(3, DoubaoImageRecognitionServiceImpl.firstLineEnd(" 小狗!"));
+        assertEquals(3, DoubaoImageRecognitionServiceImpl.firstLineEnd("\n小狗\n"));
+    }
+
+    @Test
+    void finishReasonWithoutDoneEndsTheStream() throws Exception {
+        String word = read(sse(delta("狗"),
+                "{\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}]}",
+                delta("猫")));
+
+        assertEquals("狗", word);
+        assertEquals(List.of("狗"), partials);
+    }
+
+    @Test
+    void stalledBodyIsClosedAtTheDeadline() throws Exception {
+        StalledStream body = new StalledStream(": keep-alive\n\n");
+        Map<String, Object> result = DoubaoImageRecognitionServiceImpl.readStream(
+                body, objectMapper, partials::add, deadlines, TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals(false, result.get("success"));
+        assertEquals("识别超时", result.get("message"));
+        assertTrue(body.closed.await(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void partialWordIsKeptWhenTheDeadlineCutsTheStream() throws Exception {
+        StalledStream body = new StalledStream(sse(delta("自行")));
+        Map<String, Object> result = DoubaoImageRecognitionServiceImpl.readStream(
+                body, objectMapper, partials::add, deadlines, TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals(true, result.get("success"));
+        assertEquals("自行", result.get("prediction"));
+    }
+
+    @Test
+    void completedStreamCancelsTheDeadline() throws Exception {
+        Map<String, Object> result = DoubaoImageRecognitionServiceImpl.readStream(
+                stream(sse(delta("猫")) + "data: [DONE]\n\n"), objectMapper, partials::add,
+                deadlines, TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(true, result.get("success"));
+        assertEquals("猫", result.get("prediction"));
+    }
+
+    private String read(String sse) throws IOException {
+        return DoubaoImageRecognitionServiceImpl.readFirstLine(stream(sse), objectMapper, partials::add);
+    }
+
+    private static InputStream stream(String sse) {
+        return new ByteArrayInputStream(sse.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String delta(String content) throws IOException {
+        return objectMapper.writeValueAsString(
+                Map.of("choices", List.of(Map.of("delta", Map.of("content", content)))));
+    }
+
+    private static String sse(String... events) {
+        StringBuilder sse = new StringBuilder();
+        for (String event : events) {
+            sse.append("data: ").append(event).append("\n\n");
+        }
+        return sse.toString();
+    }
+
+    /**
+     * 先返回给定的数据，之后一直阻塞到流被关闭，模拟上游停止发送数据
+     */
+    private static class StalledStream extends InputStream {
+
+        private final InputStream head;
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        StalledStream(String head) {
+            this.head = stream(head);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = head.read(b, off, len);
+            if (n > 0) {
+                return n;
+            }
+            try {
+                if (!closed.await(10, TimeUnit.SECONDS)) {
+                    throw new IOException("测试流没有被关闭");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            throw new IOException("Stream closed");
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
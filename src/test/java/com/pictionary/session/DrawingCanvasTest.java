@@ -0,0 +1,89 @@
+package com.pictionary.session;
+
+import com.pictionary.util.StrokeCodec;
+import com.pictionary.util.StrokeRasterizer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DrawingCanvasTest {
+
+    private static final int WIDTH = 500;
+    private static final int HEIGHT = 400;
+
+    @Test
+    void incrementalUpdatesMatchFullRendering() throws Exception {
+        Random random = new Random(7);
+        DrawingCanvas canvas = new DrawingCanvas(WIDTH, HEIGHT);
+        List<StrokeCodec.Stroke> expected = new ArrayList<>();
+        for (int step = 0; step < 40; step++) {
+            // 随机撤销若干笔画（模拟 undoLastPath）再追加新笔画
+            int from = random.nextInt(4) == 0 ? Math.max(0, expected.size() - 1 - random.nextInt(3)) : expected.size();
+            List<StrokeCodec.Stroke> added = new ArrayList<>();
+            for (int i = random.nextInt(3); i > 0; i--) {
+                added.add(randomStroke(random));
+            }
+            expected.subList(from, expected.size()).clear();
+            expected.addAll(added);
+            canvas.apply(from, added);
+
+            BufferedImage full = StrokeRasterizer.render(new StrokeCodec.Drawing(WIDTH, HEIGHT, expected), WIDTH, HEIGHT);
+            assertEquals(expected.size(), canvas.size());
+            assertSameArgb(full, canvas.snapshot(), "step " + step);
+        }
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterUpdates() {
+        DrawingCanvas canvas = new DrawingCanvas(WIDTH, HEIGHT);
+        canvas.apply(0, List.of(new StrokeCodec.Stroke(0, 4, new int[]{10, 490}, new int[]{10, 390})));
+        BufferedImage first = canvas.snapshot();
+        assertEquals(BufferedImage.TYPE_INT_ARGB, first.getType());
+        int before = first.getRGB(210, 102);
+
+        // 识别在会话锁之外读取快照，期间的增量不能改动它
+        canvas.apply(1, List.of(new StrokeCodec.Stroke(0, 4, new int[]{200, 220}, new int[]{100, 104})));
+        assertEquals(before, first.getRGB(210, 102));
+        assertTrue(canvas.snapshot().getRGB(210, 102) != before);
+
+        canvas.apply(1, List.of());
+        assertEquals(1, canvas.size());
+        assertTrue(canvas.memoryBytes() >= (long) WIDTH * HEIGHT * 4);
+    }
+
+    private static StrokeCodec.Stroke randomStroke(Random random) {
+        int points = 1 + random.nextInt(12);
+        int[] xs = new int[points];
+        int[] ys = new int[points];
+        int x = random.nextInt(WIDTH);
+        int y = random.nextInt(HEIGHT);
+        for (int i = 0; i < points; i++) {
+            x = Math.max(-20, Math.min(WIDTH + 20, x + random.nextInt(81) - 40));
+            y = Math.max(-20, Math.min(HEIGHT + 20, y + random.nextInt(81) - 40));
+            xs[i] = x;
+            ys[i] = y;
+        }
+        int color = random.nextBoolean() ? 0 : random.nextInt(0x1000000);
+        return new StrokeCodec.Stroke(color, 1 + random.nextInt(20), xs, ys);
+    }
+
+    private static void assertSameArgb(BufferedImage expected, BufferedImage actual, String message) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int e = expected.getRGB(x, y);
+                int a = actual.getRGB(x, y);
+                // 完全透明的像素颜色无意义
+                if (e != a && ((e | a) >>> 24) != 0) {
+                    throw new AssertionError(message + ": pixel (" + x + "," + y + ") expected "
+                            + Integer.toHexString(e) + " but was " + Integer.toHexString(a));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.pictionary.sketchindex;
+
+import com.pictionary.util.SketchBitmap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HammingHnswTest {
+
+    private static long[] randomVector(SplittableRandom random) {
+        long[] vector = new long[SketchFeatures.WORDS];
+        for (int i = 0; i < vector.length; i++) {
+            // 稀疏向量，与画作特征的墨迹比例相近
+            vector[i] = random.nextLong() & random.nextLong() & random.nextLong();
+        }
+        return vector;
+    }
+
+    private static long[] mutate(long[] vector, int flips, SplittableRandom random) {
+        long[] copy = vector.clone();
+        for (int i = 0; i < flips; i++) {
+            int bit = random.nextInt(SketchFeatures.BITS);
+            copy[bit >>> 6] ^= 1L << bit;
+        }
+        return copy;
+    }
+
+    @Test
+    void findsTheTrueNearestNeighbourForMostQueries() {
+        SplittableRandom random = new SplittableRandom(1);
+        HammingHnsw<Integer> index = new HammingHnsw<>(SketchFeatures.WORDS, 5000, 16, 100, 7);
+        // 与真实画作相似的分布：很多人画同一个词，每个词的画作聚在一起
+        long[][] centers = new long[100][];
+        for (int c = 0; c < centers.length; c++) {
+            centers[c] = randomVector(random);
+        }
+        List<long[]> stored = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            long[] vector = mutate(centers[random.nextInt(centers.length)], 40, random);
+            stored.add(vector);
+            index.add(vector, i);
+        }
+
+        int found = 0;
+        int queries = 200;
+        for (int q = 0; q < queries; q++) {
+            int target = random.nextInt(stored.size());
+            long[] query = mutate(stored.get(target), 10, random);
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < stored.size(); i++) {
+                int d = SketchFeatures.distance(query, stored.get(i));
+                if (d < bestDistance) {
+                    best = i;
+                    bestDistance = d;
+                }
+            }
+            List<HammingHnsw.Neighbor<Integer>> result = index.search(query, 1, 64);
+            if (!result.isEmpty() && result.get(0).value() == best) {
+                found++;
+            }
+        }
+        assertTrue(found >= queries * 95 / 100, "召回率过低: " + found + "/" + queries);
+    }
+
+    @Test
+    void overwritesOldestEntriesWhenFull() {
+        SplittableRandom random = new SplittableRandom(2);
+        HammingHnsw<Integer> index = new HammingHnsw<>(SketchFeatures.WORDS, 100, 8, 32, 7);
+        long[][] centers = new long[10][];
+        for (int c = 0; c < centers.length; c++) {
+            centers[c] = randomVector(random);
+        }
+        List<long[]> stored = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            long[] vector = mutate(centers[random.nextInt(centers.length)], 40, random);
+            stored.add(vector);
+            index.add(vector, i);
+        }
+        assertEquals(100, index.size());
+        assertEquals(150L, index.evictions());
+
+        List<Integer> order = new ArrayList<>();
+        index.forEachOldestFirst((vector, value) -> order.add(value));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(150 + i, order.get(i).intValue());
+        }
+
+        // 覆盖之后图仍然连通，最近的条目都能找到
+        int found = 0;
+        for (int i = 150; i < 250; i++) {
+            List<HammingHnsw.Neighbor<Integer>> result = index.search(stored.get(i), 1, 32);
+            if (!result.isEmpty() && result.get(0).value() == i && result.get(0).distance() == 0) {
+                found++;
+            }
+        }
+        assertTrue(found >= 98, "覆盖后能找到的条目过少: " + found);
+    }
+
+    @Test
+    void similarDrawingsHaveCloseFeatures() {
+        long[] square = SketchFeatures.fromBitmap(square(100, 10, 10, 60));
+        // 同样的方框画在别的位置、大小稍有不同
+        long[] shifted = SketchFeatures.fromBitmap(square(100, 30, 25, 66));
+        long[] cross = SketchFeatures.fromBitmap(cross(100));
+        assertNotNull(square);
+        assertNotNull(cross);
+
+        double similar = (double) SketchFeatures.distance(square, shifted)
+                / (SketchFeatures.bitCount(square) + SketchFeatures.bitCount(shifted));
+        double different = (double) SketchFeatures.distance(square, cross)
+                / (SketchFeatures.bitCount(square) + SketchFeatures.bitCount(cross));
+        assertTrue(similar < 0.2, "相似画作距离过大: " + similar);
+        assertTrue(different > 0.5, "不同画作距离过小: " + different);
+    }
+
+    private static SketchBitmap square(int size, int x0, int y0, int side) {
+        SketchBitmap bitmap = new SketchBitmap(size, size);
+        for (int i = 0; i < side; i++) {
+            bitmap.set(x0 + i, y0, true);
+            bitmap.set(x0 + i, y0 + side - 1, true);
+            bitmap.set(x0, y0 + i, true);
+            bitmap.set(x0 + side - 1, y0 + i, true);
+        }
+        return bitmap;
+    }
+
+    private static SketchBitmap cross(int size) {
+        SketchBitmap bitmap = new SketchBitmap(size, size);
+        for (int i = 10; i < 90; i++) {
+            bitmap.set(i, i, true);
+            bitmap.set(i, 99 - i, true);
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,113 @@
+package com.pictionary.strokelog;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrokeLogTest {
+
+    @Test
+    void replaysEventsAfterRestart() throws Exception {
+        Path directory = Files.createTempDirectory("stroke-log");
+        StrokeLog strokeLog = new StrokeLog(directory.toString(), 1 << 20, Duration.ofHours(1), 8, 1024, 100, 0);
+        strokeLog.start();
+        assertTrue(strokeLog.append("a", 0, StrokeEvent.Type.STROKE, new byte[]{1, 2, 3}));
+        assertTrue(strokeLog.append("b", 0, StrokeEvent.Type.STROKE, new byte[]{9}));
+        assertTrue(strokeLog.append("a", 1, StrokeEvent.Type.UNDO, null));
+        assertTrue(strokeLog.append("a", 2, StrokeEvent.Type.STROKE, new byte[]{4, 5}));
+        assertThrows(IllegalArgumentException.class,
+                () -> strokeLog.append("../a", 0, StrokeEvent.Type.STROKE, new byte[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> strokeLog.append("a", 3, StrokeEvent.Type.STROKE, new byte[1025]));
+        strokeLog.stop();
+
+        StrokeLog reopened = new StrokeLog(directory.toString(), 1 << 20, Duration.ofHours(1), 8, 1024, 100, 0);
+        reopened.start();
+        List<ByteBuffer> records = reopened.replay("a", 1);
+        assertEquals(2, records.size());
+        assertRecord(records.get(0), 1, StrokeEvent.Type.UNDO, "a", new byte[0]);
+        assertRecord(records.get(1), 2, StrokeEvent.Type.STROKE, "a", new byte[]{4, 5});
+        assertEquals(3, reopened.replay("a", 0).size());
+        assertEquals(3, reopened.getDrawingInfo("a").get("events"));
+
+        // 重启后继续追加到同一个段
+        reopened.append("a", 3, StrokeEvent.Type.END, null);
+        reopened.stop();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void rollsSegmentsAndDropsExpiredDrawings() throws Exception {
+        Path directory = Files.createTempDirectory("stroke-log");
+        // 每个段只能容纳少量记录，最多保留2个段
+        StrokeLog strokeLog = new StrokeLog(directory.toString(), 4096, Duration.ofHours(1), 2, 1000, 1000, 0);
+        strokeLog.start();
+        for (int i = 0; i < 40; i++) {
+            strokeLog.append("old", i, StrokeEvent.Type.STROKE, new byte[900]);
+        }
+        for (int i = 0; i < 8; i++) {
+            strokeLog.append("new", i, StrokeEvent.Type.STROKE, new byte[900]);
+        }
+        strokeLog.stop();
+
+        assertNull(strokeLog.getDrawingInfo("old"));
+        assertEquals(8, strokeLog.replay("new", 0).size());
+        assertEquals(2L, ((Number) strokeLog.getStats().get("segments")).longValue());
+        assertTrue(strokeLog.replay("new", 0).get(0).isReadOnly());
+    }
+
+    @Test
+    void throttlesAppendsPerDrawing() throws Exception {
+        Path directory = Files.createTempDirectory("stroke-log");
+        StrokeLog strokeLog = new StrokeLog(directory.toString(), 1 << 20, Duration.ofHours(1), 8, 1024, 100, 3);
+        strokeLog.start();
+        try {
+            // 10次追加最多跨两个一秒的窗口，每个窗口最多接受3个
+            int throttled = 0;
+            for (int i = 0; i < 10; i++) {
+                try {
+                    strokeLog.append("busy", i, StrokeEvent.Type.STROKE, new byte[]{1});
+                } catch (StrokeLogThrottledException e) {
+                    assertEquals("busy", e.getDrawingId());
+                    throttled++;
+                }
+            }
+            assertTrue(throttled >= 4, "只拒绝了 " + throttled + " 个事件");
+            assertEquals((long) throttled, strokeLog.getStats().get("throttled"));
+
+            // 其他绘画不受影响
+            assertTrue(strokeLog.append("quiet", 0, StrokeEvent.Type.STROKE, new byte[]{1}));
+        } finally {
+            strokeLog.stop();
+        }
+    }
+
+    private static void assertRecord(ByteBuffer record, int seq, StrokeEvent.Type type, String drawingId, byte[] payload) {
+        int base = record.position();
+        int idLength = record.getShort(base + 17);
+        assertEquals(record.remaining() - 4, record.getInt(base));
+        assertEquals(seq, record.getInt(base + 12));
+        assertEquals(type.ordinal(), record.get(base + 16));
+        byte[] id = new byte[idLength];
+        record.get(base + 19, id);
+        assertEquals(drawingId, new String(id));
+        byte[] data = new byte[record.remaining() - 19 - idLength];
+        record.get(base + 19 + idLength, data);
+        assertEquals(payload.length, data.length);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(payload[i], data[i]);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.pictionary.tuning;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageProfileTest {
+
+    @Test
+    void parsesSizeAndBitDepth() {
+        assertEquals(new ImageProfile(300, 32), ImageProfile.parse("300"));
+        assertEquals(new ImageProfile(224, 1), ImageProfile.parse(" 224X1 "));
+        assertEquals("160x8", ImageProfile.parse("160x8").toString());
+        assertThrows(IllegalArgumentException.class, () -> ImageProfile.parse("300x3"));
+        assertThrows(IllegalArgumentException.class, () -> ImageProfile.parse("abc"));
+    }
+
+    @Test
+    void preprocessesToProfileSizeAndDepth() throws Exception {
+        BufferedImage canvas = new BufferedImage(500, 400, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke(5));
+        g.drawOval(100, 100, 300, 200);
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(canvas, "PNG", png);
+
+        String full = new ImageProfile(300, 32).preprocess(png.toByteArray());
+        String binary = new ImageProfile(128, 1).preprocess(png.toByteArray());
+        BufferedImage fullImage = ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(full)));
+        BufferedImage binaryImage = ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(binary)));
+
+        assertEquals(300, fullImage.getWidth());
+        assertTrue(fullImage.getColorModel().hasAlpha());
+        assertEquals(128, binaryImage.getWidth());
+        assertEquals(128, binaryImage.getHeight());
+        assertEquals(1, binaryImage.getColorModel().getPixelSize());
+        // 透明背景合成为白色，线条保持黑色
+        assertEquals(0xFFFFFFFF, binaryImage.getRGB(2, 2));
+        assertEquals(0xFF000000, binaryImage.getRGB(64, 32));
+        assertTrue(Base64.getDecoder().decode(binary).length < Base64.getDecoder().decode(full).length);
+        assertNull(new ImageProfile(300, 32).preprocess(new byte[]{1, 2, 3}));
+    }
+}
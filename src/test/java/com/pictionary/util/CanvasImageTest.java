@@ -0,0 +1,85 @@
+package com.pictionary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CanvasImageTest {
+
+    private static BufferedImage drawing() {
+        BufferedImage image = new BufferedImage(120, 80, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.setStroke(new BasicStroke(4));
+        graphics.drawOval(20, 10, 60, 50);
+        graphics.drawLine(0, 79, 119, 0);
+        graphics.dispose();
+        return image;
+    }
+
+    @Test
+    void renderedCanvasIsEncodedOnceAndOnlyOnDemand() {
+        CanvasImage canvas = CanvasImage.rendered(drawing());
+
+        assertTrue(canvas.isRendered());
+        assertEquals(120L * 80 * 4, canvas.sizeBytes());
+        String first = canvas.toBase64();
+        assertSame(first, canvas.toBase64());
+    }
+
+    @Test
+    void forwardedRenderedCanvasKeepsItsDigest() throws IOException {
+        CanvasImage canvas = CanvasImage.rendered(drawing());
+
+        // 转发给其他节点时编码为PNG，负责节点解码后的摘要必须与发送方一致
+        CanvasImage forwarded = CanvasImage.decodeRendered(canvas.toBase64());
+
+        assertTrue(forwarded.isRendered());
+        assertArrayEquals(canvas.sha256(), forwarded.sha256());
+    }
+
+    @Test
+    void uploadedCanvasDigestIsTheDigestOfItsBase64Text() throws Exception {
+        String base64 = CanvasImage.rendered(drawing()).toBase64();
+
+        // 集群缓存的键和历史记录的哈希按Base64文本计算，与逐字符计算的结果相同
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(base64.getBytes(StandardCharsets.US_ASCII)),
+                CanvasImage.of(base64).sha256());
+    }
+
+    @Test
+    void renderedAndUploadedCanvasesDecodeToTheSamePixels() throws IOException {
+        CanvasImage rendered = CanvasImage.rendered(drawing());
+        CanvasImage uploaded = CanvasImage.of(rendered.toBase64());
+
+        // 光栅化的画布不经过PNG编解码，预处理的输入必须与以前上传PNG时相同
+        assertFalse(uploaded.isRendered());
+        for (int size : new int[]{64, 200}) {
+            BufferedImage direct = rendered.decode(size, size);
+            BufferedImage viaPng = uploaded.decode(size, size);
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    assertEquals(viaPng.getRGB(x, y), direct.getRGB(x, y), size + ": (" + x + ", " + y + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    void decodeRenderedRejectsNonImages() {
+        assertThrows(IllegalArgumentException.class, () -> CanvasImage.decodeRendered("bm90IGFuIGltYWdl"));
+    }
+}
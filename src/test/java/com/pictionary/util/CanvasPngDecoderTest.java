@@ -0,0 +1,84 @@
+package com.pictionary.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CanvasPngDecoderTest {
+
+    @Test
+    void decodesRgbaPngLikeImageIo() throws IOException {
+        Random random = new Random(42);
+        // 随机像素会让 ImageIO 为不同的行选择不同的滤波类型
+        for (int round = 0; round < 10; round++) {
+            int width = 1 + random.nextInt(200);
+            int height = 1 + random.nextInt(150);
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    image.setRGB(x, y, round % 2 == 0 ? random.nextInt() : (x * y) | ((x + y) % 256) << 24);
+                }
+            }
+            byte[] png = toPng(image);
+
+            GrayAlphaImage decoded = CanvasPngDecoder.decode(png, width, height);
+            assertNotNull(decoded);
+
+            BufferedImage reference = ImageIO.read(new ByteArrayInputStream(png));
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int argb = reference.getRGB(x, y);
+                    int alpha = argb >>> 24;
+                    int luminance = (77 * ((argb >> 16) & 0xFF) + 150 * ((argb >> 8) & 0xFF) + 29 * (argb & 0xFF) + 128) >> 8;
+                    assertEquals(alpha, decoded.getAlpha(x, y));
+                    assertEquals(alpha == 0 ? 0 : luminance, decoded.getLuminance(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    void downsamplesCanvasToTargetSize() throws IOException {
+        BufferedImage canvas = new BufferedImage(500, 400, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, 250, 400);
+        g.dispose();
+
+        GrayAlphaImage decoded = CanvasPngDecoder.decode(toPng(canvas), 300, 300);
+        assertNotNull(decoded);
+        assertEquals(300, decoded.getWidth());
+        assertEquals(300, decoded.getHeight());
+        // 左半边为不透明黑色，右半边透明
+        assertEquals(255, decoded.getAlpha(10, 150));
+        assertEquals(0, decoded.getLuminance(10, 150));
+        assertEquals(0, decoded.getAlpha(290, 150));
+    }
+
+    @Test
+    void returnsNullForUnsupportedOrCorruptData() throws IOException {
+        BufferedImage rgb = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+        assertNull(CanvasPngDecoder.decode(toPng(rgb), 10, 10));
+
+        byte[] png = toPng(new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+        assertNull(CanvasPngDecoder.decode(Arrays.copyOf(png, png.length / 2), 50, 50));
+        assertNull(CanvasPngDecoder.decode(new byte[]{1, 2, 3}, 50, 50));
+    }
+
+    private static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package com.pictionary.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImageHeaderTest {
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 只有签名和IHDR块、声明了巨大尺寸的PNG（解压炸弹的文件头）
+     */
+    private static byte[] pngHeader(int width, int height) {
+        ByteBuffer ihdr = ByteBuffer.allocate(17);
+        ihdr.putInt(0x49484452).putInt(width).putInt(height).put(new byte[]{8, 6, 0, 0, 0});
+        CRC32 crc = new CRC32();
+        crc.update(ihdr.array());
+        return ByteBuffer.allocate(8 + 4 + 17 + 4)
+                .put(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})
+                .putInt(13).put(ihdr.array()).putInt((int) crc.getValue())
+                .array();
+    }
+
+    @Test
+    void readsDimensionsWithoutDecodingPixels() throws IOException {
+        byte[] png = encode(new BufferedImage(500, 400, BufferedImage.TYPE_INT_ARGB), "png");
+        ImageHeader header = ImageHeader.read(Arrays.copyOf(png, 24));
+        assertEquals("png", header.format());
+        assertEquals(500, header.width());
+        assertEquals(400, header.height());
+
+        byte[] jpeg = encode(new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB), "jpeg");
+        header = ImageHeader.read(jpeg);
+        assertEquals(320, header.width());
+        assertEquals(240, header.height());
+
+        assertNull(ImageHeader.read(new byte[]{1, 2, 3}));
+        assertNull(ImageHeader.read(Arrays.copyOf(png, 12)));
+    }
+
+    @Test
+    void decodeRejectsDeclaredHugeDimensions() {
+        byte[] bomb = pngHeader(100_000, 100_000);
+        assertEquals(10_000_000_000L, ImageHeader.read(bomb).pixels());
+        assertThrows(IllegalArgumentException.class, () -> ImageUtil.decodeCanvas(bomb, 300, 300));
+        // 超过int范围的宽度（无符号32位）视为无效
+        assertNull(ImageHeader.read(pngHeader(-1, 10)));
+    }
+}
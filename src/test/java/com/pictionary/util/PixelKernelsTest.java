@@ -0,0 +1,69 @@
+package com.pictionary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ImageUtil 与原来逐像素 Color 实现的等价性测试
+ * 向量内核与标量内核的等价性测试在 src/vector-test 中，只在 vector 构建中运行
+ */
+class PixelKernelsTest {
+
+    /**
+     * 所有颜色通道值和透明度的组合，长度不是向量宽度的整数倍以覆盖尾部处理
+     */
+    static int[] pixels() {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] pixels = new int[256 * 4 * 3 + 13];
+        int n = 0;
+        for (int c = 0; c < 256; c++) {
+            for (int alpha : new int[]{0, 1, 128, 255}) {
+                pixels[n++] = (alpha << 24) | (c << 16) | (random.nextInt(256) << 8) | random.nextInt(256);
+                pixels[n++] = (alpha << 24) | (random.nextInt(256) << 16) | (c << 8) | random.nextInt(256);
+                pixels[n++] = (alpha << 24) | (random.nextInt(256) << 16) | (random.nextInt(256) << 8) | c;
+            }
+        }
+        while (n < pixels.length) {
+            pixels[n++] = random.nextInt();
+        }
+        return pixels;
+    }
+
+    @Test
+    void imageUtilMatchesPerPixelColorImplementation() {
+        int[] src = pixels();
+        int width = 37;
+        int height = src.length / width;
+        for (int type : new int[]{BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_4BYTE_ABGR}) {
+            BufferedImage image = new BufferedImage(width, height, type);
+            image.setRGB(0, 0, width, height, src, 0, width);
+
+            BufferedImage enhanced = ImageUtil.enhanceContrast(image);
+            BufferedImage simplified = ImageUtil.simplifyImage(image, 200);
+            assertEquals(type, enhanced.getType());
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    Color color = new Color(image.getRGB(x, y), true);
+                    Color contrast = new Color(contrast(color.getRed()), contrast(color.getGreen()),
+                            contrast(color.getBlue()), color.getAlpha());
+                    BufferedImage reference = new BufferedImage(1, 1, type);
+                    reference.setRGB(0, 0, contrast.getRGB());
+                    assertEquals(reference.getRGB(0, 0), enhanced.getRGB(x, y), "type=" + type);
+
+                    int brightness = (color.getRed() + color.getGreen() + color.getBlue()) / 3;
+                    int expected = color.getAlpha() == 0 ? color.getRGB() : brightness > 200 ? 0 : Color.BLACK.getRGB();
+                    assertEquals(expected, simplified.getRGB(x, y), "type=" + type);
+                }
+            }
+        }
+    }
+
+    private static int contrast(int channel) {
+        return Math.min(255, Math.max(0, Math.round((channel - 128) * 1.2f + 128)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.pictionary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SketchBitmapTest {
+
+    @Test
+    void matchesSimplifyImageThreshold() {
+        BufferedImage image = new BufferedImage(130, 70, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke(3));
+        g.drawOval(10, 10, 100, 50);
+        g.setColor(new Color(230, 230, 230));
+        g.fillRect(100, 0, 30, 20);
+        g.dispose();
+
+        SketchBitmap bitmap = SketchBitmap.fromImage(image, 200);
+        BufferedImage simplified = ImageUtil.simplifyImage(image, 200);
+        BufferedImage roundTrip = bitmap.toImage();
+        int ink = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                boolean expected = simplified.getRGB(x, y) == Color.BLACK.getRGB();
+                assertEquals(expected, bitmap.get(x, y));
+                assertEquals(simplified.getRGB(x, y), roundTrip.getRGB(x, y));
+                ink += expected ? 1 : 0;
+            }
+        }
+        assertEquals(ink, bitmap.inkCount());
+    }
+
+    @Test
+    void morphologyMatchesNaiveImplementation() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            int width = 1 + random.nextInt(150);
+            int height = 1 + random.nextInt(40);
+            SketchBitmap bitmap = new SketchBitmap(width, height);
+            boolean[][] naive = new boolean[height][width];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    boolean ink = random.nextInt(4) != 0;
+                    naive[y][x] = ink;
+                    bitmap.set(x, y, ink);
+                }
+            }
+
+            SketchBitmap dilated = bitmap.dilate();
+            SketchBitmap eroded = bitmap.erode();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    boolean any = false;
+                    boolean all = true;
+                    for (int dy = -1; dy <= 1; dy++) {
+                        for (int dx = -1; dx <= 1; dx++) {
+                            int nx = x + dx;
+                            int ny = y + dy;
+                            boolean inside = nx >= 0 && ny >= 0 && nx < width && ny < height;
+                            boolean ink = inside && naive[ny][nx];
+                            any |= ink;
+                            all &= ink;
+                        }
+                    }
+                    assertEquals(any, dilated.get(x, y));
+                    assertEquals(all, eroded.get(x, y));
+                }
+            }
+
+            int factor = 2 + random.nextInt(5);
+            SketchBitmap small = bitmap.downsample(factor);
+            for (int ty = 0; ty < small.getHeight(); ty++) {
+                for (int tx = 0; tx < small.getWidth(); tx++) {
+                    boolean any = false;
+                    for (int y = ty * factor; y < Math.min(height, (ty + 1) * factor); y++) {
+                        for (int x = tx * factor; x < Math.min(width, (tx + 1) * factor); x++) {
+                            any |= naive[y][x];
+                        }
+                    }
+                    assertEquals(any, small.get(tx, ty));
+                }
+            }
+        }
+    }
+
+    @Test
+    void boundingBoxSpansWordBoundaries() {
+        SketchBitmap bitmap = new SketchBitmap(200, 50);
+        assertNull(bitmap.boundingBox());
+        bitmap.set(63, 5, true);
+        bitmap.set(130, 40, true);
+        bitmap.set(70, 12, true);
+        assertArrayEquals(new int[]{63, 5, 130, 40}, bitmap.boundingBox());
+        assertEquals(3, bitmap.inkCount());
+    }
+}
@@ -0,0 +1,59 @@
+package com.pictionary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrokeCodecTest {
+
+    @Test
+    void roundTripsStrokes() {
+        StrokeCodec.Drawing drawing = new StrokeCodec.Drawing(500, 400, List.of(
+                new StrokeCodec.Stroke(0x000000, 5, new int[]{10, 11, 13, 499, 0}, new int[]{20, 20, 19, 399, 0}),
+                new StrokeCodec.Stroke(0xFF8800, 12, new int[]{250}, new int[]{200})));
+
+        byte[] encoded = StrokeCodec.encode(drawing, 1);
+        StrokeCodec.Drawing decoded = StrokeCodec.decode(encoded);
+
+        assertEquals(500, decoded.width());
+        assertEquals(400, decoded.height());
+        assertEquals(2, decoded.strokes().size());
+        for (int i = 0; i < 2; i++) {
+            StrokeCodec.Stroke expected = drawing.strokes().get(i);
+            StrokeCodec.Stroke actual = decoded.strokes().get(i);
+            assertEquals(expected.color(), actual.color());
+            assertEquals(expected.lineWidth(), actual.lineWidth());
+            assertArrayEquals(expected.xs(), actual.xs());
+            assertArrayEquals(expected.ys(), actual.ys());
+        }
+    }
+
+    @Test
+    void simplifyKeepsCornersAndDropsCollinearPoints() {
+        // 一条水平线加一条竖线，中间点都在直线上
+        int[] xs = {0, 10, 20, 30, 40, 40, 40, 40};
+        int[] ys = {0, 0, 1, 0, 0, 10, 20, 30};
+        StrokeCodec.Stroke simplified = StrokeCodec.simplify(new StrokeCodec.Stroke(0, 5, xs, ys), 1.5);
+
+        assertArrayEquals(new int[]{0, 40, 40}, simplified.xs());
+        assertArrayEquals(new int[]{0, 0, 30}, simplified.ys());
+        assertTrue(StrokeCodec.simplify(new StrokeCodec.Stroke(0, 5, xs, ys), 0).xs().length == xs.length);
+    }
+
+    @Test
+    void rejectsTruncatedOrOversizedData() {
+        byte[] encoded = StrokeCodec.encode(new StrokeCodec.Drawing(500, 400, List.of(
+                new StrokeCodec.Stroke(0, 5, new int[]{1, 2, 3}, new int[]{4, 5, 6}))), 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> StrokeCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> StrokeCodec.decode(new byte[]{2}));
+        assertThrows(IllegalArgumentException.class, () -> StrokeCodec.decode(
+                StrokeCodec.encode(new StrokeCodec.Drawing(10_000, 400, List.of()), 1)));
+    }
+}
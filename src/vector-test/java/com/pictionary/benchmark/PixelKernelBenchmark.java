@@ -0,0 +1,118 @@
+package com.pictionary.benchmark;
+
+import com.pictionary.util.PixelKernels;
+import com.pictionary.util.ScalarPixelKernels;
+import com.pictionary.util.VectorPixelKernels;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 像素内核基准测试
+ * 比较标量实现和本机支持的每种向量宽度（不超过 IntVector.SPECIES_PREFERRED）的对比度增强和二值化吞吐量，
+ * 每个内核先预热再测量若干轮，输出每轮的中位数（百万像素/秒）。
+ * 同一个JVM里混用多种向量宽度会污染C2的类型profile，向量无法编译成SIMD指令，所以每个内核在单独的JVM中运行
+ *
+ * 在 vector 构建中编译（mvn -Pvector,pixel-benchmark verify），也可以直接运行：
+ * java --add-modules jdk.incubator.vector PixelKernelBenchmark [边长=512] [预热轮数=50] [测量轮数=20] [内核=全部]
+ */
+public class PixelKernelBenchmark {
+
+    // 每轮处理的次数，使一轮耗时在毫秒级以上
+    private static final int OPS_PER_ROUND = 20;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws Exception {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int warmupRounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        if (args.length > 3) {
+            run(args[3], side, warmupRounds, rounds);
+            return;
+        }
+
+        List<String> candidates = new ArrayList<>();
+        candidates.add("scalar");
+        for (VectorShape shape : List.of(VectorShape.S_64_BIT, VectorShape.S_128_BIT,
+                VectorShape.S_256_BIT, VectorShape.S_512_BIT)) {
+            if (shape.vectorBitSize() <= IntVector.SPECIES_PREFERRED.vectorBitSize()) {
+                candidates.add("vector-" + shape.vectorBitSize());
+            }
+        }
+        System.out.printf("图像 %dx%d，预热 %d 轮，测量 %d 轮，每轮 %d 次，首选向量宽度 %d 位，默认选择 %s%n",
+                side, side, warmupRounds, rounds, OPS_PER_ROUND,
+                IntVector.SPECIES_PREFERRED.vectorBitSize(), PixelKernels.select().name());
+        System.out.printf("%-12s %18s %18s%n", "内核", "对比度(MPix/s)", "二值化(MPix/s)");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        for (String candidate : candidates) {
+            Process process = new ProcessBuilder(java, "--add-modules", "jdk.incubator.vector",
+                    "-cp", System.getProperty("java.class.path"), PixelKernelBenchmark.class.getName(),
+                    String.valueOf(side), String.valueOf(warmupRounds), String.valueOf(rounds), candidate)
+                    .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (process.waitFor() != 0) {
+                System.out.printf("%-12s 运行失败，退出码 %d%n", candidate, process.exitValue());
+            }
+        }
+    }
+
+    private static void run(String kernel, int side, int warmupRounds, int rounds) {
+        PixelKernels kernels = kernel.equals("scalar")
+                ? ScalarPixelKernels.INSTANCE
+                : new VectorPixelKernels(VectorSpecies.of(int.class,
+                        VectorShape.forBitSize(Integer.parseInt(kernel.substring("vector-".length())))));
+
+        // 与画布相似的数据：大部分透明，少量深色笔画像素和半透明的抗锯齿边缘
+        SplittableRandom random = new SplittableRandom(7);
+        int[] src = new int[side * side];
+        for (int i = 0; i < src.length; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 7) {
+                src[i] = 0;
+            } else if (kind < 9) {
+                src[i] = 0xFF000000 | random.nextInt(0x404040);
+            } else {
+                src[i] = (random.nextInt(1, 256) << 24) | random.nextInt(0x1000000);
+            }
+        }
+        int[] dst = new int[src.length];
+
+        double contrast = measure(warmupRounds, rounds, src.length,
+                () -> kernels.enhanceContrast(src, dst, src.length), dst);
+        double simplify = measure(warmupRounds, rounds, src.length,
+                () -> kernels.simplify(src, dst, src.length, 200), dst);
+        System.out.printf("%-12s %18.1f %18.1f%n", kernels.name(), contrast, simplify);
+    }
+
+    private static double measure(int warmupRounds, int rounds, int pixels, Runnable op, int[] dst) {
+        for (int r = 0; r < warmupRounds; r++) {
+            runRound(op, dst);
+        }
+        long[] nanos = new long[rounds];
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            runRound(op, dst);
+            nanos[r] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long median = nanos[rounds / 2];
+        return (double) pixels * OPS_PER_ROUND / median * 1e3;
+    }
+
+    private static void runRound(Runnable op, int[] dst) {
+        for (int i = 0; i < OPS_PER_ROUND; i++) {
+            op.run();
+            // 读取结果防止被当作死代码消除
+            sink += dst[i];
+        }
+    }
+}
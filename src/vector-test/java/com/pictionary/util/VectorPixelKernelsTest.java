@@ -0,0 +1,59 @@
+package com.pictionary.util;
+
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 向量内核与标量内核的等价性测试
+ * 只在 vector 构建（mvn -Pvector）中编译，surefire 以 --add-modules jdk.incubator.vector 运行，未加载模块时跳过
+ */
+class VectorPixelKernelsTest {
+
+    private static List<PixelKernels> vectorKernels() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "未加载 jdk.incubator.vector");
+        List<PixelKernels> kernels = new ArrayList<>();
+        // 硬件不支持的宽度由 Vector API 用纯Java实现，结果同样必须一致
+        for (VectorShape shape : List.of(VectorShape.S_64_BIT, VectorShape.S_128_BIT,
+                VectorShape.S_256_BIT, VectorShape.S_512_BIT)) {
+            kernels.add(new VectorPixelKernels(VectorSpecies.of(int.class, shape)));
+        }
+        return kernels;
+    }
+
+    @Test
+    void vectorContrastMatchesScalar() {
+        int[] src = PixelKernelsTest.pixels();
+        int[] expected = new int[src.length];
+        ScalarPixelKernels.INSTANCE.enhanceContrast(src, expected, src.length);
+        for (PixelKernels kernels : vectorKernels()) {
+            for (int length : new int[]{0, 1, 7, 64, src.length}) {
+                int[] actual = new int[src.length];
+                kernels.enhanceContrast(src, actual, length);
+                assertArrayEquals(Arrays.copyOf(expected, length), Arrays.copyOf(actual, length), kernels.name());
+            }
+        }
+    }
+
+    @Test
+    void vectorSimplifyMatchesScalar() {
+        int[] src = PixelKernelsTest.pixels();
+        List<PixelKernels> vectorKernels = vectorKernels();
+        for (int threshold = -2; threshold <= 257; threshold++) {
+            int[] expected = new int[src.length];
+            ScalarPixelKernels.INSTANCE.simplify(src, expected, src.length, threshold);
+            for (PixelKernels kernels : vectorKernels) {
+                int[] actual = new int[src.length];
+                kernels.simplify(src, actual, src.length, threshold);
+                assertArrayEquals(expected, actual, kernels.name() + " threshold=" + threshold);
+            }
+        }
+    }
+}
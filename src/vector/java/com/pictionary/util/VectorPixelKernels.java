@@ -0,0 +1,87 @@
+package com.pictionary.util;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 Vector API（jdk.incubator.vector）的像素内核
+ * 一次处理一个向量宽度的像素，凑不满一个向量的尾部交给标量实现。
+ * 只在 vector 构建（mvn -Pvector）中编译；只能通过 PixelKernels.select() 反射创建，
+ * 或在已加载该模块的代码（src/vector-test 中的测试、基准测试）中直接使用
+ */
+public final class VectorPixelKernels implements PixelKernels {
+
+    private final VectorSpecies<Integer> intSpecies;
+
+    public VectorPixelKernels() {
+        this(IntVector.SPECIES_PREFERRED);
+    }
+
+    /**
+     * @param species 向量宽度，基准测试用它比较不同宽度
+     */
+    public VectorPixelKernels(VectorSpecies<Integer> species) {
+        this.intSpecies = species;
+    }
+
+    @Override
+    public void enhanceContrast(int[] src, int[] dst, int length) {
+        int upperBound = intSpecies.loopBound(length);
+        int i = 0;
+        for (; i < upperBound; i += intSpecies.length()) {
+            IntVector pixels = IntVector.fromArray(intSpecies, src, i);
+            IntVector red = contrast(pixels.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+            IntVector green = contrast(pixels.lanewise(VectorOperators.LSHR, 8).and(0xFF));
+            IntVector blue = contrast(pixels.and(0xFF));
+            pixels.and(0xFF000000)
+                    .or(red.lanewise(VectorOperators.LSHL, 16))
+                    .or(green.lanewise(VectorOperators.LSHL, 8))
+                    .or(blue)
+                    .intoArray(dst, i);
+        }
+        ScalarPixelKernels.enhanceContrast(src, dst, i, length);
+    }
+
+    /**
+     * 与标量的 Math.round((c - 128) * 1.2f + 128) 逐位一致的整数算法：
+     * (c - 128) * 1.2 的小数部分只可能是 .0/.2/.4/.6/.8，不会出现舍入边界，所以结果等于 floor((12c - 251) / 10)，
+     * 除以10用乘以52429再右移19位代替（被除数不超过 12 * 255 时精确）。
+     * JDK 17 的 C2 不能把浮点与整数向量之间的转换编译成SIMD指令，所以这里不用浮点
+     */
+    private static IntVector contrast(IntVector channel) {
+        return channel.mul(12).sub(251).max(0)
+                .mul(52429).lanewise(VectorOperators.LSHR, 19)
+                .min(255);
+    }
+
+    @Override
+    public void simplify(int[] src, int[] dst, int length, int threshold) {
+        // 亮度在0-255之间，把阈值限制在[-1, 255]内结果不变，且下面乘3不会溢出
+        int clamped = Math.max(-1, Math.min(255, threshold));
+        // (r + g + b) / 3 > t 等价于 r + g + b > 3t + 2，避免向量整数除法
+        int sumThreshold = clamped * 3 + 2;
+        IntVector black = IntVector.broadcast(intSpecies, 0xFF000000);
+        int upperBound = intSpecies.loopBound(length);
+        int i = 0;
+        for (; i < upperBound; i += intSpecies.length()) {
+            IntVector pixels = IntVector.fromArray(intSpecies, src, i);
+            VectorMask<Integer> transparent = pixels.lanewise(VectorOperators.LSHR, 24)
+                    .compare(VectorOperators.EQ, 0);
+            IntVector sum = pixels.lanewise(VectorOperators.LSHR, 16).and(0xFF)
+                    .add(pixels.lanewise(VectorOperators.LSHR, 8).and(0xFF))
+                    .add(pixels.and(0xFF));
+            VectorMask<Integer> light = sum.compare(VectorOperators.GT, sumThreshold);
+            black.blend(0, light)
+                    .blend(pixels, transparent)
+                    .intoArray(dst, i);
+        }
+        ScalarPixelKernels.simplify(src, dst, i, length, threshold);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + intSpecies.vectorBitSize();
+    }
+}